@@ -474,6 +474,8 @@ public final class AccountExceptionMessage {
       "Account balances of %s accounting situation has not been updated, you must run the contact account batch update." /*)*/;
   public static final String BATCH_ACCOUNT_5 = /*$$(*/
       "Account balances from all accounts situations (%s) has been updated." /*)*/;
+  public static final String BATCH_ACCOUNT_6 = /*$$(*/
+      "* %s Partner account balance(s) fixed" /*)*/;
 
   /** Batch doubtful customer */
   public static final String BATCH_DOUBTFUL_1 = /*$$(*/
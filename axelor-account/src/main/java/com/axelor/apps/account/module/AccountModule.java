@@ -87,6 +87,8 @@ import com.axelor.apps.account.service.accountingsituation.AccountingSituationRe
 import com.axelor.apps.account.service.accountingsituation.AccountingSituationRecordServiceImpl;
 import com.axelor.apps.account.service.accountingsituation.AccountingSituationService;
 import com.axelor.apps.account.service.accountingsituation.AccountingSituationServiceImpl;
+import com.axelor.apps.account.service.accountingsituation.PartnerAccountBalanceService;
+import com.axelor.apps.account.service.accountingsituation.PartnerAccountBalanceServiceImpl;
 import com.axelor.apps.account.service.analytic.AccountConfigAnalyticService;
 import com.axelor.apps.account.service.analytic.AccountConfigAnalyticServiceImpl;
 import com.axelor.apps.account.service.analytic.AnalyticAccountService;
@@ -918,5 +920,7 @@ public class AccountModule extends AxelorModule {
 
     bind(AdvancePaymentMoveLineCreateService.class)
         .to(AdvancePaymentMoveLineCreateServiceImpl.class);
+
+    bind(PartnerAccountBalanceService.class).to(PartnerAccountBalanceServiceImpl.class);
   }
 }
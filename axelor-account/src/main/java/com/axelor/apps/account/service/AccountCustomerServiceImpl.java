@@ -28,6 +28,7 @@ import com.axelor.apps.account.db.repo.MoveRepository;
 import com.axelor.apps.account.exception.AccountExceptionMessage;
 import com.axelor.apps.account.service.accountingsituation.AccountingSituationInitService;
 import com.axelor.apps.account.service.accountingsituation.AccountingSituationService;
+import com.axelor.apps.account.service.accountingsituation.PartnerAccountBalanceService;
 import com.axelor.apps.base.AxelorException;
 import com.axelor.apps.base.db.Company;
 import com.axelor.apps.base.db.Partner;
@@ -57,18 +58,21 @@ public class AccountCustomerServiceImpl implements AccountCustomerService {
   protected AccountingSituationRepository accSituationRepo;
   protected AccountingSituationInitService accountingSituationInitService;
   protected AppBaseService appBaseService;
+  protected PartnerAccountBalanceService partnerAccountBalanceService;
 
   @Inject
   public AccountCustomerServiceImpl(
       AccountingSituationService accountingSituationService,
       AccountingSituationInitService accountingSituationInitService,
       AccountingSituationRepository accSituationRepo,
-      AppBaseService appBaseService) {
+      AppBaseService appBaseService,
+      PartnerAccountBalanceService partnerAccountBalanceService) {
 
     this.accountingSituationService = accountingSituationService;
     this.accountingSituationInitService = accountingSituationInitService;
     this.accSituationRepo = accSituationRepo;
     this.appBaseService = appBaseService;
+    this.partnerAccountBalanceService = partnerAccountBalanceService;
   }
 
   @Override
@@ -77,7 +81,8 @@ public class AccountCustomerServiceImpl implements AccountCustomerService {
   }
 
   /**
-   * Fonction permettant de calculer le solde total d'un tiers
+   * Fonction permettant de calculer le solde total d'un tiers. Lorsque les soldes par compte des
+   * tiers sont gérés, le solde est la somme de ces soldes.
    *
    * @param partner Un tiers
    * @param company Une société
@@ -87,6 +92,10 @@ public class AccountCustomerServiceImpl implements AccountCustomerService {
   public BigDecimal getBalance(Partner partner, Company company) {
     log.debug("Compute balance (Partner : {}, Company : {})", partner.getName(), company.getName());
 
+    if (partnerAccountBalanceService.isManaged()) {
+      return partnerAccountBalanceService.getBalance(partner, company);
+    }
+
     Query query =
         JPA.em()
             .createNativeQuery(
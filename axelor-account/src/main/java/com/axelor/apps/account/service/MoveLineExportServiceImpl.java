@@ -20,10 +20,8 @@ package com.axelor.apps.account.service;
 
 import com.axelor.apps.account.db.AccountingReport;
 import com.axelor.apps.account.db.AccountingReportType;
-import com.axelor.apps.account.db.Journal;
 import com.axelor.apps.account.db.Move;
 import com.axelor.apps.account.db.MoveLine;
-import com.axelor.apps.account.db.ReconcileGroup;
 import com.axelor.apps.account.db.repo.AccountRepository;
 import com.axelor.apps.account.db.repo.AccountingReportRepository;
 import com.axelor.apps.account.db.repo.JournalRepository;
@@ -51,24 +49,33 @@ import com.axelor.meta.db.MetaFile;
 import com.axelor.utils.helpers.file.CsvHelper;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.invoke.MethodHandles;
 import java.math.BigDecimal;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.stream.Stream;
 import javax.persistence.Query;
 import org.apache.commons.lang3.StringUtils;
+import org.hibernate.jpa.QueryHints;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -92,6 +99,9 @@ public class MoveLineExportServiceImpl implements MoveLineExportService {
 
   protected static final String DATE_FORMAT_YYYYMMDD = "yyyyMMdd";
   protected static final String DATE_FORMAT_YYYYMMDDHHMMSS = "yyyyMMddHHmmss";
+  protected static final DateTimeFormatter DATE_FORMATTER_YYYYMMDD =
+      DateTimeFormatter.ofPattern(DATE_FORMAT_YYYYMMDD);
+  protected static final int EXPORT_PAGE_SIZE = 10000;
 
   @Inject
   public MoveLineExportServiceImpl(
@@ -346,7 +356,6 @@ public class MoveLineExportServiceImpl implements MoveLineExportService {
       throws AxelorException, IOException {
 
     log.info("In Export type 1000 service : ");
-    List<String[]> allMoveLineData = new ArrayList<>();
     Company company = accountingReport.getCompany();
 
     LocalDate interfaceDate = accountingReport.getDate();
@@ -406,105 +415,174 @@ public class MoveLineExportServiceImpl implements MoveLineExportService {
 
     String moveLineQueryStr = StringUtils.join(moveLineQueryList, " AND ");
 
-    com.axelor.db.Query<MoveLine> moveLineQuery =
-        moveLineRepo
-            .all()
-            .filter(moveLineQueryStr)
-            .order("move.accountingDate")
-            .order("date")
-            .order("name");
-
-    int offset = 0;
-    List<Long> moveLineIdList;
-    List<Move> moveList = new ArrayList<>();
-    String exportNumber = null;
-
-    while (!(moveLineIdList =
-            moveLineQuery
-                .fetchStream(10000, offset)
-                .map(MoveLine::getId)
-                .collect(Collectors.toList()))
-        .isEmpty()) {
-
-      for (Long id : moveLineIdList) {
-        MoveLine moveLine = moveLineRepo.find(id);
-        offset++;
-        allMoveLineData.add(createItemForExportMoveLine(moveLine, moveList));
-      }
-
-      JPA.clear();
-      company = companyRepository.find(company.getId());
-      if (!administration) {
-        exportNumber = exportNumber != null ? exportNumber : this.getSaleExportNumber(company);
-        this.updateMoveList(moveList, accountingReport, interfaceDate, exportNumber);
+    accountingReport = accountingReportRepo.find(accountingReport.getId());
+    String fileName = this.setFileName(accountingReport);
+    String filePath = this.getExportFilePath(company);
+    File exportFile = Paths.get(filePath, fileName).toFile();
+    Files.deleteIfExists(exportFile.toPath());
+
+    Set<Long> moveIdSet = new HashSet<>();
+    String[] columnHeader = this.createHeaderForJournalEntry();
+    List<String[]> moveLineDataList = new ArrayList<>();
+
+    try (Stream<Object[]> moveLineDataStream = this.getMoveLineDataStream(moveLineQueryStr)) {
+      Iterator<Object[]> moveLineDataIterator = moveLineDataStream.iterator();
+      while (moveLineDataIterator.hasNext()) {
+        moveLineDataList.add(
+            createItemForExportMoveLine(moveLineDataIterator.next(), moveIdSet));
+        if (moveLineDataList.size() == EXPORT_PAGE_SIZE) {
+          this.appendMoveLineToCsvFile(exportFile, columnHeader, moveLineDataList);
+          columnHeader = null;
+          moveLineDataList.clear();
+        }
       }
-
-      moveList.clear();
     }
+    this.appendMoveLineToCsvFile(exportFile, columnHeader, moveLineDataList);
 
-    accountingReport = accountingReportRepo.find(accountingReport.getId());
+    if (!administration && !moveIdSet.isEmpty()) {
+      String exportNumber = this.getSaleExportNumber(company);
+      this.updateMoves(moveIdSet, accountingReport, interfaceDate, exportNumber);
+    }
 
-    String fileName = this.setFileName(accountingReport);
     accountingReportRepo.save(accountingReport);
-    return writeMoveLineToCsvFile(
-        company, fileName, this.createHeaderForJournalEntry(), allMoveLineData, accountingReport);
+    return this.attachExportFile(filePath, fileName, accountingReport);
+  }
+
+  /**
+   * Stream the columns of the exported move lines, without loading the move lines. The order of
+   * the columns is the one expected by {@link #createItemForExportMoveLine(Object[], Set)}.
+   *
+   * @param moveLineQueryStr filter on the move lines, using self as alias
+   * @return a stream to close once read
+   */
+  protected Stream<Object[]> getMoveLineDataStream(String moveLineQueryStr) {
+    return JPA.em()
+        .createQuery(
+            "SELECT journal.code, journal.name, move.reference, self.date, "
+                + "account.code, account.name, accountType.isManageSubsidiaryAccount, "
+                + "partner.id, partner.partnerSeq, partner.name, "
+                + "self.origin, self.originDate, self.description, self.debit, self.credit, "
+                + "reconcileGroup.statusSelect, reconcileGroup.code, "
+                + "reconcileGroup.letteringDateTime, move.accountingDate, self.currencyAmount, "
+                + "currency.codeISO, move.id "
+                + "FROM MoveLine self "
+                + "JOIN self.move move "
+                + "JOIN move.journal journal "
+                + "JOIN self.account account "
+                + "LEFT JOIN account.accountType accountType "
+                + "LEFT JOIN self.partner partner "
+                + "LEFT JOIN self.reconcileGroup reconcileGroup "
+                + "LEFT JOIN move.currency currency "
+                + "WHERE "
+                + moveLineQueryStr
+                + " ORDER BY move.accountingDate, self.date, self.name, self.id",
+            Object[].class)
+        .setHint(QueryHints.HINT_FETCH_SIZE, EXPORT_PAGE_SIZE)
+        .getResultStream();
   }
 
-  protected String[] createItemForExportMoveLine(MoveLine moveLine, List<Move> moveList) {
+  protected String[] createItemForExportMoveLine(Object[] moveLineData, Set<Long> moveIdSet) {
     String[] items = new String[18];
-    Move move = moveLine.getMove();
-    if (!moveList.contains(move)) {
-      moveList.add(move);
-    }
-    Journal journal = move.getJournal();
-    items[0] = journal.getCode();
-    items[1] = journal.getName();
-    items[2] = moveLine.getMove().getReference();
-    items[3] = moveLine.getDate().format(DateTimeFormatter.ofPattern(DATE_FORMAT_YYYYMMDD));
-    items[4] = moveLine.getAccount().getCode();
-    items[5] = moveLine.getAccount().getName();
+    moveIdSet.add((Long) moveLineData[21]);
+
+    items[0] = (String) moveLineData[0];
+    items[1] = (String) moveLineData[1];
+    items[2] = (String) moveLineData[2];
+    items[3] = ((LocalDate) moveLineData[3]).format(DATE_FORMATTER_YYYYMMDD);
+    items[4] = (String) moveLineData[4];
+    items[5] = (String) moveLineData[5];
     items[6] = "";
     items[7] = "";
-    Partner partner = moveLine.getPartner();
-    if (partner != null && moveLine.getAccount().getAccountType().getIsManageSubsidiaryAccount()) {
-      items[6] = partner.getPartnerSeq();
-      items[7] = partner.getName();
+    if (moveLineData[7] != null && Boolean.TRUE.equals(moveLineData[6])) {
+      items[6] = (String) moveLineData[8];
+      items[7] = (String) moveLineData[9];
     }
-    String origin = moveLine.getOrigin();
+    String origin = (String) moveLineData[10];
     items[8] = Strings.isNullOrEmpty(origin) ? "NA" : origin;
-    if (moveLine.getOriginDate() != null) {
-      items[9] = moveLine.getOriginDate().format(DateTimeFormatter.ofPattern(DATE_FORMAT_YYYYMMDD));
+    if (moveLineData[11] != null) {
+      items[9] = ((LocalDate) moveLineData[11]).format(DATE_FORMATTER_YYYYMMDD);
     }
-    items[10] = moveLine.getDescription();
-    items[11] = moveLine.getDebit().toString().replace('.', ',');
-    items[12] = moveLine.getCredit().toString().replace('.', ',');
-
-    ReconcileGroup reconcileGroup = moveLine.getReconcileGroup();
-    if (reconcileGroup != null
-        && reconcileGroup.getStatusSelect() == ReconcileGroupRepository.STATUS_BALANCED) {
-      items[13] = reconcileGroup.getCode();
-      items[14] =
-          reconcileGroup
-              .getLetteringDateTime()
-              .format(DateTimeFormatter.ofPattern(DATE_FORMAT_YYYYMMDD));
+    items[10] = (String) moveLineData[12];
+    items[11] = moveLineData[13].toString().replace('.', ',');
+    items[12] = moveLineData[14].toString().replace('.', ',');
+
+    if (moveLineData[15] != null
+        && (Integer) moveLineData[15] == ReconcileGroupRepository.STATUS_BALANCED) {
+      items[13] = (String) moveLineData[16];
+      items[14] = ((LocalDateTime) moveLineData[17]).format(DATE_FORMATTER_YYYYMMDD);
     } else {
       items[13] = "";
       items[14] = "";
     }
 
-    if (move.getAccountingDate() != null) {
-      items[15] =
-          move.getAccountingDate().format(DateTimeFormatter.ofPattern(DATE_FORMAT_YYYYMMDD));
+    if (moveLineData[18] != null) {
+      items[15] = ((LocalDate) moveLineData[18]).format(DATE_FORMATTER_YYYYMMDD);
     }
 
-    items[16] = moveLine.getCurrencyAmount().toString().replace('.', ',');
+    items[16] = moveLineData[19].toString().replace('.', ',');
 
-    if (move.getCurrency() != null) {
-      items[17] = move.getCurrency().getCodeISO();
+    if (moveLineData[20] != null) {
+      items[17] = (String) moveLineData[20];
     }
     return items;
   }
 
+  /**
+   * Mark the exported moves as accounted with set-based updates, by batches of ids.
+   *
+   * @param moveIdSet ids of the exported moves
+   * @param accountingReport
+   * @param localDate export date
+   * @param exportNumber
+   */
+  protected void updateMoves(
+      Set<Long> moveIdSet,
+      AccountingReport accountingReport,
+      LocalDate localDate,
+      String exportNumber) {
+    for (List<Long> moveIdList : Lists.partition(new ArrayList<>(moveIdSet), EXPORT_PAGE_SIZE)) {
+      JPA.em()
+          .createQuery(
+              "UPDATE Move self SET self.exportNumber = :exportNumber, "
+                  + "self.exportDate = :exportDate, self.accountingOk = true, "
+                  + "self.accountingReport = :accountingReport, self.version = self.version + 1 "
+                  + "WHERE self.id IN (:moveIdList)")
+          .setParameter("exportNumber", exportNumber)
+          .setParameter("exportDate", localDate)
+          .setParameter("accountingReport", accountingReport)
+          .setParameter("moveIdList", moveIdList)
+          .executeUpdate();
+    }
+  }
+
+  /**
+   * Append data to a csv file. The csv helper only writes whole files, so the data is written to a
+   * temporary file first, then copied at the end of the given file.
+   *
+   * @param file the csv file, created if it does not exist
+   * @param columnHeader the header to write first, or null
+   * @param moveLineDataList the data
+   * @throws IOException
+   */
+  protected void appendMoveLineToCsvFile(
+      File file, String[] columnHeader, List<String[]> moveLineDataList) throws IOException {
+    if (columnHeader == null && moveLineDataList.isEmpty()) {
+      return;
+    }
+    this.removeSpecialCharacters(moveLineDataList);
+
+    File partFile = File.createTempFile(file.getName(), ".part", file.getParentFile());
+    try {
+      CsvHelper.csvWriter(
+          partFile.getParent(), partFile.getName(), '|', columnHeader, moveLineDataList);
+      try (OutputStream outputStream = new FileOutputStream(file, true)) {
+        Files.copy(partFile.toPath(), outputStream);
+      }
+    } finally {
+      Files.deleteIfExists(partFile.toPath());
+    }
+  }
+
   protected MetaFile writeMoveLineToCsvFile(
       Company company,
       String fileName,
@@ -513,9 +591,25 @@ public class MoveLineExportServiceImpl implements MoveLineExportService {
       AccountingReport accountingReport)
       throws AxelorException, IOException {
 
+    String filePath = this.getExportFilePath(company);
+
+    this.removeSpecialCharacters(allMoveData);
+
+    log.debug("Full path to export : {}{}", filePath, fileName);
+    CsvHelper.csvWriter(filePath, fileName, '|', columnHeader, allMoveData);
+    return this.attachExportFile(filePath, fileName, accountingReport);
+  }
+
+  protected String getExportFilePath(Company company) throws AxelorException {
     String filePath = accountConfigService.getAccountConfig(company).getExportPath();
     String dataExportDir = appAccountService.getDataExportDir();
 
+    filePath = filePath == null ? dataExportDir : dataExportDir + filePath;
+    new File(filePath).mkdirs();
+    return filePath;
+  }
+
+  protected void removeSpecialCharacters(List<String[]> allMoveData) {
     for (String[] items : allMoveData) {
       for (int i = 0; i < items.length; i++) {
         if (items[i] != null) {
@@ -523,12 +617,10 @@ public class MoveLineExportServiceImpl implements MoveLineExportService {
         }
       }
     }
+  }
 
-    filePath = filePath == null ? dataExportDir : dataExportDir + filePath;
-    new File(filePath).mkdirs();
-
-    log.debug("Full path to export : {}{}", filePath, fileName);
-    CsvHelper.csvWriter(filePath, fileName, '|', columnHeader, allMoveData);
+  protected MetaFile attachExportFile(
+      String filePath, String fileName, AccountingReport accountingReport) throws IOException {
     Path path = Paths.get(filePath, fileName);
     try (InputStream is = new FileInputStream(path.toFile())) {
       return Beans.get(MetaFiles.class).attach(is, fileName, accountingReport).getMetaFile();
@@ -0,0 +1,74 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2024 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.account.service.accountingsituation;
+
+import com.axelor.apps.account.db.Move;
+import com.axelor.apps.account.db.Reconcile;
+import com.axelor.apps.base.db.Company;
+import com.axelor.apps.base.db.Partner;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Maintains the balance of each partner, company and account, so the balance of a partner does
+ * not have to be computed from all its move lines.
+ */
+public interface PartnerAccountBalanceService {
+
+  /**
+   * @return true if the partner account balances are maintained and used to get partner balances
+   */
+  boolean isManaged();
+
+  /**
+   * Add the remaining amounts of the move lines of a move to the partner account balances when the
+   * move is accounted or accounted in daybook mode, or remove them when it is not anymore, for
+   * example when it is cancelled. Does nothing if the balances are already up to date with the
+   * status of the move.
+   *
+   * @param move the move
+   */
+  void updateBalances(Move move);
+
+  /**
+   * Update the partner account balances of the move lines of a confirmed or cancelled reconcile.
+   *
+   * @param reconcile the reconcile
+   */
+  void updateBalances(Reconcile reconcile);
+
+  /**
+   * Get the balance of a partner, as the sum of its partner account balances.
+   *
+   * @param partner a partner
+   * @param company a company
+   * @return the balance of the partner on the accounts used for partner balance
+   */
+  BigDecimal getBalance(Partner partner, Company company);
+
+  /**
+   * Compute the partner account balances from the move lines and fix the ones that are
+   * different.
+   *
+   * @param company a company
+   * @param partnerList the partners to check, or null to check all partners of the company
+   * @return the number of partner account balances that have been fixed
+   */
+  int rebuildBalances(Company company, List<Partner> partnerList);
+}
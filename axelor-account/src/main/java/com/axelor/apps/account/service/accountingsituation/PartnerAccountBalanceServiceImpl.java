@@ -0,0 +1,313 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2024 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.account.service.accountingsituation;
+
+import com.axelor.apps.account.db.Account;
+import com.axelor.apps.account.db.Move;
+import com.axelor.apps.account.db.MoveLine;
+import com.axelor.apps.account.db.PartnerAccountBalance;
+import com.axelor.apps.account.db.Reconcile;
+import com.axelor.apps.account.db.repo.AccountRepository;
+import com.axelor.apps.account.db.repo.MoveRepository;
+import com.axelor.apps.account.db.repo.PartnerAccountBalanceRepository;
+import com.axelor.apps.account.db.repo.ReconcileRepository;
+import com.axelor.apps.account.service.app.AppAccountService;
+import com.axelor.apps.base.db.Company;
+import com.axelor.apps.base.db.Partner;
+import com.axelor.apps.base.db.repo.PartnerRepository;
+import com.axelor.db.JPA;
+import com.axelor.db.Query;
+import com.google.inject.Inject;
+import com.google.inject.persist.Transactional;
+import java.lang.invoke.MethodHandles;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.TypedQuery;
+import org.apache.commons.collections.CollectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class PartnerAccountBalanceServiceImpl implements PartnerAccountBalanceService {
+
+  private final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  protected AppAccountService appAccountService;
+  protected PartnerAccountBalanceRepository partnerAccountBalanceRepository;
+  protected PartnerRepository partnerRepository;
+  protected AccountRepository accountRepository;
+
+  @Inject
+  public PartnerAccountBalanceServiceImpl(
+      AppAccountService appAccountService,
+      PartnerAccountBalanceRepository partnerAccountBalanceRepository,
+      PartnerRepository partnerRepository,
+      AccountRepository accountRepository) {
+    this.appAccountService = appAccountService;
+    this.partnerAccountBalanceRepository = partnerAccountBalanceRepository;
+    this.partnerRepository = partnerRepository;
+    this.accountRepository = accountRepository;
+  }
+
+  @Override
+  public boolean isManaged() {
+    return appAccountService.getAppAccount().getManagePartnerAccountBalance();
+  }
+
+  @Override
+  public void updateBalances(Move move) {
+    boolean isInBalance =
+        (move.getStatusSelect() == MoveRepository.STATUS_DAYBOOK
+                || move.getStatusSelect() == MoveRepository.STATUS_ACCOUNTED)
+            && !move.getIgnoreInAccountingOk();
+    if (!isManaged() || isInBalance == move.getInPartnerAccountBalanceOk()) {
+      return;
+    }
+
+    move.setInPartnerAccountBalanceOk(isInBalance);
+    if (CollectionUtils.isEmpty(move.getMoveLineList())) {
+      return;
+    }
+    for (MoveLine moveLine : move.getMoveLineList()) {
+      if (moveLine.getPartner() == null || moveLine.getAccount() == null) {
+        continue;
+      }
+      BigDecimal amount = this.getSignedAmount(moveLine, moveLine.getAmountRemaining());
+      this.addBalance(
+          move.getCompany(),
+          moveLine.getPartner(),
+          moveLine.getAccount(),
+          isInBalance ? amount : amount.negate());
+    }
+  }
+
+  @Override
+  public void updateBalances(Reconcile reconcile) {
+    if (!isManaged()) {
+      return;
+    }
+
+    // The reconciled amount is paid on both move lines. A debit line counts for its debit minus
+    // its amount paid and a credit line for its credit minus its amount paid, so the reconciled
+    // amount is removed from both, or added back when the reconcile is cancelled.
+    BigDecimal balanceChange =
+        reconcile.getStatusSelect() == ReconcileRepository.STATUS_CANCELED
+            ? reconcile.getAmount()
+            : reconcile.getAmount().negate();
+    this.addReconciledAmount(reconcile.getDebitMoveLine(), balanceChange);
+    this.addReconciledAmount(reconcile.getCreditMoveLine(), balanceChange);
+  }
+
+  protected void addReconciledAmount(MoveLine moveLine, BigDecimal balanceChange) {
+    Move move = moveLine.getMove();
+    if (moveLine.getPartner() == null
+        || !moveLine.getAccount().getReconcileOk()
+        || !move.getInPartnerAccountBalanceOk()) {
+      return;
+    }
+    this.addBalance(move.getCompany(), moveLine.getPartner(), moveLine.getAccount(), balanceChange);
+  }
+
+  /**
+   * The amount remaining of a move line is counted as it is in the balance for a debit line and
+   * negated for a credit line, whose amount remaining is negative.
+   */
+  protected BigDecimal getSignedAmount(MoveLine moveLine, BigDecimal amount) {
+    return moveLine.getDebit().signum() > 0 ? amount : amount.negate();
+  }
+
+  /**
+   * Add an amount to a partner account balance. The balance is created or updated in the database
+   * by a single statement, so concurrent updates of the same balance are not lost and concurrent
+   * creations do not fail on the unique constraint.
+   */
+  protected void addBalance(Company company, Partner partner, Account account, BigDecimal amount) {
+    if (amount.signum() == 0) {
+      return;
+    }
+
+    JPA.em()
+        .createNativeQuery(
+            "INSERT INTO account_partner_account_balance "
+                + "(id, version, created_on, company, partner, account, balance) "
+                + "VALUES (nextval('account_partner_account_balance_seq'), 0, LOCALTIMESTAMP, "
+                + ":company, :partner, :account, :amount) "
+                + "ON CONFLICT (company, partner, account) DO UPDATE "
+                + "SET balance = account_partner_account_balance.balance + EXCLUDED.balance, "
+                + "version = account_partner_account_balance.version + 1")
+        .setParameter("company", company.getId())
+        .setParameter("partner", partner.getId())
+        .setParameter("account", account.getId())
+        .setParameter("amount", amount)
+        .executeUpdate();
+  }
+
+  protected PartnerAccountBalance createPartnerAccountBalance(
+      Company company, Partner partner, Account account, BigDecimal balance) {
+    PartnerAccountBalance partnerAccountBalance = new PartnerAccountBalance();
+    partnerAccountBalance.setCompany(company);
+    partnerAccountBalance.setPartner(partner);
+    partnerAccountBalance.setAccount(account);
+    partnerAccountBalance.setBalance(balance);
+    return partnerAccountBalanceRepository.save(partnerAccountBalance);
+  }
+
+  @Override
+  public BigDecimal getBalance(Partner partner, Company company) {
+    BigDecimal balance =
+        JPA.em()
+            .createQuery(
+                "SELECT SUM(self.balance) FROM PartnerAccountBalance self "
+                    + "WHERE self.partner = :partner AND self.company = :company "
+                    + "AND self.account.useForPartnerBalance = true",
+                BigDecimal.class)
+            .setParameter("partner", partner)
+            .setParameter("company", company)
+            .getSingleResult();
+
+    return balance != null ? balance : BigDecimal.ZERO;
+  }
+
+  @Override
+  @Transactional
+  public int rebuildBalances(Company company, List<Partner> partnerList) {
+    if (partnerList != null && partnerList.isEmpty()) {
+      return 0;
+    }
+
+    Map<List<Long>, BigDecimal> balanceMap = this.computeBalanceMap(company, partnerList);
+    int fixedCount = 0;
+
+    Query<PartnerAccountBalance> partnerAccountBalanceQuery =
+        partnerAccountBalanceRepository
+            .all()
+            .filter(
+                "self.company = :company"
+                    + (partnerList != null ? " AND self.partner IN (:partnerList)" : ""))
+            .bind("company", company);
+    if (partnerList != null) {
+      partnerAccountBalanceQuery.bind("partnerList", partnerList);
+    }
+
+    for (PartnerAccountBalance partnerAccountBalance : partnerAccountBalanceQuery.fetch()) {
+      BigDecimal balance =
+          balanceMap.remove(
+              Arrays.asList(
+                  partnerAccountBalance.getPartner().getId(),
+                  partnerAccountBalance.getAccount().getId()));
+      balance = balance != null ? balance : BigDecimal.ZERO;
+      if (balance.compareTo(partnerAccountBalance.getBalance()) != 0) {
+        partnerAccountBalance.setBalance(balance);
+        partnerAccountBalanceRepository.save(partnerAccountBalance);
+        fixedCount++;
+      }
+    }
+
+    for (Map.Entry<List<Long>, BigDecimal> balanceEntry : balanceMap.entrySet()) {
+      if (balanceEntry.getValue().signum() == 0) {
+        continue;
+      }
+      this.createPartnerAccountBalance(
+          company,
+          partnerRepository.find(balanceEntry.getKey().get(0)),
+          accountRepository.find(balanceEntry.getKey().get(1)),
+          balanceEntry.getValue());
+      fixedCount++;
+    }
+
+    if (partnerList == null) {
+      this.updateMoveInPartnerAccountBalance(company);
+    }
+
+    log.debug("{} partner account balances fixed for company {}", fixedCount, company.getName());
+
+    return fixedCount;
+  }
+
+  /** Flag the moves of the company that are now included in the partner account balances. */
+  protected void updateMoveInPartnerAccountBalance(Company company) {
+    String isInBalanceFilter =
+        "self.statusSelect IN (:statusDaybook, :statusAccounted) "
+            + "AND (self.ignoreInAccountingOk = false OR self.ignoreInAccountingOk IS NULL)";
+
+    JPA.em()
+        .createQuery(
+            "UPDATE Move self SET self.inPartnerAccountBalanceOk = true, "
+                + "self.version = self.version + 1 "
+                + "WHERE self.company = :company AND "
+                + isInBalanceFilter
+                + " AND (self.inPartnerAccountBalanceOk = false "
+                + "OR self.inPartnerAccountBalanceOk IS NULL)")
+        .setParameter("company", company)
+        .setParameter("statusDaybook", MoveRepository.STATUS_DAYBOOK)
+        .setParameter("statusAccounted", MoveRepository.STATUS_ACCOUNTED)
+        .executeUpdate();
+    JPA.em()
+        .createQuery(
+            "UPDATE Move self SET self.inPartnerAccountBalanceOk = false, "
+                + "self.version = self.version + 1 "
+                + "WHERE self.company = :company AND self.inPartnerAccountBalanceOk = true "
+                + "AND NOT ("
+                + isInBalanceFilter
+                + ")")
+        .setParameter("company", company)
+        .setParameter("statusDaybook", MoveRepository.STATUS_DAYBOOK)
+        .setParameter("statusAccounted", MoveRepository.STATUS_ACCOUNTED)
+        .executeUpdate();
+  }
+
+  /**
+   * Compute the partner account balances from the move lines, with the rules of {@link
+   * com.axelor.apps.account.service.AccountCustomerService#getBalance(Partner, Company)}.
+   *
+   * @return a map of the balances, with the partner id and the account id as key
+   */
+  protected Map<List<Long>, BigDecimal> computeBalanceMap(
+      Company company, List<Partner> partnerList) {
+    TypedQuery<Object[]> balanceQuery =
+        JPA.em()
+            .createQuery(
+                "SELECT self.partner.id, self.account.id, "
+                    + "SUM(CASE WHEN self.debit > 0 THEN self.amountRemaining "
+                    + "ELSE 0 - self.amountRemaining END) "
+                    + "FROM MoveLine self "
+                    + "WHERE self.move.company = :company "
+                    + "AND self.move.statusSelect IN (:statusDaybook, :statusAccounted) "
+                    + "AND (self.move.ignoreInAccountingOk = false "
+                    + "OR self.move.ignoreInAccountingOk IS NULL) "
+                    + (partnerList != null ? "AND self.partner IN (:partnerList) " : "")
+                    + "GROUP BY self.partner.id, self.account.id",
+                Object[].class)
+            .setParameter("company", company)
+            .setParameter("statusDaybook", MoveRepository.STATUS_DAYBOOK)
+            .setParameter("statusAccounted", MoveRepository.STATUS_ACCOUNTED);
+    if (partnerList != null) {
+      balanceQuery.setParameter("partnerList", partnerList);
+    }
+
+    Map<List<Long>, BigDecimal> balanceMap = new HashMap<>();
+    for (Object[] balanceRow : balanceQuery.getResultList()) {
+      balanceMap.put(
+          Arrays.asList((Long) balanceRow[0], (Long) balanceRow[1]), (BigDecimal) balanceRow[2]);
+    }
+    return balanceMap;
+  }
+}
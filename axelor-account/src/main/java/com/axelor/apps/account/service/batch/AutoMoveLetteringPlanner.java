@@ -0,0 +1,282 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2024 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.account.service.batch;
+
+import com.axelor.apps.account.db.MoveLine;
+import com.axelor.apps.account.db.repo.AccountingBatchRepository;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.lang3.tuple.Pair;
+
+/**
+ * Computes in memory the reconciliations done by the auto move lettering batch.
+ *
+ * <p>Debit move lines are indexed by the values that the reconcile method requires to be equal
+ * (amount, origin or external identifier), so each credit move line is only compared with the
+ * debit move lines it can be reconciled with. The remaining amounts are simulated the same way
+ * {@link BatchAutoMoveLettering#reconcile} computes the reconciled amount.
+ */
+public class AutoMoveLetteringPlanner {
+
+  protected int reconcileMethodSelect;
+  protected boolean isPartialReconcile;
+
+  public AutoMoveLetteringPlanner(int reconcileMethodSelect, boolean isPartialReconcile) {
+    this.reconcileMethodSelect = reconcileMethodSelect;
+    this.isPartialReconcile = isPartialReconcile;
+  }
+
+  /**
+   * Get the pairs of debit and credit move lines to reconcile, in the order they have to be
+   * reconciled.
+   *
+   * @param debitMoveLines debit move lines, sorted
+   * @param creditMoveLines credit move lines, sorted
+   * @return a list of pairs with the debit move line on the left and the credit move line on the
+   *     right
+   */
+  public List<Pair<MoveLine, MoveLine>> getReconcilePairList(
+      List<MoveLine> debitMoveLines, List<MoveLine> creditMoveLines) {
+    List<Pair<MoveLine, MoveLine>> reconcilePairList = new ArrayList<>();
+
+    boolean isBalanced =
+        getTotalRemaining(debitMoveLines).compareTo(getTotalRemaining(creditMoveLines)) == 0;
+    if (!isBalanced
+        && reconcileMethodSelect
+            == AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_BALANCED_ACCOUNT) {
+      return reconcilePairList;
+    }
+
+    Map<List<Object>, Deque<LetteringLine>> debitIndex = new HashMap<>();
+    for (MoveLine debitMoveLine : debitMoveLines) {
+      LetteringLine debitLine = new LetteringLine(debitMoveLine, debitMoveLine.getDebit());
+      if (isIndexable(debitLine, isBalanced)) {
+        debitIndex
+            .computeIfAbsent(getIndexKey(debitLine, isBalanced), key -> new ArrayDeque<>())
+            .add(debitLine);
+      }
+    }
+
+    for (MoveLine creditMoveLine : creditMoveLines) {
+      LetteringLine creditLine = new LetteringLine(creditMoveLine, creditMoveLine.getCredit());
+      if (!isIndexable(creditLine, isBalanced)) {
+        continue;
+      }
+      Deque<LetteringLine> debitLineDeque = debitIndex.get(getIndexKey(creditLine, isBalanced));
+      if (debitLineDeque == null) {
+        continue;
+      }
+
+      Iterator<LetteringLine> debitLineIterator = debitLineDeque.iterator();
+      while (creditLine.remaining.signum() > 0 && debitLineIterator.hasNext()) {
+        LetteringLine debitLine = debitLineIterator.next();
+        if (debitLine.remaining.signum() <= 0) {
+          debitLineIterator.remove();
+          continue;
+        }
+        // When not balanced, all the move lines of an index entry have the same amount
+        if (!isBalanced && debitLine.remaining.compareTo(creditLine.amount) < 0) {
+          debitLineIterator.remove();
+          continue;
+        }
+        if (!isBalanced && creditLine.remaining.compareTo(debitLine.amount) < 0) {
+          break;
+        }
+        if (!canBeReconciled(debitLine.moveLine, creditLine.moveLine, isBalanced)) {
+          continue;
+        }
+
+        BigDecimal amount;
+        if (debitLine.maxAmountToReconcile != null
+            && debitLine.maxAmountToReconcile.signum() > 0) {
+          amount = debitLine.maxAmountToReconcile.min(creditLine.remaining);
+          debitLine.maxAmountToReconcile = null;
+        } else {
+          amount = creditLine.remaining.min(debitLine.remaining);
+        }
+        creditLine.remaining = creditLine.remaining.subtract(amount);
+        debitLine.remaining = debitLine.remaining.subtract(amount);
+        reconcilePairList.add(Pair.of(debitLine.moveLine, creditLine.moveLine));
+
+        if (debitLine.remaining.signum() <= 0) {
+          debitLineIterator.remove();
+        }
+      }
+    }
+
+    return reconcilePairList;
+  }
+
+  /**
+   * Split sorted move lines into balanced groups. As in the previous implementation, a group is
+   * the shortest run of consecutive move lines, starting from the first move line that is not yet
+   * in a group, whose remaining amounts are balanced. Runs are found from the cumulated remaining
+   * amounts: a run is balanced when the cumulated amount before its first line equals the
+   * cumulated amount after its last line.
+   *
+   * @param moveLines debit and credit move lines, sorted
+   * @return the balanced groups of move lines
+   */
+  public List<List<MoveLine>> getBalancedMoveLineGroupList(List<MoveLine> moveLines) {
+    int size = moveLines.size();
+    BigDecimal[] cumulatedAmounts = new BigDecimal[size + 1];
+    cumulatedAmounts[0] = BigDecimal.ZERO;
+    for (int i = 0; i < size; i++) {
+      MoveLine moveLine = moveLines.get(i);
+      cumulatedAmounts[i + 1] =
+          moveLine.getDebit().signum() > 0
+              ? cumulatedAmounts[i].subtract(moveLine.getAmountRemaining())
+              : cumulatedAmounts[i].add(moveLine.getAmountRemaining());
+    }
+
+    Integer[] nextBalancedIndexes = new Integer[size + 1];
+    Map<BigDecimal, Integer> lastIndexMap = new HashMap<>();
+    for (int i = size; i >= 0; i--) {
+      BigDecimal amountKey = getAmountKey(cumulatedAmounts[i]);
+      nextBalancedIndexes[i] = lastIndexMap.get(amountKey);
+      lastIndexMap.put(amountKey, i);
+    }
+
+    List<List<MoveLine>> moveLineGroupList = new ArrayList<>();
+    int i = 0;
+    while (i < size) {
+      Integer nextBalancedIndex = nextBalancedIndexes[i];
+      if (nextBalancedIndex != null) {
+        moveLineGroupList.add(moveLines.subList(i, nextBalancedIndex));
+        i = nextBalancedIndex;
+      } else {
+        i++;
+      }
+    }
+    return moveLineGroupList;
+  }
+
+  protected boolean canBeReconciled(
+      MoveLine debitMoveLine, MoveLine creditMoveLine, boolean isBalanced) {
+    if (reconcileMethodSelect
+        == AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_BALANCED_MOVE) {
+      return true;
+    }
+    BigDecimal debit = debitMoveLine.getDebit();
+    BigDecimal credit = creditMoveLine.getCredit();
+    boolean reconcileByAmount =
+        reconcileMethodSelect == AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_AMOUNT
+            && debit.compareTo(credit) == 0;
+    boolean reconcileByOrigin =
+        reconcileMethodSelect == AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_ORIGIN
+            && debitMoveLine.getOrigin() != null
+            && creditMoveLine.getOrigin() != null
+            && debitMoveLine.getOrigin().equals(creditMoveLine.getOrigin())
+            && (isPartialReconcile || debit.compareTo(credit) == 0);
+    boolean reconcileByBalancedAccount =
+        reconcileMethodSelect
+                == AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_BALANCED_ACCOUNT
+            && isBalanced;
+    boolean reconcileByExternalIdentifier =
+        reconcileMethodSelect
+                == AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_EXTERNAL_IDENTIFIER
+            && debitMoveLine.getExternalOrigin() != null
+            && creditMoveLine.getExternalOrigin() != null
+            && debitMoveLine.getExternalOrigin().equals(creditMoveLine.getExternalOrigin())
+            && (isPartialReconcile || debit.compareTo(credit) == 0);
+
+    return reconcileByAmount
+        || reconcileByOrigin
+        || reconcileByBalancedAccount
+        || reconcileByExternalIdentifier;
+  }
+
+  /**
+   * When the move lines are not balanced, a debit and a credit move line are only reconciled if
+   * each remaining amount covers the amount of the other move line, that is if both move lines are
+   * not reconciled yet and have the same amount.
+   */
+  protected boolean isIndexable(LetteringLine line, boolean isBalanced) {
+    if (line.remaining.signum() <= 0
+        || (!isBalanced && line.remaining.compareTo(line.amount) < 0)) {
+      return false;
+    }
+    switch (reconcileMethodSelect) {
+      case AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_ORIGIN:
+        return line.moveLine.getOrigin() != null;
+      case AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_EXTERNAL_IDENTIFIER:
+        return line.moveLine.getExternalOrigin() != null;
+      default:
+        return true;
+    }
+  }
+
+  protected List<Object> getIndexKey(LetteringLine line, boolean isBalanced) {
+    boolean withAmount =
+        !isBalanced
+            || reconcileMethodSelect
+                == AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_AMOUNT
+            || (!isPartialReconcile
+                && (reconcileMethodSelect
+                        == AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_ORIGIN
+                    || reconcileMethodSelect
+                        == AccountingBatchRepository
+                            .AUTO_MOVE_LETTERING_RECONCILE_BY_EXTERNAL_IDENTIFIER));
+    Object amountKey = withAmount ? getAmountKey(line.amount) : null;
+
+    switch (reconcileMethodSelect) {
+      case AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_ORIGIN:
+        return Arrays.asList(amountKey, line.moveLine.getOrigin());
+      case AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_EXTERNAL_IDENTIFIER:
+        return Arrays.asList(amountKey, line.moveLine.getExternalOrigin());
+      default:
+        return Collections.singletonList(amountKey);
+    }
+  }
+
+  /** Amounts are compared with compareTo, so the scale must not be part of the key. */
+  protected BigDecimal getAmountKey(BigDecimal amount) {
+    return amount.signum() == 0 ? BigDecimal.ZERO : amount.stripTrailingZeros();
+  }
+
+  protected BigDecimal getTotalRemaining(List<MoveLine> moveLines) {
+    return moveLines.stream()
+        .map(MoveLine::getAmountRemaining)
+        .map(BigDecimal::abs)
+        .reduce(BigDecimal::add)
+        .orElse(BigDecimal.ZERO);
+  }
+
+  protected static class LetteringLine {
+    protected MoveLine moveLine;
+    protected BigDecimal amount;
+    protected BigDecimal remaining;
+    protected BigDecimal maxAmountToReconcile;
+
+    protected LetteringLine(MoveLine moveLine, BigDecimal amount) {
+      this.moveLine = moveLine;
+      this.amount = amount;
+      this.remaining = moveLine.getAmountRemaining().abs();
+      this.maxAmountToReconcile = moveLine.getMaxAmountToReconcile();
+    }
+  }
+}
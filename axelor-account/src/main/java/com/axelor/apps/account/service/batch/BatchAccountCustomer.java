@@ -23,6 +23,8 @@ import com.axelor.apps.account.db.AccountingSituation;
 import com.axelor.apps.account.db.repo.AccountingSituationRepository;
 import com.axelor.apps.account.exception.AccountExceptionMessage;
 import com.axelor.apps.account.service.AccountCustomerService;
+import com.axelor.apps.account.service.accountingsituation.PartnerAccountBalanceService;
+import com.axelor.apps.base.AxelorException;
 import com.axelor.apps.base.db.Company;
 import com.axelor.apps.base.db.repo.ExceptionOriginRepository;
 import com.axelor.apps.base.exceptions.BaseExceptionMessage;
@@ -30,6 +32,7 @@ import com.axelor.apps.base.service.exception.TraceBackService;
 import com.axelor.db.JPA;
 import com.axelor.i18n.I18n;
 import com.google.inject.Inject;
+import com.google.inject.persist.Transactional;
 import java.lang.invoke.MethodHandles;
 import java.util.List;
 import org.slf4j.Logger;
@@ -40,15 +43,20 @@ public class BatchAccountCustomer extends BatchStrategy {
   private final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
   protected AccountingSituationRepository accountingSituationRepo;
+  protected PartnerAccountBalanceService partnerAccountBalanceService;
+
+  protected int partnerAccountBalanceFixedCount;
 
   @Inject
   public BatchAccountCustomer(
       AccountCustomerService accountCustomerService,
-      AccountingSituationRepository accountingSituationRepo) {
+      AccountingSituationRepository accountingSituationRepo,
+      PartnerAccountBalanceService partnerAccountBalanceService) {
 
     super(accountCustomerService);
 
     this.accountingSituationRepo = accountingSituationRepo;
+    this.partnerAccountBalanceService = partnerAccountBalanceService;
   }
 
   @Override
@@ -68,24 +76,48 @@ public class BatchAccountCustomer extends BatchStrategy {
     boolean updateDueDebtRecoveryCustAccountOk =
         accountingBatch.getUpdateDueDebtRecoveryCustAccountOk();
 
-    List<AccountingSituation> accountingSituationList =
-        accountingSituationRepo.all().filter("self.company = ?1", company).fetch();
-    int i = 0;
+    if (updateCustAccountOk && partnerAccountBalanceService.isManaged()) {
+      this.rebuildPartnerAccountBalances(company);
+    }
+
+    List<Long> accountingSituationIdList =
+        JPA.em()
+            .createQuery(
+                "SELECT self.id FROM AccountingSituation self "
+                    + "WHERE self.company.id = :companyId ORDER BY self.id",
+                Long.class)
+            .setParameter("companyId", company.getId())
+            .getResultList();
     JPA.clear();
-    for (AccountingSituation accountingSituation : accountingSituationList) {
-      try {
 
-        accountingSituation =
-            accountCustomerService.updateAccountingSituationCustomerAccount(
-                accountingSituationRepo.find(accountingSituation.getId()),
+    this.processChunks(
+        accountingSituationIdList,
+        idList ->
+            this.updateAccountingSituations(
+                idList,
                 updateCustAccountOk,
                 updateDueCustAccountOk,
-                updateDueDebtRecoveryCustAccountOk);
+                updateDueDebtRecoveryCustAccountOk));
+  }
 
-        if (accountingSituation != null) {
-          this.updateAccountingSituation(accountingSituation);
-          i++;
-        }
+  /**
+   * Update the accounting situations of a chunk. The accounting situations of different partners
+   * are independent, so the chunks can be processed by several workers.
+   */
+  protected void updateAccountingSituations(
+      List<Long> accountingSituationIdList,
+      boolean updateCustAccountOk,
+      boolean updateDueCustAccountOk,
+      boolean updateDueDebtRecoveryCustAccountOk) {
+
+    for (Long accountingSituationId : accountingSituationIdList) {
+      try {
+
+        this.updateAccountingSituationCustomerAccount(
+            accountingSituationId,
+            updateCustAccountOk,
+            updateDueCustAccountOk,
+            updateDueDebtRecoveryCustAccountOk);
 
       } catch (Exception e) {
 
@@ -93,7 +125,7 @@ public class BatchAccountCustomer extends BatchStrategy {
             new Exception(
                 String.format(
                     I18n.get(AccountExceptionMessage.BATCH_ACCOUNT_1),
-                    accountingSituationRepo.find(accountingSituation.getId()).getName()),
+                    accountingSituationRepo.find(accountingSituationId).getName()),
                 e),
             ExceptionOriginRepository.CUSTOMER_ACCOUNT,
             batch.getId());
@@ -102,17 +134,52 @@ public class BatchAccountCustomer extends BatchStrategy {
 
         log.error(
             "Bug(Anomalie) généré(e) pour la situation compable {}",
-            accountingSituationRepo.find(accountingSituation.getId()).getName());
+            accountingSituationRepo.find(accountingSituationId).getName());
 
       } finally {
 
-        if (i % 1 == 0) {
-          JPA.clear();
-        }
+        JPA.clear();
       }
     }
   }
 
+  @Transactional(rollbackOn = {Exception.class})
+  protected void updateAccountingSituationCustomerAccount(
+      Long accountingSituationId,
+      boolean updateCustAccountOk,
+      boolean updateDueCustAccountOk,
+      boolean updateDueDebtRecoveryCustAccountOk)
+      throws AxelorException {
+
+    AccountingSituation accountingSituation =
+        accountCustomerService.updateAccountingSituationCustomerAccount(
+            accountingSituationRepo.find(accountingSituationId),
+            updateCustAccountOk,
+            updateDueCustAccountOk,
+            updateDueDebtRecoveryCustAccountOk);
+
+    if (accountingSituation != null) {
+      this.updateAccountingSituation(accountingSituation);
+    }
+  }
+
+  /**
+   * Check the partner account balances of the company against the move lines before they are used
+   * to update the accounting situations.
+   */
+  protected void rebuildPartnerAccountBalances(Company company) {
+    try {
+      partnerAccountBalanceFixedCount =
+          partnerAccountBalanceService.rebuildBalances(company, null);
+    } catch (Exception e) {
+      TraceBackService.trace(e, ExceptionOriginRepository.CUSTOMER_ACCOUNT, batch.getId());
+      incrementAnomaly();
+      log.error("Anomaly generated while rebuilding partner account balances");
+    } finally {
+      JPA.clear();
+    }
+  }
+
   /**
    * As {@code batch} entity can be detached from the session, call {@code Batch.find()} get the
    * entity in the persistant context. Warning : {@code batch} entity have to be saved before.
@@ -124,6 +191,12 @@ public class BatchAccountCustomer extends BatchStrategy {
     comment +=
         String.format(
             "\t" + I18n.get(AccountExceptionMessage.BATCH_ACCOUNT_3) + "\n", batch.getDone());
+    if (partnerAccountBalanceFixedCount > 0) {
+      comment +=
+          String.format(
+              "\t" + I18n.get(AccountExceptionMessage.BATCH_ACCOUNT_6) + "\n",
+              partnerAccountBalanceFixedCount);
+    }
     comment +=
         String.format("\t" + I18n.get(BaseExceptionMessage.BASE_BATCH_3), batch.getAnomaly());
 
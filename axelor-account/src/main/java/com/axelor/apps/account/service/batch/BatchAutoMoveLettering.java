@@ -70,7 +70,8 @@ public class BatchAutoMoveLettering extends BatchStrategy {
   protected ReconcileGroupProposalService reconcileGroupProposalService;
 
   protected AccountingBatch accountingBatch;
-  protected Set<MoveLine> moveLineReconciledSet;
+  protected Set<Long> moveLineReconciledIdSet;
+  protected int reconcileCount;
 
   @Inject
   public BatchAutoMoveLettering(
@@ -94,7 +95,8 @@ public class BatchAutoMoveLettering extends BatchStrategy {
   @Override
   protected void process() {
     accountingBatch = batch.getAccountingBatch();
-    moveLineReconciledSet = new HashSet<>();
+    moveLineReconciledIdSet = new HashSet<>();
+    reconcileCount = 0;
 
     Map<List<Object>, Pair<List<MoveLine>, List<MoveLine>>> moveLineMap = getMoveLinesMap();
 
@@ -131,153 +133,77 @@ public class BatchAutoMoveLettering extends BatchStrategy {
             reconcileMethodSelect);
       }
     }
-    for (MoveLine moveLine : moveLineReconciledSet) {
+    for (Long moveLineId : moveLineReconciledIdSet) {
       incrementDone();
     }
   }
 
   protected void reconcileWithBalancedMove(List<MoveLine> moveLines) {
+    AutoMoveLetteringPlanner autoMoveLetteringPlanner =
+        getAutoMoveLetteringPlanner(
+            AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_BALANCED_MOVE);
+
+    for (List<MoveLine> moveLinesToProcess :
+        autoMoveLetteringPlanner.getBalancedMoveLineGroupList(moveLines)) {
+      List<MoveLine> debitMoveLines =
+          moveLinesToProcess.stream()
+              .filter(ml -> ml.getDebit().signum() > 0)
+              .collect(Collectors.toList());
+      List<MoveLine> creditMoveLines =
+          moveLinesToProcess.stream()
+              .filter(ml -> ml.getCredit().signum() > 0)
+              .collect(Collectors.toList());
 
-    List<MoveLine> debitMoveLines;
-    List<MoveLine> creditMoveLines;
-    List<MoveLine> moveLinesReconciled = new ArrayList<>();
-    BigDecimal progressiveAmount;
-    for (int i = 0; i < moveLines.size(); i++) {
-      List<MoveLine> moveLinesToProcess = new ArrayList<>();
-      progressiveAmount = BigDecimal.ZERO;
-      for (MoveLine moveLine : moveLines.subList(i, moveLines.size())) {
-        if (moveLinesReconciled.contains(moveLine)) {
-          break;
-        }
-        moveLinesToProcess.add(moveLine);
-        if (moveLine.getDebit().signum() > 0) {
-          progressiveAmount = progressiveAmount.subtract(moveLine.getAmountRemaining());
-        } else {
-          progressiveAmount = progressiveAmount.add(moveLine.getAmountRemaining());
-        }
-        if (progressiveAmount.signum() == 0) {
-          debitMoveLines =
-              moveLinesToProcess.stream()
-                  .filter(ml -> ml.getDebit().signum() > 0)
-                  .collect(Collectors.toList());
-          creditMoveLines =
-              moveLinesToProcess.stream()
-                  .filter(ml -> ml.getCredit().signum() > 0)
-                  .collect(Collectors.toList());
-
-          reconcileWithMethod(
-              debitMoveLines,
-              creditMoveLines,
-              AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_BALANCED_MOVE);
-
-          moveLinesReconciled.addAll(moveLinesToProcess);
-        }
-      }
+      reconcileWithMethod(
+          debitMoveLines,
+          creditMoveLines,
+          AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_BALANCED_MOVE);
     }
   }
 
   protected void reconcileWithMethod(
       List<MoveLine> debitMoveLines, List<MoveLine> creditMoveLines, int reconcileMethodSelect) {
 
-    BigDecimal debitTotalRemaining =
-        debitMoveLines.stream()
-            .map(MoveLine::getAmountRemaining)
-            .map(BigDecimal::abs)
-            .reduce(BigDecimal::add)
-            .orElse(BigDecimal.ZERO);
-    BigDecimal creditTotalRemaining =
-        creditMoveLines.stream()
-            .map(MoveLine::getAmountRemaining)
-            .map(BigDecimal::abs)
-            .reduce(BigDecimal::add)
-            .orElse(BigDecimal.ZERO);
-
-    boolean isBalanced = debitTotalRemaining.compareTo(creditTotalRemaining) == 0;
-
-    Map<MoveLine, BigDecimal> debitRemaining = new HashMap<>();
-    for (MoveLine debitMoveLine : debitMoveLines) {
-      debitRemaining.put(debitMoveLine, debitMoveLine.getAmountRemaining());
-    }
-    for (MoveLine creditMoveLine : creditMoveLines) {
-      BigDecimal creditRemaining = creditMoveLine.getAmountRemaining();
-      for (MoveLine debitMoveLine : debitMoveLines) {
-        BigDecimal debit = debitMoveLine.getDebit();
-        BigDecimal credit = creditMoveLine.getCredit();
-        BigDecimal nextCreditRemaining = creditRemaining.subtract(debit);
-        BigDecimal nextDebitRemaining = debitRemaining.get(debitMoveLine).subtract(credit);
-        if (!isBalanced && (nextCreditRemaining.signum() < 0 || nextDebitRemaining.signum() < 0)) {
-          continue;
-        }
-
-        debitMoveLine = moveLineRepository.find(debitMoveLine.getId());
-        creditMoveLine = moveLineRepository.find(creditMoveLine.getId());
-
-        if (canBeReconciled(reconcileMethodSelect, debitMoveLine, creditMoveLine, isBalanced)) {
-          try {
-            reconcile(debitMoveLine, creditMoveLine, debitTotalRemaining, creditTotalRemaining);
-            creditRemaining = nextCreditRemaining;
-            debitRemaining.replace(debitMoveLine, nextDebitRemaining);
-            moveLineReconciledSet.add(debitMoveLine);
-            moveLineReconciledSet.add(creditMoveLine);
-          } catch (Exception e) {
-            TraceBackService.trace(
-                new Exception(
-                    String.format(
-                        I18n.get("Debit move line %s and Credit move line %s"),
-                        debitMoveLine.getName(),
-                        creditMoveLine.getName()),
-                    e),
-                ExceptionOriginRepository.MOVE_LINE_RECONCILE,
-                batch.getId());
-            incrementAnomaly();
-            LOG.error(
-                "Anomaly generated while lettering debit move line {} and credit move line {}",
-                debitMoveLine.getName(),
-                creditMoveLine.getName());
-          } finally {
-            JPA.clear();
-          }
+    AutoMoveLetteringPlanner autoMoveLetteringPlanner =
+        getAutoMoveLetteringPlanner(reconcileMethodSelect);
+    BigDecimal debitTotalRemaining = autoMoveLetteringPlanner.getTotalRemaining(debitMoveLines);
+    BigDecimal creditTotalRemaining = autoMoveLetteringPlanner.getTotalRemaining(creditMoveLines);
+
+    for (Pair<MoveLine, MoveLine> reconcilePair :
+        autoMoveLetteringPlanner.getReconcilePairList(debitMoveLines, creditMoveLines)) {
+      MoveLine debitMoveLine = moveLineRepository.find(reconcilePair.getLeft().getId());
+      MoveLine creditMoveLine = moveLineRepository.find(reconcilePair.getRight().getId());
+
+      try {
+        reconcile(debitMoveLine, creditMoveLine, debitTotalRemaining, creditTotalRemaining);
+        moveLineReconciledIdSet.add(debitMoveLine.getId());
+        moveLineReconciledIdSet.add(creditMoveLine.getId());
+        if (++reconcileCount % FETCH_LIMIT == 0) {
+          JPA.clear();
         }
+      } catch (Exception e) {
+        TraceBackService.trace(
+            new Exception(
+                String.format(
+                    I18n.get("Debit move line %s and Credit move line %s"),
+                    debitMoveLine.getName(),
+                    creditMoveLine.getName()),
+                e),
+            ExceptionOriginRepository.MOVE_LINE_RECONCILE,
+            batch.getId());
+        incrementAnomaly();
+        LOG.error(
+            "Anomaly generated while lettering debit move line {} and credit move line {}",
+            debitMoveLine.getName(),
+            creditMoveLine.getName());
+        JPA.clear();
       }
     }
   }
 
-  private boolean canBeReconciled(
-      int reconcileMethodSelect,
-      MoveLine debitMoveLine,
-      MoveLine creditMoveLine,
-      boolean isBalanced) {
-    if (reconcileMethodSelect
-        == AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_BALANCED_MOVE) {
-      return true;
-    }
-    BigDecimal debit = debitMoveLine.getDebit();
-    BigDecimal credit = creditMoveLine.getCredit();
-    boolean reconcileByAmount =
-        reconcileMethodSelect == AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_AMOUNT
-            && debit.compareTo(credit) == 0;
-    boolean reconcileByOrigin =
-        reconcileMethodSelect == AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_ORIGIN
-            && debitMoveLine.getOrigin() != null
-            && creditMoveLine.getOrigin() != null
-            && debitMoveLine.getOrigin().equals(creditMoveLine.getOrigin())
-            && (accountingBatch.getIsPartialReconcile() || debit.compareTo(credit) == 0);
-    boolean reconcileByBalancedAccount =
-        reconcileMethodSelect
-                == AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_BALANCED_ACCOUNT
-            && isBalanced;
-    boolean reconcileByExternalIdentifier =
-        reconcileMethodSelect
-                == AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_EXTERNAL_IDENTIFIER
-            && debitMoveLine.getExternalOrigin() != null
-            && creditMoveLine.getExternalOrigin() != null
-            && debitMoveLine.getExternalOrigin().equals(creditMoveLine.getExternalOrigin())
-            && (accountingBatch.getIsPartialReconcile() || debit.compareTo(credit) == 0);
-
-    return reconcileByAmount
-        || reconcileByOrigin
-        || reconcileByBalancedAccount
-        || reconcileByExternalIdentifier;
+  protected AutoMoveLetteringPlanner getAutoMoveLetteringPlanner(int reconcileMethodSelect) {
+    return new AutoMoveLetteringPlanner(
+        reconcileMethodSelect, accountingBatch.getIsPartialReconcile());
   }
 
   @Transactional
@@ -39,12 +39,14 @@ import com.axelor.db.JPA;
 import com.axelor.i18n.I18n;
 import com.google.inject.Inject;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class BatchRealizeFixedAssetLine extends AbstractBatch {
 
@@ -56,8 +58,11 @@ public class BatchRealizeFixedAssetLine extends AbstractBatch {
   protected FindFixedAssetService findFixedAssetService;
   protected static final int DEROGATORY_TYPE_SELECT = 99;
 
-  protected final Set<FixedAsset> fixedAssetSet = new HashSet<>();
-  protected final Map<Integer, Integer> typeCountMap = new HashMap<>();
+  protected final Set<Long> fixedAssetIdSet = ConcurrentHashMap.newKeySet();
+  protected final Map<Integer, Integer> typeCountMap = new ConcurrentHashMap<>();
+
+  protected String query;
+  protected Map<String, Object> queryParameters;
 
   @Inject
   public BatchRealizeFixedAssetLine(
@@ -77,7 +82,7 @@ public class BatchRealizeFixedAssetLine extends AbstractBatch {
 
   @Override
   protected void process() {
-    String query = "self.statusSelect = :statusSelect AND self.fixedAsset.company.id = :companyId";
+    query = "self.statusSelect = :statusSelect AND self.fixedAsset.company.id = :companyId";
     LocalDate startDate = batch.getAccountingBatch().getStartDate();
     LocalDate endDate = batch.getAccountingBatch().getEndDate();
     if (!batch.getAccountingBatch().getUpdateAllRealizedFixedAssetLines()
@@ -88,7 +93,7 @@ public class BatchRealizeFixedAssetLine extends AbstractBatch {
     } else {
       query += " AND self.depreciationDate < :dateNow";
     }
-    HashMap<String, Object> queryParameters = new HashMap<>();
+    queryParameters = new HashMap<>();
     queryParameters.put("statusSelect", FixedAssetLineRepository.STATUS_PLANNED);
     queryParameters.put(
         "companyId",
@@ -105,14 +110,68 @@ public class BatchRealizeFixedAssetLine extends AbstractBatch {
                 : Optional.ofNullable(AuthUtils.getUser())
                     .map(User::getActiveCompany)
                     .orElse(null)));
-    List<FixedAssetLine> fixedAssetLineList =
-        fixedAssetLineRepo.all().filter(query).bind(queryParameters).fetch();
-    List<FixedAssetDerogatoryLine> fixedAssetDerogatoryLineList =
-        fixedAssetDerogatoryLineRepo.all().filter(query).bind(queryParameters).fetch();
 
     fixedAssetLineMoveService.setBatch(batch);
-    realizeFixedAssetLineList(fixedAssetLineList);
-    realizeFixedAssetDerogatoryLineList(fixedAssetDerogatoryLineList);
+
+    // The lines are realized fixed asset by fixed asset, in the order of their depreciation dates,
+    // by chunks of fixed assets so that the session is cleared regularly.
+    processChunks(getFixedAssetIdList(), this::realizeFixedAssetLines);
+  }
+
+  /**
+   * Realizing a line generates and accounts moves, which take numbers from the journal sequences:
+   * the fixed assets are processed on a single worker so that these numbers follow the order of the
+   * depreciation dates.
+   */
+  @Override
+  protected int getWorkerCount() {
+    return 1;
+  }
+
+  protected List<Long> getFixedAssetIdList() {
+    Set<Long> idSet = new TreeSet<>();
+    idSet.addAll(getFixedAssetIdList("FixedAssetLine"));
+    idSet.addAll(getFixedAssetIdList("FixedAssetDerogatoryLine"));
+    return new ArrayList<>(idSet);
+  }
+
+  @SuppressWarnings("unchecked")
+  protected List<Long> getFixedAssetIdList(String lineModel) {
+    javax.persistence.Query idQuery =
+        JPA.em()
+            .createQuery(
+                String.format(
+                    "SELECT DISTINCT self.fixedAsset.id FROM %s self WHERE %s", lineModel, query));
+    for (Map.Entry<String, Object> entry : queryParameters.entrySet()) {
+      if (query.contains(":" + entry.getKey())) {
+        idQuery.setParameter(entry.getKey(), entry.getValue());
+      }
+    }
+    return idQuery.getResultList();
+  }
+
+  protected void realizeFixedAssetLines(List<Long> fixedAssetIdList) {
+    for (Long fixedAssetId : fixedAssetIdList) {
+      realizeFixedAssetLineList(
+          fixedAssetLineRepo
+              .all()
+              .filter(query + " AND self.fixedAsset.id = :fixedAssetId")
+              .bind(queryParameters)
+              .bind("fixedAssetId", fixedAssetId)
+              .order("depreciationDate")
+              .order("id")
+              .fetch());
+      realizeFixedAssetDerogatoryLineList(
+          fixedAssetDerogatoryLineRepo
+              .all()
+              .filter(query + " AND self.fixedAsset.id = :fixedAssetId")
+              .bind(queryParameters)
+              .bind("fixedAssetId", fixedAssetId)
+              .order("depreciationDate")
+              .order("id")
+              .fetch());
+      JPA.clear();
+    }
   }
 
   protected void realizeFixedAssetLineList(List<FixedAssetLine> fixedAssetLineList) {
@@ -122,16 +181,16 @@ public class BatchRealizeFixedAssetLine extends AbstractBatch {
         FixedAsset fixedAsset = findFixedAssetService.getFixedAsset(fixedAssetLine);
         if (fixedAsset != null
             && fixedAsset.getStatusSelect() > FixedAssetRepository.STATUS_DRAFT) {
-          fixedAssetSet.add(fixedAsset);
+          fixedAssetIdSet.add(fixedAsset.getId());
           fixedAssetLineMoveService.realize(fixedAssetLine, true, true, false);
           incrementDone();
           countFixedAssetLineType(fixedAssetLine);
         }
       } catch (Exception e) {
         incrementAnomaly();
-        TraceBackService.trace(e, null, this.batch.getId());
+        TraceBackService.trace(e, null, getCurrentBatchId());
+        JPA.clear();
       }
-      JPA.clear();
     }
   }
 
@@ -144,33 +203,25 @@ public class BatchRealizeFixedAssetLine extends AbstractBatch {
         FixedAsset fixedAsset = fixedAssetDerogatoryLine.getFixedAsset();
         if (fixedAsset != null
             && fixedAsset.getStatusSelect() > FixedAssetRepository.STATUS_DRAFT) {
-          fixedAssetSet.add(fixedAsset);
+          fixedAssetIdSet.add(fixedAsset.getId());
           fixedAssetDerogatoryLineMoveService.realize(fixedAssetDerogatoryLine, true, true);
           incrementDone();
           countFixedAssetDerogatoryLineType(fixedAssetDerogatoryLine);
         }
       } catch (Exception e) {
         incrementAnomaly();
-        TraceBackService.trace(e);
+        TraceBackService.trace(e, null, getCurrentBatchId());
+        JPA.clear();
       }
-      JPA.clear();
     }
   }
 
   protected void countFixedAssetLineType(FixedAssetLine fixedAssetLine) {
-    if (typeCountMap.containsKey(fixedAssetLine.getTypeSelect())) {
-      typeCountMap.compute(fixedAssetLine.getTypeSelect(), (k, v) -> ++v);
-    } else {
-      typeCountMap.put(fixedAssetLine.getTypeSelect(), 1);
-    }
+    typeCountMap.merge(fixedAssetLine.getTypeSelect(), 1, Integer::sum);
   }
 
   protected void countFixedAssetDerogatoryLineType(FixedAssetDerogatoryLine fixedAssetLine) {
-    if (typeCountMap.containsKey(DEROGATORY_TYPE_SELECT)) {
-      typeCountMap.compute(DEROGATORY_TYPE_SELECT, (k, v) -> ++v);
-    } else {
-      typeCountMap.put(DEROGATORY_TYPE_SELECT, 1);
-    }
+    typeCountMap.merge(DEROGATORY_TYPE_SELECT, 1, Integer::sum);
   }
 
   @Override
@@ -180,7 +231,7 @@ public class BatchRealizeFixedAssetLine extends AbstractBatch {
         new StringBuilder(
             String.format(
                 "\t* %s " + I18n.get(AccountExceptionMessage.BATCH_PROCESSED_FIXED_ASSET) + "\n",
-                fixedAssetSet.size()));
+                fixedAssetIdSet.size()));
 
     sbComment.append(
         String.format(
@@ -30,6 +30,9 @@ import java.util.Map;
 import java.util.Set;
 
 public interface AccountingReportValueMoveLineService {
+  /** Clear the move line sums kept while computing the values of a report. */
+  void clearBalanceCube();
+
   void createValueFromMoveLines(
       AccountingReport accountingReport,
       AccountingReportConfigLine groupColumn,
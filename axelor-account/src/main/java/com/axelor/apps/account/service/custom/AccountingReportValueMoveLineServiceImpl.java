@@ -72,6 +72,12 @@ public class AccountingReportValueMoveLineServiceImpl extends AccountingReportVa
   protected Set<AnalyticAccount> columnAnalyticAccountSet;
   protected Set<AnalyticAccount> lineAnalyticAccountSet;
 
+  /**
+   * The debit and credit sums of the move lines by account id, for each set of companies and
+   * period of the report being computed.
+   */
+  protected Map<String, Map<Long, Pair<BigDecimal, BigDecimal>>> balanceCubeMap = new HashMap<>();
+
   @Inject
   public AccountingReportValueMoveLineServiceImpl(
       AccountRepository accountRepository,
@@ -85,6 +91,11 @@ public class AccountingReportValueMoveLineServiceImpl extends AccountingReportVa
     this.moveToolService = moveToolService;
   }
 
+  @Override
+  public void clearBalanceCube() {
+    balanceCubeMap.clear();
+  }
+
   @Override
   public void createValueFromMoveLines(
       AccountingReport accountingReport,
@@ -520,34 +531,62 @@ public class AccountingReportValueMoveLineServiceImpl extends AccountingReportVa
                 ? null
                 : new HashSet<>(Collections.singletonList(configAnalyticAccount)));
 
-    List<MoveLine> moveLineList =
-        this.getMoveLineQuery(
-                accountingReport,
-                groupColumn,
-                column,
-                line,
-                accountIdSet,
-                resultAnalyticAccountSet,
-                companySet,
-                startDate,
-                endDate)
-            .fetch();
+    BigDecimal result;
 
-    if (line.getHideDetailedLinesWithoutMoves() && moveLineList.isEmpty()) {
-      return;
-    }
+    if (this.isComputedFromBalanceCube(
+        accountingReport, groupColumn, column, line, resultAnalyticAccountSet)) {
+      List<Pair<BigDecimal, BigDecimal>> balanceList =
+          this.getBalanceList(
+              accountingReport,
+              groupColumn,
+              column,
+              line,
+              accountIdSet,
+              companySet,
+              startDate,
+              endDate);
 
-    BigDecimal result =
-        this.getResultFromMoveLine(
-            accountingReport,
-            groupColumn,
-            column,
-            line,
-            moveLineList,
-            resultAnalyticAccountSet,
-            startDate,
-            endDate,
-            this.getResultSelect(column, line, groupColumn));
+      if (line.getHideDetailedLinesWithoutMoves() && balanceList.isEmpty()) {
+        return;
+      }
+
+      result =
+          this.getResultFromBalances(
+              groupColumn,
+              column,
+              line,
+              balanceList,
+              this.getResultSelect(column, line, groupColumn));
+    } else {
+      List<MoveLine> moveLineList =
+          this.getMoveLineQuery(
+                  accountingReport,
+                  groupColumn,
+                  column,
+                  line,
+                  accountIdSet,
+                  resultAnalyticAccountSet,
+                  companySet,
+                  startDate,
+                  endDate)
+              .fetch();
+
+      if (line.getHideDetailedLinesWithoutMoves() && moveLineList.isEmpty()) {
+        return;
+      }
+
+      result =
+          this.getResultFromMoveLine(
+              accountingReport,
+              groupColumn,
+              column,
+              line,
+              moveLineList,
+              resultAnalyticAccountSet,
+              startDate,
+              endDate,
+              this.getResultSelect(column, line, groupColumn));
+    }
 
     this.createReportValue(
         accountingReport,
@@ -567,6 +606,153 @@ public class AccountingReportValueMoveLineServiceImpl extends AccountingReportVa
         analyticCounter);
   }
 
+  /**
+   * Values without any analytic filter only depend on the sums of the move lines of their
+   * accounts, so they can be computed from the balance cube.
+   */
+  protected boolean isComputedFromBalanceCube(
+      AccountingReport accountingReport,
+      AccountingReportConfigLine groupColumn,
+      AccountingReportConfigLine column,
+      AccountingReportConfigLine line,
+      Set<AnalyticAccount> analyticAccountSet) {
+    return CollectionUtils.isEmpty(analyticAccountSet)
+        && this.areAllAnalyticAccountSetsEmpty(accountingReport, groupColumn, column, line)
+        && (groupColumn == null || Strings.isNullOrEmpty(groupColumn.getAnalyticAccountCode()))
+        && Strings.isNullOrEmpty(column.getAnalyticAccountCode())
+        && Strings.isNullOrEmpty(line.getAnalyticAccountCode());
+  }
+
+  /**
+   * Get the debit and credit sums of the accounts of a value which have move lines in the period
+   * of the value.
+   */
+  protected List<Pair<BigDecimal, BigDecimal>> getBalanceList(
+      AccountingReport accountingReport,
+      AccountingReportConfigLine groupColumn,
+      AccountingReportConfigLine column,
+      AccountingReportConfigLine line,
+      Set<Long> accountIdSet,
+      Set<Company> companySet,
+      LocalDate startDate,
+      LocalDate endDate) {
+    if (CollectionUtils.isEmpty(accountIdSet)) {
+      return new ArrayList<>();
+    }
+
+    Pair<LocalDate, LocalDate> dates =
+        this.getDates(accountingReport, groupColumn, column, line, startDate, endDate);
+    Map<Long, Pair<BigDecimal, BigDecimal>> balanceMap =
+        this.getBalanceCube(accountingReport, companySet, dates.getLeft(), dates.getRight());
+
+    return accountIdSet.stream()
+        .map(balanceMap::get)
+        .filter(Objects::nonNull)
+        .collect(Collectors.toList());
+  }
+
+  protected Map<Long, Pair<BigDecimal, BigDecimal>> getBalanceCube(
+      AccountingReport accountingReport,
+      Set<Company> companySet,
+      LocalDate startDate,
+      LocalDate endDate) {
+    String key =
+        String.format(
+            "%s|%s|%s|%s",
+            accountingReport.getId(),
+            companySet == null
+                ? ""
+                : companySet.stream()
+                    .map(Company::getId)
+                    .sorted()
+                    .map(String::valueOf)
+                    .collect(Collectors.joining(",")),
+            startDate,
+            endDate);
+
+    return balanceCubeMap.computeIfAbsent(
+        key, it -> this.computeBalanceCube(accountingReport, companySet, startDate, endDate));
+  }
+
+  /**
+   * Compute the debit and credit sums of the move lines matching the filters of the report, by
+   * account, in one query.
+   */
+  protected Map<Long, Pair<BigDecimal, BigDecimal>> computeBalanceCube(
+      AccountingReport accountingReport,
+      Set<Company> companySet,
+      LocalDate startDate,
+      LocalDate endDate) {
+    String filter =
+        String.join(" AND ", this.getMoveLineCommonQueryList(accountingReport, companySet));
+
+    javax.persistence.Query query =
+        JPA.em()
+            .createQuery(
+                "SELECT self.account.id, SUM(self.debit), SUM(self.credit) FROM MoveLine self "
+                    + "WHERE "
+                    + filter
+                    + " GROUP BY self.account.id");
+
+    Map<String, Object> parameterMap = new HashMap<>();
+    parameterMap.put("dateFrom", startDate);
+    parameterMap.put("dateTo", endDate);
+    parameterMap.put("journal", accountingReport.getJournal());
+    parameterMap.put("paymentMode", accountingReport.getPaymentMode());
+    parameterMap.put("currency", accountingReport.getCurrency());
+    parameterMap.put("companySet", companySet);
+    parameterMap.put(
+        "statusList",
+        moveToolService.getMoveStatusSelect(accountingReport.getMoveStatusSelect(), companySet));
+
+    for (Map.Entry<String, Object> parameter : parameterMap.entrySet()) {
+      if (filter.contains(":" + parameter.getKey())) {
+        query.setParameter(parameter.getKey(), parameter.getValue());
+      }
+    }
+
+    Map<Long, Pair<BigDecimal, BigDecimal>> balanceMap = new HashMap<>();
+    for (Object result : query.getResultList()) {
+      Object[] row = (Object[]) result;
+      balanceMap.put((Long) row[0], Pair.of((BigDecimal) row[1], (BigDecimal) row[2]));
+    }
+
+    return balanceMap;
+  }
+
+  protected BigDecimal getResultFromBalances(
+      AccountingReportConfigLine groupColumn,
+      AccountingReportConfigLine column,
+      AccountingReportConfigLine line,
+      List<Pair<BigDecimal, BigDecimal>> balanceList,
+      int resultSelect) {
+    BigDecimal debit =
+        balanceList.stream().map(Pair::getLeft).reduce(BigDecimal::add).orElse(BigDecimal.ZERO);
+    BigDecimal credit =
+        balanceList.stream().map(Pair::getRight).reduce(BigDecimal::add).orElse(BigDecimal.ZERO);
+    BigDecimal value = BigDecimal.ZERO;
+
+    switch (resultSelect) {
+      case AccountingReportConfigLineRepository.RESULT_DEBIT_MINUS_CREDIT:
+        value = debit.subtract(credit);
+        break;
+      case AccountingReportConfigLineRepository.RESULT_DEBIT:
+        value = debit;
+        break;
+      case AccountingReportConfigLineRepository.RESULT_CREDIT:
+        value = credit;
+        break;
+    }
+
+    if ((groupColumn != null && groupColumn.getNegateValue())
+        || column.getNegateValue()
+        || line.getNegateValue()) {
+      value = value.negate();
+    }
+
+    return value;
+  }
+
   protected int getResultSelect(
       AccountingReportConfigLine column,
       AccountingReportConfigLine line,
@@ -681,32 +867,13 @@ public class AccountingReportValueMoveLineServiceImpl extends AccountingReportVa
       AccountingReportConfigLine groupColumn,
       AccountingReportConfigLine column,
       AccountingReportConfigLine line) {
-    List<String> queryList =
-        new ArrayList<>(Collections.singletonList("self.move.statusSelect IN :statusList"));
+    List<String> queryList = this.getMoveLineCommonQueryList(accountingReport, companySet);
 
     queryList.add(
         String.format(
             "(self.account.id IN %s)",
             CollectionUtils.isEmpty(accountIdSet) ? "(0)" : ":accountIdSet"));
 
-    this.addDateQueries(queryList, accountingReport);
-
-    if (accountingReport.getJournal() != null) {
-      queryList.add("(self.move.journal IS NULL OR self.move.journal = :journal)");
-    }
-
-    if (accountingReport.getPaymentMode() != null) {
-      queryList.add("(self.move.paymentMode IS NULL OR self.move.paymentMode = :paymentMode)");
-    }
-
-    if (accountingReport.getCurrency() != null) {
-      queryList.add("(self.move.currency IS NULL OR self.move.currency = :currency)");
-    }
-
-    if (CollectionUtils.isNotEmpty(companySet)) {
-      queryList.add("(self.move.company IS NULL OR self.move.company IN :companySet)");
-    }
-
     if (!this.areAllAnalyticAccountSetsEmpty(accountingReport, groupColumn, column, line)) {
       queryList.add(
           "EXISTS(SELECT 1 FROM AnalyticMoveLine aml WHERE aml.analyticAccount IN :analyticAccountSet AND aml.moveLine = self)");
@@ -730,6 +897,36 @@ public class AccountingReportValueMoveLineServiceImpl extends AccountingReportVa
     return String.join(" AND ", queryList);
   }
 
+  /**
+   * Get the conditions on the move lines that only depend on the report, and not on the value
+   * computed.
+   */
+  protected List<String> getMoveLineCommonQueryList(
+      AccountingReport accountingReport, Set<Company> companySet) {
+    List<String> queryList =
+        new ArrayList<>(Collections.singletonList("self.move.statusSelect IN :statusList"));
+
+    this.addDateQueries(queryList, accountingReport);
+
+    if (accountingReport.getJournal() != null) {
+      queryList.add("(self.move.journal IS NULL OR self.move.journal = :journal)");
+    }
+
+    if (accountingReport.getPaymentMode() != null) {
+      queryList.add("(self.move.paymentMode IS NULL OR self.move.paymentMode = :paymentMode)");
+    }
+
+    if (accountingReport.getCurrency() != null) {
+      queryList.add("(self.move.currency IS NULL OR self.move.currency = :currency)");
+    }
+
+    if (CollectionUtils.isNotEmpty(companySet)) {
+      queryList.add("(self.move.company IS NULL OR self.move.company IN :companySet)");
+    }
+
+    return queryList;
+  }
+
   protected void addDateQueries(List<String> queryList, AccountingReport accountingReport) {
     if (accountingReport.getDateFrom() != null) {
       queryList.add("(self.date IS NULL OR self.date >= :dateFrom)");
@@ -24,10 +24,12 @@ import com.axelor.apps.account.db.MoveLine;
 import com.axelor.apps.account.db.repo.FECImportRepository;
 import com.axelor.apps.account.db.repo.MoveRepository;
 import com.axelor.apps.account.service.app.AppAccountService;
+import com.axelor.apps.account.service.move.MoveCustAccountService;
 import com.axelor.apps.account.service.move.MoveValidateService;
 import com.axelor.apps.base.AxelorException;
 import com.axelor.apps.base.db.Company;
 import com.axelor.apps.base.db.ImportHistory;
+import com.axelor.apps.base.db.Partner;
 import com.axelor.apps.base.db.repo.CompanyRepository;
 import com.axelor.apps.base.db.repo.TraceBackRepository;
 import com.axelor.apps.base.service.exception.TraceBackService;
@@ -40,10 +42,14 @@ import com.google.common.base.Throwables;
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 public class FECImporter extends Importer {
 
@@ -52,7 +58,9 @@ public class FECImporter extends Importer {
   protected MoveRepository moveRepository;
   protected FECImportRepository fecImportRepository;
   protected CompanyRepository companyRepository;
-  private final List<Move> moveList = new ArrayList<>();
+  protected MoveCustAccountService moveCustAccountService;
+  private final Set<Long> moveIdSet = new LinkedHashSet<>();
+  private final Set<Long> partnerIdSet = new LinkedHashSet<>();
   private FECImport fecImport;
   private Company company;
 
@@ -62,12 +70,14 @@ public class FECImporter extends Importer {
       AppAccountService appAccountService,
       MoveRepository moveRepository,
       FECImportRepository fecImportRepository,
-      CompanyRepository companyRepository) {
+      CompanyRepository companyRepository,
+      MoveCustAccountService moveCustAccountService) {
     this.moveValidateService = moveValidateService;
     this.appAccountService = appAccountService;
     this.moveRepository = moveRepository;
     this.fecImportRepository = fecImportRepository;
     this.companyRepository = companyRepository;
+    this.moveCustAccountService = moveCustAccountService;
   }
 
   @Override
@@ -95,7 +105,7 @@ public class FECImporter extends Importer {
           @Override
           public void imported(Integer total, Integer success) {
             try {
-              completeAndvalidateMoves(fecImport, moveList, this);
+              completeAndvalidateMoves(fecImport, moveIdSet, this);
             } catch (Exception e) {
               this.handle(null, e);
             }
@@ -133,10 +143,7 @@ public class FECImporter extends Importer {
     if (bean.getClass().equals(MoveLine.class)) {
       MoveLine moveLine = (MoveLine) bean;
       if (moveLine.getMove() != null) {
-        Move move = moveLine.getMove();
-        if (!moveList.contains(move)) {
-          moveList.add(move);
-        }
+        moveIdSet.add(moveLine.getMove().getId());
       }
     }
   }
@@ -151,17 +158,17 @@ public class FECImporter extends Importer {
     return process(bind, data, null);
   }
 
-  public List<Move> getMoves() {
-    return this.moveList;
+  public Set<Long> getMoveIds() {
+    return this.moveIdSet;
   }
 
   protected void completeAndvalidateMoves(
-      FECImport fecImport, List<Move> moveList, ImporterListener listener) {
+      FECImport fecImport, Collection<Long> moveIdList, ImporterListener listener) {
     if (fecImport != null) {
       int i = 0;
       Long companyId = null;
-      for (Move move : moveList) {
-        move = moveRepository.find(move.getId());
+      for (Long moveId : moveIdList) {
+        Move move = moveRepository.find(moveId);
         if (companyId == null && move != null) {
           companyId = move.getCompany().getId();
         }
@@ -178,10 +185,31 @@ public class FECImporter extends Importer {
       }
       if (companyId != null) {
         this.company = companyRepository.find(companyId);
+        updateCustomerAccount(listener);
       }
     }
   }
 
+  /**
+   * Update the balances of the partners of the validated moves once, instead of after the
+   * validation of each move.
+   */
+  protected void updateCustomerAccount(ImporterListener listener) {
+    if (partnerIdSet.isEmpty()) {
+      return;
+    }
+    try {
+      List<Partner> partnerList =
+          partnerIdSet.stream()
+              .map(partnerId -> JPA.find(Partner.class, partnerId))
+              .filter(Objects::nonNull)
+              .collect(Collectors.toList());
+      moveCustAccountService.updateCustomerAccount(partnerList, company);
+    } catch (Exception e) {
+      listener.handle(null, e);
+    }
+  }
+
   @Transactional
   protected Move setReferenceAndValidate(
       FECImport fecImport, ImporterListener listener, Move move) {
@@ -197,7 +225,10 @@ public class FECImporter extends Importer {
         }
 
         if (fecImport.getValidGeneratedMove()) {
-          moveValidateService.accounting(move);
+          moveValidateService.accounting(move, false);
+          moveCustAccountService.getPartnerOfMove(move).stream()
+              .map(Partner::getId)
+              .forEach(partnerIdSet::add);
         } else {
           return moveRepository.save(move);
         }
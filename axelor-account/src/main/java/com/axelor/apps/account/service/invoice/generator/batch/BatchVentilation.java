@@ -22,10 +22,7 @@ import com.axelor.apps.account.db.Invoice;
 import com.axelor.apps.account.exception.AccountExceptionMessage;
 import com.axelor.apps.account.service.invoice.InvoiceService;
 import com.axelor.apps.base.AxelorException;
-import com.axelor.apps.base.db.repo.ExceptionOriginRepository;
 import com.axelor.apps.base.exceptions.BaseExceptionMessage;
-import com.axelor.apps.base.service.exception.TraceBackService;
-import com.axelor.db.JPA;
 import com.axelor.i18n.I18n;
 import com.google.inject.Inject;
 import java.lang.invoke.MethodHandles;
@@ -43,37 +40,9 @@ public class BatchVentilation extends BatchWkf {
   }
 
   @Override
-  protected void process() {
+  protected void processInvoice(Invoice invoice) throws AxelorException {
 
-    for (Invoice invoice : invoices(batch.getInvoiceBatch(), true)) {
-
-      try {
-
-        invoiceService.ventilate(invoiceRepo.find(invoice.getId()));
-        updateInvoice(invoiceRepo.find(invoice.getId()));
-
-      } catch (AxelorException e) {
-
-        TraceBackService.trace(
-            new AxelorException(
-                e, e.getCategory(), I18n.get("Invoice") + " %s", invoice.getInvoiceId()),
-            ExceptionOriginRepository.INVOICE_ORIGIN,
-            batch.getId());
-        incrementAnomaly();
-
-      } catch (Exception e) {
-
-        TraceBackService.trace(
-            new Exception(String.format(I18n.get("Invoice") + " %s", invoice.getInvoiceId()), e),
-            ExceptionOriginRepository.INVOICE_ORIGIN,
-            batch.getId());
-        incrementAnomaly();
-
-      } finally {
-
-        JPA.clear();
-      }
-    }
+    invoiceService.ventilate(invoice);
   }
 
   @Override
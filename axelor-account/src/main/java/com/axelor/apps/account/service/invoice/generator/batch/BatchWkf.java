@@ -22,11 +22,18 @@ import com.axelor.apps.account.db.Invoice;
 import com.axelor.apps.account.db.InvoiceBatch;
 import com.axelor.apps.account.db.repo.InvoiceRepository;
 import com.axelor.apps.account.service.invoice.InvoiceService;
+import com.axelor.apps.base.AxelorException;
+import com.axelor.apps.base.db.repo.ExceptionOriginRepository;
+import com.axelor.apps.base.service.exception.TraceBackService;
+import com.axelor.db.JPA;
+import com.axelor.i18n.I18n;
 import com.axelor.inject.Beans;
+import com.google.common.collect.Lists;
 import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,6 +46,104 @@ public abstract class BatchWkf extends BatchStrategy {
     super(invoiceService);
   }
 
+  /**
+   * Process the invoices of the batch by chunks of ids. The invoices to process are read with a
+   * keyset pagination on their id, so that only one chunk of invoices is loaded at a time and the
+   * invoices whose status has been changed by the batch are not skipped.
+   */
+  @Override
+  protected void process() {
+
+    InvoiceBatch invoiceBatch = batch.getInvoiceBatch();
+    long startTime = System.currentTimeMillis();
+
+    if (invoiceBatch.getOnSelectOk()) {
+      List<Long> invoiceIdList =
+          invoiceBatch.getInvoiceSet().stream()
+              .map(Invoice::getId)
+              .sorted()
+              .collect(Collectors.toList());
+      for (List<Long> invoiceIdChunk : Lists.partition(invoiceIdList, FETCH_LIMIT)) {
+        processInvoiceChunk(invoiceIdChunk);
+      }
+    } else {
+      Long companyId = invoiceBatch.getCompany().getId();
+      int statusSelect = invoiceBatch.getToStatusSelect();
+      List<Long> invoiceIdChunk;
+      Long lastId = 0L;
+
+      while (!(invoiceIdChunk = fetchInvoiceIdChunk(companyId, statusSelect, lastId)).isEmpty()) {
+        lastId = invoiceIdChunk.get(invoiceIdChunk.size() - 1);
+        processInvoiceChunk(invoiceIdChunk);
+      }
+    }
+
+    LOG.debug(
+        "{} invoice(s) processed in {} ms",
+        batch.getDone() + batch.getAnomaly(),
+        System.currentTimeMillis() - startTime);
+  }
+
+  protected List<Long> fetchInvoiceIdChunk(Long companyId, int statusSelect, Long lastId) {
+    return JPA.em()
+        .createQuery(
+            "SELECT self.id FROM Invoice self "
+                + "WHERE self.company.id = :companyId "
+                + "AND self.statusSelect = :statusSelect "
+                + "AND self.id > :lastId "
+                + "ORDER BY self.id",
+            Long.class)
+        .setParameter("companyId", companyId)
+        .setParameter("statusSelect", statusSelect)
+        .setParameter("lastId", lastId)
+        .setMaxResults(FETCH_LIMIT)
+        .getResultList();
+  }
+
+  protected void processInvoiceChunk(List<Long> invoiceIdList) {
+
+    long startTime = System.currentTimeMillis();
+
+    for (Long invoiceId : invoiceIdList) {
+
+      Invoice invoice = invoiceRepo.find(invoiceId);
+
+      try {
+
+        processInvoice(invoice);
+        updateInvoice(invoiceRepo.find(invoiceId));
+
+      } catch (AxelorException e) {
+
+        TraceBackService.trace(
+            new AxelorException(
+                e, e.getCategory(), I18n.get("Invoice") + " %s", invoice.getInvoiceId()),
+            ExceptionOriginRepository.INVOICE_ORIGIN,
+            batch.getId());
+        incrementAnomaly();
+        JPA.clear();
+
+      } catch (Exception e) {
+
+        TraceBackService.trace(
+            new Exception(String.format(I18n.get("Invoice") + " %s", invoice.getInvoiceId()), e),
+            ExceptionOriginRepository.INVOICE_ORIGIN,
+            batch.getId());
+        incrementAnomaly();
+        JPA.clear();
+      }
+    }
+
+    JPA.clear();
+
+    LOG.debug(
+        "Chunk of {} invoice(s) processed in {} ms",
+        invoiceIdList.size(),
+        System.currentTimeMillis() - startTime);
+  }
+
+  protected abstract void processInvoice(Invoice invoice) throws AxelorException;
+
   /**
    * Récupérer la liste des factures à traiter.
    *
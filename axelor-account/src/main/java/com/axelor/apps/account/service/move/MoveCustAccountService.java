@@ -22,6 +22,7 @@ import com.axelor.apps.account.db.Move;
 import com.axelor.apps.account.db.MoveLine;
 import com.axelor.apps.account.service.AccountCustomerService;
 import com.axelor.apps.account.service.AccountingService;
+import com.axelor.apps.account.service.accountingsituation.PartnerAccountBalanceService;
 import com.axelor.apps.base.AxelorException;
 import com.axelor.apps.base.db.Company;
 import com.axelor.apps.base.db.Partner;
@@ -33,11 +34,15 @@ import java.util.List;
 public class MoveCustAccountService {
 
   protected AccountCustomerService accountCustomerService;
+  protected PartnerAccountBalanceService partnerAccountBalanceService;
 
   @Inject
-  public MoveCustAccountService(AccountCustomerService accountCustomerService) {
+  public MoveCustAccountService(
+      AccountCustomerService accountCustomerService,
+      PartnerAccountBalanceService partnerAccountBalanceService) {
 
     this.accountCustomerService = accountCustomerService;
+    this.partnerAccountBalanceService = partnerAccountBalanceService;
   }
 
   /**
@@ -70,6 +75,20 @@ public class MoveCustAccountService {
     }
   }
 
+  /**
+   * Recompute the partner account balances of the partners, when move lines of a move already
+   * accounted have been changed. Must be called before updating the partner balances.
+   *
+   * @param partnerList
+   * @param company
+   */
+  public void rebuildPartnerAccountBalances(List<Partner> partnerList, Company company) {
+
+    if (partnerAccountBalanceService.isManaged()) {
+      partnerAccountBalanceService.rebuildBalances(company, partnerList);
+    }
+  }
+
   /**
    * Get the distinct partners of an account move that impact the partner balances
    *
@@ -27,6 +27,7 @@ import com.axelor.apps.account.db.repo.ReconcileRepository;
 import com.axelor.apps.account.exception.AccountExceptionMessage;
 import com.axelor.apps.account.service.AccountCustomerService;
 import com.axelor.apps.account.service.accountingsituation.AccountingSituationService;
+import com.axelor.apps.account.service.accountingsituation.PartnerAccountBalanceService;
 import com.axelor.apps.account.service.reconcile.UnreconcileService;
 import com.axelor.apps.base.AxelorException;
 import com.axelor.apps.base.db.repo.TraceBackRepository;
@@ -54,6 +55,8 @@ public class MoveRemoveServiceImpl implements MoveRemoveService {
 
   protected AccountCustomerService accountCustomerService;
 
+  protected PartnerAccountBalanceService partnerAccountBalanceService;
+
   @Inject
   public MoveRemoveServiceImpl(
       MoveRepository moveRepo,
@@ -61,13 +64,15 @@ public class MoveRemoveServiceImpl implements MoveRemoveService {
       ArchivingService archivingService,
       UnreconcileService unReconcileService,
       AccountingSituationService accountingSituationService,
-      AccountCustomerService accountCustomerService) {
+      AccountCustomerService accountCustomerService,
+      PartnerAccountBalanceService partnerAccountBalanceService) {
     this.moveRepo = moveRepo;
     this.moveLineRepo = moveLineRepo;
     this.archivingService = archivingService;
     this.unReconcileService = unReconcileService;
     this.accountingSituationService = accountingSituationService;
     this.accountCustomerService = accountCustomerService;
+    this.partnerAccountBalanceService = partnerAccountBalanceService;
   }
 
   @Override
@@ -92,6 +97,7 @@ public class MoveRemoveServiceImpl implements MoveRemoveService {
     }
 
     move.setStatusSelect(MoveRepository.STATUS_CANCELED);
+    partnerAccountBalanceService.updateBalances(move);
     return move;
   }
 
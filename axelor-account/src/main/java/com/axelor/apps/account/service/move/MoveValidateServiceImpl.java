@@ -69,6 +69,7 @@ import com.axelor.i18n.I18n;
 import com.axelor.meta.MetaStore;
 import com.axelor.meta.schema.views.Selection.Option;
 import com.google.common.base.Splitter;
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
 import com.google.inject.servlet.RequestScoped;
@@ -79,10 +80,15 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.apache.commons.collections.CollectionUtils;
 import org.slf4j.Logger;
@@ -592,6 +598,7 @@ public class MoveValidateServiceImpl implements MoveValidateService {
     this.freezeFieldsOnMoveLines(move);
     moveRepository.save(move);
 
+    moveCustAccountService.rebuildPartnerAccountBalances(partnerList, move.getCompany());
     moveCustAccountService.updateCustomerAccount(partnerList, move.getCompany());
   }
 
@@ -668,6 +675,14 @@ public class MoveValidateServiceImpl implements MoveValidateService {
     moveLine.setAdjustingMove(move.getAdjustingMove());
   }
 
+  /**
+   * Account the moves of the list. The moves are loaded by pages, the period authorizations are
+   * checked once per period and the partner balances are updated once per company at the end,
+   * instead of after each move.
+   *
+   * @param moveIds
+   * @return the references of the moves that could not be accounted, separated by commas
+   */
   @Override
   public String accountingMultiple(List<Integer> moveIds) {
     String errors = "";
@@ -675,30 +690,65 @@ public class MoveValidateServiceImpl implements MoveValidateService {
       return errors;
     }
     User user = AuthUtils.getUser();
-    int i = 0;
-    for (Integer moveId : moveIds) {
-      Move move = moveRepository.find(moveId.longValue());
-      try {
-        if (!periodCheckService.isAuthorizedToAccountOnPeriod(move, user)) {
-          throw new AxelorException(
-              TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
-              String.format(
-                  I18n.get(AccountExceptionMessage.ACCOUNT_PERIOD_TEMPORARILY_CLOSED),
-                  move.getReference()));
+    Map<Long, Boolean> periodAuthorizationMap = new HashMap<>();
+    Map<Long, Set<Long>> partnerIdSetByCompanyId = new LinkedHashMap<>();
+    Map<Long, List<String>> referenceListByCompanyId = new HashMap<>();
+
+    for (List<Integer> moveIdPage : Lists.partition(moveIds, jpaLimit)) {
+      Map<Long, Move> moveMap =
+          moveRepository
+              .all()
+              .filter("self.id IN :moveIds")
+              .bind(
+                  "moveIds",
+                  moveIdPage.stream().map(Integer::longValue).collect(Collectors.toList()))
+              .fetch()
+              .stream()
+              .collect(Collectors.toMap(Move::getId, Function.identity()));
+
+      for (Integer moveId : moveIdPage) {
+        Move move = moveMap.get(moveId.longValue());
+        if (move == null) {
+          continue;
         }
-        if (move.getStatusSelect() != MoveRepository.STATUS_ACCOUNTED
-            && move.getStatusSelect() != MoveRepository.STATUS_CANCELED) {
-          accounting(move);
+        try {
+          if (!isAuthorizedToAccountOnPeriod(move, user, periodAuthorizationMap)) {
+            throw new AxelorException(
+                TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
+                String.format(
+                    I18n.get(AccountExceptionMessage.ACCOUNT_PERIOD_TEMPORARILY_CLOSED),
+                    move.getReference()));
+          }
+          if (move.getStatusSelect() != MoveRepository.STATUS_ACCOUNTED
+              && move.getStatusSelect() != MoveRepository.STATUS_CANCELED) {
+            accounting(move, false);
+            addPartnerOfMove(move, partnerIdSetByCompanyId);
+            referenceListByCompanyId
+                .computeIfAbsent(move.getCompany().getId(), companyId -> new ArrayList<>())
+                .add(move.getReference());
+          }
+        } catch (Exception e) {
+          TraceBackService.trace(e);
+          if (errors.length() > 0) {
+            errors = errors.concat(", ");
+          }
+          errors = errors.concat(move.getReference());
         }
+      }
+      JPA.clear();
+    }
+
+    // The moves whose partner balances could not be updated are reported with the failed ones
+    for (Map.Entry<Long, Set<Long>> entry : partnerIdSetByCompanyId.entrySet()) {
+      try {
+        updateCustomerAccounts(entry.getKey(), entry.getValue());
       } catch (Exception e) {
         TraceBackService.trace(e);
-        if (errors.length() > 0) {
-          errors = errors.concat(", ");
-        }
-        errors = errors.concat(move.getReference());
-      } finally {
-        if (++i % jpaLimit == 0) {
-          JPA.clear();
+        for (String reference : referenceListByCompanyId.get(entry.getKey())) {
+          if (errors.length() > 0) {
+            errors = errors.concat(", ");
+          }
+          errors = errors.concat(reference);
         }
       }
     }
@@ -707,10 +757,78 @@ public class MoveValidateServiceImpl implements MoveValidateService {
   }
 
   public void accountingMultiple(Query<Move> moveListQuery) throws AxelorException {
-    Move move;
+    Map<Long, Set<Long>> partnerIdSetByCompanyId = new LinkedHashMap<>();
+    List<Move> moveList;
+
+    // The accounted moves do not match the query anymore, so the first page is always fetched.
+    while (!(moveList = moveListQuery.fetch(jpaLimit)).isEmpty()) {
+      for (Move move : moveList) {
+        accounting(move, false);
+        addPartnerOfMove(move, partnerIdSetByCompanyId);
+      }
+      JPA.clear();
+    }
+
+    updateCustomerAccounts(partnerIdSetByCompanyId);
+  }
+
+  protected boolean isAuthorizedToAccountOnPeriod(
+      Move move, User user, Map<Long, Boolean> periodAuthorizationMap) throws AxelorException {
+    if (move.getCompany() == null
+        || move.getFunctionalOriginSelect() == MoveRepository.FUNCTIONAL_ORIGIN_OPENING
+        || move.getFunctionalOriginSelect() == MoveRepository.FUNCTIONAL_ORIGIN_CLOSURE
+        || move.getPeriod() == null) {
+      return periodCheckService.isAuthorizedToAccountOnPeriod(move, user);
+    }
+
+    Long periodId = move.getPeriod().getId();
+    if (!periodAuthorizationMap.containsKey(periodId)) {
+      periodAuthorizationMap.put(
+          periodId, periodCheckService.isAuthorizedToAccountOnPeriod(move, user));
+    }
+    return periodAuthorizationMap.get(periodId);
+  }
+
+  protected void addPartnerOfMove(Move move, Map<Long, Set<Long>> partnerIdSetByCompanyId) {
+    Set<Long> partnerIdSet =
+        partnerIdSetByCompanyId.computeIfAbsent(
+            move.getCompany().getId(), companyId -> new LinkedHashSet<>());
+    moveCustAccountService.getPartnerOfMove(move).stream()
+        .map(Partner::getId)
+        .forEach(partnerIdSet::add);
+  }
 
-    while (!((move = moveListQuery.fetchOne()) == null)) {
-      accounting(move);
+  /**
+   * Update the partner balances of the accounted moves, once per company.
+   *
+   * @param partnerIdSetByCompanyId the ids of the partners to update, by company id
+   * @throws AxelorException
+   */
+  protected void updateCustomerAccounts(Map<Long, Set<Long>> partnerIdSetByCompanyId)
+      throws AxelorException {
+    for (Map.Entry<Long, Set<Long>> entry : partnerIdSetByCompanyId.entrySet()) {
+      updateCustomerAccounts(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * Update the partner balances of a company, by pages of partners.
+   *
+   * @param companyId
+   * @param partnerIdSet the ids of the partners to update
+   * @throws AxelorException
+   */
+  protected void updateCustomerAccounts(Long companyId, Set<Long> partnerIdSet)
+      throws AxelorException {
+    for (List<Long> partnerIdPage : Lists.partition(new ArrayList<>(partnerIdSet), jpaLimit)) {
+      Company company = JPA.find(Company.class, companyId);
+      List<Partner> partnerList =
+          partnerRepository
+              .all()
+              .filter("self.id IN :partnerIds")
+              .bind("partnerIds", partnerIdPage)
+              .fetch();
+      moveCustAccountService.updateCustomerAccount(partnerList, company);
       JPA.clear();
     }
   }
@@ -284,10 +284,10 @@ public class MoveLineServiceImpl implements MoveLineService {
 
       List<Object> keys = new ArrayList<Object>();
 
-      keys.add(move.getCompany());
-      keys.add(moveLine.getAccount());
+      keys.add(move.getCompany().getId());
+      keys.add(moveLine.getAccount().getId());
       if (moveLine.getAccount().getUseForPartnerBalance()) {
-        keys.add(moveLine.getPartner());
+        keys.add(moveLine.getPartner() != null ? moveLine.getPartner().getId() : null);
       }
 
       Pair<List<MoveLine>, List<MoveLine>> moveLineLists = moveLineMap.get(keys);
@@ -39,6 +39,7 @@ import com.axelor.apps.account.service.invoice.InvoiceTermFilterService;
 import com.axelor.apps.account.service.invoice.InvoiceTermFinancialDiscountService;
 import com.axelor.apps.account.service.invoice.InvoiceTermService;
 import com.axelor.apps.account.service.move.MoveCreateService;
+import com.axelor.apps.account.service.move.MoveCustAccountService;
 import com.axelor.apps.account.service.move.MoveCutOffService;
 import com.axelor.apps.account.service.move.MoveLineInvoiceTermService;
 import com.axelor.apps.account.service.move.MoveValidateService;
@@ -68,11 +69,13 @@ import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
 import jakarta.xml.bind.JAXBException;
 import java.io.IOException;
+import java.lang.invoke.MethodHandles;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -82,8 +85,11 @@ import javax.persistence.TypedQuery;
 import javax.xml.datatype.DatatypeConfigurationException;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.tuple.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class PaymentSessionValidateServiceImpl implements PaymentSessionValidateService {
+  private final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
   protected AppBaseService appBaseService;
   protected MoveCreateService moveCreateService;
   protected MoveValidateService moveValidateService;
@@ -108,6 +114,7 @@ public class PaymentSessionValidateServiceImpl implements PaymentSessionValidate
   protected FinancialDiscountService financialDiscountService;
   protected InvoiceTermFilterService invoiceTermFilterService;
   protected CurrencyScaleService currencyScaleService;
+  protected MoveCustAccountService moveCustAccountService;
   protected int counter = 0;
 
   @Inject
@@ -135,7 +142,8 @@ public class PaymentSessionValidateServiceImpl implements PaymentSessionValidate
       MoveLineFinancialDiscountService moveLineFinancialDiscountService,
       FinancialDiscountService financialDiscountService,
       InvoiceTermFilterService invoiceTermFilterService,
-      CurrencyScaleService currencyScaleService) {
+      CurrencyScaleService currencyScaleService,
+      MoveCustAccountService moveCustAccountService) {
     this.appBaseService = appBaseService;
     this.moveCreateService = moveCreateService;
     this.moveValidateService = moveValidateService;
@@ -160,28 +168,29 @@ public class PaymentSessionValidateServiceImpl implements PaymentSessionValidate
     this.financialDiscountService = financialDiscountService;
     this.invoiceTermFilterService = invoiceTermFilterService;
     this.currencyScaleService = currencyScaleService;
+    this.moveCustAccountService = moveCustAccountService;
   }
 
   @Override
   public int checkValidTerms(PaymentSession paymentSession) {
-    LocalDate nextSessionDate;
-    int offset = 0;
+    LocalDate nextSessionDate = this.fetchNextSessionDate(paymentSession);
+    Long lastId = 0L;
     List<InvoiceTerm> invoiceTermList;
     Query<InvoiceTerm> invoiceTermQuery =
         invoiceTermRepo
             .all()
             .filter(
                 "self.paymentSession = :paymentSession "
-                    + "AND self.isSelectedOnPaymentSession IS TRUE")
+                    + "AND self.isSelectedOnPaymentSession IS TRUE "
+                    + "AND self.id > :lastId")
             .bind("paymentSession", paymentSession)
             .order("id");
 
-    while (!(invoiceTermList = invoiceTermQuery.fetch(AbstractBatch.FETCH_LIMIT, offset))
+    while (!(invoiceTermList =
+            invoiceTermQuery.bind("lastId", lastId).fetch(AbstractBatch.FETCH_LIMIT))
         .isEmpty()) {
-      nextSessionDate = this.fetchNextSessionDate(paymentSession);
-
       for (InvoiceTerm invoiceTerm : invoiceTermList) {
-        offset++;
+        lastId = invoiceTerm.getId();
 
         if (nextSessionDate != null
             && invoiceTerm.getFinancialDiscount() != null
@@ -239,6 +248,7 @@ public class PaymentSessionValidateServiceImpl implements PaymentSessionValidate
         paymentSession.getAccountingMethodSelect()
             == PaymentSessionRepository.ACCOUNTING_METHOD_GLOBAL;
 
+    long startTime = System.currentTimeMillis();
     this.processInvoiceTerms(
         paymentSession,
         moveDateMap,
@@ -246,9 +256,22 @@ public class PaymentSessionValidateServiceImpl implements PaymentSessionValidate
         invoiceTermLinkWithRefundList,
         out,
         isGlobal);
-    this.postProcessPaymentSession(paymentSession, moveDateMap, paymentAmountMap, out, isGlobal);
+    log.debug(
+        "Payment session {} : {} invoice term(s) processed in {} ms",
+        paymentSession.getId(),
+        counter,
+        System.currentTimeMillis() - startTime);
 
-    return this.getMoveCount(moveDateMap, isGlobal);
+    startTime = System.currentTimeMillis();
+    this.postProcessPaymentSession(paymentSession, moveDateMap, paymentAmountMap, out, isGlobal);
+    int moveCount = this.getMoveCount(moveDateMap, isGlobal);
+    log.debug(
+        "Payment session {} : {} move(s) completed and accounted in {} ms",
+        paymentSession.getId(),
+        moveCount,
+        System.currentTimeMillis() - startTime);
+
+    return moveCount;
   }
 
   protected void postProcessPaymentSession(
@@ -274,25 +297,31 @@ public class PaymentSessionValidateServiceImpl implements PaymentSessionValidate
       boolean isGlobal)
       throws AxelorException {
     counter = 0;
-    int offset = 0;
+    Long lastId = 0L;
     List<InvoiceTerm> invoiceTermList;
     Query<InvoiceTerm> invoiceTermQuery =
         invoiceTermRepo
             .all()
-            .filter("self.paymentSession = :paymentSession AND self.paymentAmount > 0")
+            .filter(
+                "self.paymentSession = :paymentSession AND self.paymentAmount > 0 "
+                    + "AND self.id > :lastId")
             .bind("paymentSession", paymentSession)
             .order("id");
 
-    while (!(invoiceTermList = invoiceTermQuery.fetch(AbstractBatch.FETCH_LIMIT, offset))
+    // The terms are read by id, as processing or releasing a term may change whether it matches
+    // the query.
+    while (!(invoiceTermList =
+            invoiceTermQuery.bind("lastId", lastId).fetch(AbstractBatch.FETCH_LIMIT))
         .isEmpty()) {
       paymentSession = paymentSessionRepo.find(paymentSession.getId());
 
       for (InvoiceTerm invoiceTerm : invoiceTermList) {
+        lastId = invoiceTerm.getId();
+
         if (paymentSession.getStatusSelect() == PaymentSessionRepository.STATUS_AWAITING_PAYMENT
             || this.shouldBeProcessed(invoiceTerm)) {
 
           if (invoiceTerm.getPaymentAmount().compareTo(BigDecimal.ZERO) > 0) {
-            offset++;
 
             this.processInvoiceTerm(
                 paymentSession,
@@ -871,6 +900,7 @@ public class PaymentSessionValidateServiceImpl implements PaymentSessionValidate
       Map<Move, BigDecimal> paymentAmountMap)
       throws AxelorException {
     paymentSession = paymentSessionRepo.find(paymentSession.getId());
+    Set<Long> partnerIdSet = new LinkedHashSet<>();
 
     for (LocalDate accountingDate : moveDateMap.keySet()) {
       for (List<Move> moveList : moveDateMap.get(accountingDate).values()) {
@@ -879,26 +909,56 @@ public class PaymentSessionValidateServiceImpl implements PaymentSessionValidate
           move.setDescription(
               this.getMoveDescription(paymentSession, paymentAmountMap.get(move), false));
 
-          this.updateStatus(move, paymentSession.getJournal().getAllowAccountingDaybook());
+          this.updateStatus(
+              move, paymentSession.getJournal().getAllowAccountingDaybook(), partnerIdSet);
           this.updatePaymentDescription(move);
         }
       }
     }
+
+    this.updateCustomerAccounts(paymentSession, partnerIdSet);
   }
 
   protected void updateStatus(Move move, boolean daybook) throws AxelorException {
+    this.updateStatus(move, daybook, null);
+  }
+
+  /**
+   * Update the status of a move of the session. If a set of partner ids is given, the balances of
+   * the partners of the move are not updated when it is accounted, but their ids are added to the
+   * set, so that each balance is updated once for the whole session.
+   */
+  protected void updateStatus(Move move, boolean daybook, Set<Long> partnerIdSet)
+      throws AxelorException {
     moveValidateService.updateValidateStatus(move, daybook);
 
     if (daybook) {
       move.setStatusSelect(MoveRepository.STATUS_DAYBOOK);
       moveValidateService.completeMoveLines(move);
       moveValidateService.freezeFieldsOnMoveLines(move);
-    } else {
+    } else if (partnerIdSet == null) {
       moveCutOffService.autoApplyCutOffDates(move);
       moveValidateService.accounting(move);
+    } else {
+      moveCutOffService.autoApplyCutOffDates(move);
+      moveValidateService.accounting(move, false);
+      moveCustAccountService.getPartnerOfMove(move).stream()
+          .map(Partner::getId)
+          .forEach(partnerIdSet::add);
     }
   }
 
+  protected void updateCustomerAccounts(PaymentSession paymentSession, Set<Long> partnerIdSet)
+      throws AxelorException {
+    if (partnerIdSet.isEmpty()) {
+      return;
+    }
+
+    List<Partner> partnerList =
+        partnerRepo.all().filter("self.id IN :partnerIds").bind("partnerIds", partnerIdSet).fetch();
+    moveCustAccountService.updateCustomerAccount(partnerList, paymentSession.getCompany());
+  }
+
   @Override
   public LocalDate getAccountingDate(PaymentSession paymentSession, InvoiceTerm invoiceTerm) {
     switch (paymentSession.getMoveAccountingDateSelect()) {
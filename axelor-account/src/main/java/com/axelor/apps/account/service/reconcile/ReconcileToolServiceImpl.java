@@ -8,6 +8,7 @@ import com.axelor.apps.account.db.repo.InvoicePaymentRepository;
 import com.axelor.apps.account.db.repo.InvoiceTermPaymentRepository;
 import com.axelor.apps.account.service.AccountCustomerService;
 import com.axelor.apps.account.service.AccountingService;
+import com.axelor.apps.account.service.accountingsituation.PartnerAccountBalanceService;
 import com.axelor.apps.account.service.invoice.InvoiceTermService;
 import com.axelor.apps.account.service.move.MoveToolService;
 import com.axelor.apps.base.AxelorException;
@@ -30,6 +31,7 @@ public class ReconcileToolServiceImpl implements ReconcileToolService {
   protected InvoiceTermService invoiceTermService;
   protected InvoicePaymentRepository invoicePaymentRepository;
   protected InvoiceTermPaymentRepository invoiceTermPaymentRepository;
+  protected PartnerAccountBalanceService partnerAccountBalanceService;
 
   @Inject
   public ReconcileToolServiceImpl(
@@ -37,17 +39,21 @@ public class ReconcileToolServiceImpl implements ReconcileToolService {
       MoveToolService moveToolService,
       InvoiceTermService invoiceTermService,
       InvoicePaymentRepository invoicePaymentRepository,
-      InvoiceTermPaymentRepository invoiceTermPaymentRepository) {
+      InvoiceTermPaymentRepository invoiceTermPaymentRepository,
+      PartnerAccountBalanceService partnerAccountBalanceService) {
     this.accountCustomerService = accountCustomerService;
     this.moveToolService = moveToolService;
     this.invoiceTermService = invoiceTermService;
     this.invoicePaymentRepository = invoicePaymentRepository;
     this.invoiceTermPaymentRepository = invoiceTermPaymentRepository;
+    this.partnerAccountBalanceService = partnerAccountBalanceService;
   }
 
   @Override
   public void updatePartnerAccountingSituation(Reconcile reconcile) throws AxelorException {
 
+    partnerAccountBalanceService.updateBalances(reconcile);
+
     List<Partner> partnerList = this.getPartners(reconcile);
 
     if (partnerList != null && !partnerList.isEmpty()) {
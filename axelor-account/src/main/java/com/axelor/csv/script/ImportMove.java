@@ -45,6 +45,7 @@ import com.axelor.apps.base.service.exception.TraceBackService;
 import com.axelor.auth.AuthUtils;
 import com.axelor.auth.db.User;
 import com.axelor.common.StringUtils;
+import com.axelor.db.JPA;
 import com.axelor.i18n.I18n;
 import com.axelor.inject.Beans;
 import com.google.inject.Inject;
@@ -53,6 +54,7 @@ import java.math.BigDecimal;
 import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -72,6 +74,13 @@ public class ImportMove {
 
   private String lastImportDate;
 
+  // The records already read by the import, by reference or code, to avoid a query per line.
+  private final Map<String, Long> moveIdMap = new HashMap<>();
+  private final Map<String, Integer> moveLineCounterMap = new HashMap<>();
+  private final Map<String, Long> journalIdMap = new HashMap<>();
+  private final Map<String, Long> accountIdMap = new HashMap<>();
+  private final Map<String, Long> periodIdMap = new HashMap<>();
+
   @Transactional(rollbackOn = {Exception.class})
   public Object importFECMove(Object bean, Map<String, Object> values) throws AxelorException {
     assert bean instanceof MoveLine;
@@ -102,25 +111,17 @@ public class ImportMove {
       }
       String importReference = String.format("#%s-%s", csvReference, lastImportDate);
 
-      MoveLine mvLine =
-          moveLineRepo
-              .all()
-              .filter("self.name LIKE '" + importReference + "-%'")
-              .order("-counter")
-              .fetchOne();
-      if (mvLine != null) {
-        int counter = mvLine.getCounter() + 1;
-        moveLine.setCounter(counter);
-      }
+      int counter = getLastMoveLineCounter(importReference) + 1;
+      moveLine.setCounter(counter);
+      moveLineCounterMap.put(importReference, counter);
 
       if (values.get("EcritureDate") != null) {
         moveLine.setDate(parseDate(values.get("EcritureDate").toString()));
       }
 
-      Period period =
-          periodService.getPeriod(moveLine.getDate(), company, YearRepository.TYPE_FISCAL);
+      Period period = getPeriod(moveLine.getDate(), company);
 
-      Move move = moveRepository.all().filter("self.reference = ?", importReference).fetchOne();
+      Move move = getMove(importReference);
       if (move == null) {
         move = new Move();
         move.setFecImport(fecImport);
@@ -157,14 +158,7 @@ public class ImportMove {
 
         Journal journal = null;
         if (values.get("JournalCode") != null) {
-          journal =
-              Beans.get(JournalRepository.class)
-                  .all()
-                  .filter(
-                      "self.code = ?1 AND self.company.id = ?2",
-                      values.get("JournalCode").toString(),
-                      move.getCompany().getId())
-                  .fetchOne();
+          journal = getJournal(values.get("JournalCode").toString(), move.getCompany());
           if (journal == null) {
             throw new AxelorException(
                 fecImport,
@@ -192,16 +186,10 @@ public class ImportMove {
         }
 
         moveRepository.save(move);
+        moveIdMap.put(importReference, move.getId());
       }
       if (values.get("CompteNum") != null) {
-        Account account =
-            Beans.get(AccountRepository.class)
-                .all()
-                .filter(
-                    "self.code = ?1 AND self.company.id = ?2",
-                    values.get("CompteNum").toString(),
-                    move.getCompany().getId())
-                .fetchOne();
+        Account account = getAccount(values.get("CompteNum").toString(), move.getCompany());
         if (account == null) {
           throw new AxelorException(
               fecImport,
@@ -244,6 +232,88 @@ public class ImportMove {
     return moveLine;
   }
 
+  protected int getLastMoveLineCounter(String importReference) {
+    Integer counter = moveLineCounterMap.get(importReference);
+    if (counter != null) {
+      return counter;
+    }
+
+    MoveLine mvLine =
+        moveLineRepo
+            .all()
+            .filter("self.name LIKE '" + importReference + "-%'")
+            .order("-counter")
+            .fetchOne();
+    return mvLine != null ? mvLine.getCounter() : 0;
+  }
+
+  /**
+   * Get the move of an import reference. The id of the move is kept once found, but the move is
+   * still searched by reference if it does not exist anymore, as when the creation of the move
+   * has been rolled back.
+   */
+  protected Move getMove(String importReference) {
+    Long moveId = moveIdMap.get(importReference);
+    Move move = moveId != null ? moveRepository.find(moveId) : null;
+    if (move == null) {
+      move = moveRepository.all().filter("self.reference = ?", importReference).fetchOne();
+      if (move != null) {
+        moveIdMap.put(importReference, move.getId());
+      }
+    }
+    return move;
+  }
+
+  protected Period getPeriod(LocalDate date, Company company) {
+    if (date == null) {
+      return periodService.getPeriod(date, company, YearRepository.TYPE_FISCAL);
+    }
+    String key = String.format("%s|%s", company.getId(), date);
+    Long periodId = periodIdMap.get(key);
+    Period period = periodId != null ? JPA.find(Period.class, periodId) : null;
+    if (period == null) {
+      period = periodService.getPeriod(date, company, YearRepository.TYPE_FISCAL);
+      if (period != null) {
+        periodIdMap.put(key, period.getId());
+      }
+    }
+    return period;
+  }
+
+  protected Journal getJournal(String code, Company company) {
+    String key = String.format("%s|%s", company.getId(), code);
+    Long journalId = journalIdMap.get(key);
+    Journal journal = journalId != null ? JPA.find(Journal.class, journalId) : null;
+    if (journal == null) {
+      journal =
+          Beans.get(JournalRepository.class)
+              .all()
+              .filter("self.code = ?1 AND self.company.id = ?2", code, company.getId())
+              .fetchOne();
+      if (journal != null) {
+        journalIdMap.put(key, journal.getId());
+      }
+    }
+    return journal;
+  }
+
+  protected Account getAccount(String code, Company company) {
+    String key = String.format("%s|%s", company.getId(), code);
+    Long accountId = accountIdMap.get(key);
+    Account account = accountId != null ? JPA.find(Account.class, accountId) : null;
+    if (account == null) {
+      account =
+          Beans.get(AccountRepository.class)
+              .all()
+              .filter("self.code = ?1 AND self.company.id = ?2", code, company.getId())
+              .fetchOne();
+      if (account != null) {
+        accountIdMap.put(key, account.getId());
+      }
+    }
+    return account;
+  }
+
   protected void setMovePartner(Move move, MoveLine moveLine) {
     List<Partner> partnerList =
         move.getMoveLineList().stream()
@@ -0,0 +1,214 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2024 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.account.service.accountingsituation;
+
+import com.axelor.apps.account.db.Account;
+import com.axelor.apps.account.db.Move;
+import com.axelor.apps.account.db.MoveLine;
+import com.axelor.apps.account.db.Reconcile;
+import com.axelor.apps.account.db.repo.MoveRepository;
+import com.axelor.apps.account.db.repo.ReconcileRepository;
+import com.axelor.apps.base.db.Company;
+import com.axelor.apps.base.db.Partner;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TestPartnerAccountBalanceService {
+
+  private PartnerAccountBalanceServiceImpl partnerAccountBalanceService;
+  private boolean managed;
+
+  /** Amounts added to the balances, in the order of the calls. */
+  private List<BigDecimal> addedAmountList;
+
+  private Company company;
+  private Partner partner;
+  private Account account;
+
+  @BeforeEach
+  void prepare() {
+    managed = true;
+    addedAmountList = new ArrayList<>();
+    partnerAccountBalanceService =
+        new PartnerAccountBalanceServiceImpl(null, null, null, null) {
+          @Override
+          public boolean isManaged() {
+            return managed;
+          }
+
+          @Override
+          protected void addBalance(
+              Company company, Partner partner, Account account, BigDecimal amount) {
+            Assertions.assertSame(TestPartnerAccountBalanceService.this.company, company);
+            Assertions.assertSame(TestPartnerAccountBalanceService.this.partner, partner);
+            Assertions.assertSame(TestPartnerAccountBalanceService.this.account, account);
+            addedAmountList.add(amount);
+          }
+        };
+
+    company = new Company();
+    partner = new Partner();
+    account = new Account();
+    account.setReconcileOk(true);
+  }
+
+  private Move createMove(int statusSelect, MoveLine... moveLines) {
+    Move move = new Move();
+    move.setCompany(company);
+    move.setStatusSelect(statusSelect);
+    move.setIgnoreInAccountingOk(false);
+    move.setInPartnerAccountBalanceOk(false);
+    for (MoveLine moveLine : moveLines) {
+      move.addMoveLineListItem(moveLine);
+    }
+    return move;
+  }
+
+  /**
+   * Create a move line on a reconcilable account: its amount remaining is computed from its debit
+   * or credit and its amount paid, and it is negative for a credit line.
+   */
+  private MoveLine createMoveLine(String debit, String credit, String amountPaid) {
+    MoveLine moveLine = new MoveLine();
+    moveLine.setPartner(partner);
+    moveLine.setAccount(account);
+    moveLine.setDebit(new BigDecimal(debit));
+    moveLine.setCredit(new BigDecimal(credit));
+    moveLine.setAmountPaid(new BigDecimal(amountPaid));
+    return moveLine;
+  }
+
+  private void assertAddedAmounts(String... amounts) {
+    Assertions.assertEquals(amounts.length, addedAmountList.size());
+    for (int index = 0; index < amounts.length; index++) {
+      Assertions.assertEquals(
+          0, new BigDecimal(amounts[index]).compareTo(addedAmountList.get(index)));
+    }
+  }
+
+  @Test
+  void testAccountedMoveAddsSignedAmountsRemaining() {
+    Move move =
+        createMove(
+            MoveRepository.STATUS_ACCOUNTED,
+            createMoveLine("100", "0", "20"),
+            createMoveLine("0", "30", "0"));
+
+    partnerAccountBalanceService.updateBalances(move);
+
+    // The amounts remaining are 80 and -30, the credit one is counted negated
+    assertAddedAmounts("80", "30");
+    Assertions.assertTrue(move.getInPartnerAccountBalanceOk());
+  }
+
+  @Test
+  void testCanceledMoveRemovesAmountsRemaining() {
+    Move move =
+        createMove(
+            MoveRepository.STATUS_DAYBOOK,
+            createMoveLine("100", "0", "20"),
+            createMoveLine("0", "30", "0"));
+    partnerAccountBalanceService.updateBalances(move);
+    addedAmountList.clear();
+
+    move.setStatusSelect(MoveRepository.STATUS_CANCELED);
+    partnerAccountBalanceService.updateBalances(move);
+
+    assertAddedAmounts("-80", "-30");
+    Assertions.assertFalse(move.getInPartnerAccountBalanceOk());
+  }
+
+  @Test
+  void testMoveAddedOnlyOnce() {
+    Move move = createMove(MoveRepository.STATUS_DAYBOOK, createMoveLine("100", "0", "0"));
+    partnerAccountBalanceService.updateBalances(move);
+    move.setStatusSelect(MoveRepository.STATUS_ACCOUNTED);
+    partnerAccountBalanceService.updateBalances(move);
+
+    assertAddedAmounts("100");
+  }
+
+  @Test
+  void testIgnoredMoves() {
+    Move draftMove = createMove(MoveRepository.STATUS_NEW, createMoveLine("100", "0", "0"));
+    partnerAccountBalanceService.updateBalances(draftMove);
+
+    Move ignoredMove =
+        createMove(MoveRepository.STATUS_ACCOUNTED, createMoveLine("100", "0", "0"));
+    ignoredMove.setIgnoreInAccountingOk(true);
+    partnerAccountBalanceService.updateBalances(ignoredMove);
+
+    MoveLine moveLineWithoutPartner = createMoveLine("100", "0", "0");
+    moveLineWithoutPartner.setPartner(null);
+    partnerAccountBalanceService.updateBalances(
+        createMove(MoveRepository.STATUS_ACCOUNTED, moveLineWithoutPartner));
+
+    assertAddedAmounts();
+  }
+
+  @Test
+  void testNotManaged() {
+    managed = false;
+    Move move = createMove(MoveRepository.STATUS_ACCOUNTED, createMoveLine("100", "0", "0"));
+    partnerAccountBalanceService.updateBalances(move);
+
+    assertAddedAmounts();
+    Assertions.assertFalse(move.getInPartnerAccountBalanceOk());
+  }
+
+  @Test
+  void testReconcileRemovesAmountFromBothMoveLines() {
+    MoveLine debitMoveLine = createMoveLine("100", "0", "0");
+    MoveLine creditMoveLine = createMoveLine("0", "40", "0");
+    createMove(MoveRepository.STATUS_ACCOUNTED, debitMoveLine).setInPartnerAccountBalanceOk(true);
+    createMove(MoveRepository.STATUS_ACCOUNTED, creditMoveLine).setInPartnerAccountBalanceOk(true);
+
+    Reconcile reconcile = new Reconcile();
+    reconcile.setDebitMoveLine(debitMoveLine);
+    reconcile.setCreditMoveLine(creditMoveLine);
+    reconcile.setAmount(new BigDecimal("40"));
+    reconcile.setStatusSelect(ReconcileRepository.STATUS_CONFIRMED);
+    partnerAccountBalanceService.updateBalances(reconcile);
+
+    // Both move lines are paid by 40, so both count for 40 less in the balance
+    assertAddedAmounts("-40", "-40");
+  }
+
+  @Test
+  void testCanceledReconcileAddsAmountBack() {
+    MoveLine debitMoveLine = createMoveLine("100", "0", "40");
+    MoveLine creditMoveLine = createMoveLine("0", "40", "40");
+    createMove(MoveRepository.STATUS_ACCOUNTED, debitMoveLine).setInPartnerAccountBalanceOk(true);
+    createMove(MoveRepository.STATUS_DAYBOOK, creditMoveLine).setInPartnerAccountBalanceOk(false);
+
+    Reconcile reconcile = new Reconcile();
+    reconcile.setDebitMoveLine(debitMoveLine);
+    reconcile.setCreditMoveLine(creditMoveLine);
+    reconcile.setAmount(new BigDecimal("40"));
+    reconcile.setStatusSelect(ReconcileRepository.STATUS_CANCELED);
+    partnerAccountBalanceService.updateBalances(reconcile);
+
+    // The credit move line is not in the balances, only the debit one is updated
+    assertAddedAmounts("40");
+  }
+}
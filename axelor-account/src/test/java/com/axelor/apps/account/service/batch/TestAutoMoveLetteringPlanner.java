@@ -0,0 +1,195 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2024 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.account.service.batch;
+
+import com.axelor.apps.account.db.MoveLine;
+import com.axelor.apps.account.db.repo.AccountingBatchRepository;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class TestAutoMoveLetteringPlanner {
+
+  private long lastId = 0;
+
+  @Test
+  void testReconcileByAmountNotBalanced() {
+    AutoMoveLetteringPlanner planner =
+        new AutoMoveLetteringPlanner(
+            AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_AMOUNT, false);
+    MoveLine debit1 = createDebitMoveLine("100.00", null);
+    MoveLine debit2 = createDebitMoveLine("50.00", null);
+    MoveLine debit3 = createDebitMoveLine("100.00", null);
+    MoveLine credit1 = createCreditMoveLine("100.00", null);
+    MoveLine credit2 = createCreditMoveLine("20.00", null);
+
+    List<Pair<MoveLine, MoveLine>> pairList =
+        planner.getReconcilePairList(
+            Arrays.asList(debit1, debit2, debit3), Arrays.asList(credit1, credit2));
+
+    Assertions.assertEquals(1, pairList.size());
+    Assertions.assertSame(debit1, pairList.get(0).getLeft());
+    Assertions.assertSame(credit1, pairList.get(0).getRight());
+  }
+
+  @Test
+  void testReconcileByAmountIgnoresPartiallyReconciledLines() {
+    AutoMoveLetteringPlanner planner =
+        new AutoMoveLetteringPlanner(
+            AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_AMOUNT, false);
+    MoveLine debit1 = createDebitMoveLine("100.00", null);
+    debit1.setAmountRemaining(new BigDecimal("40.00"));
+    MoveLine debit2 = createDebitMoveLine("100.0", null);
+    MoveLine credit = createCreditMoveLine("100.00", null);
+
+    List<Pair<MoveLine, MoveLine>> pairList =
+        planner.getReconcilePairList(Arrays.asList(debit1, debit2), Arrays.asList(credit));
+
+    Assertions.assertEquals(1, pairList.size());
+    Assertions.assertSame(debit2, pairList.get(0).getLeft());
+  }
+
+  @Test
+  void testReconcileByOriginPartial() {
+    AutoMoveLetteringPlanner planner =
+        new AutoMoveLetteringPlanner(
+            AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_ORIGIN, true);
+    MoveLine debit1 = createDebitMoveLine("60.00", "INV1");
+    MoveLine debit2 = createDebitMoveLine("40.00", "INV2");
+    MoveLine credit1 = createCreditMoveLine("40.00", "INV2");
+    MoveLine credit2 = createCreditMoveLine("60.00", "INV1");
+
+    List<Pair<MoveLine, MoveLine>> pairList =
+        planner.getReconcilePairList(
+            Arrays.asList(debit1, debit2), Arrays.asList(credit1, credit2));
+
+    Assertions.assertEquals(2, pairList.size());
+    Assertions.assertSame(debit2, pairList.get(0).getLeft());
+    Assertions.assertSame(credit1, pairList.get(0).getRight());
+    Assertions.assertSame(debit1, pairList.get(1).getLeft());
+    Assertions.assertSame(credit2, pairList.get(1).getRight());
+  }
+
+  @Test
+  void testReconcileByBalancedAccount() {
+    AutoMoveLetteringPlanner planner =
+        new AutoMoveLetteringPlanner(
+            AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_BALANCED_ACCOUNT, false);
+    MoveLine debit1 = createDebitMoveLine("70.00", null);
+    MoveLine debit2 = createDebitMoveLine("30.00", null);
+    MoveLine credit1 = createCreditMoveLine("50.00", null);
+    MoveLine credit2 = createCreditMoveLine("50.00", null);
+
+    List<Pair<MoveLine, MoveLine>> pairList =
+        planner.getReconcilePairList(
+            Arrays.asList(debit1, debit2), Arrays.asList(credit1, credit2));
+
+    Assertions.assertEquals(3, pairList.size());
+    Assertions.assertEquals(Pair.of(debit1, credit1), pairList.get(0));
+    Assertions.assertEquals(Pair.of(debit1, credit2), pairList.get(1));
+    Assertions.assertEquals(Pair.of(debit2, credit2), pairList.get(2));
+
+    credit2.setAmountRemaining(new BigDecimal("40.00"));
+    Assertions.assertTrue(
+        planner
+            .getReconcilePairList(Arrays.asList(debit1, debit2), Arrays.asList(credit1, credit2))
+            .isEmpty());
+  }
+
+  @Test
+  void testBalancedMoveLineGroups() {
+    AutoMoveLetteringPlanner planner =
+        new AutoMoveLetteringPlanner(
+            AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_BALANCED_MOVE, false);
+    MoveLine debit1 = createDebitMoveLine("10.00", null);
+    MoveLine debit2 = createDebitMoveLine("20.00", null);
+    MoveLine credit1 = createCreditMoveLine("30.00", null);
+    MoveLine debit3 = createDebitMoveLine("5.00", null);
+    MoveLine credit2 = createCreditMoveLine("5.0", null);
+    MoveLine debit4 = createDebitMoveLine("7.00", null);
+
+    List<List<MoveLine>> groupList =
+        planner.getBalancedMoveLineGroupList(
+            Arrays.asList(debit1, debit2, credit1, debit3, credit2, debit4));
+
+    Assertions.assertEquals(2, groupList.size());
+    Assertions.assertEquals(Arrays.asList(debit1, debit2, credit1), groupList.get(0));
+    Assertions.assertEquals(Arrays.asList(debit3, credit2), groupList.get(1));
+  }
+
+  @Test
+  void testReconcileByAmountOnLargeLedger() {
+    AutoMoveLetteringPlanner planner =
+        new AutoMoveLetteringPlanner(
+            AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_AMOUNT, false);
+    int size = 100000;
+    List<MoveLine> debitMoveLines = new ArrayList<>();
+    List<MoveLine> creditMoveLines = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      debitMoveLines.add(createDebitMoveLine(BigDecimal.valueOf(i % 1000 + 1, 2), null));
+      creditMoveLines.add(createCreditMoveLine(BigDecimal.valueOf((size - i) % 1000 + 1, 2), null));
+    }
+    creditMoveLines.add(createCreditMoveLine("1000.00", null));
+
+    List<Pair<MoveLine, MoveLine>> pairList =
+        planner.getReconcilePairList(debitMoveLines, creditMoveLines);
+
+    Assertions.assertEquals(size, pairList.size());
+    Set<Long> reconciledMoveLineIdSet = new HashSet<>();
+    for (Pair<MoveLine, MoveLine> pair : pairList) {
+      Assertions.assertEquals(0, pair.getLeft().getDebit().compareTo(pair.getRight().getCredit()));
+      Assertions.assertTrue(reconciledMoveLineIdSet.add(pair.getLeft().getId()));
+      Assertions.assertTrue(reconciledMoveLineIdSet.add(pair.getRight().getId()));
+    }
+  }
+
+  protected MoveLine createDebitMoveLine(String amount, String origin) {
+    return createDebitMoveLine(new BigDecimal(amount), origin);
+  }
+
+  protected MoveLine createDebitMoveLine(BigDecimal amount, String origin) {
+    MoveLine moveLine = createMoveLine(amount, origin);
+    moveLine.setDebit(amount);
+    return moveLine;
+  }
+
+  protected MoveLine createCreditMoveLine(String amount, String origin) {
+    return createCreditMoveLine(new BigDecimal(amount), origin);
+  }
+
+  protected MoveLine createCreditMoveLine(BigDecimal amount, String origin) {
+    MoveLine moveLine = createMoveLine(amount, origin);
+    moveLine.setCredit(amount);
+    return moveLine;
+  }
+
+  protected MoveLine createMoveLine(BigDecimal amount, String origin) {
+    MoveLine moveLine = new MoveLine();
+    moveLine.setId(++lastId);
+    moveLine.setAmountRemaining(amount);
+    moveLine.setOrigin(origin);
+    return moveLine;
+  }
+}
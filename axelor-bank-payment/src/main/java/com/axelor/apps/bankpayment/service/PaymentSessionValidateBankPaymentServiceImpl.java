@@ -34,6 +34,7 @@ import com.axelor.apps.account.service.invoice.InvoiceTermFilterService;
 import com.axelor.apps.account.service.invoice.InvoiceTermFinancialDiscountService;
 import com.axelor.apps.account.service.invoice.InvoiceTermService;
 import com.axelor.apps.account.service.move.MoveCreateService;
+import com.axelor.apps.account.service.move.MoveCustAccountService;
 import com.axelor.apps.account.service.move.MoveCutOffService;
 import com.axelor.apps.account.service.move.MoveLineInvoiceTermService;
 import com.axelor.apps.account.service.move.MoveValidateService;
@@ -104,6 +105,7 @@ public class PaymentSessionValidateBankPaymentServiceImpl
       InvoiceTermFilterService invoiceTermFilterService,
       InvoicePaymentRepository invoicePaymentRepo,
       CurrencyScaleService currencyScaleService,
+      MoveCustAccountService moveCustAccountService,
       BankOrderService bankOrderService,
       BankOrderRepository bankOrderRepo,
       BankOrderValidationService bankOrderValidationService,
@@ -132,7 +134,8 @@ public class PaymentSessionValidateBankPaymentServiceImpl
         moveLineFinancialDiscountService,
         financialDiscountService,
         invoiceTermFilterService,
-        currencyScaleService);
+        currencyScaleService,
+        moveCustAccountService);
     this.bankOrderService = bankOrderService;
     this.bankOrderRepo = bankOrderRepo;
     this.bankOrderValidationService = bankOrderValidationService;
@@ -23,6 +23,7 @@ import com.axelor.apps.account.db.repo.MoveLineRepository;
 import com.axelor.apps.account.db.repo.MoveRepository;
 import com.axelor.apps.account.service.AccountCustomerService;
 import com.axelor.apps.account.service.accountingsituation.AccountingSituationService;
+import com.axelor.apps.account.service.accountingsituation.PartnerAccountBalanceService;
 import com.axelor.apps.account.service.move.MoveRemoveServiceImpl;
 import com.axelor.apps.account.service.reconcile.UnreconcileService;
 import com.axelor.apps.bankpayment.db.BankStatementLineAFB120;
@@ -50,6 +51,7 @@ public class MoveRemoveServiceBankPaymentImpl extends MoveRemoveServiceImpl {
       UnreconcileService unReconcileService,
       AccountingSituationService accountingSituationService,
       AccountCustomerService accountCustomerService,
+      PartnerAccountBalanceService partnerAccountBalanceService,
       BankStatementLineAFB120Repository bankStatementLineAFB120Repository) {
     super(
         moveRepo,
@@ -57,7 +59,8 @@ public class MoveRemoveServiceBankPaymentImpl extends MoveRemoveServiceImpl {
         archivingService,
         unReconcileService,
         accountingSituationService,
-        accountCustomerService);
+        accountCustomerService,
+        partnerAccountBalanceService);
     this.bankStatementLineAFB120Repository = bankStatementLineAFB120Repository;
   }
 
@@ -19,6 +19,11 @@
 package com.axelor.apps.base.db.repo;
 
 import com.axelor.apps.base.db.Sequence;
+import com.axelor.apps.base.service.administration.SequenceNumberBlockService;
+import com.axelor.apps.base.service.exception.TraceBackService;
+import com.axelor.apps.base.service.script.CompiledScriptService;
+import com.axelor.inject.Beans;
+import javax.persistence.PersistenceException;
 
 public class SequenceBaseRepository extends SequenceRepository {
 
@@ -31,4 +36,36 @@ public class SequenceBaseRepository extends SequenceRepository {
 
     return copy;
   }
+
+  @Override
+  public Sequence save(Sequence sequence) {
+    try {
+      Beans.get(SequenceNumberBlockService.class).releaseChangedBlocks(sequence);
+    } catch (Exception e) {
+      TraceBackService.traceExceptionFromSaveMethod(e);
+      throw new PersistenceException(e.getMessage(), e);
+    }
+    invalidateScripts(sequence);
+    return super.save(sequence);
+  }
+
+  @Override
+  public void remove(Sequence sequence) {
+    try {
+      Beans.get(SequenceNumberBlockService.class).releaseBlocks(sequence);
+    } catch (Exception e) {
+      TraceBackService.traceExceptionFromSaveMethod(e);
+      throw new PersistenceException(e.getMessage(), e);
+    }
+    invalidateScripts(sequence);
+    super.remove(sequence);
+  }
+
+  protected void invalidateScripts(Sequence sequence) {
+    if (sequence.getId() != null) {
+      CompiledScriptService compiledScriptService = Beans.get(CompiledScriptService.class);
+      compiledScriptService.invalidate(
+          compiledScriptService.getOwnerKey(Sequence.class, sequence.getId()));
+    }
+  }
 }
@@ -211,6 +211,21 @@ public final class BaseExceptionMessage {
   public static final String SEQUENCE_LETTERS_TYPE_UNHANDLED = /*$$(*/
       "The sequence letter type '%s' is not handled." /*)*/;
 
+  public static final String SEQUENCE_BLOCK_RESERVATION_ERROR = /*$$(*/
+      "Unable to reserve a block of numbers for the sequence %s." /*)*/;
+
+  public static final String SEQUENCE_BLOCK_WAIT_TIMEOUT = /*$$(*/
+      "The numbers of the sequence %s are held by another process, please try again later." /*)*/;
+
+  public static final String SEQUENCE_BLOCK_RELEASED_IN_TRANSACTION = /*$$(*/
+      "The sequence %s was modified in the current process, its numbers can not be given until it is saved." /*)*/;
+
+  public static final String SEQUENCE_BLOCK_LOCKED_IN_TRANSACTION = /*$$(*/
+      "The sequence %s is locked by the current process, no block of numbers can be reserved for it." /*)*/;
+
+  public static final String SEQUENCE_ALLOCATION_STATISTICS = /*$$(*/
+      "Blocks reserved : %s<br/>Total lock wait : %s ms<br/>Numbers served : %s (%s per second)" /*)*/;
+
   /** Address controller */
   public static final String ADDRESS_1 = /*$$(*/ "OK" /*)*/;
 
@@ -61,6 +61,7 @@ import com.axelor.apps.base.db.repo.UserBaseRepository;
 import com.axelor.apps.base.db.repo.YearBaseRepository;
 import com.axelor.apps.base.db.repo.YearRepository;
 import com.axelor.apps.base.listener.BaseServerStartListener;
+import com.axelor.apps.base.listener.SequenceNumberBlockShutdownListener;
 import com.axelor.apps.base.quickmenu.ActiveCompanyUpdateQuickMenuCreator;
 import com.axelor.apps.base.quickmenu.InstanceInfoQuickMenuCreator;
 import com.axelor.apps.base.rest.TranslationRestService;
@@ -153,6 +154,8 @@ import com.axelor.apps.base.service.TeamTaskService;
 import com.axelor.apps.base.service.TeamTaskServiceImpl;
 import com.axelor.apps.base.service.TradingNameService;
 import com.axelor.apps.base.service.TradingNameServiceImpl;
+import com.axelor.apps.base.service.UnitConversionCacheService;
+import com.axelor.apps.base.service.UnitConversionCacheServiceImpl;
 import com.axelor.apps.base.service.UnitConversionService;
 import com.axelor.apps.base.service.UnitConversionServiceImpl;
 import com.axelor.apps.base.service.YearService;
@@ -169,6 +172,8 @@ import com.axelor.apps.base.service.address.AddressTemplateLineViewService;
 import com.axelor.apps.base.service.address.AddressTemplateLineViewServiceImpl;
 import com.axelor.apps.base.service.address.AddressTemplateService;
 import com.axelor.apps.base.service.address.AddressTemplateServiceImpl;
+import com.axelor.apps.base.service.administration.SequenceNumberBlockService;
+import com.axelor.apps.base.service.administration.SequenceNumberBlockServiceImpl;
 import com.axelor.apps.base.service.administration.SequenceVersionGeneratorQueryService;
 import com.axelor.apps.base.service.administration.SequenceVersionGeneratorQueryServiceImpl;
 import com.axelor.apps.base.service.administration.SequenceVersionGeneratorService;
@@ -191,6 +196,8 @@ import com.axelor.apps.base.service.app.AppBaseService;
 import com.axelor.apps.base.service.app.AppBaseServiceImpl;
 import com.axelor.apps.base.service.birt.template.BirtTemplateService;
 import com.axelor.apps.base.service.birt.template.BirtTemplateServiceImpl;
+import com.axelor.apps.base.service.currency.CurrencyRateIndexService;
+import com.axelor.apps.base.service.currency.CurrencyRateIndexServiceImpl;
 import com.axelor.apps.base.service.dayplanning.DayPlanningService;
 import com.axelor.apps.base.service.dayplanning.DayPlanningServiceImpl;
 import com.axelor.apps.base.service.exception.HandleExceptionResponse;
@@ -224,6 +231,8 @@ import com.axelor.apps.base.service.pricing.PricingGenericService;
 import com.axelor.apps.base.service.pricing.PricingGenericServiceImpl;
 import com.axelor.apps.base.service.pricing.PricingGroupService;
 import com.axelor.apps.base.service.pricing.PricingGroupServiceImpl;
+import com.axelor.apps.base.service.pricing.PricingLineIndexService;
+import com.axelor.apps.base.service.pricing.PricingLineIndexServiceImpl;
 import com.axelor.apps.base.service.pricing.PricingMetaService;
 import com.axelor.apps.base.service.pricing.PricingMetaServiceImpl;
 import com.axelor.apps.base.service.pricing.PricingObserver;
@@ -250,6 +259,8 @@ import com.axelor.apps.base.service.printing.template.PrintingTemplateService;
 import com.axelor.apps.base.service.printing.template.PrintingTemplateServiceImpl;
 import com.axelor.apps.base.service.research.ResearchRequestService;
 import com.axelor.apps.base.service.research.ResearchRequestServiceImpl;
+import com.axelor.apps.base.service.script.CompiledScriptService;
+import com.axelor.apps.base.service.script.CompiledScriptServiceImpl;
 import com.axelor.apps.base.service.signature.SignatureService;
 import com.axelor.apps.base.service.signature.SignatureServiceImpl;
 import com.axelor.apps.base.service.tax.AccountManagementService;
@@ -419,6 +430,8 @@ public class BaseModule extends AxelorModule {
     bind(SequenceVersionGeneratorService.class).to(SequenceVersionGeneratorServiceImpl.class);
     bind(SequenceVersionGeneratorQueryService.class)
         .to(SequenceVersionGeneratorQueryServiceImpl.class);
+    bind(SequenceNumberBlockService.class).to(SequenceNumberBlockServiceImpl.class);
+    bind(CompiledScriptService.class).to(CompiledScriptServiceImpl.class);
     bind(TranslationRestService.class).to(TranslationRestServiceImpl.class);
     bind(DataBackupService.class).to(DataBackupServiceImpl.class);
     bind(AnonymizeService.class).to(AnonymizeServiceImpl.class);
@@ -430,6 +443,7 @@ public class BaseModule extends AxelorModule {
     bind(ResearchRequestService.class).to(ResearchRequestServiceImpl.class);
     bind(BirtTemplateService.class).to(BirtTemplateServiceImpl.class);
     bind(BaseServerStartListener.class);
+    bind(SequenceNumberBlockShutdownListener.class);
     bind(PrintFromBirtTemplateService.class).to(PrintFromBirtTemplateServiceImpl.class);
     bind(BirtTemplateViewService.class).to(BirtTemplateViewServiceImpl.class);
     bind(DayPlanningService.class).to(DayPlanningServiceImpl.class);
@@ -447,6 +461,7 @@ public class BaseModule extends AxelorModule {
     bind(TaxEquivService.class).to(TaxEquivServiceImpl.class);
     bind(OrderLineTaxService.class).to(OrderLineTaxServiceImpl.class);
     bind(CurrencyService.class).to(CurrencyServiceImpl.class);
+    bind(CurrencyRateIndexService.class).to(CurrencyRateIndexServiceImpl.class);
     bind(CurrencyScaleService.class).to(CurrencyScaleServiceImpl.class);
     bind(PricingMetaService.class).to(PricingMetaServiceImpl.class);
     bind(LanguageService.class).to(LanguageServiceImpl.class);
@@ -470,6 +485,8 @@ public class BaseModule extends AxelorModule {
     bind(PrintingTemplatePrintService.class).to(PrintingTemplatePrintServiceImpl.class);
     bind(PrintingGeneratorFactoryProvider.class).to(PrintingGeneratorFactoryProviderImpl.class);
     bind(UnitConversionService.class).to(UnitConversionServiceImpl.class);
+    bind(UnitConversionCacheService.class).to(UnitConversionCacheServiceImpl.class);
+    bind(PricingLineIndexService.class).to(PricingLineIndexServiceImpl.class);
     bind(FileService.class).to(FileServiceImpl.class);
     bind(TranslationBaseService.class).to(TranslationBaseServiceImpl.class);
     bind(UserPermissionResponseComputeService.class)
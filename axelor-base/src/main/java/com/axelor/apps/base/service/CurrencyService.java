@@ -23,7 +23,10 @@ import com.axelor.apps.base.db.Currency;
 import com.axelor.apps.base.db.CurrencyConversionLine;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import org.apache.commons.lang3.tuple.Pair;
 
 public interface CurrencyService {
 
@@ -37,6 +40,35 @@ public interface CurrencyService {
       Currency startCurrency, Currency endCurrency, BigDecimal amount, LocalDate date)
       throws AxelorException;
 
+  /**
+   * Get the conversion rates of a currency pair at several dates at once, for reports and batches
+   * converting many amounts.
+   *
+   * @param startCurrency
+   * @param endCurrency
+   * @param dates the dates, a null date meaning today
+   * @return the rate of each distinct date
+   * @throws AxelorException if a rate is missing for one of the dates
+   */
+  Map<LocalDate, BigDecimal> getCurrencyConversionRates(
+      Currency startCurrency, Currency endCurrency, Collection<LocalDate> dates)
+      throws AxelorException;
+
+  /**
+   * Convert several amounts, each at its own date, looking up the rate of each distinct date once.
+   *
+   * @param startCurrency
+   * @param endCurrency
+   * @param amountDateList pairs of amount and conversion date
+   * @return the converted amounts, in the same order as the given pairs
+   * @throws AxelorException if a rate is missing for one of the dates
+   */
+  List<BigDecimal> getAmountsCurrencyConvertedAtDates(
+      Currency startCurrency,
+      Currency endCurrency,
+      List<Pair<BigDecimal, LocalDate>> amountDateList)
+      throws AxelorException;
+
   BigDecimal getAmountCurrencyConvertedUsingExchangeRate(
       BigDecimal amount, BigDecimal exchangeRate, Currency endCurrency);
 
@@ -25,9 +25,12 @@ import com.axelor.apps.base.db.repo.CurrencyConversionLineRepository;
 import com.axelor.apps.base.db.repo.TraceBackRepository;
 import com.axelor.apps.base.exceptions.BaseExceptionMessage;
 import com.axelor.apps.base.service.app.AppBaseService;
+import com.axelor.apps.base.service.currency.CurrencyRateIndexService;
+import com.axelor.apps.base.service.currency.CurrencyRateTable;
 import com.axelor.auth.AuthUtils;
 import com.axelor.auth.db.User;
 import com.axelor.i18n.I18n;
+import com.axelor.inject.Beans;
 import com.axelor.meta.CallMethod;
 import com.axelor.utils.helpers.date.LocalDateHelper;
 import com.google.inject.Inject;
@@ -36,9 +39,14 @@ import java.lang.invoke.MethodHandles;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -49,23 +57,28 @@ public class CurrencyServiceImpl implements CurrencyService {
 
   protected AppBaseService appBaseService;
   protected CurrencyConversionLineRepository currencyConversionLineRepo;
+  protected CurrencyRateIndexService currencyRateIndexService;
   private LocalDate today;
 
   @Inject
   public CurrencyServiceImpl(
-      AppBaseService appBaseService, CurrencyConversionLineRepository currencyConversionLineRepo) {
+      AppBaseService appBaseService,
+      CurrencyConversionLineRepository currencyConversionLineRepo,
+      CurrencyRateIndexService currencyRateIndexService) {
 
     this.appBaseService = appBaseService;
     this.today =
         appBaseService.getTodayDate(
             Optional.ofNullable(AuthUtils.getUser()).map(User::getActiveCompany).orElse(null));
     this.currencyConversionLineRepo = currencyConversionLineRepo;
+    this.currencyRateIndexService = currencyRateIndexService;
   }
 
   public CurrencyServiceImpl(AppBaseService appBaseService, LocalDate today) {
 
     this.appBaseService = appBaseService;
     this.today = today;
+    this.currencyRateIndexService = Beans.get(CurrencyRateIndexService.class);
   }
 
   @CallMethod
@@ -91,17 +104,15 @@ public class CurrencyServiceImpl implements CurrencyService {
       boolean isInverse = true;
       BigDecimal exchangeRate = null;
 
-      CurrencyConversionLine currencyConversionLine =
-          this.getCurrencyConversionLine(startCurrency, endCurrency, dateToConvert);
-      if (currencyConversionLine != null) {
-        exchangeRate = currencyConversionLine.getExchangeRate();
+      CurrencyRateTable.Rate rate = this.getCurrencyRate(startCurrency, endCurrency, dateToConvert);
+      if (rate != null) {
+        exchangeRate = rate.getExchangeRate();
         isInverse = false;
 
       } else {
-        currencyConversionLine =
-            this.getCurrencyConversionLine(endCurrency, startCurrency, dateToConvert);
+        rate = this.getCurrencyRate(endCurrency, startCurrency, dateToConvert);
 
-        if (currencyConversionLine == null) {
+        if (rate == null) {
           throw new AxelorException(
               TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
               I18n.get(BaseExceptionMessage.CURRENCY_1),
@@ -109,7 +120,7 @@ public class CurrencyServiceImpl implements CurrencyService {
               endCurrency.getName(),
               dateToConvert);
         }
-        exchangeRate = currencyConversionLine.getExchangeRate();
+        exchangeRate = rate.getExchangeRate();
       }
 
       if (exchangeRate == null || exchangeRate.compareTo(BigDecimal.ZERO) == 0) {
@@ -132,37 +143,23 @@ public class CurrencyServiceImpl implements CurrencyService {
     return BigDecimal.ONE;
   }
 
-  protected CurrencyConversionLine getCurrencyConversionLine(
+  /**
+   * Find the rate applicable at the given date in the rate index of the currency pair.
+   *
+   * @param startCurrency
+   * @param endCurrency
+   * @param localDate
+   * @return the rate, or null if no conversion line covers this date
+   */
+  protected CurrencyRateTable.Rate getCurrencyRate(
       Currency startCurrency, Currency endCurrency, LocalDate localDate) {
 
-    List<CurrencyConversionLine> currencyConversionLineList =
-        appBaseService.getCurrencyConfigurationLineList();
-
-    if (currencyConversionLineList == null) {
-      return null;
-    }
-
     log.debug(
         "Currency from: {}, Currency to: {}, localDate: {}", startCurrency, endCurrency, localDate);
 
-    for (CurrencyConversionLine ccl : currencyConversionLineList) {
-
-      String cclStartCode = ccl.getStartCurrency().getCodeISO();
-      String cclEndCode = ccl.getEndCurrency().getCodeISO();
-      String startCode = startCurrency.getCodeISO();
-      String endCode = endCurrency.getCodeISO();
-      LocalDate fromDate = ccl.getFromDate();
-      LocalDate toDate = ccl.getToDate();
-
-      if (cclStartCode.equals(startCode) && cclEndCode.equals(endCode)) {
-        if ((fromDate.isBefore(localDate) || fromDate.equals(localDate))
-            && (toDate == null || toDate.isAfter(localDate) || toDate.isEqual(localDate))) {
-          return ccl;
-        }
-      }
-    }
-
-    return null;
+    return currencyRateIndexService
+        .getRateTable(startCurrency.getId(), endCurrency.getId())
+        .find(localDate);
   }
 
   /**
@@ -190,6 +187,51 @@ public class CurrencyServiceImpl implements CurrencyService {
     return amount;
   }
 
+  @Override
+  public Map<LocalDate, BigDecimal> getCurrencyConversionRates(
+      Currency startCurrency, Currency endCurrency, Collection<LocalDate> dates)
+      throws AxelorException {
+
+    Map<LocalDate, BigDecimal> rateMap = new HashMap<>();
+    for (LocalDate date : dates) {
+      LocalDate dateToConvert = this.getDateToConvert(date);
+      if (!rateMap.containsKey(dateToConvert)) {
+        rateMap.put(
+            dateToConvert,
+            this.getCurrencyConversionRate(startCurrency, endCurrency, dateToConvert));
+      }
+    }
+    return rateMap;
+  }
+
+  @Override
+  public List<BigDecimal> getAmountsCurrencyConvertedAtDates(
+      Currency startCurrency,
+      Currency endCurrency,
+      List<Pair<BigDecimal, LocalDate>> amountDateList)
+      throws AxelorException {
+
+    List<BigDecimal> convertedAmountList = new ArrayList<>();
+    if (startCurrency == null || endCurrency == null || startCurrency.equals(endCurrency)) {
+      amountDateList.forEach(amountDate -> convertedAmountList.add(amountDate.getLeft()));
+      return convertedAmountList;
+    }
+
+    List<LocalDate> dateList = new ArrayList<>();
+    amountDateList.forEach(amountDate -> dateList.add(amountDate.getRight()));
+    Map<LocalDate, BigDecimal> rateMap =
+        this.getCurrencyConversionRates(startCurrency, endCurrency, dateList);
+
+    for (Pair<BigDecimal, LocalDate> amountDate : amountDateList) {
+      convertedAmountList.add(
+          this.getAmountCurrencyConvertedUsingExchangeRate(
+              amountDate.getLeft(),
+              rateMap.get(this.getDateToConvert(amountDate.getRight())),
+              endCurrency));
+    }
+    return convertedAmountList;
+  }
+
   /**
    * Convert the amount in start currency into the end currency according to the exchange rate
    *
@@ -339,15 +339,11 @@ public class DataBackupCreateService {
     return subClassMap;
   }
 
-  /* Get All Data of Specific MetaModel */
-  protected List<Model> getMetaModelDataList(
-      MetaModel metaModel, int start, Integer fetchLimit, List<String> subClasses)
-      throws ClassNotFoundException {
-
-    Query<Model> query = getQuery(metaModel, subClasses);
+  /* Get the next page of data of a query built with getKeysetQuery, after the given id */
+  protected List<Model> getMetaModelDataList(Query<Model> query, Long lastId, Integer fetchLimit) {
 
     if (query != null) {
-      return query.fetch(fetchLimit, start);
+      return query.bind("lastId", lastId).fetch(fetchLimit);
     }
 
     return null;
@@ -365,6 +361,24 @@ public class DataBackupCreateService {
 
   protected Query<Model> getQuery(MetaModel metaModel, List<String> subClasses)
       throws ClassNotFoundException {
+    return getQuery(metaModel, subClasses, false);
+  }
+
+  /*
+   * Query ordered by id, filtered on the ids greater than the :lastId parameter, so the pages are
+   * read with keyset pagination instead of offsets that get slower on each page.
+   */
+  protected Query<Model> getKeysetQuery(MetaModel metaModel, List<String> subClasses)
+      throws ClassNotFoundException {
+    Query<Model> query = getQuery(metaModel, subClasses, true);
+    if (query != null) {
+      query.order("id");
+    }
+    return query;
+  }
+
+  protected Query<Model> getQuery(MetaModel metaModel, List<String> subClasses, boolean keyset)
+      throws ClassNotFoundException {
     StringBuilder whereStr = new StringBuilder();
     if (subClasses != null && !subClasses.isEmpty()) {
       for (String subClassName : subClasses) {
@@ -372,6 +386,10 @@ public class DataBackupCreateService {
         whereStr.append("id NOT IN (select id from ").append(subClassName).append(")");
       }
     }
+    if (keyset) {
+      whereStr.append(whereStr.length() > 0 ? " AND " : "");
+      whereStr.append("self.id > :lastId");
+    }
     @SuppressWarnings("unchecked")
     Class<Model> klass = (Class<Model>) Class.forName(metaModel.getFullName());
     JpaRepository<Model> model = null;
@@ -452,11 +470,18 @@ public class DataBackupCreateService {
       csvInput.setBindings(new ArrayList<>());
 
       if (totalRecord > 0) {
+        Query<Model> query = getKeysetQuery(metaModel, subClasses);
+        Long lastId = Long.MIN_VALUE;
+        long recordCount = 0;
+        long startTime = System.currentTimeMillis();
+
         for (int i = 0; i < totalRecord; i = i + fetchLimit) {
 
-          dataList = getMetaModelDataList(metaModel, i, fetchLimit, subClasses);
+          dataList = getMetaModelDataList(query, lastId, fetchLimit);
 
           if (dataList != null && !dataList.isEmpty()) {
+            lastId = dataList.get(dataList.size() - 1).getId();
+            recordCount += dataList.size();
             dataBackup = dataBackupRepository.find(dataBackup.getId());
             for (Object dataObject : dataList) {
               dataArr = new ArrayList<>();
@@ -500,9 +525,12 @@ public class DataBackupCreateService {
 
               printer.printRecord(dataArr);
             }
+          } else {
+            break;
           }
           JPA.clear();
         }
+        logThroughput(metaModel, recordCount, startTime);
       } else {
         for (Property property : pro) {
           if (isPropertyExportable(property)) {
@@ -532,6 +560,16 @@ public class DataBackupCreateService {
     return csvInput;
   }
 
+  protected void logThroughput(MetaModel metaModel, long recordCount, long startTime) {
+    long duration = Math.max(System.currentTimeMillis() - startTime, 1);
+    LOG.info(
+        "Exported {} records of {} in {} ms ({} records/s)",
+        recordCount,
+        metaModel.getFullName(),
+        duration,
+        recordCount * 1000 / duration);
+  }
+
   protected boolean isPropertyExportable(Property property) {
     return !exceptColumnNameList.contains(property.getName())
         && ((StringUtils.isEmpty(property.getMappedBy()))
@@ -0,0 +1,59 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2024 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service;
+
+import com.axelor.apps.base.db.UnitConversion;
+import java.math.BigDecimal;
+
+/**
+ * Keeps the unit conversions of each entity in memory as a {@link UnitConversionGraph}, along with
+ * the coefficients already computed. Everything is dropped when a unit conversion is modified.
+ */
+public interface UnitConversionCacheService {
+
+  /**
+   * Get the conversion graph of the given entity, loading it if needed.
+   *
+   * @param entitySelect the entity of the conversions, see unit.conversion.entity.select
+   */
+  UnitConversionGraph getGraph(int entitySelect);
+
+  /**
+   * Get a memoized coefficient.
+   *
+   * @return the coefficient, or null if it was not computed yet
+   */
+  BigDecimal getCoefficient(String key);
+
+  /**
+   * Memoize a coefficient, unless a unit conversion was modified since the given modification
+   * count was read.
+   */
+  void putCoefficient(String key, BigDecimal coefficient, long modificationCount);
+
+  /** Get the number of modifications of unit conversions, to be read before computing. */
+  long getModificationCount();
+
+  /**
+   * Drop the cached graphs and coefficients, now and once the current transaction is completed.
+   *
+   * @param unitConversion a created, modified or removed unit conversion
+   */
+  void invalidate(UnitConversion unitConversion);
+}
@@ -0,0 +1,116 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2024 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service;
+
+import com.axelor.apps.base.db.UnitConversion;
+import com.axelor.apps.base.service.cache.CacheInvalidator;
+import com.axelor.apps.base.service.script.CompiledScriptService;
+import com.axelor.db.JPA;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Singleton
+public class UnitConversionCacheServiceImpl implements UnitConversionCacheService {
+
+  protected final CompiledScriptService compiledScriptService;
+
+  protected final Map<Integer, UnitConversionGraph> graphMap = new ConcurrentHashMap<>();
+  protected final Map<String, BigDecimal> coefficientMap = new ConcurrentHashMap<>();
+
+  protected final CacheInvalidator cacheInvalidator = new CacheInvalidator();
+
+  @Inject
+  public UnitConversionCacheServiceImpl(CompiledScriptService compiledScriptService) {
+    this.compiledScriptService = compiledScriptService;
+  }
+
+  @Override
+  public UnitConversionGraph getGraph(int entitySelect) {
+    UnitConversionGraph graph = graphMap.get(entitySelect);
+    if (graph != null) {
+      return graph;
+    }
+
+    return cacheInvalidator.load(
+        () -> loadGraph(entitySelect), loadedGraph -> graphMap.put(entitySelect, loadedGraph));
+  }
+
+  protected UnitConversionGraph loadGraph(int entitySelect) {
+    List<Object[]> resultList =
+        JPA.em()
+            .createQuery(
+                "SELECT self.id, self.startUnit.id, self.endUnit.id, self.typeSelect, "
+                    + "self.coef, self.formula "
+                    + "FROM UnitConversion self "
+                    + "WHERE self.entitySelect = :entitySelect "
+                    + "ORDER BY self.id",
+                Object[].class)
+            .setParameter("entitySelect", entitySelect)
+            .getResultList();
+
+    List<UnitConversionGraph.Conversion> conversionList = new ArrayList<>();
+    for (Object[] result : resultList) {
+      conversionList.add(
+          new UnitConversionGraph.Conversion(
+              (Long) result[0],
+              (Long) result[1],
+              (Long) result[2],
+              result[3] == null ? 0 : (Integer) result[3],
+              (BigDecimal) result[4],
+              (String) result[5]));
+    }
+    return new UnitConversionGraph(conversionList);
+  }
+
+  @Override
+  public BigDecimal getCoefficient(String key) {
+    return coefficientMap.get(key);
+  }
+
+  @Override
+  public void putCoefficient(String key, BigDecimal coefficient, long modificationCount) {
+    if (cacheInvalidator.isUnchangedSince(modificationCount)) {
+      coefficientMap.put(key, coefficient);
+    }
+  }
+
+  @Override
+  public long getModificationCount() {
+    return cacheInvalidator.getModificationCount();
+  }
+
+  @Override
+  public void invalidate(UnitConversion unitConversion) {
+    cacheInvalidator.invalidate(() -> clear(unitConversion));
+  }
+
+  protected void clear(UnitConversion unitConversion) {
+    graphMap.clear();
+    coefficientMap.clear();
+    if (unitConversion.getId() != null) {
+      compiledScriptService.invalidate(
+          compiledScriptService.getOwnerKey(UnitConversion.class, unitConversion.getId()));
+    }
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2024 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service;
+
+import com.axelor.apps.base.db.repo.UnitConversionRepository;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit conversions of one entity, indexed by start and end unit. Conversions can be followed in
+ * both directions, and coefficient conversions can be chained to convert between units having no
+ * direct conversion.
+ */
+public class UnitConversionGraph {
+
+  protected final Map<Long, Map<Long, Conversion>> conversionMap = new HashMap<>();
+
+  /** Coefficient conversions starting or ending at each unit. */
+  protected final Map<Long, List<Conversion>> coefficientLinkMap = new HashMap<>();
+
+  public UnitConversionGraph(List<Conversion> conversionList) {
+    for (Conversion conversion : conversionList) {
+      conversionMap
+          .computeIfAbsent(conversion.getStartUnitId(), id -> new HashMap<>())
+          .putIfAbsent(conversion.getEndUnitId(), conversion);
+
+      if (conversion.isCoefficient() && conversion.getCoef().signum() != 0) {
+        coefficientLinkMap
+            .computeIfAbsent(conversion.getStartUnitId(), id -> new ArrayList<>())
+            .add(conversion);
+        coefficientLinkMap
+            .computeIfAbsent(conversion.getEndUnitId(), id -> new ArrayList<>())
+            .add(conversion);
+      }
+    }
+  }
+
+  /**
+   * Get the conversion defined from the start unit to the end unit.
+   *
+   * @return the conversion, or null if none is defined in this direction
+   */
+  public Conversion getConversion(Long startUnitId, Long endUnitId) {
+    return conversionMap.getOrDefault(startUnitId, Map.of()).get(endUnitId);
+  }
+
+  /**
+   * Compute the coefficient from the start unit to the end unit by chaining coefficient
+   * conversions, using the shortest path between the two units.
+   *
+   * @param scale the scale of the coefficients of the inverted conversions
+   * @return the coefficient, or null if the units are not linked by coefficient conversions
+   */
+  public BigDecimal findPathCoefficient(Long startUnitId, Long endUnitId, int scale) {
+    Map<Long, BigDecimal> coefficientMap = new HashMap<>();
+    Deque<Long> unitIdQueue = new ArrayDeque<>();
+    coefficientMap.put(startUnitId, BigDecimal.ONE);
+    unitIdQueue.add(startUnitId);
+
+    while (!unitIdQueue.isEmpty()) {
+      Long unitId = unitIdQueue.poll();
+      BigDecimal coefficient = coefficientMap.get(unitId);
+      if (unitId.equals(endUnitId)) {
+        return coefficient;
+      }
+
+      for (Conversion conversion : coefficientLinkMap.getOrDefault(unitId, List.of())) {
+        Long nextUnitId;
+        BigDecimal nextCoefficient;
+        if (conversion.getStartUnitId().equals(unitId)) {
+          nextUnitId = conversion.getEndUnitId();
+          nextCoefficient = coefficient.multiply(conversion.getCoef());
+        } else {
+          nextUnitId = conversion.getStartUnitId();
+          nextCoefficient = coefficient.divide(conversion.getCoef(), scale, RoundingMode.HALF_UP);
+        }
+        if (!coefficientMap.containsKey(nextUnitId)) {
+          coefficientMap.put(nextUnitId, nextCoefficient);
+          unitIdQueue.add(nextUnitId);
+        }
+      }
+    }
+
+    return null;
+  }
+
+  /** Data of a unit conversion needed to compute coefficients. */
+  public static class Conversion {
+
+    protected final Long unitConversionId;
+    protected final Long startUnitId;
+    protected final Long endUnitId;
+    protected final int typeSelect;
+    protected final BigDecimal coef;
+    protected final String formula;
+
+    public Conversion(
+        Long unitConversionId,
+        Long startUnitId,
+        Long endUnitId,
+        int typeSelect,
+        BigDecimal coef,
+        String formula) {
+      this.unitConversionId = unitConversionId;
+      this.startUnitId = startUnitId;
+      this.endUnitId = endUnitId;
+      this.typeSelect = typeSelect;
+      this.coef = coef;
+      this.formula = formula;
+    }
+
+    public boolean isCoefficient() {
+      return typeSelect == UnitConversionRepository.TYPE_COEFF;
+    }
+
+    public Long getUnitConversionId() {
+      return unitConversionId;
+    }
+
+    public Long getStartUnitId() {
+      return startUnitId;
+    }
+
+    public Long getEndUnitId() {
+      return endUnitId;
+    }
+
+    public int getTypeSelect() {
+      return typeSelect;
+    }
+
+    public BigDecimal getCoef() {
+      return coef;
+    }
+
+    public String getFormula() {
+      return formula;
+    }
+  }
+}
@@ -29,6 +29,8 @@ import com.axelor.apps.base.db.repo.UnitConversionRepository;
 import com.axelor.apps.base.exceptions.BaseExceptionMessage;
 import com.axelor.apps.base.service.app.AppBaseService;
 import com.axelor.apps.base.service.exception.TraceBackService;
+import com.axelor.apps.base.service.script.CompiledScriptService;
+import com.axelor.apps.base.service.script.ModelScriptBinding;
 import com.axelor.auth.AuthUtils;
 import com.axelor.auth.db.User;
 import com.axelor.db.Model;
@@ -40,8 +42,10 @@ import groovy.lang.GroovyShell;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.List;
 import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.commons.lang3.tuple.Pair;
 import org.codehaus.groovy.control.CompilationFailedException;
 import org.codehaus.groovy.control.CompilerConfiguration;
 import org.codehaus.groovy.control.customizers.ImportCustomizer;
@@ -51,15 +55,28 @@ public class UnitConversionServiceImpl implements UnitConversionService {
   private static final char TEMPLATE_DELIMITER = '$';
   private static final int DEFAULT_COEFFICIENT_SCALE = 12;
 
+  /** Template attribute reference, such as $Product.netMass$, that can be read by Groovy. */
+  protected static final Pattern TEMPLATE_ATTRIBUTE_PATTERN =
+      Pattern.compile("\\$([A-Za-z_][\\w.]*)\\$");
+
   protected AppBaseService appBaseService;
 
   protected UnitConversionRepository unitConversionRepo;
 
+  protected UnitConversionCacheService unitConversionCacheService;
+
+  protected CompiledScriptService compiledScriptService;
+
   @Inject
   public UnitConversionServiceImpl(
-      AppBaseService appBaseService, UnitConversionRepository unitConversionRepo) {
+      AppBaseService appBaseService,
+      UnitConversionRepository unitConversionRepo,
+      UnitConversionCacheService unitConversionCacheService,
+      CompiledScriptService compiledScriptService) {
     this.appBaseService = appBaseService;
     this.unitConversionRepo = unitConversionRepo;
+    this.unitConversionCacheService = unitConversionCacheService;
+    this.compiledScriptService = compiledScriptService;
   }
 
   /**
@@ -77,12 +94,12 @@ public class UnitConversionServiceImpl implements UnitConversionService {
   public BigDecimal convert(
       Unit startUnit, Unit endUnit, BigDecimal value, int scale, Product product)
       throws AxelorException {
-    List<UnitConversion> unitConversionList = fetchUnitConversionList();
-    return convert(unitConversionList, startUnit, endUnit, value, scale, product, "Product");
+    return convert(
+        UnitConversionRepository.ENTITY_ALL, startUnit, endUnit, value, scale, product, "Product");
   }
 
   protected BigDecimal convert(
-      List<UnitConversion> unitConversionList,
+      int entitySelect,
       Unit startUnit,
       Unit endUnit,
       BigDecimal value,
@@ -112,7 +129,7 @@ public class UnitConversionServiceImpl implements UnitConversionService {
     else {
       try {
         BigDecimal coefficient =
-            this.getCoefficient(unitConversionList, startUnit, endUnit, model, nameInContext);
+            this.getCoefficient(entitySelect, startUnit, endUnit, model, nameInContext);
 
         return value.multiply(coefficient).setScale(scale, RoundingMode.HALF_UP);
       } catch (IOException | ClassNotFoundException e) {
@@ -139,78 +156,85 @@ public class UnitConversionServiceImpl implements UnitConversionService {
   @Override
   public BigDecimal getCoefficient(Unit startUnit, Unit endUnit, Product product)
       throws AxelorException, CompilationFailedException, ClassNotFoundException, IOException {
-    List<UnitConversion> unitConversionList = fetchUnitConversionList();
-    return getCoefficient(unitConversionList, startUnit, endUnit, product, "Product");
+    return getCoefficient(
+        UnitConversionRepository.ENTITY_ALL, startUnit, endUnit, product, "Product");
   }
 
+  /**
+   * Get the conversion coefficient between two units from the conversions of the given entity.
+   * Coefficients not depending on a formula are memoized until a unit conversion is modified.
+   */
   protected BigDecimal getCoefficient(
-      List<UnitConversion> unitConversionList,
-      Unit startUnit,
-      Unit endUnit,
-      Model model,
-      String nameInContext)
+      int entitySelect, Unit startUnit, Unit endUnit, Model model, String nameInContext)
       throws AxelorException, CompilationFailedException, ClassNotFoundException, IOException {
-    /* Looking for the start unit and the end unit in the unitConversionList to get the coefficient */
-    TemplateMaker maker = null;
-    if (model != null) {
-      maker =
-          new TemplateMaker(
-              Optional.ofNullable(AuthUtils.getUser()).map(User::getActiveCompany).orElse(null)
-                      != null
-                  ? Optional.ofNullable(AuthUtils.getUser())
-                      .map(User::getActiveCompany)
-                      .map(Company::getTimezone)
-                      .orElse(null)
-                  : "",
-              AppFilter.getLocale(),
-              TEMPLATE_DELIMITER,
-              TEMPLATE_DELIMITER);
-      maker.setContext(model, nameInContext);
+    String key =
+        String.format(
+            "%s:%s:%s:%s", entitySelect, startUnit.getId(), endUnit.getId(), model != null);
+    BigDecimal coefficient = unitConversionCacheService.getCoefficient(key);
+    if (coefficient != null) {
+      return coefficient;
     }
-    String eval = null;
-    for (UnitConversion unitConversion : unitConversionList) {
-
-      if (unitConversion.getStartUnit().equals(startUnit)
-          && unitConversion.getEndUnit().equals(endUnit)) {
-        if (unitConversion.getTypeSelect() == UnitConversionRepository.TYPE_COEFF) {
-          return unitConversion.getCoef();
-        } else if (model != null) {
-          maker.setTemplate(unitConversion.getFormula());
-          eval = maker.make();
-          CompilerConfiguration conf = new CompilerConfiguration();
-          ImportCustomizer customizer = new ImportCustomizer();
-          customizer.addStaticStars("java.lang.Math");
-          conf.addCompilationCustomizers(customizer);
-          Binding binding = new Binding();
-          GroovyShell shell = new GroovyShell(binding, conf);
-          return new BigDecimal(shell.evaluate(eval).toString());
-        }
+
+    long modificationCount = unitConversionCacheService.getModificationCount();
+    Pair<BigDecimal, Boolean> coefficientFromFormula =
+        getCoefficient(
+            unitConversionCacheService.getGraph(entitySelect),
+            startUnit,
+            endUnit,
+            model,
+            nameInContext);
+
+    if (!coefficientFromFormula.getRight()) {
+      unitConversionCacheService.putCoefficient(
+          key, coefficientFromFormula.getLeft(), modificationCount);
+    }
+    return coefficientFromFormula.getLeft();
+  }
+
+  /**
+   * Compute the coefficient from the direct conversion, then the inverse conversion, then a chain
+   * of coefficient conversions.
+   *
+   * @return the coefficient and whether it was computed with a formula
+   */
+  protected Pair<BigDecimal, Boolean> getCoefficient(
+      UnitConversionGraph graph, Unit startUnit, Unit endUnit, Model model, String nameInContext)
+      throws AxelorException, CompilationFailedException, ClassNotFoundException, IOException {
+    UnitConversionGraph.Conversion conversion =
+        graph.getConversion(startUnit.getId(), endUnit.getId());
+    if (conversion != null) {
+      if (conversion.isCoefficient()) {
+        return Pair.of(conversion.getCoef(), false);
+      } else if (model != null) {
+        return Pair.of(evalFormula(conversion, model, nameInContext), true);
       }
+    }
 
-      /* The endUnit become the start unit and the startUnit become the end unit */
-
-      if (unitConversion.getStartUnit().equals(endUnit)
-          && unitConversion.getEndUnit().equals(startUnit)) {
-        if (unitConversion.getTypeSelect() == UnitConversionRepository.TYPE_COEFF
-            && unitConversion.getCoef().compareTo(BigDecimal.ZERO) != 0) {
-          return BigDecimal.ONE.divide(
-              unitConversion.getCoef(), DEFAULT_COEFFICIENT_SCALE, RoundingMode.HALF_UP);
-        } else if (model != null) {
-          maker.setTemplate(unitConversion.getFormula());
-          eval = maker.make();
-          CompilerConfiguration conf = new CompilerConfiguration();
-          ImportCustomizer customizer = new ImportCustomizer();
-          customizer.addStaticStars("java.lang.Math");
-          conf.addCompilationCustomizers(customizer);
-          Binding binding = new Binding();
-          GroovyShell shell = new GroovyShell(binding, conf);
-          BigDecimal result = new BigDecimal(shell.evaluate(eval).toString());
-          if (result.compareTo(BigDecimal.ZERO) != 0) {
-            return BigDecimal.ONE.divide(result, DEFAULT_COEFFICIENT_SCALE, RoundingMode.HALF_UP);
-          }
+    /* The endUnit become the start unit and the startUnit become the end unit */
+    conversion = graph.getConversion(endUnit.getId(), startUnit.getId());
+    if (conversion != null) {
+      if (conversion.isCoefficient() && conversion.getCoef().compareTo(BigDecimal.ZERO) != 0) {
+        return Pair.of(
+            BigDecimal.ONE.divide(
+                conversion.getCoef(), DEFAULT_COEFFICIENT_SCALE, RoundingMode.HALF_UP),
+            false);
+      } else if (!conversion.isCoefficient() && model != null) {
+        BigDecimal result = evalFormula(conversion, model, nameInContext);
+        if (result.compareTo(BigDecimal.ZERO) != 0) {
+          return Pair.of(
+              BigDecimal.ONE.divide(result, DEFAULT_COEFFICIENT_SCALE, RoundingMode.HALF_UP),
+              true);
         }
       }
     }
+
+    /* Chaining coefficient conversions, for example g => kg => t */
+    BigDecimal pathCoefficient =
+        graph.findPathCoefficient(startUnit.getId(), endUnit.getId(), DEFAULT_COEFFICIENT_SCALE);
+    if (pathCoefficient != null) {
+      return Pair.of(pathCoefficient, false);
+    }
+
     /* If there is no startUnit and endUnit in the UnitConversion list so we throw an exception */
     throw new AxelorException(
         TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
@@ -219,11 +243,67 @@ public class UnitConversionServiceImpl implements UnitConversionService {
         endUnit.getName());
   }
 
-  protected List<UnitConversion> fetchUnitConversionList() {
-    return unitConversionRepo
-        .all()
-        .filter("self.entitySelect = :entitySelect")
-        .bind("entitySelect", UnitConversionRepository.ENTITY_ALL)
-        .fetch();
+  /**
+   * Evaluate the formula of a conversion. Formulas only made of attribute references such as
+   * $Product.netMass$ are compiled once and read the model directly, other formulas are rendered
+   * as a template first.
+   */
+  protected BigDecimal evalFormula(
+      UnitConversionGraph.Conversion conversion, Model model, String nameInContext)
+      throws CompilationFailedException, ClassNotFoundException, IOException {
+    String expression = getScriptExpression(conversion.getFormula());
+    if (expression == null) {
+      return evalTemplateFormula(conversion.getFormula(), model, nameInContext);
+    }
+
+    ModelScriptBinding binding = new ModelScriptBinding(model);
+    binding.setVariable(nameInContext, model);
+    Object result =
+        compiledScriptService.eval(
+            compiledScriptService.getOwnerKey(
+                UnitConversion.class, conversion.getUnitConversionId()),
+            expression,
+            binding);
+    return new BigDecimal(result.toString());
+  }
+
+  /**
+   * Translate a formula template to a Groovy expression.
+   *
+   * @return the expression, or null if the template uses other features than attribute references
+   */
+  protected String getScriptExpression(String formula) {
+    if (formula == null) {
+      return null;
+    }
+    Matcher matcher = TEMPLATE_ATTRIBUTE_PATTERN.matcher(formula);
+    String expression = matcher.replaceAll("$1");
+    return expression.indexOf(TEMPLATE_DELIMITER) < 0 ? expression : null;
+  }
+
+  protected BigDecimal evalTemplateFormula(String formula, Model model, String nameInContext)
+      throws CompilationFailedException, ClassNotFoundException, IOException {
+    TemplateMaker maker =
+        new TemplateMaker(
+            Optional.ofNullable(AuthUtils.getUser()).map(User::getActiveCompany).orElse(null)
+                    != null
+                ? Optional.ofNullable(AuthUtils.getUser())
+                    .map(User::getActiveCompany)
+                    .map(Company::getTimezone)
+                    .orElse(null)
+                : "",
+            AppFilter.getLocale(),
+            TEMPLATE_DELIMITER,
+            TEMPLATE_DELIMITER);
+    maker.setContext(model, nameInContext);
+    maker.setTemplate(formula);
+    String eval = maker.make();
+    CompilerConfiguration conf = new CompilerConfiguration();
+    ImportCustomizer customizer = new ImportCustomizer();
+    customizer.addStaticStars("java.lang.Math");
+    conf.addCompilationCustomizers(customizer);
+    Binding binding = new Binding();
+    GroovyShell shell = new GroovyShell(binding, conf);
+    return new BigDecimal(shell.evaluate(eval).toString());
   }
 }
@@ -34,7 +34,10 @@ import com.axelor.i18n.I18n;
 import com.axelor.utils.helpers.MetaSelectHelper;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
 import com.google.inject.persist.Transactional;
+import com.google.inject.servlet.RequestScoper;
+import com.google.inject.servlet.ServletScopes;
 import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
@@ -43,7 +46,15 @@ import java.sql.SQLException;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.inject.Inject;
 import org.apache.commons.collections.CollectionUtils;
 import org.slf4j.Logger;
@@ -54,6 +65,9 @@ public abstract class AbstractBatch {
 
   public static final int FETCH_LIMIT = 10;
 
+  /** Delay in milliseconds between two saves of the counters while processing chunks. */
+  protected static final long CHECK_POINT_DELAY = 1000;
+
   @Inject protected AppBaseService appBaseService;
   @Inject protected MetaSelectHelper metaSelectHelper;
 
@@ -64,19 +78,18 @@ public abstract class AbstractBatch {
 
   @Inject protected BatchRepository batchRepo;
 
-  private int done;
-  private int anomaly;
+  private final AtomicInteger done = new AtomicInteger();
+  private final AtomicInteger anomaly = new AtomicInteger();
+  private volatile boolean chunkProcessing;
+  private long lastCheckPointTime;
 
   protected AbstractBatch() {
     this.batch = new Batch();
 
     this.batch.setStartDate(ZonedDateTime.now());
 
-    this.done = 0;
-    this.anomaly = 0;
-
-    this.batch.setDone(this.done);
-    this.batch.setAnomaly(this.anomaly);
+    this.batch.setDone(this.done.get());
+    this.batch.setAnomaly(this.anomaly.get());
 
     JPA.runInTransaction(() -> batch = JPA.persist(batch));
   }
@@ -214,29 +227,174 @@ public abstract class AbstractBatch {
   }
 
   protected void incrementDone() {
-    findBatch();
+    if (!chunkProcessing) {
+      findBatch();
+    }
     _incrementDone();
   }
 
+  /**
+   * Increment the done counter. While chunks are processed, the counter is only incremented in
+   * memory, as it may be called by several workers, and it is saved by {@link #processChunks}.
+   */
   protected void _incrementDone() {
-    done += 1;
-    batch.setDone(done);
-    checkPoint();
+    int doneCount = done.incrementAndGet();
+    if (!chunkProcessing) {
+      batch.setDone(doneCount);
+      checkPoint();
+    }
 
-    LOG.debug("Done ::: {}", done);
+    LOG.debug("Done ::: {}", doneCount);
   }
 
   protected void incrementAnomaly() {
-    findBatch();
+    if (!chunkProcessing) {
+      findBatch();
+    }
     _incrementAnomaly();
   }
 
   protected void _incrementAnomaly() {
-    anomaly += 1;
-    batch.setAnomaly(anomaly);
+    int anomalyCount = anomaly.incrementAndGet();
+    if (!chunkProcessing) {
+      batch.setAnomaly(anomalyCount);
+      checkPoint();
+    }
+
+    LOG.debug("Anomaly ::: {}", anomalyCount);
+  }
+
+  /**
+   * Process the records of the given ids by chunks of {@link #getChunkSize()} ids, on {@link
+   * #getWorkerCount()} workers. Each worker uses its own entity manager and the session is cleared
+   * after each chunk. The done and anomaly counters are saved on the batch at most every {@link
+   * #CHECK_POINT_DELAY} milliseconds instead of after each record.
+   *
+   * @param idList the ids of the records to process
+   * @param chunkProcessor the process of a chunk of records
+   */
+  protected void processChunks(List<Long> idList, BatchChunkProcessor chunkProcessor) {
+    List<List<Long>> chunkList = Lists.partition(idList, getChunkSize());
+    int workerCount = Math.max(1, Math.min(getWorkerCount(), chunkList.size()));
+    long startTime = System.currentTimeMillis();
+    int initialCount = done.get() + anomaly.get();
+
+    chunkProcessing = true;
+    try {
+      if (workerCount == 1) {
+        for (List<Long> chunk : chunkList) {
+          processChunk(chunk, chunkProcessor);
+          if (System.currentTimeMillis() - lastCheckPointTime >= CHECK_POINT_DELAY) {
+            saveCounters();
+          }
+        }
+      } else {
+        processChunksInWorkers(chunkList, chunkProcessor, workerCount);
+      }
+    } finally {
+      chunkProcessing = false;
+      saveCounters();
+    }
+
+    long duration = Math.max(1, System.currentTimeMillis() - startTime);
+    int processedCount = done.get() + anomaly.get() - initialCount;
+    LOG.info(
+        "{} record(s) processed in {} ms with {} worker(s) ({} records per second)",
+        processedCount,
+        duration,
+        workerCount,
+        processedCount * 1000L / duration);
+  }
+
+  protected void processChunksInWorkers(
+      List<List<Long>> chunkList, BatchChunkProcessor chunkProcessor, int workerCount) {
+    ExecutorService executor = Executors.newFixedThreadPool(workerCount);
+    long batchId = batch.getId();
+
+    try {
+      List<Future<Void>> futureList = new ArrayList<>();
+      for (List<Long> chunk : chunkList) {
+        futureList.add(
+            executor.submit(
+                () -> {
+                  this.processChunkInWorker(batchId, chunk, chunkProcessor);
+                  return null;
+                }));
+      }
+      for (Future<Void> future : futureList) {
+        while (!future.isDone()) {
+          try {
+            future.get(CHECK_POINT_DELAY, TimeUnit.MILLISECONDS);
+          } catch (TimeoutException e) {
+            saveCounters();
+          }
+        }
+        future.get();
+      }
+    } catch (ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  protected void processChunkInWorker(
+      long batchId, List<Long> idList, BatchChunkProcessor chunkProcessor) {
+    final RequestScoper scope = ServletScopes.scopeRequest(Collections.emptyMap());
+    threadBatchId.set(batchId);
+    try (RequestScoper.CloseableScope ignored = scope.open()) {
+      processChunk(idList, chunkProcessor);
+    } finally {
+      threadBatchId.remove();
+    }
+  }
+
+  protected void processChunk(List<Long> idList, BatchChunkProcessor chunkProcessor) {
+    long startTime = System.currentTimeMillis();
+    try {
+      chunkProcessor.process(idList);
+    } catch (Exception e) {
+      TraceBackService.trace(e, null, getCurrentBatchId());
+      incrementAnomaly();
+    } finally {
+      JPA.clear();
+    }
+
+    LOG.debug(
+        "Chunk of {} record(s) processed in {} ms",
+        idList.size(),
+        System.currentTimeMillis() - startTime);
+  }
+
+  /** Save the counters incremented in memory by the chunks on the batch. */
+  protected void saveCounters() {
+    findBatch();
+    batch.setDone(done.get());
+    batch.setAnomaly(anomaly.get());
     checkPoint();
+  }
+
+  /**
+   * Get the number of record ids of a chunk processed by {@link #processChunks}.
+   *
+   * @return the size of a chunk
+   */
+  protected int getChunkSize() {
+    return FETCH_LIMIT;
+  }
 
-    LOG.debug("Anomaly ::: {}", anomaly);
+  /**
+   * Get the number of workers processing the chunks of {@link #processChunks}. The records of two
+   * chunks must be independent to use more than one worker.
+   *
+   * @return the number of workers
+   */
+  protected int getWorkerCount() {
+    Integer nbBatchWorkers = appBaseService.getAppBase().getNbBatchWorkers();
+    return nbBatchWorkers != null ? nbBatchWorkers : 1;
   }
 
   protected void addComment(String comment) {
@@ -249,6 +407,7 @@ public abstract class AbstractBatch {
 
   @Transactional
   protected Batch checkPoint() {
+    lastCheckPointTime = System.currentTimeMillis();
     return findBatch();
   }
 
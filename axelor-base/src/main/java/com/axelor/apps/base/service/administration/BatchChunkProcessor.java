@@ -0,0 +1,35 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2024 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.administration;
+
+import java.util.List;
+
+/** Process a chunk of records of a batch, see {@link AbstractBatch#processChunks}. */
+@FunctionalInterface
+public interface BatchChunkProcessor {
+
+  /**
+   * Process the records of the given ids. The records must be loaded from their ids, and the
+   * changes must be committed in the method, as the session is cleared after each chunk.
+   *
+   * @param idList the ids of the records of the chunk
+   * @throws Exception
+   */
+  void process(List<Long> idList) throws Exception;
+}
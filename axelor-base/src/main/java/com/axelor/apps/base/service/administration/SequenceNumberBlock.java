@@ -0,0 +1,119 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2024 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.administration;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Numbers reserved in memory on a sequence version and not handed out yet.
+ *
+ * <p>This class is not thread safe, accesses are guarded by the caller.
+ */
+public class SequenceNumberBlock {
+
+  protected final Long sequenceVersionId;
+  protected final LocalDate startDate;
+  protected final LocalDate endDate;
+  protected final long step;
+
+  /** Unused numbers, by range from the first number to the excluded end number. */
+  protected final TreeMap<Long, Long> freeRangeMap = new TreeMap<>();
+
+  /** Next number of the version once the last block was reserved on it. */
+  protected long reservedUpTo;
+
+  public SequenceNumberBlock(
+      Long sequenceVersionId, LocalDate startDate, LocalDate endDate, long step) {
+    this.sequenceVersionId = sequenceVersionId;
+    this.startDate = startDate;
+    this.endDate = endDate;
+    this.step = step;
+  }
+
+  public Long getSequenceVersionId() {
+    return sequenceVersionId;
+  }
+
+  public long getReservedUpTo() {
+    return reservedUpTo;
+  }
+
+  public boolean covers(LocalDate date) {
+    return !date.isBefore(startDate) && (endDate == null || !date.isAfter(endDate));
+  }
+
+  /**
+   * Add a range of numbers reserved on the version. The end number becomes the next number of the
+   * version.
+   */
+  public void addReservedRange(long firstNum, long endNum) {
+    addFreeRange(firstNum, endNum);
+    reservedUpTo = endNum;
+  }
+
+  protected void addFreeRange(long firstNum, long endNum) {
+    if (firstNum >= endNum) {
+      return;
+    }
+    Long nextEndNum = freeRangeMap.remove(endNum);
+    if (nextEndNum != null) {
+      endNum = nextEndNum;
+    }
+    Map.Entry<Long, Long> previousRange = freeRangeMap.lowerEntry(firstNum);
+    if (previousRange != null && previousRange.getValue() == firstNum) {
+      firstNum = previousRange.getKey();
+    }
+    freeRangeMap.put(firstNum, endNum);
+  }
+
+  public boolean hasFreeNum() {
+    return !freeRangeMap.isEmpty();
+  }
+
+  /**
+   * Take the lowest unused number.
+   *
+   * @return the taken number, or null if the block is exhausted
+   */
+  public Long take() {
+    Map.Entry<Long, Long> firstRange = freeRangeMap.pollFirstEntry();
+    if (firstRange == null) {
+      return null;
+    }
+    long num = firstRange.getKey();
+    if (num + step < firstRange.getValue()) {
+      freeRangeMap.put(num + step, firstRange.getValue());
+    }
+    return num;
+  }
+
+  /**
+   * @return the first number of the unused tail of the block, which can be set back as next number
+   *     of the version if it was not changed since the reservation, or null if there is none.
+   */
+  public Long getUnusedTailStart() {
+    Map.Entry<Long, Long> lastRange = freeRangeMap.lastEntry();
+    if (lastRange == null || lastRange.getValue() != reservedUpTo) {
+      return null;
+    }
+    return lastRange.getKey();
+  }
+}
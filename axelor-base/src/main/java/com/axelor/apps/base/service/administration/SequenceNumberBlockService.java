@@ -0,0 +1,86 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2024 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.administration;
+
+import com.axelor.apps.base.AxelorException;
+import com.axelor.apps.base.db.Sequence;
+import java.time.LocalDate;
+
+/**
+ * Hands out sequence numbers from blocks reserved in memory, for sequences whose allocation mode is
+ * {@link com.axelor.apps.base.db.SequenceAllocationModeSelect#BLOCK}.
+ *
+ * <p>The blocks are kept on each node: numbers are not given in order between nodes, and the
+ * numbers of a rolled back transaction, or of the blocks of a node that stopped without giving them
+ * back, are lost. Sequences that must stay gap-free use the standard allocation.
+ */
+public interface SequenceNumberBlockService {
+
+  /**
+   * Take the next number of the version of the given sequence matching the reference date. A new
+   * block is reserved in a short separate transaction when the current one is exhausted.
+   *
+   * @param sequence a sequence using block allocation, not locked by the current transaction
+   * @param refDate the reference date used to select the sequence version
+   * @return the taken number
+   * @throws AxelorException if the block could not be reserved, or if the blocks are being released
+   *     for too long by another transaction
+   */
+  long takeNextNum(Sequence sequence, LocalDate refDate) throws AxelorException;
+
+  /**
+   * Check if the row of the given sequence is locked or updated by the current transaction, in
+   * which case no block can be reserved on it until this transaction completes.
+   *
+   * @param sequence a sequence
+   * @return true if the current transaction holds the lock of the sequence row
+   */
+  boolean isLockedByCurrentTransaction(Sequence sequence);
+
+  /**
+   * Release the blocks of the given sequence if its numbering settings or the versions its blocks
+   * were reserved on were changed in the current transaction.
+   *
+   * @param sequence the sequence being saved
+   * @throws AxelorException if the blocks are held for too long by other transactions
+   */
+  void releaseChangedBlocks(Sequence sequence) throws AxelorException;
+
+  /**
+   * Give back the unused tail of each block of the given sequence to its version, when no other
+   * block was reserved after it, and drop the blocks once the current transaction commits. Must be
+   * called inside a transaction.
+   *
+   * @param sequence the edited or removed sequence
+   * @throws AxelorException if the blocks are held for too long by other transactions
+   */
+  void releaseBlocks(Sequence sequence) throws AxelorException;
+
+  /** Give back the unused tails of all the blocks held on this node, on server shutdown. */
+  void releaseAllBlocks();
+
+  /**
+   * Compute a readable summary of the allocation counters of the given sequence on this node: block
+   * reservations, lock wait time and numbers served per second.
+   *
+   * @param sequence a sequence
+   * @return the statistics summary
+   */
+  String getAllocationStatistics(Sequence sequence);
+}
@@ -0,0 +1,517 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2024 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.administration;
+
+import com.axelor.apps.base.AxelorException;
+import com.axelor.apps.base.db.Sequence;
+import com.axelor.apps.base.db.SequenceVersion;
+import com.axelor.apps.base.db.repo.TraceBackRepository;
+import com.axelor.apps.base.exceptions.BaseExceptionMessage;
+import com.axelor.db.JPA;
+import com.axelor.i18n.I18n;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.lang.invoke.MethodHandles;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import javax.persistence.FlushModeType;
+import javax.persistence.LockModeType;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import org.hibernate.LockMode;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+@Singleton
+public class SequenceNumberBlockServiceImpl implements SequenceNumberBlockService {
+
+  protected final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  /** Maximum time to wait for a block held by another transaction. */
+  protected static final long WAIT_TIMEOUT_SECONDS = 30;
+
+  protected final SequenceVersionGeneratorService sequenceVersionGeneratorService;
+
+  protected final Map<Long, SequenceBlocks> blockMap = new ConcurrentHashMap<>();
+  protected final Map<Long, AllocationCounters> countersMap = new ConcurrentHashMap<>();
+
+  @Inject
+  public SequenceNumberBlockServiceImpl(
+      SequenceVersionGeneratorService sequenceVersionGeneratorService) {
+    this.sequenceVersionGeneratorService = sequenceVersionGeneratorService;
+  }
+
+  @Override
+  public long takeNextNum(Sequence sequence, LocalDate refDate) throws AxelorException {
+    Transaction transaction = getActiveTransaction();
+    AllocationCounters counters = getCounters(sequence.getId());
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(WAIT_TIMEOUT_SECONDS);
+
+    while (true) {
+      SequenceBlocks blocks =
+          blockMap.computeIfAbsent(sequence.getId(), id -> new SequenceBlocks());
+      Long nextNum = null;
+
+      synchronized (blocks) {
+        if (blocks.released) {
+          continue;
+        }
+        if (blocks.drained && transaction != null && blocks.releasingTransaction == transaction) {
+          throw new AxelorException(
+              sequence,
+              TraceBackRepository.CATEGORY_INCONSISTENCY,
+              I18n.get(BaseExceptionMessage.SEQUENCE_BLOCK_RELEASED_IN_TRANSACTION),
+              sequence.getFullName());
+        }
+
+        SequenceNumberBlock block = findBlock(blocks, refDate);
+        if (blocks.releasingTransaction == null && block != null && block.hasFreeNum()) {
+          nextNum = block.take();
+        } else if (blocks.releasingTransaction == null && !blocks.reserving) {
+          blocks.reserving = true;
+        } else {
+          waitFor(blocks, deadline, sequence);
+          continue;
+        }
+      }
+
+      if (nextNum == null) {
+        reserveBlock(sequence, refDate, blocks, counters);
+        continue;
+      }
+
+      counters.servedCount.increment();
+      return nextNum;
+    }
+  }
+
+  @Override
+  public boolean isLockedByCurrentTransaction(Sequence sequence) {
+    EntityManager em = JPA.em();
+    if (sequence.getId() == null || !em.getTransaction().isActive()) {
+      return false;
+    }
+    Sequence managedSequence =
+        em.contains(sequence) ? sequence : em.find(Sequence.class, sequence.getId());
+    // A row updated by the current transaction is recorded with the WRITE lock mode
+    return managedSequence != null
+        && em.unwrap(Session.class)
+            .getCurrentLockMode(managedSequence)
+            .greaterThan(LockMode.OPTIMISTIC_FORCE_INCREMENT);
+  }
+
+  protected SequenceNumberBlock findBlock(SequenceBlocks blocks, LocalDate refDate) {
+    return blocks.blockList.stream().filter(b -> b.covers(refDate)).findFirst().orElse(null);
+  }
+
+  /**
+   * Wait for the blocks of a sequence to change, at most until the given deadline. Must be called
+   * while holding the monitor of the blocks.
+   */
+  protected void waitFor(SequenceBlocks blocks, long deadline, Sequence sequence)
+      throws AxelorException {
+    long remainingNanos = deadline - System.nanoTime();
+    if (remainingNanos <= 0) {
+      throw new AxelorException(
+          sequence,
+          TraceBackRepository.CATEGORY_INCONSISTENCY,
+          I18n.get(BaseExceptionMessage.SEQUENCE_BLOCK_WAIT_TIMEOUT),
+          sequence.getFullName());
+    }
+    try {
+      TimeUnit.NANOSECONDS.timedWait(blocks, remainingNanos);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new AxelorException(
+          e,
+          sequence,
+          TraceBackRepository.CATEGORY_INCONSISTENCY,
+          I18n.get(BaseExceptionMessage.SEQUENCE_BLOCK_WAIT_TIMEOUT),
+          sequence.getFullName());
+    }
+  }
+
+  /**
+   * Reserve a block of numbers on the version matching the reference date and add it to the blocks
+   * of the sequence. The reservation is committed in its own short transaction, on a separate
+   * entity manager of the current thread, so that the sequence row is locked only for the duration
+   * of the reservation.
+   */
+  protected void reserveBlock(
+      Sequence sequence, LocalDate refDate, SequenceBlocks blocks, AllocationCounters counters)
+      throws AxelorException {
+    if (isLockedByCurrentTransaction(sequence)) {
+      // The separate entity manager would wait for the current transaction forever
+      synchronized (blocks) {
+        blocks.reserving = false;
+        blocks.notifyAll();
+      }
+      throw new AxelorException(
+          sequence,
+          TraceBackRepository.CATEGORY_INCONSISTENCY,
+          I18n.get(BaseExceptionMessage.SEQUENCE_BLOCK_LOCKED_IN_TRANSACTION),
+          sequence.getFullName());
+    }
+
+    SequenceNumberBlock reservedBlock = null;
+    EntityManager em = JPA.em().getEntityManagerFactory().createEntityManager();
+    EntityTransaction transaction = em.getTransaction();
+    try {
+      transaction.begin();
+      reservedBlock = reserveBlock(em, sequence.getId(), refDate, counters);
+      transaction.commit();
+      counters.reservationCount.increment();
+      log.debug(
+          "Sequence {} : numbers {} to {} reserved on version {}",
+          sequence.getFullName(),
+          reservedBlock.freeRangeMap.firstKey(),
+          reservedBlock.getReservedUpTo(),
+          reservedBlock.getSequenceVersionId());
+    } catch (Exception e) {
+      reservedBlock = null;
+      if (transaction.isActive()) {
+        transaction.rollback();
+      }
+      throw new AxelorException(
+          e,
+          sequence,
+          TraceBackRepository.CATEGORY_INCONSISTENCY,
+          I18n.get(BaseExceptionMessage.SEQUENCE_BLOCK_RESERVATION_ERROR),
+          sequence.getFullName());
+    } finally {
+      em.close();
+      synchronized (blocks) {
+        blocks.reserving = false;
+        if (reservedBlock != null) {
+          addReservedBlock(blocks, reservedBlock);
+        }
+        blocks.notifyAll();
+      }
+    }
+  }
+
+  protected SequenceNumberBlock reserveBlock(
+      EntityManager em, Long sequenceId, LocalDate refDate, AllocationCounters counters) {
+    long lockStart = System.nanoTime();
+    Sequence sequence =
+        em.createQuery("SELECT self FROM Sequence self WHERE id = :id", Sequence.class)
+            .setParameter("id", sequenceId)
+            .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+            .getSingleResult();
+    counters.lockWaitNanos.add(System.nanoTime() - lockStart);
+
+    SequenceVersion sequenceVersion =
+        em.createQuery(
+                "SELECT self FROM SequenceVersion self WHERE self.sequence.id = :sequenceId"
+                    + " AND self.startDate <= :date"
+                    + " AND (self.endDate IS NULL OR self.endDate >= :date)"
+                    + " ORDER BY self.startDate DESC",
+                SequenceVersion.class)
+            .setParameter("sequenceId", sequenceId)
+            .setParameter("date", refDate)
+            .setMaxResults(1)
+            .getResultList()
+            .stream()
+            .findFirst()
+            .orElse(null);
+    if (sequenceVersion == null) {
+      sequenceVersion = sequenceVersionGeneratorService.createNewSequenceVersion(sequence, refDate);
+      em.persist(sequenceVersion);
+    }
+
+    long step = sequence.getToBeAdded();
+    long firstNum = sequenceVersion.getNextNum();
+    long endNum = firstNum + Math.max(1, sequence.getAllocationBlockSize()) * step;
+    sequenceVersion.setNextNum(endNum);
+    em.flush();
+
+    SequenceNumberBlock reservedBlock =
+        new SequenceNumberBlock(
+            sequenceVersion.getId(),
+            sequenceVersion.getStartDate(),
+            sequenceVersion.getEndDate(),
+            step);
+    reservedBlock.addReservedRange(firstNum, endNum);
+    return reservedBlock;
+  }
+
+  protected void addReservedBlock(SequenceBlocks blocks, SequenceNumberBlock reservedBlock) {
+    for (SequenceNumberBlock block : blocks.blockList) {
+      if (block.getSequenceVersionId().equals(reservedBlock.getSequenceVersionId())) {
+        reservedBlock.freeRangeMap.forEach(block::addReservedRange);
+        return;
+      }
+    }
+    blocks.blockList.add(reservedBlock);
+  }
+
+  @Override
+  public void releaseChangedBlocks(Sequence sequence) throws AxelorException {
+    SequenceBlocks blocks = sequence.getId() != null ? blockMap.get(sequence.getId()) : null;
+    if (blocks != null && isNumberingChanged(sequence, blocks)) {
+      releaseBlocks(sequence);
+    }
+  }
+
+  /**
+   * Check if the settings used to reserve the blocks, or the versions they were reserved on, were
+   * changed in the current transaction, by comparing them with the stored values.
+   */
+  protected boolean isNumberingChanged(Sequence sequence, SequenceBlocks blocks) {
+    EntityManager em = JPA.em();
+    List<Object[]> storedSequence =
+        em.createQuery(
+                "SELECT self.allocationModeSelect, self.allocationBlockSize, self.toBeAdded,"
+                    + " self.yearlyResetOk, self.monthlyResetOk"
+                    + " FROM Sequence self WHERE self.id = :id",
+                Object[].class)
+            .setParameter("id", sequence.getId())
+            .setFlushMode(FlushModeType.COMMIT)
+            .getResultList();
+    if (storedSequence.isEmpty()) {
+      return true;
+    }
+    Object[] storedValues = storedSequence.get(0);
+    if (!Objects.equals(storedValues[0], sequence.getAllocationModeSelect())
+        || !Objects.equals(storedValues[1], sequence.getAllocationBlockSize())
+        || !Objects.equals(storedValues[2], sequence.getToBeAdded())
+        || !Objects.equals(storedValues[3], sequence.getYearlyResetOk())
+        || !Objects.equals(storedValues[4], sequence.getMonthlyResetOk())) {
+      return true;
+    }
+
+    List<Long> sequenceVersionIdList = new ArrayList<>();
+    synchronized (blocks) {
+      blocks.blockList.forEach(block -> sequenceVersionIdList.add(block.getSequenceVersionId()));
+    }
+    for (Long sequenceVersionId : sequenceVersionIdList) {
+      List<Object[]> storedVersion =
+          em.createQuery(
+                  "SELECT self.nextNum, self.startDate, self.endDate"
+                      + " FROM SequenceVersion self WHERE self.id = :id",
+                  Object[].class)
+              .setParameter("id", sequenceVersionId)
+              .setFlushMode(FlushModeType.COMMIT)
+              .getResultList();
+      SequenceVersion sequenceVersion = em.find(SequenceVersion.class, sequenceVersionId);
+      if (storedVersion.isEmpty() || sequenceVersion == null) {
+        return true;
+      }
+      storedValues = storedVersion.get(0);
+      if (!Objects.equals(storedValues[0], sequenceVersion.getNextNum())
+          || !Objects.equals(storedValues[1], sequenceVersion.getStartDate())
+          || !Objects.equals(storedValues[2], sequenceVersion.getEndDate())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public void releaseBlocks(Sequence sequence) throws AxelorException {
+    SequenceBlocks blocks = sequence.getId() != null ? blockMap.get(sequence.getId()) : null;
+    Transaction transaction = getActiveTransaction();
+    if (blocks == null || transaction == null) {
+      return;
+    }
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(WAIT_TIMEOUT_SECONDS);
+
+    synchronized (blocks) {
+      if (blocks.releasingTransaction == transaction) {
+        return;
+      }
+      while (blocks.releasingTransaction != null) {
+        waitFor(blocks, deadline, sequence);
+      }
+      if (blocks.released) {
+        return;
+      }
+      // from now on, no number can be taken until the release completes
+      blocks.releasingTransaction = transaction;
+      try {
+        while (blocks.reserving) {
+          waitFor(blocks, deadline, sequence);
+        }
+      } catch (AxelorException e) {
+        blocks.releasingTransaction = null;
+        blocks.notifyAll();
+        throw e;
+      }
+      blocks.drained = true;
+    }
+
+    registerCompletion(
+        status -> {
+          synchronized (blocks) {
+            if (status == Status.STATUS_COMMITTED) {
+              blocks.released = true;
+              blockMap.remove(sequence.getId(), blocks);
+            } else {
+              // the tails were not given back, the blocks can be used again
+              blocks.drained = false;
+            }
+            blocks.releasingTransaction = null;
+            blocks.notifyAll();
+          }
+        });
+
+    giveBackUnusedTails(sequence.getId(), blocks);
+  }
+
+  /**
+   * Set back the next number of each version to the first unused number of its block, if it was
+   * changed neither by another reservation nor in the current transaction. The sequence row is
+   * locked first, as done by the reservations, so that no block is reserved meanwhile.
+   */
+  protected void giveBackUnusedTails(Long sequenceId, SequenceBlocks blocks) {
+    EntityManager em = JPA.em();
+    em.createQuery("SELECT self FROM Sequence self WHERE id = :id", Sequence.class)
+        .setParameter("id", sequenceId)
+        .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+        .setFlushMode(FlushModeType.COMMIT)
+        .getSingleResult();
+
+    for (SequenceNumberBlock block : blocks.blockList) {
+      Long tailStart = block.getUnusedTailStart();
+      if (tailStart == null) {
+        continue;
+      }
+      List<Long> storedNextNum =
+          em.createQuery(
+                  "SELECT self.nextNum FROM SequenceVersion self WHERE self.id = :id", Long.class)
+              .setParameter("id", block.getSequenceVersionId())
+              .setFlushMode(FlushModeType.COMMIT)
+              .getResultList();
+      SequenceVersion sequenceVersion =
+          em.find(SequenceVersion.class, block.getSequenceVersionId());
+      if (storedNextNum.isEmpty()
+          || sequenceVersion == null
+          || storedNextNum.get(0) != block.getReservedUpTo()
+          || !storedNextNum.get(0).equals(sequenceVersion.getNextNum())) {
+        continue;
+      }
+      sequenceVersion.setNextNum(tailStart);
+      log.debug(
+          "Sequence version {} : numbers from {} given back",
+          block.getSequenceVersionId(),
+          tailStart);
+    }
+  }
+
+  @Override
+  public void releaseAllBlocks() {
+    for (Long sequenceId : new ArrayList<>(blockMap.keySet())) {
+      try {
+        JPA.runInTransaction(
+            () -> {
+              Sequence sequence = JPA.find(Sequence.class, sequenceId);
+              if (sequence == null) {
+                return;
+              }
+              try {
+                releaseBlocks(sequence);
+              } catch (AxelorException e) {
+                throw new IllegalStateException(e);
+              }
+            });
+      } catch (Exception e) {
+        log.error("Unable to give back the unused numbers of the sequence {}", sequenceId, e);
+      } finally {
+        JPA.clear();
+      }
+    }
+  }
+
+  @Override
+  public String getAllocationStatistics(Sequence sequence) {
+    AllocationCounters counters = getCounters(sequence.getId());
+    long servedCount = counters.servedCount.sum();
+    double elapsedSeconds =
+        Math.max(1, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - counters.startNanos));
+
+    return String.format(
+        I18n.get(BaseExceptionMessage.SEQUENCE_ALLOCATION_STATISTICS),
+        counters.reservationCount.sum(),
+        TimeUnit.NANOSECONDS.toMillis(counters.lockWaitNanos.sum()),
+        servedCount,
+        String.format("%.2f", servedCount / elapsedSeconds));
+  }
+
+  protected AllocationCounters getCounters(Long sequenceId) {
+    return countersMap.computeIfAbsent(sequenceId, id -> new AllocationCounters());
+  }
+
+  protected Transaction getActiveTransaction() {
+    Transaction transaction = JPA.em().unwrap(Session.class).getTransaction();
+    return transaction.isActive() ? transaction : null;
+  }
+
+  protected void registerCompletion(IntConsumer afterCompletion) {
+    JPA.em()
+        .unwrap(Session.class)
+        .getTransaction()
+        .registerSynchronization(
+            new Synchronization() {
+              @Override
+              public void beforeCompletion() {}
+
+              @Override
+              public void afterCompletion(int status) {
+                afterCompletion.accept(status);
+              }
+            });
+  }
+
+  /** Blocks of a sequence on this node, guarded by their own monitor. */
+  protected static class SequenceBlocks {
+
+    protected final List<SequenceNumberBlock> blockList = new ArrayList<>();
+
+    /** True while a block is being reserved, other takers wait for it. */
+    protected boolean reserving;
+
+    /** Transaction giving back the unused tails, until it completes. */
+    protected Object releasingTransaction;
+
+    /** True once the unused tails are given back, no number can be taken anymore. */
+    protected boolean drained;
+
+    /** True once the release is committed and the blocks are dropped. */
+    protected boolean released;
+  }
+
+  protected static class AllocationCounters {
+
+    protected final long startNanos = System.nanoTime();
+    protected final LongAdder reservationCount = new LongAdder();
+    protected final LongAdder lockWaitNanos = new LongAdder();
+    protected final LongAdder servedCount = new LongAdder();
+  }
+}
@@ -21,6 +21,7 @@ package com.axelor.apps.base.service.administration;
 import com.axelor.apps.base.AxelorException;
 import com.axelor.apps.base.db.Company;
 import com.axelor.apps.base.db.Sequence;
+import com.axelor.apps.base.db.SequenceAllocationModeSelect;
 import com.axelor.apps.base.db.SequenceLettersTypeSelect;
 import com.axelor.apps.base.db.SequenceTypeSelect;
 import com.axelor.apps.base.db.SequenceVersion;
@@ -29,17 +30,15 @@ import com.axelor.apps.base.db.repo.SequenceVersionRepository;
 import com.axelor.apps.base.db.repo.TraceBackRepository;
 import com.axelor.apps.base.exceptions.BaseExceptionMessage;
 import com.axelor.apps.base.service.app.AppBaseService;
+import com.axelor.apps.base.service.script.CompiledScriptService;
+import com.axelor.apps.base.service.script.ModelScriptBinding;
 import com.axelor.common.ObjectUtils;
-import com.axelor.db.EntityHelper;
 import com.axelor.db.JPA;
 import com.axelor.db.Model;
-import com.axelor.db.mapper.Mapper;
 import com.axelor.i18n.I18n;
 import com.axelor.inject.Beans;
 import com.axelor.meta.db.MetaSelectItem;
 import com.axelor.meta.db.repo.MetaSelectItemRepository;
-import com.axelor.rpc.Context;
-import com.axelor.script.GroovyScriptHelper;
 import com.axelor.utils.helpers.StringHelper;
 import com.google.common.base.Strings;
 import com.google.inject.Inject;
@@ -91,17 +90,25 @@ public class SequenceService {
 
   protected final SequenceRepository sequenceRepo;
 
+  protected final SequenceNumberBlockService sequenceNumberBlockService;
+
+  protected final CompiledScriptService compiledScriptService;
+
   @Inject
   public SequenceService(
       SequenceVersionRepository sequenceVersionRepository,
       AppBaseService appBaseService,
       SequenceRepository sequenceRepo,
-      SequenceVersionGeneratorService sequenceVersionGeneratorService) {
+      SequenceVersionGeneratorService sequenceVersionGeneratorService,
+      SequenceNumberBlockService sequenceNumberBlockService,
+      CompiledScriptService compiledScriptService) {
 
     this.sequenceVersionRepository = sequenceVersionRepository;
     this.appBaseService = appBaseService;
     this.sequenceRepo = sequenceRepo;
     this.sequenceVersionGeneratorService = sequenceVersionGeneratorService;
+    this.sequenceNumberBlockService = sequenceNumberBlockService;
+    this.compiledScriptService = compiledScriptService;
   }
 
   public static boolean isYearValid(Sequence sequence) {
@@ -217,10 +224,12 @@ public class SequenceService {
   }
 
   protected String getSequenceValue(SequenceVersion sequenceVersion) throws AxelorException {
+    return getSequenceValue(sequenceVersion.getSequence(), sequenceVersion.getNextNum());
+  }
+
+  protected String getSequenceValue(Sequence sequence, Long nextNum) throws AxelorException {
 
-    Sequence sequence = sequenceVersion.getSequence();
     SequenceTypeSelect sequenceTypeSelect = sequence.getSequenceTypeSelect();
-    Long nextNum = sequenceVersion.getNextNum();
 
     String padStr;
     String nextSequence;
@@ -245,7 +254,7 @@ public class SequenceService {
 
       default:
         throw new AxelorException(
-            sequenceVersion,
+            sequence,
             TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
             I18n.get(BaseExceptionMessage.SEQUENCE_TYPE_UNHANDLED),
             sequenceTypeSelect);
@@ -540,6 +549,10 @@ public class SequenceService {
   public String getSequenceNumber(
       Sequence sequence, LocalDate refDate, Class objectClass, String fieldName, Model model)
       throws AxelorException {
+    if (isBlockAllocated(sequence)) {
+      return getBlockAllocatedSequenceNumber(sequence, refDate, objectClass, fieldName, model);
+    }
+
     Sequence seq =
         JPA.em()
             .createQuery("SELECT self FROM Sequence self WHERE id = :id", Sequence.class)
@@ -563,19 +576,58 @@ public class SequenceService {
     return nextSeq;
   }
 
+  /**
+   * Numbers are taken from blocks only for the sequences allocated by block, and when the current
+   * transaction does not already lock the sequence row, in which case the standard allocation is
+   * used as the row is already locked.
+   */
+  protected boolean isBlockAllocated(Sequence sequence) {
+    return sequence.getId() != null
+        && sequence.getAllocationModeSelect() == SequenceAllocationModeSelect.BLOCK
+        && !sequenceNumberBlockService.isLockedByCurrentTransaction(sequence);
+  }
+
+  /**
+   * Compute the sequence number from a number taken in a block reserved in memory. The sequence
+   * row is not locked by the current transaction, only by the short block reservation.
+   */
+  protected String getBlockAllocatedSequenceNumber(
+      Sequence sequence, LocalDate refDate, Class objectClass, String fieldName, Model model)
+      throws AxelorException {
+    long nextNum = sequenceNumberBlockService.takeNextNum(sequence, refDate);
+    String nextSeq = computeSequenceNumber(nextNum, sequence, refDate, model);
+
+    if (appBaseService.getAppBase().getCheckExistingSequenceOnGeneration()
+        && objectClass != null
+        && !Strings.isNullOrEmpty(fieldName)) {
+      this.isSequenceAlreadyExisting(objectClass, fieldName, nextSeq, sequence);
+    }
+
+    return nextSeq;
+  }
+
   protected String computeSequenceNumber(
       SequenceVersion sequenceVersion, Sequence sequence, LocalDate refDate, Model model)
       throws AxelorException {
+    return computeSequenceNumber(sequenceVersion.getNextNum(), sequence, refDate, model);
+  }
+
+  protected String computeSequenceNumber(
+      Long nextNum, Sequence sequence, LocalDate refDate, Model model) throws AxelorException {
     String seqPrefixe = StringUtils.defaultString(sequence.getPrefixe(), "");
     String seqSuffixe = StringUtils.defaultString(sequence.getSuffixe(), "");
     if (sequence.getPrefixGroovyOk()) {
-      seqPrefixe = StringUtils.defaultString(getGroovyValue(sequence.getPrefixGroovy(), model), "");
+      seqPrefixe =
+          StringUtils.defaultString(
+              getGroovyValue(sequence, sequence.getPrefixGroovy(), model), "");
     }
     if (sequence.getSuffixGroovyOk()) {
-      seqSuffixe = StringUtils.defaultString(getGroovyValue(sequence.getSuffixGroovy(), model), "");
+      seqSuffixe =
+          StringUtils.defaultString(
+              getGroovyValue(sequence, sequence.getSuffixGroovy(), model), "");
     }
 
-    String sequenceValue = getSequenceValue(sequenceVersion);
+    String sequenceValue = getSequenceValue(sequence, nextNum);
 
     String nextSeq =
         (seqPrefixe + sequenceValue + seqSuffixe)
@@ -592,12 +644,20 @@ public class SequenceService {
     return nextSeq;
   }
 
-  protected String getGroovyValue(String prefixOrSuffix, Model model) throws AxelorException {
+  /**
+   * Evaluate a prefix or suffix script. The script is compiled once per sequence and reads the
+   * fields of the model only when it accesses them.
+   */
+  protected String getGroovyValue(Sequence sequence, String prefixOrSuffix, Model model)
+      throws AxelorException {
 
     if (!Strings.isNullOrEmpty(prefixOrSuffix) && Objects.nonNull(model)) {
       try {
-        Context cxt = new Context(Mapper.toMap(model), EntityHelper.getEntityClass(model));
-        return String.valueOf(new GroovyScriptHelper(cxt).eval(prefixOrSuffix));
+        return String.valueOf(
+            compiledScriptService.eval(
+                compiledScriptService.getOwnerKey(Sequence.class, sequence.getId()),
+                prefixOrSuffix,
+                new ModelScriptBinding(model)));
 
       } catch (Exception e) {
         throw new AxelorException(
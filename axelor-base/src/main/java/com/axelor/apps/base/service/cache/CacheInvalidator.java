@@ -0,0 +1,91 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2024 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.cache;
+
+import com.axelor.db.JPA;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import javax.transaction.Synchronization;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+
+/**
+ * Invalidation of an in-memory cache of records.
+ *
+ * <p>A modification counter is incremented on every invalidation, so that data loaded while a
+ * record was being modified is not kept in the cache. As a modification is only visible to other
+ * transactions once committed, invalidations are run again when the current transaction completes.
+ */
+public class CacheInvalidator {
+
+  protected final AtomicLong modificationCount = new AtomicLong();
+
+  public long getModificationCount() {
+    return modificationCount.get();
+  }
+
+  public boolean isUnchangedSince(long modificationCount) {
+    return modificationCount == this.modificationCount.get();
+  }
+
+  /**
+   * Load data and store it in the cache, unless the cache was invalidated while loading.
+   *
+   * @return the loaded data
+   */
+  public <T> T load(Supplier<T> loader, Consumer<T> store) {
+    long count = modificationCount.get();
+    T data = loader.get();
+    if (isUnchangedSince(count)) {
+      store.accept(data);
+    }
+    return data;
+  }
+
+  /**
+   * Run the given invalidation now, and again once the current transaction completes if there is
+   * one.
+   */
+  public void invalidate(Runnable invalidation) {
+    invalidateNow(invalidation);
+
+    Optional.ofNullable(JPA.em().unwrap(Session.class).getTransaction())
+        .filter(Transaction::isActive)
+        .ifPresent(
+            transaction ->
+                transaction.registerSynchronization(
+                    new Synchronization() {
+                      @Override
+                      public void beforeCompletion() {}
+
+                      @Override
+                      public void afterCompletion(int status) {
+                        invalidateNow(invalidation);
+                      }
+                    }));
+  }
+
+  /** Run the given invalidation now only. */
+  public void invalidateNow(Runnable invalidation) {
+    modificationCount.incrementAndGet();
+    invalidation.run();
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2024 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.currency;
+
+import com.axelor.apps.base.db.CurrencyConversionLine;
+
+/**
+ * In-memory index of the currency conversion lines of the application, by currency pair. The
+ * table of a pair is loaded on first use and reloaded after one of its lines is modified.
+ */
+public interface CurrencyRateIndexService {
+
+  /**
+   * Get the rate table of the given currency pair.
+   *
+   * @param startCurrencyId id of the source currency
+   * @param endCurrencyId id of the destination currency
+   * @return the rates of the pair, possibly empty
+   */
+  CurrencyRateTable getRateTable(Long startCurrencyId, Long endCurrencyId);
+
+  /**
+   * Drop the rate tables containing the given line, now and once the current transaction is
+   * completed.
+   *
+   * @param currencyConversionLine a created, modified or removed line
+   */
+  void invalidate(CurrencyConversionLine currencyConversionLine);
+
+  /** Drop every rate table. */
+  void invalidateAll();
+}
@@ -0,0 +1,118 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2024 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.currency;
+
+import com.axelor.apps.base.db.CurrencyConversionLine;
+import com.axelor.apps.base.service.cache.CacheInvalidator;
+import com.axelor.db.JPA;
+import com.google.inject.Singleton;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Singleton
+public class CurrencyRateIndexServiceImpl implements CurrencyRateIndexService {
+
+  protected final Map<String, CurrencyRateTable> rateTableMap = new ConcurrentHashMap<>();
+
+  /** Currency pair of each indexed line, to also drop the old pair when a line pair changes. */
+  protected final Map<Long, String> lineKeyMap = new ConcurrentHashMap<>();
+
+  protected final CacheInvalidator cacheInvalidator = new CacheInvalidator();
+
+  @Override
+  public CurrencyRateTable getRateTable(Long startCurrencyId, Long endCurrencyId) {
+    String key = getKey(startCurrencyId, endCurrencyId);
+    CurrencyRateTable rateTable = rateTableMap.get(key);
+    if (rateTable != null) {
+      return rateTable;
+    }
+
+    return cacheInvalidator.load(
+        () -> loadRateTable(startCurrencyId, endCurrencyId),
+        loadedTable -> {
+          rateTableMap.put(key, loadedTable);
+          loadedTable
+              .getRateList()
+              .forEach(rate -> lineKeyMap.put(rate.getCurrencyConversionLineId(), key));
+        });
+  }
+
+  protected CurrencyRateTable loadRateTable(Long startCurrencyId, Long endCurrencyId) {
+    List<Object[]> resultList =
+        JPA.em()
+            .createQuery(
+                "SELECT self.id, self.fromDate, self.toDate, self.exchangeRate "
+                    + "FROM CurrencyConversionLine self "
+                    + "WHERE self.appBase IS NOT NULL "
+                    + "AND self.startCurrency.id = :startCurrencyId "
+                    + "AND self.endCurrency.id = :endCurrencyId",
+                Object[].class)
+            .setParameter("startCurrencyId", startCurrencyId)
+            .setParameter("endCurrencyId", endCurrencyId)
+            .getResultList();
+
+    List<CurrencyRateTable.Rate> rateList = new ArrayList<>();
+    for (Object[] result : resultList) {
+      rateList.add(
+          new CurrencyRateTable.Rate(
+              (Long) result[0],
+              (LocalDate) result[1],
+              (LocalDate) result[2],
+              (BigDecimal) result[3]));
+    }
+    return new CurrencyRateTable(rateList);
+  }
+
+  @Override
+  public void invalidate(CurrencyConversionLine currencyConversionLine) {
+    cacheInvalidator.invalidate(() -> invalidateKeys(currencyConversionLine));
+  }
+
+  protected void invalidateKeys(CurrencyConversionLine currencyConversionLine) {
+    if (currencyConversionLine.getId() != null) {
+      Optional.ofNullable(lineKeyMap.remove(currencyConversionLine.getId()))
+          .ifPresent(rateTableMap::remove);
+    }
+    if (currencyConversionLine.getStartCurrency() != null
+        && currencyConversionLine.getEndCurrency() != null) {
+      rateTableMap.remove(
+          getKey(
+              currencyConversionLine.getStartCurrency().getId(),
+              currencyConversionLine.getEndCurrency().getId()));
+    }
+  }
+
+  @Override
+  public void invalidateAll() {
+    cacheInvalidator.invalidateNow(
+        () -> {
+          rateTableMap.clear();
+          lineKeyMap.clear();
+        });
+  }
+
+  protected String getKey(Long startCurrencyId, Long endCurrencyId) {
+    return startCurrencyId + ":" + endCurrencyId;
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2024 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.currency;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Exchange rates of one currency pair, sorted by start date so that the rate applicable at a date
+ * is found with a binary search.
+ *
+ * <p>Periods are not guaranteed to be disjoint, so the latest end date of the rates starting up to
+ * each index is kept as well: when the rate starting last before a date is already over, the rates
+ * starting before it are looked at until none of them can still be valid.
+ */
+public class CurrencyRateTable {
+
+  protected final List<Rate> rateList;
+
+  /** Latest end date of the rates up to each index, null if one of them has no end date. */
+  protected final LocalDate[] maxToDates;
+
+  public CurrencyRateTable(List<Rate> rateList) {
+    this.rateList = new ArrayList<>(rateList);
+    this.rateList.sort(Comparator.comparing(Rate::getFromDate));
+
+    maxToDates = new LocalDate[this.rateList.size()];
+    for (int i = 0; i < maxToDates.length; i++) {
+      LocalDate toDate = this.rateList.get(i).getToDate();
+      LocalDate previousMaxToDate = i > 0 ? maxToDates[i - 1] : toDate;
+      maxToDates[i] =
+          toDate == null || previousMaxToDate == null
+              ? null
+              : (toDate.isAfter(previousMaxToDate) ? toDate : previousMaxToDate);
+    }
+  }
+
+  /**
+   * Find the rate whose period contains the given date. If several periods contain it, the rate
+   * starting last is returned.
+   *
+   * @param date a date
+   * @return the rate applicable at this date, or null if there is none
+   */
+  public Rate find(LocalDate date) {
+    int low = 0;
+    int high = rateList.size() - 1;
+    int found = -1;
+
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      if (rateList.get(mid).getFromDate().isAfter(date)) {
+        high = mid - 1;
+      } else {
+        found = mid;
+        low = mid + 1;
+      }
+    }
+
+    for (int i = found; i >= 0 && (maxToDates[i] == null || !maxToDates[i].isBefore(date)); i--) {
+      Rate rate = rateList.get(i);
+      if (rate.getToDate() == null || !rate.getToDate().isBefore(date)) {
+        return rate;
+      }
+    }
+    return null;
+  }
+
+  public List<Rate> getRateList() {
+    return rateList;
+  }
+
+  /** Exchange rate of a currency conversion line and its validity period. */
+  public static class Rate {
+
+    protected final Long currencyConversionLineId;
+    protected final LocalDate fromDate;
+    protected final LocalDate toDate;
+    protected final BigDecimal exchangeRate;
+
+    public Rate(
+        Long currencyConversionLineId,
+        LocalDate fromDate,
+        LocalDate toDate,
+        BigDecimal exchangeRate) {
+      this.currencyConversionLineId = currencyConversionLineId;
+      this.fromDate = fromDate;
+      this.toDate = toDate;
+      this.exchangeRate = exchangeRate;
+    }
+
+    public Long getCurrencyConversionLineId() {
+      return currencyConversionLineId;
+    }
+
+    public LocalDate getFromDate() {
+      return fromDate;
+    }
+
+    public LocalDate getToDate() {
+      return toDate;
+    }
+
+    public BigDecimal getExchangeRate() {
+      return exchangeRate;
+    }
+  }
+}
@@ -26,7 +26,10 @@ import com.axelor.apps.base.db.repo.PricingRuleRepository;
 import com.axelor.apps.base.db.repo.TraceBackRepository;
 import com.axelor.apps.base.exceptions.BaseExceptionMessage;
 import com.axelor.apps.base.service.metajsonattrs.MetaJsonAttrsBuilder;
+import com.axelor.apps.base.service.script.CompiledScriptService;
+import com.axelor.apps.base.service.script.ContextScriptBinding;
 import com.axelor.db.EntityHelper;
+import com.axelor.db.JPA;
 import com.axelor.db.Model;
 import com.axelor.db.mapper.Mapper;
 import com.axelor.i18n.I18n;
@@ -43,9 +46,12 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -60,12 +66,16 @@ public class PricingComputer extends AbstractObservablePricing {
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
   protected PricingService pricingService;
+  protected PricingLineIndexService pricingLineIndexService;
+  protected CompiledScriptService compiledScriptService;
 
   protected PricingComputer(Context context, Pricing pricing, Model model) {
     this.context = Objects.requireNonNull(context);
     this.pricing = Objects.requireNonNull(pricing);
     this.model = Objects.requireNonNull(model);
     this.pricingService = Beans.get(PricingService.class);
+    this.pricingLineIndexService = Beans.get(PricingLineIndexService.class);
+    this.compiledScriptService = Beans.get(CompiledScriptService.class);
   }
 
   /**
@@ -198,8 +208,6 @@ public class PricingComputer extends AbstractObservablePricing {
       throws AxelorException {
     Objects.requireNonNull(pricingLine);
 
-    GroovyScriptHelper scriptHelper = new GroovyScriptHelper(context);
-
     List<PricingRule> resultPricingRuleList = new ArrayList<>();
     resultPricingRuleList.add(pricing.getResult1PricingRule());
     resultPricingRuleList.add(pricing.getResult2PricingRule());
@@ -209,7 +217,7 @@ public class PricingComputer extends AbstractObservablePricing {
     for (PricingRule resultPricingRule : resultPricingRuleList) {
       if (resultPricingRule != null) {
         MetaField fieldToPopulate = resultPricingRule.getFieldToPopulate();
-        Object result = scriptHelper.eval(resultPricingRule.getFormula());
+        Object result = evalFormula(resultPricingRule);
         notifyResultPricingRule(resultPricingRule, result);
         notifyFieldToPopulate(fieldToPopulate);
         String typeName = getTypeNameFieldToPopulate(resultPricingRule);
@@ -292,15 +300,13 @@ public class PricingComputer extends AbstractObservablePricing {
     }
     Objects.requireNonNull(pricing);
 
-    GroovyScriptHelper scriptHelper = new GroovyScriptHelper(context);
-
     return searchPricingLine(
         pricing,
         new Object[] {
-          computeClassificationFormula(scriptHelper, pricing.getClass1PricingRule()),
-          computeClassificationFormula(scriptHelper, pricing.getClass2PricingRule()),
-          computeClassificationFormula(scriptHelper, pricing.getClass3PricingRule()),
-          computeClassificationFormula(scriptHelper, pricing.getClass4PricingRule())
+          computeClassificationFormula(pricing.getClass1PricingRule()),
+          computeClassificationFormula(pricing.getClass2PricingRule()),
+          computeClassificationFormula(pricing.getClass3PricingRule()),
+          computeClassificationFormula(pricing.getClass4PricingRule())
         });
   }
 
@@ -312,11 +318,10 @@ public class PricingComputer extends AbstractObservablePricing {
     return getMatchedPricingLines(this.pricing);
   }
 
-  protected Object computeClassificationFormula(
-      GroovyScriptHelper scriptHelper, PricingRule classPricingRule) {
+  protected Object computeClassificationFormula(PricingRule classPricingRule) {
 
     if (classPricingRule != null) {
-      Object result = scriptHelper.eval(classPricingRule.getFormula());
+      Object result = evalFormula(classPricingRule);
       if (classPricingRule.getFieldTypeSelect() == PricingRuleRepository.FIELD_TYPE_DECIMAL) {
         result = ((BigDecimal) result).setScale(classPricingRule.getScale(), RoundingMode.HALF_UP);
       }
@@ -327,6 +332,20 @@ public class PricingComputer extends AbstractObservablePricing {
     return null;
   }
 
+  /**
+   * Evaluate the formula of the rule on the current context. The formula is compiled once and kept
+   * until the rule is modified.
+   */
+  protected Object evalFormula(PricingRule pricingRule) {
+    if (pricingRule.getId() == null) {
+      return new GroovyScriptHelper(context).eval(pricingRule.getFormula());
+    }
+    return compiledScriptService.eval(
+        compiledScriptService.getOwnerKey(PricingRule.class, pricingRule.getId()),
+        pricingRule.getFormula(),
+        new ContextScriptBinding(context));
+  }
+
   protected List<Integer[]> getFieldTypeAndOperator(Pricing pricing) {
     PricingRule class1PricingRule = pricing.getClass1PricingRule();
     PricingRule class2PricingRule = pricing.getClass2PricingRule();
@@ -353,6 +372,10 @@ public class PricingComputer extends AbstractObservablePricing {
   }
 
   protected List<PricingLine> searchPricingLine(Pricing pricing, Object[] ruleValues) {
+    if (isIndexable(pricing)) {
+      return searchIndexedPricingLine(pricing, ruleValues);
+    }
+
     Object ruleValue1 = ruleValues[0];
     Object ruleValue2 = ruleValues[1];
     Object ruleValue3 = ruleValues[2];
@@ -409,6 +432,60 @@ public class PricingComputer extends AbstractObservablePricing {
     return pricingLines;
   }
 
+  /**
+   * The line index is built from the saved pricing lines: it can only be used when the lines of the
+   * pricing were not loaded in memory, where they may have been edited without being saved.
+   */
+  protected boolean isIndexable(Pricing pricing) {
+    EntityManager em = JPA.em();
+    return pricing.getId() != null
+        && em.contains(pricing)
+        && !em.getEntityManagerFactory()
+            .getPersistenceUnitUtil()
+            .isLoaded(pricing, "pricingLineList");
+  }
+
+  /**
+   * Search the matching lines of a saved pricing in its cached line index, giving the same result
+   * as filtering the whole pricing line list.
+   */
+  protected List<PricingLine> searchIndexedPricingLine(Pricing pricing, Object[] ruleValues) {
+    List<Integer[]> fieldTypeAndOpList = getFieldTypeAndOperator(pricing);
+    int[] fieldTypeSelects = new int[PricingLineIndex.RULE_COUNT];
+    int[] operatorSelects = new int[PricingLineIndex.RULE_COUNT];
+    for (int rule = 0; rule < PricingLineIndex.RULE_COUNT; rule++) {
+      fieldTypeSelects[rule] = fieldTypeAndOpList.get(rule)[0];
+      operatorSelects[rule] = fieldTypeAndOpList.get(rule)[1];
+    }
+
+    List<PricingLineIndex.Entry> entryList =
+        pricingLineIndexService
+            .getIndex(pricing)
+            .match(fieldTypeSelects, operatorSelects, ruleValues);
+
+    if (entryList.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    List<Long> idList =
+        entryList.stream()
+            .map(PricingLineIndex.Entry::getPricingLineId)
+            .collect(Collectors.toList());
+    Map<Long, PricingLine> pricingLineMap =
+        JPA.em()
+            .createQuery(
+                "SELECT self FROM PricingLine self WHERE self.id IN :idList", PricingLine.class)
+            .setParameter("idList", idList)
+            .getResultList()
+            .stream()
+            .collect(Collectors.toMap(PricingLine::getId, Function.identity()));
+
+    return idList.stream()
+        .map(pricingLineMap::get)
+        .filter(Objects::nonNull)
+        .collect(Collectors.toList());
+  }
+
   protected List<PricingLine> checkClassificationRule1(
       List<PricingLine> pricingLines, int fieldTypeSelect, int operatorSelect, Object ruleValue) {
 
@@ -0,0 +1,262 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2024 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.pricing;
+
+import com.axelor.apps.base.db.repo.PricingRuleRepository;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Classification parameters of the lines of one pricing, indexed so that the lines matching a
+ * classification value are found without scanning every line.
+ *
+ * <p>Equal operators use a map from parameter value to lines, less than and greater than operators
+ * use lines sorted on the parameter and a binary search. The lines are returned in the same order
+ * as {@link PricingComputer} sorts them.
+ */
+public class PricingLineIndex {
+
+  public static final int RULE_COUNT = 4;
+
+  protected final Long pricingId;
+  protected final Integer pricingVersion;
+  protected final List<Entry> entryList;
+
+  protected final Map<String, Map<Object, List<Entry>>> equalIndexMap = new ConcurrentHashMap<>();
+  protected final Map<String, List<Entry>> sortedIndexMap = new ConcurrentHashMap<>();
+
+  public PricingLineIndex(Long pricingId, Integer pricingVersion, List<Entry> entryList) {
+    this.pricingId = pricingId;
+    this.pricingVersion = pricingVersion;
+    this.entryList = new ArrayList<>(entryList);
+    this.entryList.sort(Comparator.comparing(Entry::getPricingLineId));
+  }
+
+  /**
+   * Find the lines matching the classification values.
+   *
+   * @param fieldTypeSelects field type of the classification rules
+   * @param operatorSelects operator of the classification rules
+   * @param ruleValues computed values of the classification rules, null when there is no rule
+   * @return the matching lines, the first one being the line to apply
+   */
+  public List<Entry> match(int[] fieldTypeSelects, int[] operatorSelects, Object[] ruleValues) {
+    int ruleCount = 0;
+    for (int rule = 0; rule < RULE_COUNT; rule++) {
+      if (ruleValues[rule] != null) {
+        ruleCount = rule + 1;
+      }
+    }
+    if (ruleCount == 0) {
+      return Collections.emptyList();
+    }
+
+    List<Entry> candidates = find(0, fieldTypeSelects[0], operatorSelects[0], ruleValues[0]);
+    for (int rule = 1; rule < ruleCount && !candidates.isEmpty(); rule++) {
+      candidates =
+          filter(candidates, rule, fieldTypeSelects[rule], operatorSelects[rule], ruleValues[rule]);
+    }
+    return candidates;
+  }
+
+  protected List<Entry> find(int rule, int fieldTypeSelect, int operatorSelect, Object ruleValue) {
+    if (ruleValue == null) {
+      return Collections.emptyList();
+    }
+    if (!isSorted(fieldTypeSelect, operatorSelect)) {
+      return getEqualIndex(rule, fieldTypeSelect)
+          .getOrDefault(getKey(fieldTypeSelect, ruleValue), Collections.emptyList());
+    }
+
+    List<Entry> sortedList = getSortedIndex(rule, fieldTypeSelect, operatorSelect);
+    Predicate<Entry> predicate = getPredicate(rule, fieldTypeSelect, operatorSelect, ruleValue);
+
+    // Matching lines are at the end of the sorted list
+    int low = 0;
+    int high = sortedList.size();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (predicate.test(sortedList.get(mid))) {
+        high = mid;
+      } else {
+        low = mid + 1;
+      }
+    }
+    return sortedList.subList(low, sortedList.size());
+  }
+
+  protected List<Entry> filter(
+      List<Entry> candidates, int rule, int fieldTypeSelect, int operatorSelect, Object ruleValue) {
+    if (ruleValue == null) {
+      return Collections.emptyList();
+    }
+    List<Entry> entries = candidates;
+    if (isSorted(fieldTypeSelect, operatorSelect)) {
+      entries = new ArrayList<>(candidates);
+      entries.sort(getComparator(rule, fieldTypeSelect, operatorSelect));
+    }
+    return entries.stream()
+        .filter(getPredicate(rule, fieldTypeSelect, operatorSelect, ruleValue))
+        .collect(Collectors.toList());
+  }
+
+  protected boolean isSorted(int fieldTypeSelect, int operatorSelect) {
+    return (fieldTypeSelect == PricingRuleRepository.FIELD_TYPE_INTEGER
+            || fieldTypeSelect == PricingRuleRepository.FIELD_TYPE_DECIMAL)
+        && (operatorSelect == PricingRuleRepository.OPERATOR_LESS_THAN
+            || operatorSelect == PricingRuleRepository.OPERATOR_GREATER_THAN);
+  }
+
+  protected Map<Object, List<Entry>> getEqualIndex(int rule, int fieldTypeSelect) {
+    return equalIndexMap.computeIfAbsent(
+        rule + ":" + fieldTypeSelect,
+        key -> {
+          Map<Object, List<Entry>> equalIndex = new HashMap<>();
+          for (Entry entry : entryList) {
+            Object param = getParam(entry, rule, fieldTypeSelect);
+            if (param != null) {
+              equalIndex
+                  .computeIfAbsent(getKey(fieldTypeSelect, param), k -> new ArrayList<>())
+                  .add(entry);
+            }
+          }
+          return equalIndex;
+        });
+  }
+
+  protected List<Entry> getSortedIndex(int rule, int fieldTypeSelect, int operatorSelect) {
+    return sortedIndexMap.computeIfAbsent(
+        rule + ":" + fieldTypeSelect + ":" + operatorSelect,
+        key -> {
+          List<Entry> sortedList = new ArrayList<>(entryList);
+          sortedList.sort(getComparator(rule, fieldTypeSelect, operatorSelect));
+          return Collections.unmodifiableList(sortedList);
+        });
+  }
+
+  protected Comparator<Entry> getComparator(int rule, int fieldTypeSelect, int operatorSelect) {
+    Comparator<Entry> comparator =
+        fieldTypeSelect == PricingRuleRepository.FIELD_TYPE_INTEGER
+            ? Comparator.comparingInt(entry -> entry.getIntParam(rule))
+            : Comparator.comparing(entry -> entry.getDecParam(rule));
+    return operatorSelect == PricingRuleRepository.OPERATOR_LESS_THAN
+        ? comparator.reversed()
+        : comparator;
+  }
+
+  protected Predicate<Entry> getPredicate(
+      int rule, int fieldTypeSelect, int operatorSelect, Object ruleValue) {
+    if (fieldTypeSelect == PricingRuleRepository.FIELD_TYPE_INTEGER) {
+      int value = new BigDecimal(ruleValue.toString()).intValue();
+      return entry ->
+          checkOperator(operatorSelect, Integer.compare(entry.getIntParam(rule), value));
+    }
+    if (fieldTypeSelect == PricingRuleRepository.FIELD_TYPE_DECIMAL) {
+      BigDecimal value = (BigDecimal) ruleValue;
+      return entry -> checkOperator(operatorSelect, entry.getDecParam(rule).compareTo(value));
+    }
+    String value = ruleValue.toString();
+    return entry -> value.equals(entry.getStrParam(rule));
+  }
+
+  protected boolean checkOperator(int operatorSelect, int comparison) {
+    switch (operatorSelect) {
+      case PricingRuleRepository.OPERATOR_LESS_THAN:
+        return comparison < 0;
+      case PricingRuleRepository.OPERATOR_GREATER_THAN:
+        return comparison > 0;
+      default:
+        return comparison == 0;
+    }
+  }
+
+  protected Object getParam(Entry entry, int rule, int fieldTypeSelect) {
+    switch (fieldTypeSelect) {
+      case PricingRuleRepository.FIELD_TYPE_INTEGER:
+        return entry.getIntParam(rule);
+      case PricingRuleRepository.FIELD_TYPE_DECIMAL:
+        return entry.getDecParam(rule);
+      default:
+        return entry.getStrParam(rule);
+    }
+  }
+
+  protected Object getKey(int fieldTypeSelect, Object value) {
+    switch (fieldTypeSelect) {
+      case PricingRuleRepository.FIELD_TYPE_INTEGER:
+        return new BigDecimal(value.toString()).intValue();
+      case PricingRuleRepository.FIELD_TYPE_DECIMAL:
+        return ((BigDecimal) value).stripTrailingZeros();
+      default:
+        return value.toString();
+    }
+  }
+
+  public Long getPricingId() {
+    return pricingId;
+  }
+
+  public Integer getPricingVersion() {
+    return pricingVersion;
+  }
+
+  public List<Entry> getEntryList() {
+    return entryList;
+  }
+
+  /** Classification parameters of a pricing line. */
+  public static class Entry {
+
+    protected final Long pricingLineId;
+    protected final int[] intParams;
+    protected final BigDecimal[] decParams;
+    protected final String[] strParams;
+
+    public Entry(Long pricingLineId, int[] intParams, BigDecimal[] decParams, String[] strParams) {
+      this.pricingLineId = pricingLineId;
+      this.intParams = intParams;
+      this.decParams = decParams;
+      this.strParams = strParams;
+    }
+
+    public Long getPricingLineId() {
+      return pricingLineId;
+    }
+
+    public int getIntParam(int rule) {
+      return intParams[rule];
+    }
+
+    public BigDecimal getDecParam(int rule) {
+      return decParams[rule];
+    }
+
+    public String getStrParam(int rule) {
+      return strParams[rule];
+    }
+  }
+}
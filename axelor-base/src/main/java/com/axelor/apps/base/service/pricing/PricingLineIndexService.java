@@ -0,0 +1,44 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2024 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.pricing;
+
+import com.axelor.apps.base.db.Pricing;
+import com.axelor.apps.base.db.PricingLine;
+
+public interface PricingLineIndexService {
+
+  /**
+   * Get the index of the lines of the given pricing, loading it if it is not already cached or if
+   * the pricing was modified since.
+   *
+   * @param pricing a saved pricing
+   * @return the index of its pricing lines
+   */
+  PricingLineIndex getIndex(Pricing pricing);
+
+  /**
+   * Drop the indexes holding the given line, at once and when the current transaction ends.
+   *
+   * @param pricingLine a created, modified or removed pricing line
+   */
+  void invalidate(PricingLine pricingLine);
+
+  /** Drop every cached index. */
+  void invalidateAll();
+}
@@ -0,0 +1,121 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2024 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.pricing;
+
+import com.axelor.apps.base.db.Pricing;
+import com.axelor.apps.base.db.PricingLine;
+import com.axelor.apps.base.service.cache.CacheInvalidator;
+import com.axelor.db.JPA;
+import com.google.inject.Singleton;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Singleton
+public class PricingLineIndexServiceImpl implements PricingLineIndexService {
+
+  protected final Map<Long, PricingLineIndex> indexMap = new ConcurrentHashMap<>();
+
+  /** Pricing of each indexed line, to also drop the old index when a line changes of pricing. */
+  protected final Map<Long, Long> linePricingMap = new ConcurrentHashMap<>();
+
+  protected final CacheInvalidator cacheInvalidator = new CacheInvalidator();
+
+  @Override
+  public PricingLineIndex getIndex(Pricing pricing) {
+    Long pricingId = Objects.requireNonNull(pricing.getId());
+    PricingLineIndex index = indexMap.get(pricingId);
+    if (index != null && Objects.equals(index.getPricingVersion(), pricing.getVersion())) {
+      return index;
+    }
+
+    return cacheInvalidator.load(
+        () -> loadIndex(pricing),
+        loadedIndex -> {
+          indexMap.put(pricingId, loadedIndex);
+          loadedIndex
+              .getEntryList()
+              .forEach(entry -> linePricingMap.put(entry.getPricingLineId(), pricingId));
+        });
+  }
+
+  protected PricingLineIndex loadIndex(Pricing pricing) {
+    List<Object[]> resultList =
+        JPA.em()
+            .createQuery(
+                "SELECT self.id, "
+                    + "self.classificationIntParam1, self.classificationIntParam2, "
+                    + "self.classificationIntParam3, self.classificationIntParam4, "
+                    + "self.classificationDecParam1, self.classificationDecParam2, "
+                    + "self.classificationDecParam3, self.classificationDecParam4, "
+                    + "self.classificationParam1, self.classificationParam2, "
+                    + "self.classificationParam3, self.classificationParam4 "
+                    + "FROM PricingLine self "
+                    + "WHERE self.pricing.id = :pricingId",
+                Object[].class)
+            .setParameter("pricingId", pricing.getId())
+            .getResultList();
+
+    List<PricingLineIndex.Entry> entryList = new ArrayList<>();
+    for (Object[] result : resultList) {
+      int[] intParams = new int[PricingLineIndex.RULE_COUNT];
+      BigDecimal[] decParams = new BigDecimal[PricingLineIndex.RULE_COUNT];
+      String[] strParams = new String[PricingLineIndex.RULE_COUNT];
+      for (int rule = 0; rule < PricingLineIndex.RULE_COUNT; rule++) {
+        // Same defaults as the pricing line getters
+        Integer intParam = (Integer) result[1 + rule];
+        BigDecimal decParam = (BigDecimal) result[5 + rule];
+        intParams[rule] = intParam != null ? intParam : 0;
+        decParams[rule] = decParam != null ? decParam : BigDecimal.ZERO;
+        strParams[rule] = (String) result[9 + rule];
+      }
+      entryList.add(
+          new PricingLineIndex.Entry((Long) result[0], intParams, decParams, strParams));
+    }
+    return new PricingLineIndex(pricing.getId(), pricing.getVersion(), entryList);
+  }
+
+  @Override
+  public void invalidate(PricingLine pricingLine) {
+    cacheInvalidator.invalidate(() -> invalidateIndexes(pricingLine));
+  }
+
+  protected void invalidateIndexes(PricingLine pricingLine) {
+    if (pricingLine.getId() != null) {
+      Optional.ofNullable(linePricingMap.remove(pricingLine.getId()))
+          .ifPresent(indexMap::remove);
+    }
+    if (pricingLine.getPricing() != null) {
+      indexMap.remove(pricingLine.getPricing().getId());
+    }
+  }
+
+  @Override
+  public void invalidateAll() {
+    cacheInvalidator.invalidateNow(
+        () -> {
+          indexMap.clear();
+          linePricingMap.clear();
+        });
+  }
+}
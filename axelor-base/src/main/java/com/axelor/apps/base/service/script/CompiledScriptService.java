@@ -0,0 +1,49 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2024 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.script;
+
+import groovy.lang.Binding;
+
+/**
+ * Evaluates Groovy expressions stored on records, compiling each expression once. Compiled scripts
+ * are grouped by owner, for example a sequence or a unit conversion, so that they can be dropped
+ * when the owner is modified.
+ */
+public interface CompiledScriptService {
+
+  /**
+   * Evaluate the given expression, compiling it only if it was not already compiled for this owner.
+   *
+   * @param ownerKey key of the record holding the expression, see {@link #getOwnerKey}
+   * @param expression the Groovy expression
+   * @param binding the variables available to the expression
+   * @return the result of the evaluation
+   */
+  Object eval(String ownerKey, String expression, Binding binding);
+
+  /**
+   * Drop the compiled scripts of the given owner.
+   *
+   * @param ownerKey key of the record holding the expressions
+   */
+  void invalidate(String ownerKey);
+
+  /** Compute the key used to group the compiled scripts of a record. */
+  String getOwnerKey(Class<?> ownerClass, Long ownerId);
+}
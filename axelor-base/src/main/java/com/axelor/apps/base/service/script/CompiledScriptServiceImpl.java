@@ -0,0 +1,74 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2024 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.script;
+
+import com.google.inject.Singleton;
+import groovy.lang.Binding;
+import groovy.lang.GroovyShell;
+import groovy.lang.Script;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.customizers.ImportCustomizer;
+import org.codehaus.groovy.runtime.InvokerHelper;
+
+@Singleton
+public class CompiledScriptServiceImpl implements CompiledScriptService {
+
+  protected final GroovyShell shell;
+
+  protected final Map<String, Map<String, Class<? extends Script>>> scriptClassMap =
+      new ConcurrentHashMap<>();
+
+  public CompiledScriptServiceImpl() {
+    CompilerConfiguration conf = new CompilerConfiguration();
+    ImportCustomizer customizer = new ImportCustomizer();
+    customizer.addStarImports(
+        "java.time", "com.axelor.common", "com.axelor.db", "com.axelor.inject");
+    customizer.addStaticStars("java.lang.Math");
+    // same alias as the scripts evaluated by GroovyScriptHelper
+    customizer.addImport("__repo__", "com.axelor.db.JpaRepository");
+    conf.addCompilationCustomizers(customizer);
+    shell = new GroovyShell(conf);
+  }
+
+  @Override
+  public Object eval(String ownerKey, String expression, Binding binding) {
+    Class<? extends Script> scriptClass =
+        scriptClassMap
+            .computeIfAbsent(ownerKey, key -> new ConcurrentHashMap<>())
+            .computeIfAbsent(expression, this::compile);
+    return InvokerHelper.createScript(scriptClass, binding).run();
+  }
+
+  @SuppressWarnings("unchecked")
+  protected Class<? extends Script> compile(String expression) {
+    return (Class<? extends Script>) shell.getClassLoader().parseClass(expression);
+  }
+
+  @Override
+  public void invalidate(String ownerKey) {
+    scriptClassMap.remove(ownerKey);
+  }
+
+  @Override
+  public String getOwnerKey(Class<?> ownerClass, Long ownerId) {
+    return ownerClass.getSimpleName() + ":" + ownerId;
+  }
+}
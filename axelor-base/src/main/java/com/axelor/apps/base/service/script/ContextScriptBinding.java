@@ -0,0 +1,45 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2024 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.script;
+
+import com.axelor.script.ScriptBindings;
+import groovy.lang.Binding;
+import java.util.Map;
+
+/**
+ * Binding giving to a compiled script the same variables as a {@link
+ * com.axelor.script.GroovyScriptHelper} created on the given context. Unknown variables are
+ * evaluated to null.
+ */
+public class ContextScriptBinding extends Binding {
+
+  public ContextScriptBinding(Map<String, Object> context) {
+    super(new ScriptBindings(context));
+  }
+
+  @Override
+  public Object getVariable(String name) {
+    return getVariables().get(name);
+  }
+
+  @Override
+  public boolean hasVariable(String name) {
+    return getVariables().containsKey(name);
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2024 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.script;
+
+import com.axelor.db.EntityHelper;
+import com.axelor.db.Model;
+import com.axelor.db.mapper.Mapper;
+import com.axelor.db.mapper.Property;
+import com.axelor.script.ScriptBindings;
+import groovy.lang.Binding;
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Binding giving to a compiled script the same variables as a {@link
+ * com.axelor.script.GroovyScriptHelper} created on the context of a record, such as {@code
+ * __user__}, {@code __config__} or {@code __repo__}, but reading the fields of the record only when
+ * the script accesses them, instead of copying every field in a context map beforehand. Unknown
+ * variables are evaluated to null.
+ */
+public class ModelScriptBinding extends Binding {
+
+  protected final Model model;
+
+  public ModelScriptBinding(Model model) {
+    super(new ScriptBindings(new ModelValueMap(model)));
+    this.model = model;
+  }
+
+  @Override
+  public Object getVariable(String name) {
+    if (isSelf(name)) {
+      return model;
+    }
+    return getVariables().get(name);
+  }
+
+  @Override
+  public boolean hasVariable(String name) {
+    return isSelf(name) || getVariables().containsKey(name);
+  }
+
+  protected boolean isSelf(String name) {
+    return "__this__".equals(name) || "__self__".equals(name);
+  }
+
+  /** Values of the fields of a record, read on first access. */
+  protected static class ModelValueMap extends AbstractMap<String, Object> {
+
+    protected final Model model;
+    protected final Mapper mapper;
+    protected final Map<String, Object> valueMap = new HashMap<>();
+
+    protected ModelValueMap(Model model) {
+      this.model = model;
+      this.mapper = Mapper.of(EntityHelper.getEntityClass(model));
+    }
+
+    @Override
+    public Object get(Object key) {
+      if (valueMap.containsKey(key) || !(key instanceof String)) {
+        return valueMap.get(key);
+      }
+      Property property = mapper.getProperty((String) key);
+      if (property == null) {
+        return null;
+      }
+      Object value = property.get(model);
+      valueMap.put((String) key, value);
+      return value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return valueMap.containsKey(key)
+          || (key instanceof String && mapper.getProperty((String) key) != null);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+      return valueMap.put(key, value);
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+      for (Property property : mapper.getProperties()) {
+        get(property.getName());
+      }
+      return valueMap.entrySet();
+    }
+  }
+}
@@ -21,6 +21,7 @@ package com.axelor.apps.base.web;
 import com.axelor.apps.base.AxelorException;
 import com.axelor.apps.base.ResponseMessageType;
 import com.axelor.apps.base.db.Sequence;
+import com.axelor.apps.base.service.administration.SequenceNumberBlockService;
 import com.axelor.apps.base.service.administration.SequenceService;
 import com.axelor.apps.base.service.app.AppBaseService;
 import com.axelor.apps.base.service.exception.TraceBackService;
@@ -110,4 +111,14 @@ public class SequenceController {
       TraceBackService.trace(response, e, ResponseMessageType.ERROR);
     }
   }
+
+  public void showAllocationStatistics(ActionRequest request, ActionResponse response) {
+    try {
+      Sequence sequence = request.getContext().asType(Sequence.class);
+      response.setInfo(
+          Beans.get(SequenceNumberBlockService.class).getAllocationStatistics(sequence));
+    } catch (Exception e) {
+      TraceBackService.trace(response, e);
+    }
+  }
 }
@@ -0,0 +1,116 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2024 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service;
+
+import com.axelor.apps.base.db.repo.UnitConversionRepository;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class TestUnitConversionGraph {
+
+  private static final Long GRAM = 1L;
+  private static final Long KILOGRAM = 2L;
+  private static final Long TON = 3L;
+  private static final Long BOX = 4L;
+  private static final Long PALLET = 5L;
+  private static final Long LITER = 6L;
+
+  private static UnitConversionGraph graph;
+
+  @BeforeAll
+  static void prepare() {
+    graph =
+        new UnitConversionGraph(
+            Arrays.asList(
+                coefficient(1L, KILOGRAM, GRAM, "1000"),
+                coefficient(2L, TON, KILOGRAM, "1000"),
+                coefficient(3L, PALLET, BOX, "40"),
+                coefficient(4L, BOX, KILOGRAM, "0"),
+                new UnitConversionGraph.Conversion(
+                    5L,
+                    BOX,
+                    LITER,
+                    UnitConversionRepository.TYPE_FORMULA,
+                    BigDecimal.ZERO,
+                    "$Product.volume$")));
+  }
+
+  private static UnitConversionGraph.Conversion coefficient(
+      Long id, Long startUnitId, Long endUnitId, String coef) {
+    return new UnitConversionGraph.Conversion(
+        id,
+        startUnitId,
+        endUnitId,
+        UnitConversionRepository.TYPE_COEFF,
+        new BigDecimal(coef),
+        null);
+  }
+
+  @Test
+  void testGetConversionIsDirected() {
+    Assertions.assertEquals(1L, graph.getConversion(KILOGRAM, GRAM).getUnitConversionId());
+    Assertions.assertNull(graph.getConversion(GRAM, KILOGRAM));
+    Assertions.assertTrue(graph.getConversion(BOX, LITER).getFormula() != null);
+  }
+
+  @Test
+  void testFindPathCoefficientOnSameUnit() {
+    Assertions.assertEquals(BigDecimal.ONE, graph.findPathCoefficient(GRAM, GRAM, 6));
+  }
+
+  @Test
+  void testFindPathCoefficientChained() {
+    Assertions.assertEquals(
+        0, new BigDecimal("1000000").compareTo(graph.findPathCoefficient(TON, GRAM, 6)));
+  }
+
+  @Test
+  void testFindPathCoefficientInverted() {
+    Assertions.assertEquals(
+        0, new BigDecimal("0.000001").compareTo(graph.findPathCoefficient(GRAM, TON, 6)));
+    Assertions.assertEquals(
+        0, new BigDecimal("0.025000").compareTo(graph.findPathCoefficient(BOX, PALLET, 6)));
+  }
+
+  @Test
+  void testFindPathCoefficientUsesShortestPath() {
+    UnitConversionGraph shortcutGraph =
+        new UnitConversionGraph(
+            Arrays.asList(
+                coefficient(1L, KILOGRAM, GRAM, "1000"),
+                coefficient(2L, TON, KILOGRAM, "1000"),
+                coefficient(3L, TON, GRAM, "999999")));
+    Assertions.assertEquals(
+        0, new BigDecimal("999999").compareTo(shortcutGraph.findPathCoefficient(TON, GRAM, 6)));
+  }
+
+  @Test
+  void testFindPathCoefficientIgnoresZeroAndFormulaConversions() {
+    Assertions.assertNull(graph.findPathCoefficient(PALLET, GRAM, 6));
+    Assertions.assertNull(graph.findPathCoefficient(BOX, LITER, 6));
+  }
+
+  @Test
+  void testFindPathCoefficientOnUnknownUnit() {
+    Assertions.assertNull(graph.findPathCoefficient(GRAM, 99L, 6));
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2024 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.administration;
+
+import java.time.LocalDate;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TestSequenceNumberBlock {
+
+  private SequenceNumberBlock block;
+
+  @BeforeEach
+  void prepare() {
+    block =
+        new SequenceNumberBlock(1L, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31), 1L);
+    block.addReservedRange(10, 15);
+  }
+
+  @Test
+  void testCovers() {
+    Assertions.assertTrue(block.covers(LocalDate.of(2024, 1, 1)));
+    Assertions.assertTrue(block.covers(LocalDate.of(2024, 12, 31)));
+    Assertions.assertFalse(block.covers(LocalDate.of(2025, 1, 1)));
+  }
+
+  @Test
+  void testTakeInOrderWithStep() {
+    SequenceNumberBlock stepBlock = new SequenceNumberBlock(1L, LocalDate.of(2024, 1, 1), null, 2L);
+    stepBlock.addReservedRange(1, 7);
+    Assertions.assertEquals(1L, stepBlock.take());
+    Assertions.assertEquals(3L, stepBlock.take());
+    Assertions.assertEquals(5L, stepBlock.take());
+    Assertions.assertNull(stepBlock.take());
+    Assertions.assertFalse(stepBlock.hasFreeNum());
+  }
+
+  @Test
+  void testAdjacentReservedRangesMerged() {
+    Assertions.assertEquals(10L, block.take());
+    Assertions.assertEquals(11L, block.take());
+    block.addReservedRange(15, 20);
+
+    Assertions.assertEquals(12L, block.getUnusedTailStart());
+    for (long num = 12; num < 20; num++) {
+      Assertions.assertEquals(num, block.take());
+    }
+    Assertions.assertNull(block.take());
+    Assertions.assertFalse(block.hasFreeNum());
+  }
+
+  @Test
+  void testUnusedTailStart() {
+    block.take();
+    block.take();
+    Assertions.assertEquals(12L, block.getUnusedTailStart());
+    Assertions.assertEquals(15L, block.getReservedUpTo());
+  }
+
+  @Test
+  void testNoUnusedTailAfterNonContiguousReservation() {
+    block.addReservedRange(30, 35);
+    Assertions.assertEquals(30L, block.getUnusedTailStart());
+
+    for (long num = 10; num < 15; num++) {
+      block.take();
+    }
+    for (long num = 30; num < 35; num++) {
+      block.take();
+    }
+    Assertions.assertNull(block.getUnusedTailStart());
+  }
+}
@@ -22,10 +22,16 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
 
 import com.axelor.apps.base.AxelorException;
+import com.axelor.apps.base.db.Company;
+import com.axelor.apps.base.db.Sequence;
 import com.axelor.apps.base.db.SequenceLettersTypeSelect;
+import com.axelor.apps.base.db.SequenceTypeSelect;
 import com.axelor.apps.base.db.repo.SequenceRepository;
 import com.axelor.apps.base.db.repo.SequenceVersionRepository;
 import com.axelor.apps.base.service.app.AppBaseService;
+import com.axelor.apps.base.service.script.CompiledScriptService;
+import com.axelor.apps.base.service.script.CompiledScriptServiceImpl;
+import java.time.LocalDate;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -35,6 +41,7 @@ import org.junit.jupiter.params.provider.CsvSource;
 class TestSequenceService {
 
   private static SequenceService sequenceService;
+  private static SequenceService scriptSequenceService;
 
   @BeforeAll
   static void prepare() {
@@ -44,13 +51,26 @@ class TestSequenceService {
     SequenceRepository sequenceRepo = mock(SequenceRepository.class);
     SequenceVersionGeneratorService sequenceVersionGeneratorService =
         mock(SequenceVersionGeneratorService.class);
+    SequenceNumberBlockService sequenceNumberBlockService = mock(SequenceNumberBlockService.class);
+    CompiledScriptService compiledScriptService = mock(CompiledScriptService.class);
 
     sequenceService =
         new SequenceService(
             sequenceVersionRepository,
             appBaseService,
             sequenceRepo,
-            sequenceVersionGeneratorService);
+            sequenceVersionGeneratorService,
+            sequenceNumberBlockService,
+            compiledScriptService);
+
+    scriptSequenceService =
+        new SequenceService(
+            sequenceVersionRepository,
+            appBaseService,
+            sequenceRepo,
+            sequenceVersionGeneratorService,
+            sequenceNumberBlockService,
+            new CompiledScriptServiceImpl());
   }
 
   @Test
@@ -92,4 +112,31 @@ class TestSequenceService {
     String actual = sequenceService.findNextAlphanumericSequence(nextNum, pattern);
     Assertions.assertEquals(expected, actual);
   }
+
+  @Test
+  void computeSequenceNumber_with_groovy_prefix_and_suffix() throws AxelorException {
+    Sequence sequence = new Sequence();
+    sequence.setId(1L);
+    sequence.setSequenceTypeSelect(SequenceTypeSelect.NUMBERS);
+    sequence.setPadding(4);
+    sequence.setPrefixGroovyOk(true);
+    sequence.setPrefixGroovy("code + '-' + LocalDate.of(2024, 1, 1).getYear() + '-'");
+    sequence.setSuffixGroovyOk(true);
+    sequence.setSuffixGroovy("__this__.name.substring(0, 1) + (unknownVariable ?: '')");
+
+    Company company = new Company();
+    company.setCode("ABC");
+    company.setName("Axelor");
+
+    Assertions.assertEquals(
+        "ABC-2024-0012A",
+        scriptSequenceService.computeSequenceNumber(
+            12L, sequence, LocalDate.of(2024, 5, 1), company));
+
+    company.setCode("DEF");
+    Assertions.assertEquals(
+        "DEF-2024-0013A",
+        scriptSequenceService.computeSequenceNumber(
+            13L, sequence, LocalDate.of(2024, 5, 1), company));
+  }
 }
@@ -0,0 +1,130 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2024 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.currency;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class TestCurrencyRateTable {
+
+  private static CurrencyRateTable rateTable;
+
+  @BeforeAll
+  static void prepare() {
+    rateTable =
+        new CurrencyRateTable(
+            Arrays.asList(
+                new CurrencyRateTable.Rate(
+                    3L, LocalDate.of(2024, 3, 1), null, new BigDecimal("1.100000")),
+                new CurrencyRateTable.Rate(
+                    1L,
+                    LocalDate.of(2024, 1, 1),
+                    LocalDate.of(2024, 1, 31),
+                    new BigDecimal("1.080000")),
+                new CurrencyRateTable.Rate(
+                    2L,
+                    LocalDate.of(2024, 2, 1),
+                    LocalDate.of(2024, 2, 15),
+                    new BigDecimal("1.090000"))));
+  }
+
+  @Test
+  void testFindBeforeFirstRate() {
+    Assertions.assertNull(rateTable.find(LocalDate.of(2023, 12, 31)));
+  }
+
+  @Test
+  void testFindOnPeriodBounds() {
+    Assertions.assertEquals(
+        1L, rateTable.find(LocalDate.of(2024, 1, 1)).getCurrencyConversionLineId());
+    Assertions.assertEquals(
+        1L, rateTable.find(LocalDate.of(2024, 1, 31)).getCurrencyConversionLineId());
+    Assertions.assertEquals(
+        2L, rateTable.find(LocalDate.of(2024, 2, 15)).getCurrencyConversionLineId());
+  }
+
+  @Test
+  void testFindBetweenPeriods() {
+    Assertions.assertNull(rateTable.find(LocalDate.of(2024, 2, 20)));
+  }
+
+  @Test
+  void testFindInOpenPeriod() {
+    Assertions.assertEquals(
+        new BigDecimal("1.100000"), rateTable.find(LocalDate.of(2030, 6, 1)).getExchangeRate());
+  }
+
+  @Test
+  void testFindInEmptyTable() {
+    Assertions.assertNull(
+        new CurrencyRateTable(Collections.emptyList()).find(LocalDate.of(2024, 1, 1)));
+  }
+
+  @Test
+  void testFindInOverlappingOpenPeriod() {
+    CurrencyRateTable overlappingTable =
+        new CurrencyRateTable(
+            Arrays.asList(
+                new CurrencyRateTable.Rate(
+                    1L, LocalDate.of(2024, 1, 1), null, new BigDecimal("1.080000")),
+                new CurrencyRateTable.Rate(
+                    2L,
+                    LocalDate.of(2024, 2, 1),
+                    LocalDate.of(2024, 2, 15),
+                    new BigDecimal("1.090000"))));
+
+    Assertions.assertEquals(
+        2L, overlappingTable.find(LocalDate.of(2024, 2, 10)).getCurrencyConversionLineId());
+    Assertions.assertEquals(
+        1L, overlappingTable.find(LocalDate.of(2024, 2, 20)).getCurrencyConversionLineId());
+  }
+
+  @Test
+  void testFindInOverlappingClosedPeriods() {
+    CurrencyRateTable overlappingTable =
+        new CurrencyRateTable(
+            Arrays.asList(
+                new CurrencyRateTable.Rate(
+                    1L,
+                    LocalDate.of(2024, 1, 1),
+                    LocalDate.of(2024, 6, 30),
+                    new BigDecimal("1.080000")),
+                new CurrencyRateTable.Rate(
+                    2L,
+                    LocalDate.of(2024, 2, 1),
+                    LocalDate.of(2024, 2, 15),
+                    new BigDecimal("1.090000")),
+                new CurrencyRateTable.Rate(
+                    3L,
+                    LocalDate.of(2024, 3, 1),
+                    LocalDate.of(2024, 3, 15),
+                    new BigDecimal("1.100000"))));
+
+    Assertions.assertEquals(
+        1L, overlappingTable.find(LocalDate.of(2024, 3, 20)).getCurrencyConversionLineId());
+    Assertions.assertEquals(
+        3L, overlappingTable.find(LocalDate.of(2024, 3, 10)).getCurrencyConversionLineId());
+    Assertions.assertNull(overlappingTable.find(LocalDate.of(2024, 7, 1)));
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2024 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.pricing;
+
+import com.axelor.apps.base.db.repo.PricingRuleRepository;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class TestPricingLineIndex {
+
+  private static final int STRING = PricingRuleRepository.FIELD_TYPE_STRING;
+  private static final int INTEGER = PricingRuleRepository.FIELD_TYPE_INTEGER;
+  private static final int DECIMAL = PricingRuleRepository.FIELD_TYPE_DECIMAL;
+  private static final int EQUAL = PricingRuleRepository.OPERATOR_EQUAL;
+  private static final int LESS_THAN = PricingRuleRepository.OPERATOR_LESS_THAN;
+  private static final int GREATER_THAN = PricingRuleRepository.OPERATOR_GREATER_THAN;
+
+  private static PricingLineIndex index;
+
+  /** Index whose first rule is numeric, so that lines are found by binary search. */
+  private static PricingLineIndex sortedIndex;
+
+  @BeforeAll
+  static void prepare() {
+    index =
+        new PricingLineIndex(
+            1L,
+            0,
+            Arrays.asList(
+                entry(4L, "SME", 100),
+                entry(1L, "ADMIN", 10),
+                entry(2L, "SME", 10),
+                entry(3L, "SME", 50),
+                entry(5L, "INDIV", 50)));
+    sortedIndex =
+        new PricingLineIndex(
+            2L,
+            0,
+            Arrays.asList(
+                sortedEntry(4L, 100, "12.5", "SME"),
+                sortedEntry(1L, 10, "1.25", "ADMIN"),
+                sortedEntry(2L, 10, "1.25", "SME"),
+                sortedEntry(3L, 50, "5", "SME"),
+                sortedEntry(5L, 50, "5.00", "INDIV")));
+  }
+
+  private static PricingLineIndex.Entry entry(Long id, String strParam, int intParam) {
+    return new PricingLineIndex.Entry(
+        id,
+        new int[] {0, intParam, 0, 0},
+        new BigDecimal[] {BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO},
+        new String[] {strParam, null, null, null});
+  }
+
+  private static PricingLineIndex.Entry sortedEntry(
+      Long id, int intParam, String decParam, String strParam) {
+    return new PricingLineIndex.Entry(
+        id,
+        new int[] {intParam, 0, 0, 0},
+        new BigDecimal[] {
+          new BigDecimal(decParam), BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO
+        },
+        new String[] {null, strParam, null, null});
+  }
+
+  private static List<Long> matchSorted(
+      int fieldTypeSelect, int operatorSelect, Object ruleValue1, Object ruleValue2) {
+    return sortedIndex
+        .match(
+            new int[] {fieldTypeSelect, STRING, 0, 0},
+            new int[] {operatorSelect, EQUAL, 0, 0},
+            new Object[] {ruleValue1, ruleValue2, null, null})
+        .stream()
+        .map(PricingLineIndex.Entry::getPricingLineId)
+        .collect(Collectors.toList());
+  }
+
+  private static List<Long> match(int operatorSelect, Object ruleValue1, Object ruleValue2) {
+    return index
+        .match(
+            new int[] {STRING, INTEGER, 0, 0},
+            new int[] {EQUAL, operatorSelect, 0, 0},
+            new Object[] {ruleValue1, ruleValue2, null, null})
+        .stream()
+        .map(PricingLineIndex.Entry::getPricingLineId)
+        .collect(Collectors.toList());
+  }
+
+  @Test
+  void testMatchOnEqualString() {
+    Assertions.assertEquals(Arrays.asList(2L, 3L, 4L), match(EQUAL, "SME", null));
+    Assertions.assertTrue(match(EQUAL, "INV", null).isEmpty());
+  }
+
+  @Test
+  void testMatchOnGreaterThanSortsAscending() {
+    Assertions.assertEquals(Arrays.asList(3L, 4L), match(GREATER_THAN, "SME", 20));
+  }
+
+  @Test
+  void testMatchOnLessThanSortsDescending() {
+    Assertions.assertEquals(Arrays.asList(3L, 2L), match(LESS_THAN, "SME", 60));
+    Assertions.assertTrue(match(LESS_THAN, "SME", 10).isEmpty());
+  }
+
+  @Test
+  void testMatchWithoutValue() {
+    Assertions.assertTrue(match(EQUAL, null, null).isEmpty());
+  }
+
+  @Test
+  void testFindOnGreaterThanInteger() {
+    Assertions.assertEquals(
+        Arrays.asList(3L, 5L, 4L), matchSorted(INTEGER, GREATER_THAN, 20, null));
+    Assertions.assertEquals(
+        Arrays.asList(1L, 2L, 3L, 5L, 4L), matchSorted(INTEGER, GREATER_THAN, 0, null));
+    Assertions.assertTrue(matchSorted(INTEGER, GREATER_THAN, 100, null).isEmpty());
+  }
+
+  @Test
+  void testFindOnLessThanInteger() {
+    Assertions.assertEquals(
+        Arrays.asList(3L, 5L, 1L, 2L), matchSorted(INTEGER, LESS_THAN, 60, null));
+    Assertions.assertEquals(Arrays.asList(1L, 2L), matchSorted(INTEGER, LESS_THAN, 50, null));
+    Assertions.assertTrue(matchSorted(INTEGER, LESS_THAN, 10, null).isEmpty());
+  }
+
+  @Test
+  void testFindOnDecimal() {
+    Assertions.assertEquals(
+        Arrays.asList(3L, 5L, 4L),
+        matchSorted(DECIMAL, GREATER_THAN, new BigDecimal("1.250"), null));
+    Assertions.assertEquals(
+        Arrays.asList(1L, 2L), matchSorted(DECIMAL, LESS_THAN, new BigDecimal("5"), null));
+  }
+
+  @Test
+  void testFindThenFilterOnEqualString() {
+    Assertions.assertEquals(Arrays.asList(3L, 4L), matchSorted(INTEGER, GREATER_THAN, 20, "SME"));
+    Assertions.assertEquals(Arrays.asList(3L, 2L), matchSorted(INTEGER, LESS_THAN, 60, "SME"));
+  }
+}
@@ -23,6 +23,7 @@ import com.axelor.apps.account.db.repo.MoveLineRepository;
 import com.axelor.apps.account.db.repo.MoveRepository;
 import com.axelor.apps.account.service.AccountCustomerService;
 import com.axelor.apps.account.service.accountingsituation.AccountingSituationService;
+import com.axelor.apps.account.service.accountingsituation.PartnerAccountBalanceService;
 import com.axelor.apps.account.service.reconcile.UnreconcileService;
 import com.axelor.apps.bankpayment.db.repo.BankStatementLineAFB120Repository;
 import com.axelor.apps.bankpayment.service.move.MoveRemoveServiceBankPaymentImpl;
@@ -46,6 +47,7 @@ public class MoveRemoveBudgetService extends MoveRemoveServiceBankPaymentImpl {
       UnreconcileService unReconcileService,
       AccountingSituationService accountingSituationService,
       AccountCustomerService accountCustomerService,
+      PartnerAccountBalanceService partnerAccountBalanceService,
       BankStatementLineAFB120Repository bankStatementLineAFB120Repository,
       BudgetService budgetService,
       AppBudgetService appBudgetService) {
@@ -56,6 +58,7 @@ public class MoveRemoveBudgetService extends MoveRemoveServiceBankPaymentImpl {
         unReconcileService,
         accountingSituationService,
         accountCustomerService,
+        partnerAccountBalanceService,
         bankStatementLineAFB120Repository);
     this.budgetService = budgetService;
     this.appBudgetService = appBudgetService;
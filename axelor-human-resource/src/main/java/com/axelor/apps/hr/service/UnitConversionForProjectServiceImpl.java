@@ -20,15 +20,15 @@ package com.axelor.apps.hr.service;
 
 import com.axelor.apps.base.AxelorException;
 import com.axelor.apps.base.db.Unit;
-import com.axelor.apps.base.db.UnitConversion;
 import com.axelor.apps.base.db.repo.UnitConversionRepository;
+import com.axelor.apps.base.service.UnitConversionCacheService;
 import com.axelor.apps.base.service.UnitConversionServiceImpl;
 import com.axelor.apps.base.service.app.AppBaseService;
+import com.axelor.apps.base.service.script.CompiledScriptService;
 import com.axelor.apps.project.db.Project;
 import com.google.inject.Inject;
 import java.io.IOException;
 import java.math.BigDecimal;
-import java.util.List;
 import org.codehaus.groovy.control.CompilationFailedException;
 
 public class UnitConversionForProjectServiceImpl extends UnitConversionServiceImpl
@@ -36,8 +36,11 @@ public class UnitConversionForProjectServiceImpl extends UnitConversionServiceIm
 
   @Inject
   public UnitConversionForProjectServiceImpl(
-      AppBaseService appBaseService, UnitConversionRepository unitConversionRepo) {
-    super(appBaseService, unitConversionRepo);
+      AppBaseService appBaseService,
+      UnitConversionRepository unitConversionRepo,
+      UnitConversionCacheService unitConversionCacheService,
+      CompiledScriptService compiledScriptService) {
+    super(appBaseService, unitConversionRepo, unitConversionCacheService, compiledScriptService);
   }
 
   /**
@@ -55,8 +58,14 @@ public class UnitConversionForProjectServiceImpl extends UnitConversionServiceIm
   public BigDecimal convert(
       Unit startUnit, Unit endUnit, BigDecimal value, int scale, Project project)
       throws AxelorException {
-    List<UnitConversion> unitConversionList = fetchUnitConversionForProjectList();
-    return super.convert(unitConversionList, startUnit, endUnit, value, scale, project, "Project");
+    return super.convert(
+        UnitConversionRepository.ENTITY_PROJECT,
+        startUnit,
+        endUnit,
+        value,
+        scale,
+        project,
+        "Project");
   }
 
   /**
@@ -76,15 +85,7 @@ public class UnitConversionForProjectServiceImpl extends UnitConversionServiceIm
   @Override
   public BigDecimal getCoefficient(Unit startUnit, Unit endUnit, Project project)
       throws AxelorException, CompilationFailedException, ClassNotFoundException, IOException {
-    List<UnitConversion> unitConversionList = fetchUnitConversionForProjectList();
-    return super.getCoefficient(unitConversionList, startUnit, endUnit, project, "Project");
-  }
-
-  protected List<UnitConversion> fetchUnitConversionForProjectList() {
-    return unitConversionRepo
-        .all()
-        .filter("self.entitySelect = :entitySelect")
-        .bind("entitySelect", UnitConversionRepository.ENTITY_PROJECT)
-        .fetch();
+    return super.getCoefficient(
+        UnitConversionRepository.ENTITY_PROJECT, startUnit, endUnit, project, "Project");
   }
 }
@@ -0,0 +1,283 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2024 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.production.model.machine;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Booked time slots of a machine, indexed by start date in a balanced search tree whose nodes keep
+ * the minimum and maximum end dates of their subtree, so the searches of concurrent operation
+ * orders are logarithmic.
+ */
+public class MachineBookingIndex {
+
+  protected static class Node {
+    protected final Long operationOrderId;
+    protected final LocalDateTime startDateT;
+    protected final LocalDateTime endDateT;
+    protected final int priority;
+    protected Node left;
+    protected Node right;
+    protected LocalDateTime minEndDateT;
+    protected LocalDateTime maxEndDateT;
+
+    protected Node(
+        Long operationOrderId, LocalDateTime startDateT, LocalDateTime endDateT, int priority) {
+      this.operationOrderId = operationOrderId;
+      this.startDateT = startDateT;
+      this.endDateT = endDateT;
+      this.priority = priority;
+      this.minEndDateT = endDateT;
+      this.maxEndDateT = endDateT;
+    }
+
+    protected int compareTo(Node other) {
+      int result = startDateT.compareTo(other.startDateT);
+      return result != 0 ? result : operationOrderId.compareTo(other.operationOrderId);
+    }
+
+    protected Node update() {
+      minEndDateT = endDateT;
+      maxEndDateT = endDateT;
+      for (Node child : new Node[] {left, right}) {
+        if (child != null) {
+          minEndDateT = min(minEndDateT, child.minEndDateT);
+          maxEndDateT = max(maxEndDateT, child.maxEndDateT);
+        }
+      }
+      return this;
+    }
+  }
+
+  private final Map<Long, Node> nodeMap = new HashMap<>();
+  private final Random random = new Random(0);
+  private Node root;
+
+  /**
+   * Add or move the booked time slot of an operation order.
+   *
+   * @param operationOrderId
+   * @param startDateT
+   * @param endDateT
+   */
+  public void put(Long operationOrderId, LocalDateTime startDateT, LocalDateTime endDateT) {
+    remove(operationOrderId);
+    Node node = new Node(operationOrderId, startDateT, endDateT, random.nextInt());
+    nodeMap.put(operationOrderId, node);
+    root = insert(root, node);
+  }
+
+  public void remove(Long operationOrderId) {
+    Node node = nodeMap.remove(operationOrderId);
+    if (node != null) {
+      root = remove(root, node);
+    }
+  }
+
+  public boolean contains(Long operationOrderId) {
+    return nodeMap.containsKey(operationOrderId);
+  }
+
+  public int size() {
+    return nodeMap.size();
+  }
+
+  /**
+   * @param dateT
+   * @param excludedOperationOrderId operation order whose time slot is ignored, can be null
+   * @return the latest end date of the time slots starting at or before the given date, or null
+   */
+  public LocalDateTime getMaxEndDateTStartingUntil(
+      LocalDateTime dateT, Long excludedOperationOrderId) {
+    Node excluded = getNode(excludedOperationOrderId);
+    LocalDateTime maxEndDateT = null;
+    Node node = root;
+    while (node != null) {
+      if (node.startDateT.isAfter(dateT)) {
+        node = node.left;
+      } else {
+        if (node != excluded) {
+          maxEndDateT = max(maxEndDateT, node.endDateT);
+        }
+        maxEndDateT = max(maxEndDateT, getMaxEndDateT(node.left, excluded));
+        node = node.right;
+      }
+    }
+    return maxEndDateT;
+  }
+
+  /**
+   * @param dateT
+   * @param excludedOperationOrderId operation order whose time slot is ignored, can be null
+   * @return the earliest start date of the time slots ending after the given date, or null
+   */
+  public LocalDateTime getMinStartDateTEndingAfter(
+      LocalDateTime dateT, Long excludedOperationOrderId) {
+    Node node = getFirstEndingAfter(root, dateT, getNode(excludedOperationOrderId));
+    return node != null ? node.startDateT : null;
+  }
+
+  /**
+   * @param startDateT
+   * @param endDateT
+   * @param excludedOperationOrderId operation order whose time slot is ignored, can be null
+   * @return the earliest start date of the time slots starting at or after the given start date
+   *     and ending at or before the given end date, or null
+   */
+  public LocalDateTime getMinStartDateTWithin(
+      LocalDateTime startDateT, LocalDateTime endDateT, Long excludedOperationOrderId) {
+    Node node = getFirstWithin(root, startDateT, endDateT, getNode(excludedOperationOrderId));
+    return node != null ? node.startDateT : null;
+  }
+
+  protected Node getNode(Long operationOrderId) {
+    return operationOrderId != null ? nodeMap.get(operationOrderId) : null;
+  }
+
+  /** Get the latest end date of a subtree, ignoring the excluded node. */
+  protected LocalDateTime getMaxEndDateT(Node node, Node excluded) {
+    LocalDateTime maxEndDateT = null;
+    while (node != null) {
+      if (excluded == null) {
+        return max(maxEndDateT, node.maxEndDateT);
+      }
+      if (node == excluded) {
+        maxEndDateT = max(maxEndDateT, getMaxEndDateT(node.left, null));
+        return max(maxEndDateT, getMaxEndDateT(node.right, null));
+      }
+      maxEndDateT = max(maxEndDateT, node.endDateT);
+      if (excluded.compareTo(node) < 0) {
+        maxEndDateT = max(maxEndDateT, getMaxEndDateT(node.right, null));
+        node = node.left;
+      } else {
+        maxEndDateT = max(maxEndDateT, getMaxEndDateT(node.left, null));
+        node = node.right;
+      }
+    }
+    return maxEndDateT;
+  }
+
+  protected Node getFirstEndingAfter(Node node, LocalDateTime dateT, Node excluded) {
+    if (node == null || !node.maxEndDateT.isAfter(dateT)) {
+      return null;
+    }
+    Node first = getFirstEndingAfter(node.left, dateT, excluded);
+    if (first != null) {
+      return first;
+    }
+    if (node != excluded && node.endDateT.isAfter(dateT)) {
+      return node;
+    }
+    return getFirstEndingAfter(node.right, dateT, excluded);
+  }
+
+  protected Node getFirstWithin(
+      Node node, LocalDateTime startDateT, LocalDateTime endDateT, Node excluded) {
+    if (node == null || node.minEndDateT.isAfter(endDateT)) {
+      return null;
+    }
+    if (node.startDateT.isBefore(startDateT)) {
+      return getFirstWithin(node.right, startDateT, endDateT, excluded);
+    }
+    Node first = getFirstWithin(node.left, startDateT, endDateT, excluded);
+    if (first != null) {
+      return first;
+    }
+    if (node != excluded && !node.endDateT.isAfter(endDateT)) {
+      return node;
+    }
+    return getFirstWithin(node.right, startDateT, endDateT, excluded);
+  }
+
+  protected Node insert(Node node, Node newNode) {
+    if (node == null) {
+      return newNode;
+    }
+    if (newNode.priority > node.priority) {
+      Node[] parts = split(node, newNode);
+      newNode.left = parts[0];
+      newNode.right = parts[1];
+      return newNode.update();
+    }
+    if (newNode.compareTo(node) < 0) {
+      node.left = insert(node.left, newNode);
+    } else {
+      node.right = insert(node.right, newNode);
+    }
+    return node.update();
+  }
+
+  /** Split a subtree in the nodes lower than the given key and the nodes greater than it. */
+  protected Node[] split(Node node, Node key) {
+    if (node == null) {
+      return new Node[2];
+    }
+    if (node.compareTo(key) < 0) {
+      Node[] parts = split(node.right, key);
+      node.right = parts[0];
+      parts[0] = node.update();
+      return parts;
+    }
+    Node[] parts = split(node.left, key);
+    node.left = parts[1];
+    parts[1] = node.update();
+    return parts;
+  }
+
+  protected Node remove(Node node, Node oldNode) {
+    if (node == null) {
+      return null;
+    }
+    if (node == oldNode) {
+      return merge(node.left, node.right);
+    }
+    if (oldNode.compareTo(node) < 0) {
+      node.left = remove(node.left, oldNode);
+    } else {
+      node.right = remove(node.right, oldNode);
+    }
+    return node.update();
+  }
+
+  protected Node merge(Node left, Node right) {
+    if (left == null) {
+      return right;
+    }
+    if (right == null) {
+      return left;
+    }
+    if (left.priority > right.priority) {
+      left.right = merge(left.right, right);
+      return left.update();
+    }
+    right.left = merge(left, right.left);
+    return right.update();
+  }
+
+  protected static LocalDateTime min(LocalDateTime dateT1, LocalDateTime dateT2) {
+    return dateT1 == null || (dateT2 != null && dateT2.isBefore(dateT1)) ? dateT2 : dateT1;
+  }
+
+  protected static LocalDateTime max(LocalDateTime dateT1, LocalDateTime dateT2) {
+    return dateT1 == null || (dateT2 != null && dateT2.isAfter(dateT1)) ? dateT2 : dateT1;
+  }
+}
@@ -0,0 +1,44 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2024 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.production.model.machine;
+
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.Set;
+
+/** Public holidays and booked time slots of a machine, loaded once for a planning run. */
+public class MachineCapacityCalendar {
+
+  private final Set<LocalDate> publicHolidaySet;
+  private final MachineBookingIndex bookingIndex;
+
+  public MachineCapacityCalendar(
+      Set<LocalDate> publicHolidaySet, MachineBookingIndex bookingIndex) {
+    this.publicHolidaySet = Objects.requireNonNull(publicHolidaySet);
+    this.bookingIndex = Objects.requireNonNull(bookingIndex);
+  }
+
+  public boolean isPublicHoliday(LocalDate date) {
+    return publicHolidaySet.contains(date);
+  }
+
+  public MachineBookingIndex getBookingIndex() {
+    return bookingIndex;
+  }
+}
@@ -68,16 +68,21 @@ import com.axelor.db.JPA;
 import com.axelor.i18n.I18n;
 import com.axelor.message.service.MailMessageService;
 import com.axelor.utils.helpers.StringHelper;
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
 import java.lang.invoke.MethodHandles;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.apache.commons.collections.CollectionUtils;
@@ -164,8 +169,11 @@ public class MrpServiceProductionImpl extends MrpServiceImpl {
     super.completeMrp(mrp);
 
     if (appProductionService.isApp("production")) {
+      long startTime = System.currentTimeMillis();
       this.createManufOrderMrpLines();
+      startTime = this.logPhase("manufacturing orders", startTime);
       this.createMPSLines();
+      this.logPhase("master production scheduling", startTime);
     }
   }
 
@@ -204,26 +212,47 @@ public class MrpServiceProductionImpl extends MrpServiceImpl {
       statusList.add(ManufOrderRepository.STATUS_FINISHED);
     }
 
-    List<ManufOrder> manufOrderList =
-        manufOrderRepository
-            .all()
-            .filter(
-                "self.product.id in (?1) AND (self.prodProcess.stockLocation in (?2) OR "
-                    + "self.prodProcess.producedProductStockLocation in (?2)) "
-                    + "AND self.statusSelect IN (?3)",
-                productMap.keySet(),
-                this.stockLocationList,
-                statusList)
-            .fetch();
+    List<Long> manufOrderIdList =
+        this.getIdList(
+            manufOrderRepository
+                .all()
+                .filter(
+                    "self.product.id in (?1) AND (self.prodProcess.stockLocation in (?2) OR "
+                        + "self.prodProcess.producedProductStockLocation in (?2)) "
+                        + "AND self.statusSelect IN (?3)",
+                    productMap.keySet(),
+                    this.stockLocationList,
+                    statusList));
+
+    for (List<Long> idList : Lists.partition(manufOrderIdList, BATCH_SIZE)) {
+      this.createManufOrderMrpLines(
+          idList,
+          manufOrderMrpLineType.getId(),
+          manufOrderNeedMrpLineType != null ? manufOrderNeedMrpLineType.getId() : null);
+      JPA.clear();
+    }
+  }
 
-    for (ManufOrder manufOrder : manufOrderList) {
+  @Transactional(rollbackOn = {Exception.class})
+  protected void createManufOrderMrpLines(
+      List<Long> manufOrderIdList, Long manufOrderMrpLineTypeId, Long manufOrderNeedMrpLineTypeId)
+      throws AxelorException {
+
+    Mrp mrp = mrpRepository.find(this.mrp.getId());
+    MrpLineType manufOrderMrpLineType = mrpLineTypeRepository.find(manufOrderMrpLineTypeId);
+    MrpLineType manufOrderNeedMrpLineType =
+        manufOrderNeedMrpLineTypeId != null
+            ? mrpLineTypeRepository.find(manufOrderNeedMrpLineTypeId)
+            : null;
 
+    for (ManufOrder manufOrder :
+        manufOrderRepository
+            .all()
+            .filter("self.id in (?1)", manufOrderIdList)
+            .order("id")
+            .fetch()) {
       this.createManufOrderMrpLines(
-          mrpRepository.find(mrp.getId()),
-          manufOrderRepository.find(manufOrder.getId()),
-          mrpLineTypeRepository.find(manufOrderMrpLineType.getId()),
-          mrpLineTypeRepository.find(manufOrderNeedMrpLineType.getId()));
-      JPA.clear();
+          mrp, manufOrder, manufOrderMrpLineType, manufOrderNeedMrpLineType);
     }
   }
 
@@ -405,32 +434,41 @@ public class MrpServiceProductionImpl extends MrpServiceImpl {
       return;
     }
 
-    List<MrpLine> mpsMrpLineList =
-        mrpLineRepository
-            .all()
-            .filter(
-                "self.product.id in (?1) AND self.stockLocation in (?2) AND self.mrp.mrpTypeSelect = ?3 "
-                    + "AND self.mrp.statusSelect = ?4 AND self.mrpLineType.elementSelect = ?5 AND self.maturityDate >= ?6 AND (?7 is true OR self.maturityDate <= ?8) AND self.mrp.validateScenario is true",
-                productMap.keySet(),
-                this.stockLocationList,
-                MrpRepository.MRP_TYPE_MPS,
-                MrpRepository.STATUS_CALCULATION_ENDED,
-                MrpLineTypeRepository.ELEMENT_MASTER_PRODUCTION_SCHEDULING,
-                today.atStartOfDay(),
-                mrp.getEndDate() == null,
-                mrp.getEndDate())
-            .fetch();
-
-    for (MrpLine mpsMrpLine : mpsMrpLineList) {
-
-      this.createMpsMrpLines(
-          mrpRepository.find(mrp.getId()),
-          mrpLineRepository.find(mpsMrpLine.getId()),
-          mrpLineTypeRepository.find(mpsNeedMrpLineType.getId()));
+    List<Long> mpsMrpLineIdList =
+        this.getIdList(
+            mrpLineRepository
+                .all()
+                .filter(
+                    "self.product.id in (?1) AND self.stockLocation in (?2) AND self.mrp.mrpTypeSelect = ?3 "
+                        + "AND self.mrp.statusSelect = ?4 AND self.mrpLineType.elementSelect = ?5 AND self.maturityDate >= ?6 AND (?7 is true OR self.maturityDate <= ?8) AND self.mrp.validateScenario is true",
+                    productMap.keySet(),
+                    this.stockLocationList,
+                    MrpRepository.MRP_TYPE_MPS,
+                    MrpRepository.STATUS_CALCULATION_ENDED,
+                    MrpLineTypeRepository.ELEMENT_MASTER_PRODUCTION_SCHEDULING,
+                    today.atStartOfDay(),
+                    mrp.getEndDate() == null,
+                    mrp.getEndDate()));
+
+    for (List<Long> idList : Lists.partition(mpsMrpLineIdList, BATCH_SIZE)) {
+      this.createMpsMrpLines(idList, mpsNeedMrpLineType.getId());
       JPA.clear();
     }
   }
 
+  @Transactional(rollbackOn = {Exception.class})
+  protected void createMpsMrpLines(List<Long> mpsMrpLineIdList, Long mpsMrpLineTypeId)
+      throws AxelorException {
+
+    Mrp mrp = mrpRepository.find(this.mrp.getId());
+    MrpLineType mpsMrpLineType = mrpLineTypeRepository.find(mpsMrpLineTypeId);
+
+    for (MrpLine mpsMrpLine :
+        mrpLineRepository.all().filter("self.id in (?1)", mpsMrpLineIdList).order("id").fetch()) {
+      this.createMpsMrpLines(mrp, mpsMrpLine, mpsMrpLineType);
+    }
+  }
+
   @Transactional(rollbackOn = {Exception.class})
   protected void createMpsMrpLines(Mrp mrp, MrpLine mpsMrpLine, MrpLineType mpsMrpLineType)
       throws AxelorException {
@@ -702,6 +740,142 @@ public class MrpServiceProductionImpl extends MrpServiceImpl {
     return false;
   }
 
+  /**
+   * The manufacturing proposals of a product also create lines for the components of its bills of
+   * material, so these components are added to the products of the proposals.
+   */
+  @Override
+  protected Map<Long, Set<Long>> getProposalProductIdMap(List<Long> productIdList) {
+
+    Map<Long, Set<Long>> proposalProductIdMap = super.getProposalProductIdMap(productIdList);
+
+    if (!appProductionService.isApp("production") || productIdList.isEmpty()) {
+      return proposalProductIdMap;
+    }
+
+    List<Object[]> componentList = new ArrayList<>();
+    componentList.addAll(
+        JPA.em()
+            .createQuery(
+                "SELECT self.billOfMaterialParent.product.id, self.product.id "
+                    + "FROM BillOfMaterialLine self "
+                    + "WHERE self.billOfMaterialParent.product.id IN (:productIdList)",
+                Object[].class)
+            .setParameter("productIdList", productIdList)
+            .getResultList());
+    componentList.addAll(
+        JPA.em()
+            .createQuery(
+                "SELECT billOfMaterial.product.id, prodProduct.product.id "
+                    + "FROM BillOfMaterial billOfMaterial "
+                    + "JOIN billOfMaterial.prodProcess prodProcess "
+                    + "JOIN prodProcess.prodProcessLineList prodProcessLine "
+                    + "JOIN prodProcessLine.toConsumeProdProductList prodProduct "
+                    + "WHERE billOfMaterial.product.id IN (:productIdList)",
+                Object[].class)
+            .setParameter("productIdList", productIdList)
+            .getResultList());
+
+    for (Object[] component : componentList) {
+      if (component[1] != null) {
+        proposalProductIdMap
+            .computeIfAbsent((Long) component[0], id -> new HashSet<>())
+            .add((Long) component[1]);
+      }
+    }
+    return proposalProductIdMap;
+  }
+
+  @Override
+  protected List<Long> getChangedProductIdList(Mrp mrp, LocalDateTime since) {
+
+    List<Long> productIdList = super.getChangedProductIdList(mrp, since);
+
+    if (!appProductionService.isApp("production")) {
+      return productIdList;
+    }
+
+    productIdList.addAll(
+        this.getChangedProductIdList(
+            "SELECT self.product.id FROM ManufOrder self "
+                + "WHERE self.createdOn >= :since OR self.updatedOn >= :since",
+            since));
+    productIdList.addAll(
+        this.getChangedProductIdList(
+            "SELECT self.product.id FROM BillOfMaterial self "
+                + "WHERE self.createdOn >= :since OR self.updatedOn >= :since",
+            since));
+    productIdList.addAll(
+        this.getChangedProductIdList(
+            "SELECT self.product.id FROM MrpLine self "
+                + "WHERE self.mrp.mrpTypeSelect = "
+                + MrpRepository.MRP_TYPE_MPS
+                + " AND (self.createdOn >= :since OR self.updatedOn >= :since "
+                + "OR self.mrp.endDateTime >= :since)",
+            since));
+
+    productIdList.addAll(this.getRemovedOriginProductIdList(mrp, ManufOrder.class));
+    productIdList.addAll(this.getRemovedOriginProductIdList(mrp, OperationOrder.class));
+    return productIdList;
+  }
+
+  /**
+   * The lines of a product depend on the lines of the products of its bills of material and of its
+   * manufacturing orders, in both directions: the proposals of a product create needs for its
+   * components, and the lines of a component contain the needs of all its parents.
+   */
+  @Override
+  protected Set<Long> getLinkedProductIdSet(Set<Long> productIdSet) {
+
+    Set<Long> linkedProductIdSet = super.getLinkedProductIdSet(productIdSet);
+
+    if (!appProductionService.isApp("production")) {
+      return linkedProductIdSet;
+    }
+
+    for (List<Long> productIdList : Lists.partition(new ArrayList<>(productIdSet), BATCH_SIZE)) {
+      List<Object[]> linkList = new ArrayList<>();
+      linkList.addAll(
+          this.getLinkedProductIdList(
+              "SELECT self.billOfMaterialParent.product.id, self.product.id "
+                  + "FROM BillOfMaterialLine self "
+                  + "WHERE self.billOfMaterialParent.product.id IN (:productIdList) "
+                  + "OR self.product.id IN (:productIdList)",
+              productIdList));
+      linkList.addAll(
+          this.getLinkedProductIdList(
+              "SELECT billOfMaterial.product.id, prodProduct.product.id "
+                  + "FROM BillOfMaterial billOfMaterial "
+                  + "JOIN billOfMaterial.prodProcess prodProcess "
+                  + "JOIN prodProcess.prodProcessLineList prodProcessLine "
+                  + "JOIN prodProcessLine.toConsumeProdProductList prodProduct "
+                  + "WHERE billOfMaterial.product.id IN (:productIdList) "
+                  + "OR prodProduct.product.id IN (:productIdList)",
+              productIdList));
+      linkList.addAll(
+          this.getLinkedProductIdList(
+              "SELECT manufOrder.product.id, prodProduct.product.id "
+                  + "FROM ManufOrder manufOrder "
+                  + "JOIN manufOrder.toConsumeProdProductList prodProduct "
+                  + "WHERE manufOrder.product.id IN (:productIdList) "
+                  + "OR prodProduct.product.id IN (:productIdList)",
+              productIdList));
+
+      for (Object[] link : linkList) {
+        linkedProductIdSet.add((Long) link[0]);
+        linkedProductIdSet.add((Long) link[1]);
+      }
+    }
+    return linkedProductIdSet;
+  }
+
+  protected List<Object[]> getLinkedProductIdList(String queryString, List<Long> productIdList) {
+    return JPA.em()
+        .createQuery(queryString, Object[].class)
+        .setParameter("productIdList", productIdList)
+        .getResultList();
+  }
+
   @Override
   protected void assignProductAndLevel(Product product) throws AxelorException {
 
@@ -97,4 +97,25 @@ public interface MachineService {
       LocalDateTime endDateT,
       OperationOrder operationOrder)
       throws AxelorException;
+
+  /**
+   * Open a capacity calendar on the current thread: until it is closed, the public holidays and
+   * the booked time slots of each machine are loaded once and the available time slots are searched
+   * in memory. The operation orders planned meanwhile must be given to {@link
+   * #updateCapacityCalendar(OperationOrder)}.
+   *
+   * @return true if the calendar has been opened, false if it was already open
+   */
+  boolean openCapacityCalendar();
+
+  /** Close the capacity calendar of the current thread. */
+  void closeCapacityCalendar();
+
+  /**
+   * Update the booked time slot of an operation order in the capacity calendar of the current
+   * thread, if any.
+   *
+   * @param operationOrder
+   */
+  void updateCapacityCalendar(OperationOrder operationOrder);
 }
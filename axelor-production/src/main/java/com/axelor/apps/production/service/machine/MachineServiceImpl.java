@@ -21,28 +21,43 @@ package com.axelor.apps.production.service.machine;
 import com.axelor.apps.base.AxelorException;
 import com.axelor.apps.base.db.DayPlanning;
 import com.axelor.apps.base.db.EventsPlanning;
+import com.axelor.apps.base.db.EventsPlanningLine;
 import com.axelor.apps.base.db.repo.TraceBackRepository;
 import com.axelor.apps.base.service.dayplanning.DayPlanningService;
 import com.axelor.apps.base.service.weeklyplanning.WeeklyPlanningService;
 import com.axelor.apps.production.db.Machine;
+import com.axelor.apps.production.db.ManufOrder;
 import com.axelor.apps.production.db.OperationOrder;
 import com.axelor.apps.production.db.WorkCenter;
 import com.axelor.apps.production.db.repo.ManufOrderRepository;
 import com.axelor.apps.production.db.repo.OperationOrderRepository;
 import com.axelor.apps.production.exceptions.ProductionExceptionMessage;
+import com.axelor.apps.production.model.machine.MachineBookingIndex;
+import com.axelor.apps.production.model.machine.MachineCapacityCalendar;
 import com.axelor.apps.production.model.machine.MachineTimeSlot;
+import com.axelor.db.JPA;
 import com.axelor.i18n.I18n;
 import com.axelor.utils.helpers.date.DurationHelper;
 import com.google.inject.Inject;
 import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 public class MachineServiceImpl implements MachineService {
 
   public static final int MAX_LOOP_CALL = 1000;
+
+  /** Capacity calendars of the machines by machine id, for the planning run of each thread. */
+  protected static final ThreadLocal<Map<Long, MachineCapacityCalendar>> capacityCalendarMap =
+      new ThreadLocal<>();
+
   protected OperationOrderRepository operationOrderRepository;
   protected WeeklyPlanningService weeklyPlanningService;
   protected DayPlanningService dayPlanningService;
@@ -101,18 +116,13 @@ public class MachineServiceImpl implements MachineService {
       boolean ignoreConcurrency)
       throws AxelorException {
 
-    EventsPlanning planning = machine.getPublicHolidayEventsPlanning();
-
     // If startDate is not available because of planning
     // Then we try for the next day
     LocalDateTime nextDayDateT = startDateT.plusDays(1).with(LocalTime.MIN);
     LocalDateTime plannedStartDateT = null;
     LocalDateTime plannedEndDateT = null;
 
-    if (planning != null
-        && planning.getEventsPlanningLineList() != null
-        && planning.getEventsPlanningLineList().stream()
-            .anyMatch(epl -> epl.getDate().equals(startDateT.toLocalDate()))) {
+    if (isPublicHoliday(machine, startDateT.toLocalDate())) {
 
       return getClosestAvailableTimeSlotFrom(
           machine,
@@ -201,6 +211,27 @@ public class MachineServiceImpl implements MachineService {
         Optional.ofNullable(operationOrder.getWorkCenter())
             .map(WorkCenter::getTimeBeforeNextOperation)
             .orElse(0l);
+    MachineCapacityCalendar capacityCalendar = getCapacityCalendar(machine);
+    if (capacityCalendar != null) {
+      LocalDateTime lastPlannedEndDateT =
+          getLastConcurrentPlannedEndDateT(
+              capacityCalendar.getBookingIndex(),
+              operationOrder,
+              timeBeforeNextOperation,
+              plannedStartDateT,
+              plannedEndDateT);
+      if (lastPlannedEndDateT == null) {
+        return new MachineTimeSlot(plannedStartDateT, plannedEndDateT);
+      }
+      return getClosestAvailableTimeSlotFrom(
+          machine,
+          lastPlannedEndDateT.plusSeconds(timeBeforeNextOperation),
+          lastPlannedEndDateT.plusSeconds(timeBeforeNextOperation + initialDuration),
+          operationOrder,
+          initialDuration,
+          false);
+    }
+
     // Must check if dates are occupied by other operation orders
     // The first one of the list will be the last to finish
 
@@ -286,12 +317,7 @@ public class MachineServiceImpl implements MachineService {
       boolean ignoreConcurrency)
       throws AxelorException {
 
-    EventsPlanning planning = machine.getPublicHolidayEventsPlanning();
-
-    if (planning != null
-        && planning.getEventsPlanningLineList() != null
-        && planning.getEventsPlanningLineList().stream()
-            .anyMatch(epl -> epl.getDate().equals(endDateT.toLocalDate()))) {
+    if (isPublicHoliday(machine, endDateT.toLocalDate())) {
 
       // If endDate is not available because of planning
       // Then we try for the previous day
@@ -385,6 +411,27 @@ public class MachineServiceImpl implements MachineService {
         Optional.ofNullable(operationOrder.getWorkCenter())
             .map(WorkCenter::getTimeBeforeNextOperation)
             .orElse(0l);
+    MachineCapacityCalendar capacityCalendar = getCapacityCalendar(machine);
+    if (capacityCalendar != null) {
+      LocalDateTime firstPlannedStartDateT =
+          getFirstConcurrentPlannedStartDateT(
+              capacityCalendar.getBookingIndex(),
+              operationOrder,
+              timeBeforeNextOperation,
+              plannedStartDateT,
+              plannedEndDateT);
+      if (firstPlannedStartDateT == null) {
+        return new MachineTimeSlot(plannedStartDateT, plannedEndDateT);
+      }
+      return getFurthestAvailableTimeSlotFrom(
+          machine,
+          firstPlannedStartDateT.minusSeconds(initialDuration + timeBeforeNextOperation),
+          firstPlannedStartDateT.minusSeconds(timeBeforeNextOperation),
+          operationOrder,
+          initialDuration,
+          false);
+    }
+
     // Must check if dates are occupied by other operation orders
     // The first one of the list will be the first to start
     List<OperationOrder> concurrentOperationOrders =
@@ -425,4 +472,175 @@ public class MachineServiceImpl implements MachineService {
           false);
     }
   }
+
+  protected boolean isPublicHoliday(Machine machine, LocalDate date) {
+    MachineCapacityCalendar capacityCalendar = getCapacityCalendar(machine);
+    if (capacityCalendar != null) {
+      return capacityCalendar.isPublicHoliday(date);
+    }
+    EventsPlanning planning = machine.getPublicHolidayEventsPlanning();
+    return planning != null
+        && planning.getEventsPlanningLineList() != null
+        && planning.getEventsPlanningLineList().stream()
+            .anyMatch(epl -> epl.getDate().equals(date));
+  }
+
+  /**
+   * Same search as the query of {@link #getClosestAvailableMachineTimeSlot}: the latest end date of
+   * the operation orders running at the planned start date or at the planned end date.
+   */
+  protected LocalDateTime getLastConcurrentPlannedEndDateT(
+      MachineBookingIndex bookingIndex,
+      OperationOrder operationOrder,
+      long timeBeforeNextOperation,
+      LocalDateTime plannedStartDateT,
+      LocalDateTime plannedEndDateT) {
+    // The time slot of the operation order itself is not a concurrent one
+    Long operationOrderId = operationOrder.getId();
+
+    LocalDateTime maxEndDateT =
+        bookingIndex.getMaxEndDateTStartingUntil(plannedEndDateT, operationOrderId);
+    if (maxEndDateT != null
+        && maxEndDateT.isAfter(plannedEndDateT.minusSeconds(timeBeforeNextOperation))) {
+      return maxEndDateT;
+    }
+    maxEndDateT = bookingIndex.getMaxEndDateTStartingUntil(plannedStartDateT, operationOrderId);
+    if (maxEndDateT != null
+        && maxEndDateT.isAfter(plannedStartDateT.minusSeconds(timeBeforeNextOperation))) {
+      return maxEndDateT;
+    }
+    return null;
+  }
+
+  /**
+   * Same search as the query of {@link #getFurthestAvailableMachineTimeSlot}: the earliest start
+   * date of the operation orders running at the planned start date, at the planned end date or in
+   * between.
+   */
+  protected LocalDateTime getFirstConcurrentPlannedStartDateT(
+      MachineBookingIndex bookingIndex,
+      OperationOrder operationOrder,
+      long timeBeforeNextOperation,
+      LocalDateTime plannedStartDateT,
+      LocalDateTime plannedEndDateT) {
+    // The time slot of the operation order itself is not a concurrent one
+    Long operationOrderId = operationOrder.getId();
+
+    LocalDateTime firstStartDateT = null;
+    LocalDateTime startDateT =
+        bookingIndex.getMinStartDateTEndingAfter(
+            plannedStartDateT.minusSeconds(timeBeforeNextOperation), operationOrderId);
+    if (startDateT != null && !startDateT.isAfter(plannedStartDateT)) {
+      firstStartDateT = startDateT;
+    }
+    startDateT =
+        bookingIndex.getMinStartDateTEndingAfter(
+            plannedEndDateT.minusSeconds(timeBeforeNextOperation), operationOrderId);
+    if (startDateT != null
+        && startDateT.isBefore(plannedEndDateT)
+        && (firstStartDateT == null || startDateT.isBefore(firstStartDateT))) {
+      firstStartDateT = startDateT;
+    }
+    startDateT =
+        bookingIndex.getMinStartDateTWithin(
+            plannedStartDateT,
+            plannedEndDateT.minusSeconds(timeBeforeNextOperation),
+            operationOrderId);
+    if (startDateT != null
+        && (firstStartDateT == null || startDateT.isBefore(firstStartDateT))) {
+      firstStartDateT = startDateT;
+    }
+    return firstStartDateT;
+  }
+
+  @Override
+  public boolean openCapacityCalendar() {
+    if (capacityCalendarMap.get() != null) {
+      return false;
+    }
+    capacityCalendarMap.set(new HashMap<>());
+    return true;
+  }
+
+  @Override
+  public void closeCapacityCalendar() {
+    capacityCalendarMap.remove();
+  }
+
+  @Override
+  public void updateCapacityCalendar(OperationOrder operationOrder) {
+    Map<Long, MachineCapacityCalendar> calendarMap = capacityCalendarMap.get();
+    if (calendarMap == null || operationOrder.getId() == null) {
+      return;
+    }
+    for (MachineCapacityCalendar capacityCalendar : calendarMap.values()) {
+      capacityCalendar.getBookingIndex().remove(operationOrder.getId());
+    }
+
+    Machine machine = operationOrder.getMachine();
+    MachineCapacityCalendar capacityCalendar =
+        machine != null ? calendarMap.get(machine.getId()) : null;
+    if (capacityCalendar != null && isBooking(operationOrder)) {
+      capacityCalendar
+          .getBookingIndex()
+          .put(
+              operationOrder.getId(),
+              operationOrder.getPlannedStartDateT(),
+              operationOrder.getPlannedEndDateT());
+    }
+  }
+
+  protected boolean isBooking(OperationOrder operationOrder) {
+    ManufOrder manufOrder = operationOrder.getManufOrder();
+    return !operationOrder.getOutsourcing()
+        && operationOrder.getPlannedStartDateT() != null
+        && operationOrder.getPlannedEndDateT() != null
+        && manufOrder != null
+        && manufOrder.getStatusSelect() != ManufOrderRepository.STATUS_CANCELED
+        && manufOrder.getStatusSelect() != ManufOrderRepository.STATUS_FINISHED;
+  }
+
+  /**
+   * @param machine
+   * @return the capacity calendar of the machine, loaded on first use, or null if no calendar is
+   *     open on the current thread
+   */
+  protected MachineCapacityCalendar getCapacityCalendar(Machine machine) {
+    Map<Long, MachineCapacityCalendar> calendarMap = capacityCalendarMap.get();
+    if (calendarMap == null || machine.getId() == null) {
+      return null;
+    }
+    return calendarMap.computeIfAbsent(machine.getId(), id -> loadCapacityCalendar(machine));
+  }
+
+  protected MachineCapacityCalendar loadCapacityCalendar(Machine machine) {
+    Set<LocalDate> publicHolidaySet = new HashSet<>();
+    EventsPlanning planning = machine.getPublicHolidayEventsPlanning();
+    if (planning != null && planning.getEventsPlanningLineList() != null) {
+      planning.getEventsPlanningLineList().stream()
+          .map(EventsPlanningLine::getDate)
+          .forEach(publicHolidaySet::add);
+    }
+
+    MachineBookingIndex bookingIndex = new MachineBookingIndex();
+    List<Object[]> bookingList =
+        JPA.em()
+            .createQuery(
+                "SELECT self.id, self.plannedStartDateT, self.plannedEndDateT "
+                    + "FROM OperationOrder self "
+                    + "WHERE self.machine.id = :machineId "
+                    + "AND self.plannedStartDateT IS NOT NULL AND self.plannedEndDateT IS NOT NULL "
+                    + "AND self.manufOrder.statusSelect != :cancelled "
+                    + "AND self.manufOrder.statusSelect != :finished "
+                    + "AND self.outsourcing = false",
+                Object[].class)
+            .setParameter("machineId", machine.getId())
+            .setParameter("cancelled", ManufOrderRepository.STATUS_CANCELED)
+            .setParameter("finished", ManufOrderRepository.STATUS_FINISHED)
+            .getResultList();
+    for (Object[] booking : bookingList) {
+      bookingIndex.put((Long) booking[0], (LocalDateTime) booking[1], (LocalDateTime) booking[2]);
+    }
+    return new MachineCapacityCalendar(publicHolidaySet, bookingIndex);
+  }
 }
@@ -31,6 +31,7 @@ import com.axelor.apps.production.db.repo.ProductionConfigRepository;
 import com.axelor.apps.production.exceptions.ProductionExceptionMessage;
 import com.axelor.apps.production.service.app.AppProductionService;
 import com.axelor.apps.production.service.config.ProductionConfigService;
+import com.axelor.apps.production.service.machine.MachineService;
 import com.axelor.apps.production.service.operationorder.OperationOrderPlanningService;
 import com.axelor.apps.production.service.operationorder.OperationOrderService;
 import com.axelor.apps.production.service.operationorder.OperationOrderWorkflowService;
@@ -63,6 +64,7 @@ public class ManufOrderPlanServiceImpl implements ManufOrderPlanService {
   protected ManufOrderCreatePurchaseOrderService manufOrderCreatePurchaseOrderService;
   protected ManufOrderPlanStockMoveService manufOrderPlanStockMoveService;
   protected ManufOrderResidualProductService manufOrderResidualProductService;
+  protected MachineService machineService;
 
   @Inject
   public ManufOrderPlanServiceImpl(
@@ -80,7 +82,8 @@ public class ManufOrderPlanServiceImpl implements ManufOrderPlanService {
       AppProductionService appProductionService,
       ManufOrderCreatePurchaseOrderService manufOrderCreatePurchaseOrderService,
       ManufOrderPlanStockMoveService manufOrderPlanStockMoveService,
-      ManufOrderResidualProductService manufOrderResidualProductService) {
+      ManufOrderResidualProductService manufOrderResidualProductService,
+      MachineService machineService) {
     this.manufOrderRepo = manufOrderRepo;
     this.manufOrderService = manufOrderService;
     this.sequenceService = sequenceService;
@@ -96,6 +99,7 @@ public class ManufOrderPlanServiceImpl implements ManufOrderPlanService {
     this.manufOrderCreatePurchaseOrderService = manufOrderCreatePurchaseOrderService;
     this.manufOrderPlanStockMoveService = manufOrderPlanStockMoveService;
     this.manufOrderResidualProductService = manufOrderResidualProductService;
+    this.machineService = machineService;
   }
 
   @Override
@@ -104,18 +108,26 @@ public class ManufOrderPlanServiceImpl implements ManufOrderPlanService {
 
     StringBuilder messageBuilder = new StringBuilder();
 
-    for (ManufOrder manufOrder : manufOrderList) {
-      this.plan(manufOrder);
-      if (!Strings.isNullOrEmpty(manufOrder.getMoCommentFromSaleOrder())) {
-        messageBuilder.append(manufOrder.getMoCommentFromSaleOrder());
+    // The machine bookings are loaded once for all the manufacturing orders
+    boolean capacityCalendarOpened = machineService.openCapacityCalendar();
+    try {
+      for (ManufOrder manufOrder : manufOrderList) {
+        this.plan(manufOrder);
+        if (!Strings.isNullOrEmpty(manufOrder.getMoCommentFromSaleOrder())) {
+          messageBuilder.append(manufOrder.getMoCommentFromSaleOrder());
+        }
+
+        manufOrderCreatePurchaseOrderService.createPurchaseOrders(manufOrder);
+
+        if (!Strings.isNullOrEmpty(manufOrder.getMoCommentFromSaleOrderLine())) {
+          messageBuilder
+              .append(System.lineSeparator())
+              .append(manufOrder.getMoCommentFromSaleOrderLine());
+        }
       }
-
-      manufOrderCreatePurchaseOrderService.createPurchaseOrders(manufOrder);
-
-      if (!Strings.isNullOrEmpty(manufOrder.getMoCommentFromSaleOrderLine())) {
-        messageBuilder
-            .append(System.lineSeparator())
-            .append(manufOrder.getMoCommentFromSaleOrderLine());
+    } finally {
+      if (capacityCalendarOpened) {
+        machineService.closeCapacityCalendar();
       }
     }
     return messageBuilder.toString();
@@ -150,8 +150,20 @@ public class OperationOrderPlanningServiceImpl implements OperationOrderPlanning
             ? operationOrderService.getSortedOperationOrderList(operationOrders)
             : operationOrderService.getReversedSortedOperationOrderList(operationOrders);
 
-    for (OperationOrder operationOrder : sortedOperationOrders) {
-      operationOrderPlanningCommonService.plan(operationOrder);
+    boolean capacityCalendarOpened = machineService.openCapacityCalendar();
+    try {
+      // The dates of the operation orders may have been reset before planning
+      for (OperationOrder operationOrder : operationOrders) {
+        machineService.updateCapacityCalendar(operationOrder);
+      }
+      for (OperationOrder operationOrder : sortedOperationOrders) {
+        operationOrderPlanningCommonService.plan(operationOrder);
+        machineService.updateCapacityCalendar(operationOrder);
+      }
+    } finally {
+      if (capacityCalendarOpened) {
+        machineService.closeCapacityCalendar();
+      }
     }
     manufOrderWorkflowService.setOperationOrderMaxPriority(manufOrder);
   }
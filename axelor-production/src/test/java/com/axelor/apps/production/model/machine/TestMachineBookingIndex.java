@@ -0,0 +1,183 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2024 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.production.model.machine;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TestMachineBookingIndex {
+
+  private static final LocalDateTime DAY = LocalDateTime.of(2024, 3, 4, 0, 0);
+
+  private MachineBookingIndex bookingIndex;
+
+  @BeforeEach
+  void prepare() {
+    bookingIndex = new MachineBookingIndex();
+    bookingIndex.put(1L, DAY.withHour(8), DAY.withHour(10));
+    bookingIndex.put(2L, DAY.withHour(9), DAY.withHour(17));
+    bookingIndex.put(3L, DAY.withHour(12), DAY.withHour(13));
+  }
+
+  @Test
+  void testGetMaxEndDateTStartingUntil() {
+    Assertions.assertNull(bookingIndex.getMaxEndDateTStartingUntil(DAY.withHour(7), null));
+    Assertions.assertEquals(
+        DAY.withHour(10), bookingIndex.getMaxEndDateTStartingUntil(DAY.withHour(8), null));
+    Assertions.assertEquals(
+        DAY.withHour(17), bookingIndex.getMaxEndDateTStartingUntil(DAY.withHour(12), null));
+    Assertions.assertEquals(
+        DAY.withHour(13), bookingIndex.getMaxEndDateTStartingUntil(DAY.withHour(12), 2L));
+  }
+
+  @Test
+  void testGetMinStartDateTEndingAfter() {
+    Assertions.assertEquals(
+        DAY.withHour(8), bookingIndex.getMinStartDateTEndingAfter(DAY.withHour(9), null));
+    Assertions.assertEquals(
+        DAY.withHour(9), bookingIndex.getMinStartDateTEndingAfter(DAY.withHour(10), null));
+    Assertions.assertEquals(
+        DAY.withHour(12), bookingIndex.getMinStartDateTEndingAfter(DAY.withHour(10), 2L));
+    Assertions.assertNull(bookingIndex.getMinStartDateTEndingAfter(DAY.withHour(17), null));
+  }
+
+  @Test
+  void testGetMinStartDateTWithin() {
+    Assertions.assertEquals(
+        DAY.withHour(9),
+        bookingIndex.getMinStartDateTWithin(DAY.withHour(9), DAY.withHour(18), null));
+    Assertions.assertEquals(
+        DAY.withHour(12),
+        bookingIndex.getMinStartDateTWithin(DAY.withHour(9), DAY.withHour(18), 2L));
+    Assertions.assertNull(
+        bookingIndex.getMinStartDateTWithin(DAY.withHour(13), DAY.withHour(18), null));
+  }
+
+  @Test
+  void testExclusionDoesNotRemoveTimeSlot() {
+    bookingIndex.getMaxEndDateTStartingUntil(DAY.withHour(12), 2L);
+    bookingIndex.getMinStartDateTEndingAfter(DAY.withHour(10), 2L);
+    bookingIndex.getMinStartDateTWithin(DAY.withHour(9), DAY.withHour(18), 2L);
+
+    Assertions.assertTrue(bookingIndex.contains(2L));
+    Assertions.assertEquals(3, bookingIndex.size());
+    Assertions.assertEquals(
+        DAY.withHour(17), bookingIndex.getMaxEndDateTStartingUntil(DAY.withHour(12), null));
+  }
+
+  @Test
+  void testPutMovesAndRemoveDeletesTimeSlot() {
+    bookingIndex.put(2L, DAY.withHour(14), DAY.withHour(15));
+    Assertions.assertEquals(3, bookingIndex.size());
+    Assertions.assertEquals(
+        DAY.withHour(13), bookingIndex.getMaxEndDateTStartingUntil(DAY.withHour(13), null));
+
+    bookingIndex.remove(2L);
+    Assertions.assertFalse(bookingIndex.contains(2L));
+    Assertions.assertEquals(2, bookingIndex.size());
+    Assertions.assertNull(bookingIndex.getMinStartDateTEndingAfter(DAY.withHour(13), null));
+  }
+
+  /** Compare the searches with a scan of all the time slots, on random bookings and moves. */
+  @Test
+  void testSearchesMatchScan() {
+    Random random = new Random(42);
+    MachineBookingIndex randomIndex = new MachineBookingIndex();
+    Map<Long, LocalDateTime[]> slotMap = new HashMap<>();
+
+    for (int iteration = 0; iteration < 2000; iteration++) {
+      Long operationOrderId = (long) random.nextInt(200);
+      if (random.nextInt(5) == 0) {
+        randomIndex.remove(operationOrderId);
+        slotMap.remove(operationOrderId);
+      } else {
+        LocalDateTime startDateT = DAY.plusMinutes(random.nextInt(2000));
+        LocalDateTime endDateT = startDateT.plusMinutes(1 + random.nextInt(300));
+        randomIndex.put(operationOrderId, startDateT, endDateT);
+        slotMap.put(operationOrderId, new LocalDateTime[] {startDateT, endDateT});
+      }
+
+      LocalDateTime dateT = DAY.plusMinutes(random.nextInt(2400));
+      LocalDateTime endDateT = dateT.plusMinutes(random.nextInt(600));
+      Long excludedId = random.nextBoolean() ? (long) random.nextInt(200) : null;
+
+      Assertions.assertEquals(slotMap.size(), randomIndex.size());
+      Assertions.assertEquals(
+          scanMaxEndDateTStartingUntil(slotMap, dateT, excludedId),
+          randomIndex.getMaxEndDateTStartingUntil(dateT, excludedId));
+      Assertions.assertEquals(
+          scanMinStartDateTEndingAfter(slotMap, dateT, excludedId),
+          randomIndex.getMinStartDateTEndingAfter(dateT, excludedId));
+      Assertions.assertEquals(
+          scanMinStartDateTWithin(slotMap, dateT, endDateT, excludedId),
+          randomIndex.getMinStartDateTWithin(dateT, endDateT, excludedId));
+    }
+  }
+
+  private LocalDateTime scanMaxEndDateTStartingUntil(
+      Map<Long, LocalDateTime[]> slotMap, LocalDateTime dateT, Long excludedId) {
+    LocalDateTime maxEndDateT = null;
+    for (Map.Entry<Long, LocalDateTime[]> slot : slotMap.entrySet()) {
+      LocalDateTime[] dates = slot.getValue();
+      if (!slot.getKey().equals(excludedId)
+          && !dates[0].isAfter(dateT)
+          && (maxEndDateT == null || dates[1].isAfter(maxEndDateT))) {
+        maxEndDateT = dates[1];
+      }
+    }
+    return maxEndDateT;
+  }
+
+  private LocalDateTime scanMinStartDateTEndingAfter(
+      Map<Long, LocalDateTime[]> slotMap, LocalDateTime dateT, Long excludedId) {
+    LocalDateTime minStartDateT = null;
+    for (Map.Entry<Long, LocalDateTime[]> slot : slotMap.entrySet()) {
+      LocalDateTime[] dates = slot.getValue();
+      if (!slot.getKey().equals(excludedId)
+          && dates[1].isAfter(dateT)
+          && (minStartDateT == null || dates[0].isBefore(minStartDateT))) {
+        minStartDateT = dates[0];
+      }
+    }
+    return minStartDateT;
+  }
+
+  private LocalDateTime scanMinStartDateTWithin(
+      Map<Long, LocalDateTime[]> slotMap,
+      LocalDateTime startDateT,
+      LocalDateTime endDateT,
+      Long excludedId) {
+    LocalDateTime minStartDateT = null;
+    for (Map.Entry<Long, LocalDateTime[]> slot : slotMap.entrySet()) {
+      LocalDateTime[] dates = slot.getValue();
+      if (!slot.getKey().equals(excludedId)
+          && !dates[0].isBefore(startDateT)
+          && !dates[1].isAfter(endDateT)
+          && (minStartDateT == null || dates[0].isBefore(minStartDateT))) {
+        minStartDateT = dates[0];
+      }
+    }
+    return minStartDateT;
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2024 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.production.service.machine;
+
+import com.axelor.apps.production.db.Machine;
+import com.axelor.apps.production.db.ManufOrder;
+import com.axelor.apps.production.db.OperationOrder;
+import com.axelor.apps.production.db.repo.ManufOrderRepository;
+import com.axelor.apps.production.model.machine.MachineBookingIndex;
+import com.axelor.apps.production.model.machine.MachineCapacityCalendar;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TestMachineCapacityCalendar {
+
+  private static final LocalDate HOLIDAY = LocalDate.of(2024, 5, 1);
+
+  private MachineServiceImpl machineService;
+  private int loadCount;
+
+  @BeforeEach
+  void prepare() {
+    loadCount = 0;
+    machineService =
+        new MachineServiceImpl(null, null, null) {
+          @Override
+          protected MachineCapacityCalendar loadCapacityCalendar(Machine machine) {
+            loadCount++;
+            return new MachineCapacityCalendar(
+                Collections.singleton(HOLIDAY), new MachineBookingIndex());
+          }
+        };
+    // Calendars are kept by thread, make sure none is left by a previous test
+    machineService.closeCapacityCalendar();
+  }
+
+  private Machine machine(Long id) {
+    Machine machine = new Machine();
+    machine.setId(id);
+    return machine;
+  }
+
+  @Test
+  void testNoCalendarWhenNotOpen() {
+    Assertions.assertNull(machineService.getCapacityCalendar(machine(1L)));
+    Assertions.assertFalse(machineService.isPublicHoliday(machine(1L), HOLIDAY));
+    Assertions.assertEquals(0, loadCount);
+  }
+
+  @Test
+  void testCalendarLoadedOncePerMachine() {
+    Assertions.assertTrue(machineService.openCapacityCalendar());
+    Assertions.assertFalse(machineService.openCapacityCalendar());
+
+    MachineCapacityCalendar capacityCalendar = machineService.getCapacityCalendar(machine(1L));
+    Assertions.assertSame(capacityCalendar, machineService.getCapacityCalendar(machine(1L)));
+    Assertions.assertNotSame(capacityCalendar, machineService.getCapacityCalendar(machine(2L)));
+    Assertions.assertEquals(2, loadCount);
+    Assertions.assertTrue(machineService.isPublicHoliday(machine(1L), HOLIDAY));
+
+    machineService.closeCapacityCalendar();
+  }
+
+  @Test
+  void testCalendarDroppedOnClose() {
+    machineService.openCapacityCalendar();
+    machineService.getCapacityCalendar(machine(1L));
+    machineService.closeCapacityCalendar();
+    Assertions.assertNull(machineService.getCapacityCalendar(machine(1L)));
+
+    Assertions.assertTrue(machineService.openCapacityCalendar());
+    Assertions.assertNotNull(machineService.getCapacityCalendar(machine(1L)));
+    Assertions.assertEquals(2, loadCount);
+
+    machineService.closeCapacityCalendar();
+  }
+
+  @Test
+  void testCalendarNotSharedBetweenThreads() throws InterruptedException {
+    machineService.openCapacityCalendar();
+    machineService.getCapacityCalendar(machine(1L));
+
+    AtomicReference<MachineCapacityCalendar> otherThreadCalendar = new AtomicReference<>();
+    Thread thread =
+        new Thread(() -> otherThreadCalendar.set(machineService.getCapacityCalendar(machine(1L))));
+    thread.start();
+    thread.join();
+
+    Assertions.assertNull(otherThreadCalendar.get());
+    Assertions.assertEquals(1, loadCount);
+
+    machineService.closeCapacityCalendar();
+  }
+
+  @Test
+  void testUpdateCapacityCalendarMovesBooking() {
+    machineService.openCapacityCalendar();
+    MachineBookingIndex bookingIndex1 =
+        machineService.getCapacityCalendar(machine(1L)).getBookingIndex();
+    MachineBookingIndex bookingIndex2 =
+        machineService.getCapacityCalendar(machine(2L)).getBookingIndex();
+
+    ManufOrder manufOrder = new ManufOrder();
+    manufOrder.setStatusSelect(ManufOrderRepository.STATUS_PLANNED);
+    OperationOrder operationOrder = new OperationOrder();
+    operationOrder.setId(10L);
+    operationOrder.setManufOrder(manufOrder);
+    operationOrder.setMachine(machine(1L));
+    operationOrder.setPlannedStartDateT(LocalDateTime.of(2024, 5, 2, 8, 0));
+    operationOrder.setPlannedEndDateT(LocalDateTime.of(2024, 5, 2, 10, 0));
+
+    machineService.updateCapacityCalendar(operationOrder);
+    Assertions.assertTrue(bookingIndex1.contains(10L));
+
+    operationOrder.setMachine(machine(2L));
+    machineService.updateCapacityCalendar(operationOrder);
+    Assertions.assertFalse(bookingIndex1.contains(10L));
+    Assertions.assertTrue(bookingIndex2.contains(10L));
+
+    manufOrder.setStatusSelect(ManufOrderRepository.STATUS_CANCELED);
+    machineService.updateCapacityCalendar(operationOrder);
+    Assertions.assertFalse(bookingIndex2.contains(10L));
+
+    machineService.closeCapacityCalendar();
+  }
+}
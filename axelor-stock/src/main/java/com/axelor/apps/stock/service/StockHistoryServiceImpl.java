@@ -48,7 +48,9 @@ import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
@@ -104,11 +106,39 @@ public class StockHistoryServiceImpl implements StockHistoryService {
     CompanyRepository companyRepo = Beans.get(CompanyRepository.class);
     ProductRepository productRepo = Beans.get(ProductRepository.class);
 
+    // the move lines of all the periods are fetched at once, the outgoing ones from 12 months
+    // before the first period to compute the average outgoing quantity.
+    LocalDate firstPeriodBeginDate = beginDate.withDayOfMonth(1);
+    LocalDate lastPeriodEndDate = firstPeriodBeginDate;
+    while (lastPeriodEndDate.isBefore(endDate)) {
+      lastPeriodEndDate = lastPeriodEndDate.plusMonths(1);
+    }
+    Map<LocalDate, List<StockMoveLine>> incomingLineMap = new HashMap<>();
+    Map<LocalDate, List<StockMoveLine>> outgoingLineMap = new HashMap<>();
+    if (!stockLocationIdList.isEmpty()) {
+      incomingLineMap =
+          fetchStockMoveLinesPerMonth(
+              productId,
+              companyId,
+              stockLocationIdList,
+              firstPeriodBeginDate,
+              lastPeriodEndDate,
+              true);
+      outgoingLineMap =
+          fetchStockMoveLinesPerMonth(
+              productId,
+              companyId,
+              stockLocationIdList,
+              firstPeriodBeginDate.minusMonths(12),
+              lastPeriodEndDate,
+              false);
+    }
+    Map<LocalDate, BigDecimal> outQtyPerMonthMap = computeQtyPerMonth(outgoingLineMap);
+
     // one line per month
-    for (LocalDate periodBeginDate = beginDate.withDayOfMonth(1);
+    for (LocalDate periodBeginDate = firstPeriodBeginDate;
         periodBeginDate.isBefore(endDate);
         periodBeginDate = periodBeginDate.plusMonths(1)) {
-      LocalDate periodEndDate = periodBeginDate.plusMonths(1);
       StockHistoryLine stockHistoryLine = new StockHistoryLine();
       Company company = companyRepo.find(companyId);
       Product product = productRepo.find(productId);
@@ -119,22 +149,11 @@ public class StockHistoryServiceImpl implements StockHistoryService {
           Beans.get(PeriodService.class)
               .getActivePeriod(periodBeginDate, company, YearRepository.TYPE_CIVIL));
       if (!stockLocationIdList.isEmpty()) {
-        fetchAndFillResultForStockHistoryQuery(
-            stockHistoryLine,
-            productId,
-            companyId,
-            stockLocationIdList,
-            periodBeginDate,
-            periodEndDate,
-            true);
-        fetchAndFillResultForStockHistoryQuery(
-            stockHistoryLine,
-            productId,
-            companyId,
-            stockLocationIdList,
-            periodBeginDate,
-            periodEndDate,
-            false);
+        fillIncomingStockHistoryLineFields(
+            stockHistoryLine, incomingLineMap.getOrDefault(periodBeginDate, new ArrayList<>()));
+        fillOutgoingStockHistoryLineFields(
+            stockHistoryLine, outgoingLineMap.getOrDefault(periodBeginDate, new ArrayList<>()));
+        computeAvgOutQtyOn12PastMonth(stockHistoryLine, outQtyPerMonthMap, periodBeginDate);
       }
       stockHistoryLineList.add(stockHistoryLine);
     }
@@ -199,44 +218,22 @@ public class StockHistoryServiceImpl implements StockHistoryService {
     return metaFile;
   }
 
+  /**
+   * Compute the average outgoing quantity of the 12 months before the period, in product unit.
+   *
+   * @param stockHistoryLine the line of the period
+   * @param outQtyPerMonthMap the outgoing quantity in product unit per first day of month
+   * @param periodBeginDate the first day of the period
+   */
   protected void computeAvgOutQtyOn12PastMonth(
       StockHistoryLine stockHistoryLine,
-      Long productId,
-      Long companyId,
-      List<Long> stockLocationIdList,
-      LocalDate periodBeginDate)
-      throws AxelorException {
-    String filter =
-        "self.product.id = :productId "
-            + "AND self.stockMove.statusSelect = :realized "
-            + "AND self.stockMove.company.id = :companyId "
-            + "AND self.stockMove.realDate >= :beginDate "
-            + "AND self.stockMove.realDate < :endDate "
-            + "AND self.fromStockLocation.id IN :stockLocationIdList ";
-
-    List<StockMoveLine> stockMoveLineList =
-        stockMoveLineRepository
-            .all()
-            .filter(filter)
-            .bind("productId", productId)
-            .bind("companyId", companyId)
-            .bind("stockLocationIdList", stockLocationIdList)
-            .bind("realized", StockMoveRepository.STATUS_REALIZED)
-            .bind("beginDate", periodBeginDate.minusMonths(12))
-            .bind("endDate", periodBeginDate)
-            .fetch();
-
+      Map<LocalDate, BigDecimal> outQtyPerMonthMap,
+      LocalDate periodBeginDate) {
     BigDecimal avgOutQtyOn12PastMonth = BigDecimal.ZERO;
-    for (StockMoveLine stockMoveLine : stockMoveLineList) {
-      // quantity in product unit
-      BigDecimal qtyConverted =
-          unitConversionService.convert(
-              stockMoveLine.getUnit(),
-              stockMoveLine.getProduct().getUnit(),
-              stockMoveLine.getRealQty(),
-              stockMoveLine.getRealQty().scale(),
-              stockMoveLine.getProduct());
-      avgOutQtyOn12PastMonth = avgOutQtyOn12PastMonth.add(qtyConverted);
+    for (int i = 1; i <= 12; i++) {
+      avgOutQtyOn12PastMonth =
+          avgOutQtyOn12PastMonth.add(
+              outQtyPerMonthMap.getOrDefault(periodBeginDate.minusMonths(i), BigDecimal.ZERO));
     }
     avgOutQtyOn12PastMonth =
         avgOutQtyOn12PastMonth.divide(
@@ -246,15 +243,17 @@ public class StockHistoryServiceImpl implements StockHistoryService {
     stockHistoryLine.setAvgOutQtyOn12PastMonth(avgOutQtyOn12PastMonth);
   }
 
-  protected void fetchAndFillResultForStockHistoryQuery(
-      StockHistoryLine stockHistoryLine,
+  /**
+   * Fetch the realized move lines of the product between the two dates, and group them by the
+   * first day of the month of their real date.
+   */
+  protected Map<LocalDate, List<StockMoveLine>> fetchStockMoveLinesPerMonth(
       Long productId,
       Long companyId,
       List<Long> stockLocationIdList,
-      LocalDate periodBeginDate,
-      LocalDate periodEndDate,
-      boolean incoming)
-      throws AxelorException {
+      LocalDate beginDate,
+      LocalDate endDate,
+      boolean incoming) {
     String filter =
         "self.product.id = :productId "
             + "AND self.stockMove.statusSelect = :realized "
@@ -268,24 +267,42 @@ public class StockHistoryServiceImpl implements StockHistoryService {
       filter += "AND self.fromStockLocation.id IN :stockLocationIdList ";
     }
 
-    List<StockMoveLine> stockMoveLineList =
-        stockMoveLineRepository
-            .all()
-            .filter(filter)
-            .bind("productId", productId)
-            .bind("companyId", companyId)
-            .bind("stockLocationIdList", stockLocationIdList)
-            .bind("realized", StockMoveRepository.STATUS_REALIZED)
-            .bind("beginDate", periodBeginDate)
-            .bind("endDate", periodEndDate)
-            .fetch();
-    if (incoming) {
-      fillIncomingStockHistoryLineFields(stockHistoryLine, stockMoveLineList);
-    } else {
-      fillOutgoingStockHistoryLineFields(stockHistoryLine, stockMoveLineList);
-      computeAvgOutQtyOn12PastMonth(
-          stockHistoryLine, productId, companyId, stockLocationIdList, periodBeginDate);
+    return stockMoveLineRepository
+        .all()
+        .filter(filter)
+        .bind("productId", productId)
+        .bind("companyId", companyId)
+        .bind("stockLocationIdList", stockLocationIdList)
+        .bind("realized", StockMoveRepository.STATUS_REALIZED)
+        .bind("beginDate", beginDate)
+        .bind("endDate", endDate)
+        .order("id")
+        .fetch()
+        .stream()
+        .collect(
+            Collectors.groupingBy(
+                stockMoveLine -> stockMoveLine.getStockMove().getRealDate().withDayOfMonth(1)));
+  }
+
+  protected Map<LocalDate, BigDecimal> computeQtyPerMonth(
+      Map<LocalDate, List<StockMoveLine>> stockMoveLinePerMonthMap) throws AxelorException {
+    Map<LocalDate, BigDecimal> qtyPerMonthMap = new HashMap<>();
+    for (Map.Entry<LocalDate, List<StockMoveLine>> entry : stockMoveLinePerMonthMap.entrySet()) {
+      BigDecimal qty = BigDecimal.ZERO;
+      for (StockMoveLine stockMoveLine : entry.getValue()) {
+        // quantity in product unit
+        qty =
+            qty.add(
+                unitConversionService.convert(
+                    stockMoveLine.getUnit(),
+                    stockMoveLine.getProduct().getUnit(),
+                    stockMoveLine.getRealQty(),
+                    stockMoveLine.getRealQty().scale(),
+                    stockMoveLine.getProduct()));
+      }
+      qtyPerMonthMap.put(entry.getKey(), qty);
     }
+    return qtyPerMonthMap;
   }
 
   protected void fillIncomingStockHistoryLineFields(
@@ -29,6 +29,7 @@ import com.axelor.apps.stock.db.repo.StockLocationLineHistoryRepository;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface StockLocationLineService {
@@ -112,6 +113,27 @@ public interface StockLocationLineService {
   public StockLocationLine updateLocationFromProduct(
       StockLocationLine stockLocationLine, Product product) throws AxelorException;
 
+  /**
+   * Lock the given products and their company specific values until the end of the current
+   * transaction, and reload them with their committed values, so that their average price can be
+   * updated by transactions realizing the same products in turn. They are locked in the order of
+   * their ids, and must be locked before their stock location lines.
+   *
+   * @param productIdList the ids of the products
+   */
+  void lockProducts(Collection<Long> productIdList);
+
+  /**
+   * Lock the stock location lines, detailed ones included, of the given products in the given
+   * locations until the end of the current transaction, and reload them with their committed
+   * quantities. The lines are locked in the order of their ids, so that transactions moving the
+   * same products wait for each other instead of failing on the version of the lines.
+   *
+   * @param stockLocationIdList the ids of the locations
+   * @param productIdList the ids of the products
+   */
+  void lockStockLocationLines(Collection<Long> stockLocationIdList, Collection<Long> productIdList);
+
   /**
    * Getting the stock location line : We check if the location has a detailed line for a given
    * product. If no detailed location line is found, we create it.
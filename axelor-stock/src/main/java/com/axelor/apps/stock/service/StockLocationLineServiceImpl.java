@@ -21,6 +21,7 @@ package com.axelor.apps.stock.service;
 import com.axelor.apps.base.AxelorException;
 import com.axelor.apps.base.db.Company;
 import com.axelor.apps.base.db.Product;
+import com.axelor.apps.base.db.ProductCompany;
 import com.axelor.apps.base.db.Unit;
 import com.axelor.apps.base.db.repo.TraceBackRepository;
 import com.axelor.apps.base.service.UnitConversionService;
@@ -40,7 +41,8 @@ import com.axelor.apps.stock.db.repo.StockRulesRepository;
 import com.axelor.apps.stock.exception.StockExceptionMessage;
 import com.axelor.auth.AuthUtils;
 import com.axelor.auth.db.User;
-import com.axelor.db.Query;
+import com.axelor.db.JPA;
+import com.axelor.db.Model;
 import com.axelor.i18n.I18n;
 import com.axelor.inject.Beans;
 import com.axelor.utils.helpers.StringHelper;
@@ -52,9 +54,15 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.TreeSet;
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.TypedQuery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -447,6 +455,71 @@ public class StockLocationLineServiceImpl implements StockLocationLineService {
     return stockLocationLine;
   }
 
+  @Override
+  public void lockProducts(Collection<Long> productIdList) {
+    EntityManager em = JPA.em();
+
+    if (productIdList.isEmpty() || !em.getTransaction().isActive()) {
+      return;
+    }
+
+    lockEntities(em, Product.class, new ArrayList<>(new TreeSet<>(productIdList)));
+    lockEntities(
+        em,
+        ProductCompany.class,
+        em.createQuery(
+                "SELECT self.id FROM ProductCompany self "
+                    + "WHERE self.product.id IN :productIdList "
+                    + "ORDER BY self.id",
+                Long.class)
+            .setParameter("productIdList", productIdList)
+            .getResultList());
+  }
+
+  @Override
+  public void lockStockLocationLines(
+      Collection<Long> stockLocationIdList, Collection<Long> productIdList) {
+    EntityManager em = JPA.em();
+
+    if (stockLocationIdList.isEmpty()
+        || productIdList.isEmpty()
+        || !em.getTransaction().isActive()) {
+      return;
+    }
+
+    lockEntities(
+        em,
+        StockLocationLine.class,
+        em.createQuery(
+                "SELECT self.id FROM StockLocationLine self "
+                    + "WHERE (self.stockLocation.id IN :stockLocationIdList "
+                    + "OR self.detailsStockLocation.id IN :stockLocationIdList) "
+                    + "AND self.product.id IN :productIdList "
+                    + "ORDER BY self.id",
+                Long.class)
+            .setParameter("stockLocationIdList", stockLocationIdList)
+            .setParameter("productIdList", productIdList)
+            .getResultList());
+  }
+
+  /**
+   * Lock the entities of the given ids, in the order of the list, and reload them with the values
+   * committed by the other transactions. The ids of the entities deleted in the meantime are
+   * skipped.
+   */
+  protected <T extends Model> void lockEntities(
+      EntityManager em, Class<T> entityClass, List<Long> idList) {
+    // The pending changes are flushed first, so that refreshing the entities does not drop them.
+    em.flush();
+
+    for (Long id : idList) {
+      T entity = em.find(entityClass, id);
+      if (entity != null && em.getLockMode(entity) != LockModeType.PESSIMISTIC_WRITE) {
+        em.refresh(entity, LockModeType.PESSIMISTIC_WRITE);
+      }
+    }
+  }
+
   @Override
   public StockLocationLine getOrCreateStockLocationLine(
       StockLocation stockLocation, Product product) {
@@ -692,11 +765,6 @@ public class StockLocationLineServiceImpl implements StockLocationLineService {
 
     BigDecimal futureQty = stockLocationLine.getCurrentQty();
 
-    List<StockMoveLine> incomingStockMoveLineList =
-        findIncomingPlannedStockMoveLines(stockLocationLine);
-    List<StockMoveLine> outgoingStockMoveLineList =
-        findOutgoingPlannedStockMoveLines(stockLocationLine);
-
     if (stockLocationLine.getUnit() == null) {
       throw new AxelorException(
           TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
@@ -705,80 +773,84 @@ public class StockLocationLineServiceImpl implements StockLocationLineService {
           product.getFullName());
     }
 
-    for (StockMoveLine incomingStockMoveLine : incomingStockMoveLineList) {
-      BigDecimal qtyToAdd =
-          unitConversionService.convert(
-              incomingStockMoveLine.getUnit(),
-              stockLocationLine.getUnit(),
-              incomingStockMoveLine.getRealQty(),
-              incomingStockMoveLine.getRealQty().scale(),
-              product);
-      futureQty = futureQty.add(qtyToAdd);
-    }
-
-    for (StockMoveLine outgoingStockMoveLine : outgoingStockMoveLineList) {
-      BigDecimal qtyToSubtract =
-          unitConversionService.convert(
-              outgoingStockMoveLine.getUnit(),
-              stockLocationLine.getUnit(),
-              outgoingStockMoveLine.getRealQty(),
-              outgoingStockMoveLine.getRealQty().scale(),
-              product);
-      futureQty = futureQty.subtract(qtyToSubtract);
-    }
+    futureQty =
+        futureQty
+            .add(computePlannedQty(stockLocationLine, true))
+            .subtract(computePlannedQty(stockLocationLine, false));
 
     return futureQty;
   }
 
-  protected List<StockMoveLine> findIncomingPlannedStockMoveLines(
-      StockLocationLine stockLocationLine) {
-    boolean isDetailsStockLocationLine = stockLocationLine.getDetailsStockLocation() != null;
-    String incomingStockMoveLineFilter =
-        STOCK_MOVE_LINE_FILTER + "AND self.toStockLocation.id = :stockLocationId";
-    if (isDetailsStockLocationLine) {
-      incomingStockMoveLineFilter =
-          incomingStockMoveLineFilter + " AND self.trackingNumber.id = :trackingNumberId";
-    }
-    Query<StockMoveLine> stockMoveLineQuery =
-        stockMoveLineRepository
-            .all()
-            .filter(incomingStockMoveLineFilter)
-            .bind("planned", StockMoveRepository.STATUS_PLANNED)
-            .bind("productId", stockLocationLine.getProduct().getId());
-    if (isDetailsStockLocationLine) {
-      stockMoveLineQuery
-          .bind("stockLocationId", stockLocationLine.getDetailsStockLocation().getId())
-          .bind("trackingNumberId", stockLocationLine.getTrackingNumber().getId());
-    } else {
-      stockMoveLineQuery.bind("stockLocationId", stockLocationLine.getStockLocation().getId());
+  /**
+   * Sum the real quantities of the planned stock move lines coming in (or going out of) the stock
+   * location of the given line, converted in the unit of the line.
+   *
+   * <p>Quantities are summed in database per unit so that only one conversion is made for each
+   * unit used by the planned stock move lines.
+   *
+   * @param stockLocationLine a stock location line or a details stock location line
+   * @param incoming true to sum incoming lines, false to sum outgoing lines
+   * @return the planned quantity in the unit of the stock location line
+   * @throws AxelorException if a unit conversion is missing
+   */
+  protected BigDecimal computePlannedQty(StockLocationLine stockLocationLine, boolean incoming)
+      throws AxelorException {
+    BigDecimal plannedQty = BigDecimal.ZERO;
+
+    for (Object[] result : sumPlannedQtyPerUnit(stockLocationLine, incoming)) {
+      BigDecimal qty = (BigDecimal) result[1];
+      if (qty == null || qty.signum() == 0) {
+        continue;
+      }
+      Unit unit = result[0] != null ? JPA.find(Unit.class, (Long) result[0]) : null;
+      plannedQty =
+          plannedQty.add(
+              unitConversionService.convert(
+                  unit,
+                  stockLocationLine.getUnit(),
+                  qty,
+                  qty.scale(),
+                  stockLocationLine.getProduct()));
     }
-    return stockMoveLineQuery.fetch();
+
+    return plannedQty;
   }
 
-  protected List<StockMoveLine> findOutgoingPlannedStockMoveLines(
-      StockLocationLine stockLocationLine) {
+  /**
+   * @return for each unit of the planned stock move lines, an array containing the unit id and the
+   *     sum of the real quantities.
+   */
+  protected List<Object[]> sumPlannedQtyPerUnit(
+      StockLocationLine stockLocationLine, boolean incoming) {
     boolean isDetailsStockLocationLine = stockLocationLine.getDetailsStockLocation() != null;
-    String outgoingStockMoveLineFilter =
-        STOCK_MOVE_LINE_FILTER + "AND self.fromStockLocation.id = :stockLocationId";
+    String plannedStockMoveLineFilter =
+        STOCK_MOVE_LINE_FILTER
+            + (incoming
+                ? "AND self.toStockLocation.id = :stockLocationId"
+                : "AND self.fromStockLocation.id = :stockLocationId");
     if (isDetailsStockLocationLine) {
-      outgoingStockMoveLineFilter =
-          outgoingStockMoveLineFilter + " AND self.trackingNumber.id = :trackingNumberId";
+      plannedStockMoveLineFilter =
+          plannedStockMoveLineFilter + " AND self.trackingNumber.id = :trackingNumberId";
     }
-    Query<StockMoveLine> stockMoveLineQuery =
-        stockMoveLineRepository
-            .all()
-            .filter(outgoingStockMoveLineFilter)
-            .bind("planned", StockMoveRepository.STATUS_PLANNED)
-            .bind("productId", stockLocationLine.getProduct().getId());
+
+    TypedQuery<Object[]> query =
+        JPA.em()
+            .createQuery(
+                "SELECT self.unit.id, SUM(self.realQty) FROM StockMoveLine self WHERE "
+                    + plannedStockMoveLineFilter
+                    + " GROUP BY self.unit.id",
+                Object[].class)
+            .setParameter("planned", StockMoveRepository.STATUS_PLANNED)
+            .setParameter("productId", stockLocationLine.getProduct().getId());
 
     if (isDetailsStockLocationLine) {
-      stockMoveLineQuery
-          .bind("stockLocationId", stockLocationLine.getDetailsStockLocation().getId())
-          .bind("trackingNumberId", stockLocationLine.getTrackingNumber().getId());
+      query
+          .setParameter("stockLocationId", stockLocationLine.getDetailsStockLocation().getId())
+          .setParameter("trackingNumberId", stockLocationLine.getTrackingNumber().getId());
     } else {
-      stockMoveLineQuery.bind("stockLocationId", stockLocationLine.getStockLocation().getId());
+      query.setParameter("stockLocationId", stockLocationLine.getStockLocation().getId());
     }
-    return stockMoveLineQuery.fetch();
+    return query.getResultList();
   }
 
   @Override
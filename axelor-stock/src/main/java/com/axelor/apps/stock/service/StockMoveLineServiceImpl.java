@@ -64,12 +64,16 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 import org.apache.commons.collections.CollectionUtils;
@@ -537,57 +541,170 @@ public class StockMoveLineServiceImpl implements StockMoveLineService {
 
     stockMoveLineList = MoreObjects.firstNonNull(stockMoveLineList, Collections.emptyList());
 
-    for (StockMoveLine stockMoveLine : stockMoveLineList) {
+    Collection<List<StockMoveLine>> stockMoveLineGroups = groupStockMoveLines(stockMoveLineList);
+    lockStockLocationLines(stockMoveLineGroups, toStatus);
+
+    // The products whose average price is recomputed once all the lines are processed
+    Map<Long, Product> productMap = new LinkedHashMap<>();
+
+    for (List<StockMoveLine> stockMoveLineGroup : stockMoveLineGroups) {
+      StockMoveLine stockMoveLine = stockMoveLineGroup.get(0);
       StockLocation fromStockLocation = stockMoveLine.getFromStockLocation();
       StockLocation toStockLocation = stockMoveLine.getToStockLocation();
 
       Product product = stockMoveLine.getProduct();
 
-      if (product != null
-          && product.getProductTypeSelect().equals(ProductRepository.PRODUCT_TYPE_STORABLE)) {
+      BigDecimal qty = BigDecimal.ZERO;
+      for (StockMoveLine groupStockMoveLine : stockMoveLineGroup) {
+        qty = qty.add(realQty ? groupStockMoveLine.getRealQty() : groupStockMoveLine.getQty());
+      }
 
-        BigDecimal qty;
-        if (realQty) {
-          qty = stockMoveLine.getRealQty();
-        } else {
-          qty = stockMoveLine.getQty();
+      this.updateLocations(
+          stockMoveLine,
+          product,
+          qty,
+          fromStatus,
+          toStatus,
+          lastFutureStockMoveDate,
+          stockMoveLine.getTrackingNumber(),
+          generateOrder);
+      if (toStatus == StockMoveRepository.STATUS_REALIZED) {
+
+        if (fromStockLocation.getTypeSelect() != StockLocationRepository.TYPE_VIRTUAL) {
+          // We dont recompute average price for outgoing lines
+          this.updateStockLocationLineHistory(
+              fromStockLocation, stockMoveLine, date, origin, toStatus);
         }
-
-        this.updateLocations(
-            stockMoveLine,
-            stockMoveLine.getProduct(),
-            qty,
-            fromStatus,
-            toStatus,
-            lastFutureStockMoveDate,
-            stockMoveLine.getTrackingNumber(),
-            generateOrder);
-        if (toStatus == StockMoveRepository.STATUS_REALIZED) {
-
-          if (fromStockLocation.getTypeSelect() != StockLocationRepository.TYPE_VIRTUAL) {
-            // We dont recompute average price for outgoing lines
-            this.updateStockLocationLineHistory(
-                fromStockLocation, stockMoveLine, date, origin, toStatus);
-          }
-          if (toStockLocation.getTypeSelect() != StockLocationRepository.TYPE_VIRTUAL) {
-            this.updateAveragePriceAndLocationLineHistory(
-                toStockLocation, stockMoveLine, fromStatus, toStatus, date, origin);
-          }
-          weightedAveragePriceService.computeAvgPriceForProduct(stockMoveLine.getProduct());
+        if (toStockLocation.getTypeSelect() != StockLocationRepository.TYPE_VIRTUAL) {
+          this.updateAveragePriceAndLocationLineHistory(
+              toStockLocation, stockMoveLineGroup, fromStatus, toStatus, date, origin);
         }
-        if (fromStatus == StockMoveRepository.STATUS_REALIZED
-            && toStatus == StockMoveRepository.STATUS_CANCELED) {
-          // We dont recompute on cancel
-          if (fromStockLocation.getTypeSelect() != StockLocationRepository.TYPE_VIRTUAL) {
-            this.updateStockLocationLineHistory(
-                fromStockLocation, stockMoveLine, date, origin, toStatus);
-          }
-          if (toStockLocation.getTypeSelect() != StockLocationRepository.TYPE_VIRTUAL) {
-            this.updateStockLocationLineHistory(
-                toStockLocation, stockMoveLine, date, origin, toStatus);
-          }
+        productMap.put(product.getId(), product);
+      }
+      if (fromStatus == StockMoveRepository.STATUS_REALIZED
+          && toStatus == StockMoveRepository.STATUS_CANCELED) {
+        // We dont recompute on cancel
+        if (fromStockLocation.getTypeSelect() != StockLocationRepository.TYPE_VIRTUAL) {
+          this.updateStockLocationLineHistory(
+              fromStockLocation, stockMoveLine, date, origin, toStatus);
         }
+        if (toStockLocation.getTypeSelect() != StockLocationRepository.TYPE_VIRTUAL) {
+          this.updateStockLocationLineHistory(
+              toStockLocation, stockMoveLine, date, origin, toStatus);
+        }
+      }
+    }
+
+    for (Product product : productMap.values()) {
+      weightedAveragePriceService.computeAvgPriceForProduct(product);
+    }
+  }
+
+  /**
+   * Group the lines of storable products moving the same product, in the same unit and with the
+   * same tracking number, between the same stock locations. The groups and the lines of each group
+   * are in the order of the given list, so that the stock location lines are updated once per group
+   * instead of once per line.
+   *
+   * @param stockMoveLineList the lines of a stock move
+   * @return the groups of lines
+   */
+  protected Collection<List<StockMoveLine>> groupStockMoveLines(
+      List<StockMoveLine> stockMoveLineList) {
+    Map<List<Long>, List<StockMoveLine>> stockMoveLineGroupMap = new LinkedHashMap<>();
+
+    for (StockMoveLine stockMoveLine : stockMoveLineList) {
+      Product product = stockMoveLine.getProduct();
+
+      if (product == null
+          || !product.getProductTypeSelect().equals(ProductRepository.PRODUCT_TYPE_STORABLE)) {
+        continue;
+      }
+
+      List<Long> key =
+          Arrays.asList(
+              stockMoveLine.getFromStockLocation().getId(),
+              stockMoveLine.getToStockLocation().getId(),
+              product.getId(),
+              Optional.ofNullable(stockMoveLine.getUnit()).map(Unit::getId).orElse(null),
+              Optional.ofNullable(stockMoveLine.getTrackingNumber())
+                  .map(TrackingNumber::getId)
+                  .orElse(null));
+      stockMoveLineGroupMap.computeIfAbsent(key, k -> new ArrayList<>()).add(stockMoveLine);
+    }
+
+    return stockMoveLineGroupMap.values();
+  }
+
+  /**
+   * Lock the stock location lines updated by the given groups of lines. When the lines are
+   * realized, their products are locked first, as their average price is updated afterwards.
+   */
+  protected void lockStockLocationLines(
+      Collection<List<StockMoveLine>> stockMoveLineGroups, int toStatus) {
+    Set<Long> stockLocationIdSet = new HashSet<>();
+    Set<Long> productIdSet = new HashSet<>();
+
+    for (List<StockMoveLine> stockMoveLineGroup : stockMoveLineGroups) {
+      StockMoveLine stockMoveLine = stockMoveLineGroup.get(0);
+      stockLocationIdSet.add(stockMoveLine.getFromStockLocation().getId());
+      stockLocationIdSet.add(stockMoveLine.getToStockLocation().getId());
+      productIdSet.add(stockMoveLine.getProduct().getId());
+    }
+
+    if (toStatus == StockMoveRepository.STATUS_REALIZED) {
+      stockLocationLineService.lockProducts(productIdSet);
+    }
+    stockLocationLineService.lockStockLocationLines(stockLocationIdSet, productIdSet);
+  }
+
+  /**
+   * Update the average price of the stock location line receiving a group of lines and add one
+   * history line for the group. The quantities of the whole group must already be added to the
+   * stock location line: a history line records the quantity and the average price of the stock
+   * location line, which are the same after each line of the group.
+   */
+  protected void updateAveragePriceAndLocationLineHistory(
+      StockLocation stockLocation,
+      List<StockMoveLine> stockMoveLineList,
+      int fromStatus,
+      int toStatus,
+      LocalDate date,
+      String origin)
+      throws AxelorException {
+    if (stockMoveLineList.size() == 1) {
+      this.updateAveragePriceAndLocationLineHistory(
+          stockLocation, stockMoveLineList.get(0), fromStatus, toStatus, date, origin);
+      return;
+    }
+
+    StockMoveLine firstStockMoveLine = stockMoveLineList.get(0);
+    StockLocationLine stockLocationLine =
+        stockLocationLineService.getOrCreateStockLocationLine(
+            stockLocation, firstStockMoveLine.getProduct());
+    if (stockLocationLine == null) {
+      return;
+    }
+
+    if (toStatus == StockMoveRepository.STATUS_REALIZED) {
+      BigDecimal newQty = BigDecimal.ZERO;
+      BigDecimal newAmount = BigDecimal.ZERO;
+      for (StockMoveLine stockMoveLine : stockMoveLineList) {
+        BigDecimal qty = this.getQtyInLocationLineUnit(stockLocationLine, stockMoveLine);
+        newQty = newQty.add(qty);
+        newAmount =
+            newAmount.add(
+                this.getPriceInLocationLineUnit(stockLocationLine, stockMoveLine).multiply(qty));
       }
+      stockLocationLine.setAvgPrice(
+          this.computeNewAveragePrice(stockLocationLine, newQty, newAmount));
+
+      stockLocationLineService.updateHistory(
+          stockLocationLine,
+          firstStockMoveLine,
+          date != null ? date.atStartOfDay() : null,
+          origin,
+          getStockLocationLineHistoryTypeSelect(toStatus));
     }
   }
 
@@ -718,46 +835,70 @@ public class StockMoveLineServiceImpl implements StockMoveLineService {
   @Override
   public BigDecimal computeNewAveragePriceLocationLine(
       StockLocationLine stockLocationLine, StockMoveLine stockMoveLine) throws AxelorException {
-    BigDecimal oldAvgPrice = stockLocationLine.getAvgPrice();
-    // avgPrice in stock move line is a bigdecimal but is nullable.
-    BigDecimal newQty = stockMoveLine.getRealQty();
-    BigDecimal newPrice =
-        stockMoveLine.getWapPrice() != null
-            ? stockMoveLine.getWapPrice()
-            : stockMoveLine.getCompanyUnitPriceUntaxed();
-    BigDecimal newAvgPrice;
+    BigDecimal newQty = this.getQtyInLocationLineUnit(stockLocationLine, stockMoveLine);
+    BigDecimal newPrice = this.getPriceInLocationLineUnit(stockLocationLine, stockMoveLine);
 
+    return this.computeNewAveragePrice(stockLocationLine, newQty, newPrice.multiply(newQty));
+  }
+
+  protected BigDecimal getQtyInLocationLineUnit(
+      StockLocationLine stockLocationLine, StockMoveLine stockMoveLine) throws AxelorException {
+    BigDecimal qty = stockMoveLine.getRealQty();
     Unit stockLocationLineUnit = stockLocationLine.getUnit();
     Unit stockMoveLineUnit = stockMoveLine.getUnit();
 
     if (stockLocationLineUnit != null && !stockLocationLineUnit.equals(stockMoveLineUnit)) {
-      newQty =
+      qty =
           unitConversionService.convert(
               stockMoveLineUnit,
               stockLocationLineUnit,
-              newQty,
-              newQty.scale(),
+              qty,
+              qty.scale(),
               stockMoveLine.getProduct());
+    }
+    return qty;
+  }
 
-      newPrice =
+  protected BigDecimal getPriceInLocationLineUnit(
+      StockLocationLine stockLocationLine, StockMoveLine stockMoveLine) throws AxelorException {
+    // avgPrice in stock move line is a bigdecimal but is nullable.
+    BigDecimal price =
+        stockMoveLine.getWapPrice() != null
+            ? stockMoveLine.getWapPrice()
+            : stockMoveLine.getCompanyUnitPriceUntaxed();
+    Unit stockLocationLineUnit = stockLocationLine.getUnit();
+    Unit stockMoveLineUnit = stockMoveLine.getUnit();
+
+    if (stockLocationLineUnit != null && !stockLocationLineUnit.equals(stockMoveLineUnit)) {
+      price =
           unitConversionService.convert(
               stockLocationLineUnit,
               stockMoveLineUnit,
-              newPrice,
-              newPrice.scale(),
+              price,
+              price.scale(),
               stockMoveLine.getProduct());
     }
+    return price;
+  }
 
+  /**
+   * Compute the average price of a stock location line once the given quantity, valued at the
+   * given amount, has been added to its current quantity.
+   */
+  protected BigDecimal computeNewAveragePrice(
+      StockLocationLine stockLocationLine, BigDecimal newQty, BigDecimal newAmount) {
+    BigDecimal oldAvgPrice = stockLocationLine.getAvgPrice();
+    BigDecimal newAvgPrice;
     BigDecimal oldQty = stockLocationLine.getCurrentQty().subtract(newQty);
 
     log.debug(
-        "Old price: {}, Old quantity: {}, New price: {}, New quantity: {}",
+        "Old price: {}, Old quantity: {}, New amount: {}, New quantity: {}",
         oldAvgPrice,
         oldQty,
-        newPrice,
+        newAmount,
         newQty);
     BigDecimal sum = oldAvgPrice.multiply(oldQty);
-    sum = sum.add(newPrice.multiply(newQty));
+    sum = sum.add(newAmount);
     BigDecimal denominator = oldQty.add(newQty);
     if (denominator.compareTo(BigDecimal.ZERO) != 0) {
       int scale = appBaseService.getNbDecimalDigitForUnitPrice();
@@ -53,6 +53,7 @@ import com.axelor.apps.stock.exception.StockExceptionMessage;
 import com.axelor.apps.stock.service.app.AppStockService;
 import com.axelor.apps.stock.service.config.StockConfigService;
 import com.axelor.common.ObjectUtils;
+import com.axelor.db.JPA;
 import com.axelor.i18n.I18n;
 import com.axelor.inject.Beans;
 import com.axelor.message.db.Template;
@@ -1149,15 +1150,40 @@ public class StockMoveServiceImpl implements StockMoveService {
 
   @Override
   public List<Map<String, Object>> getStockPerDate(
-      Long locationId, Long productId, LocalDate fromDate, LocalDate toDate) {
+      Long locationId, Long productId, LocalDate fromDate, LocalDate toDate)
+      throws AxelorException {
 
     List<Map<String, Object>> stock = new ArrayList<>();
 
+    if (fromDate.isAfter(toDate)) {
+      return stock;
+    }
+
+    // The quantities moved are summed in the database by move dates and unit, and the quantity of
+    // each day is the quantity of the previous day plus the quantities moved on that day.
+    Product product = productRepository.find(productId);
+    Map<LocalDate, BigDecimal> qtyPerDateMap = new HashMap<>();
+    BigDecimal qty = BigDecimal.ZERO;
+    for (Object[] movedQtyRow : getMovedQtyRowsUntil(locationId, productId, toDate)) {
+      LocalDate date = getStockDate((LocalDate) movedQtyRow[0], (LocalDate) movedQtyRow[1]);
+      BigDecimal movedQty =
+          getStockQty(
+              product,
+              (Long) movedQtyRow[2],
+              ((BigDecimal) movedQtyRow[3]).subtract((BigDecimal) movedQtyRow[4]));
+
+      if (date.isBefore(fromDate)) {
+        qty = qty.add(movedQty);
+      } else {
+        qtyPerDateMap.merge(date, movedQty, BigDecimal::add);
+      }
+    }
+
     while (!fromDate.isAfter(toDate)) {
-      Double qty = getStock(locationId, productId, fromDate);
+      qty = qty.add(qtyPerDateMap.getOrDefault(fromDate, BigDecimal.ZERO));
       Map<String, Object> dateStock = new HashMap<>();
       dateStock.put("$date", fromDate);
-      dateStock.put("$qty", new BigDecimal(qty));
+      dateStock.put("$qty", qty);
       stock.add(dateStock);
       fromDate = fromDate.plusDays(1);
     }
@@ -1165,39 +1191,59 @@ public class StockMoveServiceImpl implements StockMoveService {
     return stock;
   }
 
-  protected Double getStock(Long locationId, Long productId, LocalDate date) {
-
-    List<StockMoveLine> inLines =
-        stockMoveLineRepo
-            .all()
-            .filter(
-                "self.product.id = ?1 AND self.toStockLocation.id = ?2 AND self.stockMove.statusSelect != ?3 AND (self.stockMove.estimatedDate <= ?4 OR self.stockMove.realDate <= ?4)",
-                productId,
-                locationId,
-                StockMoveRepository.STATUS_CANCELED,
-                date)
-            .fetch();
-
-    List<StockMoveLine> outLines =
-        stockMoveLineRepo
-            .all()
-            .filter(
-                "self.product.id = ?1 AND self.fromStockLocation.id = ?2 AND self.stockMove.statusSelect != ?3 AND (self.stockMove.estimatedDate <= ?4 OR self.stockMove.realDate <= ?4)",
-                productId,
-                locationId,
-                StockMoveRepository.STATUS_CANCELED,
-                date)
-            .fetch();
-
-    Double inQty =
-        inLines.stream().mapToDouble(inl -> Double.parseDouble(inl.getQty().toString())).sum();
-
-    Double outQty =
-        outLines.stream().mapToDouble(out -> Double.parseDouble(out.getQty().toString())).sum();
+  /**
+   * Get the quantities of the product entering and leaving the stock location until the given
+   * date, summed by estimated date, real date and unit of the lines.
+   *
+   * @return rows of estimated date, real date, unit id, quantity entering and quantity leaving
+   */
+  protected List<Object[]> getMovedQtyRowsUntil(Long locationId, Long productId, LocalDate date) {
+    return JPA.em()
+        .createQuery(
+            "SELECT self.stockMove.estimatedDate, self.stockMove.realDate, self.unit.id, "
+                + "SUM(CASE WHEN self.toStockLocation.id = :locationId THEN self.qty ELSE 0 END), "
+                + "SUM(CASE WHEN self.fromStockLocation.id = :locationId THEN self.qty ELSE 0 END) "
+                + "FROM StockMoveLine self "
+                + "WHERE self.product.id = :productId "
+                + "AND (self.toStockLocation.id = :locationId "
+                + "OR self.fromStockLocation.id = :locationId) "
+                + "AND self.stockMove.statusSelect != :canceled "
+                + "AND (self.stockMove.estimatedDate <= :date OR self.stockMove.realDate <= :date) "
+                + "GROUP BY self.stockMove.estimatedDate, self.stockMove.realDate, self.unit.id",
+            Object[].class)
+        .setParameter("productId", productId)
+        .setParameter("locationId", locationId)
+        .setParameter("canceled", StockMoveRepository.STATUS_CANCELED)
+        .setParameter("date", date)
+        .getResultList();
+  }
 
-    Double qty = inQty - outQty;
+  /**
+   * Get the first day a move is taken into account in the stock, which is the earliest of its
+   * estimated and real dates.
+   */
+  protected LocalDate getStockDate(LocalDate estimatedDate, LocalDate realDate) {
+    if (estimatedDate == null || (realDate != null && realDate.isBefore(estimatedDate))) {
+      return realDate;
+    }
+    return estimatedDate;
+  }
 
-    return qty;
+  /** Convert a quantity moved in the given unit to the unit of the product. */
+  protected BigDecimal getStockQty(Product product, Long unitId, BigDecimal qty)
+      throws AxelorException {
+    Unit productUnit = product.getUnit();
+
+    if (unitId == null || productUnit == null || unitId.equals(productUnit.getId())) {
+      return qty;
+    }
+    return Beans.get(UnitConversionService.class)
+        .convert(
+            JPA.find(Unit.class, unitId),
+            productUnit,
+            qty,
+            appBaseService.getNbDecimalDigitForQty(),
+            product);
   }
 
   @Override
@@ -0,0 +1,154 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2024 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.stock.service;
+
+import com.axelor.apps.base.db.Product;
+import com.axelor.apps.stock.db.StockLocation;
+import com.axelor.apps.stock.db.StockMoveLine;
+import com.axelor.apps.stock.db.repo.StockMoveRepository;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TestStockLocationLineLock {
+
+  private List<String> callList;
+  private StockLocationLineServiceImpl stockLocationLineService;
+
+  @BeforeEach
+  void prepare() {
+    callList = new ArrayList<>();
+    stockLocationLineService =
+        new StockLocationLineServiceImpl(null, null, null, null, null, null) {
+          @Override
+          public void lockProducts(Collection<Long> productIdList) {
+            callList.add("products " + productIdList.size());
+          }
+
+          @Override
+          public void lockStockLocationLines(
+              Collection<Long> stockLocationIdList, Collection<Long> productIdList) {
+            callList.add("lines " + stockLocationIdList.size() + " " + productIdList.size());
+          }
+        };
+  }
+
+  @Test
+  void testLockEntitiesFlushesThenRefreshesInOrder() {
+    Map<Long, Product> productMap =
+        Map.of(1L, createProduct(1L), 3L, createProduct(3L), 4L, createProduct(4L));
+    Product lockedProduct = productMap.get(4L);
+
+    EntityManager em =
+        (EntityManager)
+            Proxy.newProxyInstance(
+                EntityManager.class.getClassLoader(),
+                new Class<?>[] {EntityManager.class},
+                (proxy, method, args) -> {
+                  switch (method.getName()) {
+                    case "flush":
+                      callList.add("flush");
+                      return null;
+                    case "find":
+                      return productMap.get((Long) args[1]);
+                    case "getLockMode":
+                      return args[0] == lockedProduct
+                          ? LockModeType.PESSIMISTIC_WRITE
+                          : LockModeType.NONE;
+                    case "refresh":
+                      callList.add("refresh " + ((Product) args[0]).getId() + " " + args[1]);
+                      return null;
+                    default:
+                      throw new UnsupportedOperationException(method.getName());
+                  }
+                });
+
+    // The product 2 was deleted and the product 4 is already locked by the transaction
+    stockLocationLineService.lockEntities(em, Product.class, List.of(3L, 1L, 2L, 4L));
+
+    Assertions.assertEquals(
+        List.of("flush", "refresh 3 PESSIMISTIC_WRITE", "refresh 1 PESSIMISTIC_WRITE"), callList);
+  }
+
+  @Test
+  void testProductsLockedBeforeLinesWhenRealized() {
+    createStockMoveLineService()
+        .lockStockLocationLines(
+            List.of(
+                List.of(createStockMoveLine(1L, 2L, 10L), createStockMoveLine(1L, 2L, 10L)),
+                List.of(createStockMoveLine(1L, 3L, 11L))),
+            StockMoveRepository.STATUS_REALIZED);
+
+    Assertions.assertEquals(List.of("products 2", "lines 3 2"), callList);
+  }
+
+  @Test
+  void testProductsNotLockedWhenPlanned() {
+    createStockMoveLineService()
+        .lockStockLocationLines(
+            List.of(List.of(createStockMoveLine(1L, 2L, 10L))),
+            StockMoveRepository.STATUS_PLANNED);
+
+    Assertions.assertEquals(List.of("lines 2 1"), callList);
+  }
+
+  private StockMoveLineServiceImpl createStockMoveLineService() {
+    return new StockMoveLineServiceImpl(
+        null,
+        null,
+        null,
+        null,
+        null,
+        stockLocationLineService,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null);
+  }
+
+  private StockMoveLine createStockMoveLine(
+      Long fromStockLocationId, Long toStockLocationId, Long productId) {
+    StockMoveLine stockMoveLine = new StockMoveLine();
+    stockMoveLine.setFromStockLocation(createStockLocation(fromStockLocationId));
+    stockMoveLine.setToStockLocation(createStockLocation(toStockLocationId));
+    stockMoveLine.setProduct(createProduct(productId));
+    return stockMoveLine;
+  }
+
+  private StockLocation createStockLocation(Long id) {
+    StockLocation stockLocation = new StockLocation();
+    stockLocation.setId(id);
+    return stockLocation;
+  }
+
+  private Product createProduct(Long id) {
+    Product product = new Product();
+    product.setId(id);
+    return product;
+  }
+}
@@ -70,6 +70,7 @@ import com.axelor.db.Model;
 import com.axelor.db.Query;
 import com.axelor.db.mapper.Mapper;
 import com.axelor.i18n.I18n;
+import com.axelor.inject.Beans;
 import com.axelor.message.service.MailMessageService;
 import com.axelor.utils.helpers.StringHelper;
 import com.google.common.collect.Lists;
@@ -85,16 +86,22 @@ import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -104,6 +111,9 @@ public class MrpServiceImpl implements MrpService {
   private final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
   private static final Integer ITERATIONS = 100;
 
+  /** Number of records processed in a single transaction when creating the MRP lines. */
+  protected static final int BATCH_SIZE = 50;
+
   protected MrpRepository mrpRepository;
   protected StockLocationRepository stockLocationRepository;
   protected ProductRepository productRepository;
@@ -131,6 +141,7 @@ public class MrpServiceImpl implements MrpService {
   protected Map<Long, Integer> productMap;
   protected Map<Long, Integer> productMapToBeAssigned;
   protected Integer currentLevel;
+  protected Set<Long> netChangeProductIdSet;
   protected Mrp mrp;
   protected LocalDate today;
 
@@ -189,7 +200,21 @@ public class MrpServiceImpl implements MrpService {
   @Override
   public void runCalculation(Mrp mrp) throws AxelorException {
 
-    this.reset(mrpRepository.find(mrp.getId()));
+    mrp = mrpRepository.find(mrp.getId());
+    this.netChangeProductIdSet =
+        this.isNetChangePossible(mrp) ? this.getNetChangeProductIdSet(mrp) : null;
+
+    if (netChangeProductIdSet == null) {
+      this.reset(mrpRepository.find(mrp.getId()));
+    } else if (netChangeProductIdSet.isEmpty()) {
+      log.debug("Net change MRP: no product to recompute");
+      this.startMrp(mrpRepository.find(mrp.getId()));
+      this.finish(mrpRepository.find(mrp.getId()));
+      return;
+    } else {
+      log.debug("Net change MRP: {} products to recompute", netChangeProductIdSet.size());
+      this.reset(mrpRepository.find(mrp.getId()), netChangeProductIdSet);
+    }
 
     this.startMrp(mrpRepository.find(mrp.getId()));
     this.completeMrp(mrpRepository.find(mrp.getId()));
@@ -240,6 +265,174 @@ public class MrpServiceImpl implements MrpService {
     mrpRepository.save(mrp);
   }
 
+  /**
+   * A net change calculation is only possible if it is asked on the mrp, if the previous
+   * calculation ended the same day, and if neither the mrp nor the mrp line types were modified
+   * since, so the lines of the other products are still valid.
+   *
+   * @param mrp
+   * @return true if only the products changed since the previous calculation can be recomputed
+   */
+  protected boolean isNetChangePossible(Mrp mrp) {
+    return mrp.getNetChange()
+        && mrp.getStatusSelect() == MrpRepository.STATUS_CALCULATION_ENDED
+        && mrp.getStartDateTime() != null
+        && mrp.getEndDateTime() != null
+        && mrp.getStartDateTime()
+            .toLocalDate()
+            .equals(appBaseService.getTodayDate(mrp.getStockLocation().getCompany()))
+        && (mrp.getUpdatedOn() == null || !mrp.getUpdatedOn().isAfter(mrp.getEndDateTime()))
+        && !this.isMrpLineTypeChangedSince(mrp.getStartDateTime());
+  }
+
+  protected boolean isMrpLineTypeChangedSince(LocalDateTime since) {
+    return mrpLineTypeRepository
+            .all()
+            .filter("self.createdOn >= :since OR self.updatedOn >= :since")
+            .bind("since", since)
+            .count()
+        > 0;
+  }
+
+  /**
+   * Get the products to recompute: the products having events since the start of the previous
+   * calculation and all the products linked to them.
+   *
+   * @param mrp
+   * @return the ids of the products to recompute
+   */
+  protected Set<Long> getNetChangeProductIdSet(Mrp mrp) {
+    Set<Long> productIdSet =
+        new HashSet<>(this.getChangedProductIdList(mrp, mrp.getStartDateTime()));
+    productIdSet.remove(null);
+
+    Set<Long> linkedProductIdSet = new HashSet<>(productIdSet);
+    while (!linkedProductIdSet.isEmpty()) {
+      linkedProductIdSet = this.getLinkedProductIdSet(linkedProductIdSet);
+      linkedProductIdSet.remove(null);
+      linkedProductIdSet.removeAll(productIdSet);
+      productIdSet.addAll(linkedProductIdSet);
+    }
+    return productIdSet;
+  }
+
+  /**
+   * Get the products of the sale order lines, purchase order lines, stock moves, stock location
+   * lines, stock rules and forecasts created or updated since the given date, and the products of
+   * the lines whose origin has been removed.
+   *
+   * @param mrp
+   * @param since start of the previous calculation
+   * @return the ids of the changed products, possibly with duplicates
+   */
+  protected List<Long> getChangedProductIdList(Mrp mrp, LocalDateTime since) {
+    List<Long> productIdList = new ArrayList<>();
+    productIdList.addAll(
+        this.getChangedProductIdList(
+            "SELECT self.product.id FROM SaleOrderLine self "
+                + "WHERE self.createdOn >= :since OR self.updatedOn >= :since "
+                + "OR self.saleOrder.updatedOn >= :since",
+            since));
+    productIdList.addAll(
+        this.getChangedProductIdList(
+            "SELECT self.product.id FROM PurchaseOrderLine self "
+                + "WHERE self.createdOn >= :since OR self.updatedOn >= :since "
+                + "OR self.purchaseOrder.updatedOn >= :since",
+            since));
+    productIdList.addAll(
+        this.getChangedProductIdList(
+            "SELECT self.product.id FROM StockMoveLine self "
+                + "WHERE self.createdOn >= :since OR self.updatedOn >= :since "
+                + "OR self.stockMove.updatedOn >= :since",
+            since));
+    productIdList.addAll(
+        this.getChangedProductIdList(
+            "SELECT self.product.id FROM StockLocationLine self "
+                + "WHERE self.createdOn >= :since OR self.updatedOn >= :since",
+            since));
+    productIdList.addAll(
+        this.getChangedProductIdList(
+            "SELECT self.product.id FROM StockRules self "
+                + "WHERE self.createdOn >= :since OR self.updatedOn >= :since",
+            since));
+    productIdList.addAll(
+        this.getChangedProductIdList(
+            "SELECT self.product.id FROM MrpForecast self "
+                + "WHERE self.createdOn >= :since OR self.updatedOn >= :since",
+            since));
+
+    productIdList.addAll(this.getRemovedOriginProductIdList(mrp, SaleOrderLine.class));
+    productIdList.addAll(this.getRemovedOriginProductIdList(mrp, PurchaseOrderLine.class));
+    productIdList.addAll(this.getRemovedOriginProductIdList(mrp, MrpForecast.class));
+    return productIdList;
+  }
+
+  protected List<Long> getChangedProductIdList(String queryString, LocalDateTime since) {
+    return JPA.em()
+        .createQuery(queryString, Long.class)
+        .setParameter("since", since)
+        .getResultList();
+  }
+
+  /**
+   * Get the products of the lines of the mrp whose origin of the given type has been removed since
+   * the previous calculation.
+   *
+   * @param mrp
+   * @param originClass the type of origin, saved in {@link MrpLineOrigin#getRelatedToSelect()}
+   * @return the ids of the products
+   */
+  protected List<Long> getRemovedOriginProductIdList(Mrp mrp, Class<? extends Model> originClass) {
+    return JPA.em()
+        .createQuery(
+            "SELECT DISTINCT self.mrpLine.product.id FROM MrpLineOrigin self "
+                + "WHERE self.mrpLine.mrp.id = :mrpId AND self.relatedToSelect = :relatedToSelect "
+                + "AND NOT EXISTS (SELECT origin.id FROM "
+                + originClass.getSimpleName()
+                + " origin WHERE origin.id = self.relatedToSelectId)",
+            Long.class)
+        .setParameter("mrpId", mrp.getId())
+        .setParameter("relatedToSelect", originClass.getName())
+        .getResultList();
+  }
+
+  /**
+   * Get the products whose lines depend on the lines of the given products, or on which their
+   * lines depend. Without bill of material, the lines of a product only depend on itself.
+   *
+   * @param productIdSet ids of the products
+   * @return the ids of the linked products
+   */
+  protected Set<Long> getLinkedProductIdSet(Set<Long> productIdSet) {
+    return new HashSet<>();
+  }
+
+  /**
+   * Remove the lines of the given products, except the ones edited by the user.
+   *
+   * @param mrp
+   * @param productIdSet ids of the products to recompute
+   */
+  @Transactional
+  protected void reset(Mrp mrp, Set<Long> productIdSet) {
+    today = appBaseService.getTodayDate(mrp.getStockLocation().getCompany());
+
+    for (List<Long> productIdList : Lists.partition(new ArrayList<>(productIdSet), BATCH_SIZE)) {
+      mrpLineRepository
+          .all()
+          .filter(
+              "self.mrp.id = ?1 AND self.isEditedByUser = false AND self.product.id IN (?2)",
+              mrp.getId(),
+              productIdList)
+          .remove();
+    }
+
+    mrp.setStatusSelect(MrpRepository.STATUS_DRAFT);
+    mrp.setErrorLog(null);
+
+    mrpRepository.save(mrp);
+  }
+
   protected void completeMrp(Mrp mrp) throws AxelorException {
 
     log.debug("Complete MRP");
@@ -253,22 +446,53 @@ public class MrpServiceImpl implements MrpService {
     this.stockLocationList = slList;
 
     this.assignProductAndLevel(this.getProductList());
+    if (netChangeProductIdSet != null) {
+      productMap.keySet().retainAll(netChangeProductIdSet);
+    }
     if (stockLocationList.isEmpty()) {
       throw new AxelorException(
           Mrp.class,
           TraceBackRepository.CATEGORY_NO_VALUE,
           I18n.get(SupplychainExceptionMessage.MRP_MISSING_STOCK_LOCATION_VALID));
     }
+    long startTime = System.currentTimeMillis();
+
     // Get the stock for each product on each stock location
     this.createAvailableStockMrpLines();
+    startTime = this.logPhase("available stock", startTime);
 
     this.createPurchaseMrpLines();
+    startTime = this.logPhase("purchase orders", startTime);
 
     this.createSaleOrderMrpLines();
+    startTime = this.logPhase("sale orders", startTime);
 
     this.createSaleForecastMrpLines();
+    startTime = this.logPhase("sale forecasts", startTime);
 
     this.createStockHistoryMrpLines();
+    this.logPhase("stock history", startTime);
+  }
+
+  /**
+   * Log the duration of a phase of the calculation, and the number of MRP lines after it in debug
+   * only, as counting them runs a query.
+   *
+   * @param phase name of the phase
+   * @param startTime start time of the phase in milliseconds
+   * @return the end time of the phase, to be used as start time of the next one
+   */
+  protected long logPhase(String phase, long startTime) {
+    long endTime = System.currentTimeMillis();
+    if (log.isDebugEnabled()) {
+      log.debug(
+          "MRP {}: {} done in {} ms, {} MRP lines",
+          mrp.getMrpSeq(),
+          phase,
+          endTime - startTime,
+          mrpLineRepository.all().filter("self.mrp.id = ?1", mrp.getId()).count());
+    }
+    return endTime;
   }
 
   protected void fillMrpLinesForProductMap(Map<Long, Integer> productMap) throws AxelorException {
@@ -300,22 +524,189 @@ public class MrpServiceImpl implements MrpService {
     mrp.setStatusSelect(MrpRepository.STATUS_CALCULATION_ENDED);
     mrp.setEndDateTime(appBaseService.getTodayDateTime().toLocalDateTime());
     mrpRepository.save(mrp);
+
+    // The end date is aligned on the update date of this last save, so that any later update of
+    // the mrp is detected by the next net change calculation.
+    JPA.flush();
+    JPA.em()
+        .createQuery("UPDATE Mrp self SET self.endDateTime = self.updatedOn WHERE self.id = :id")
+        .setParameter("id", mrp.getId())
+        .executeUpdate();
+    JPA.em().refresh(mrp);
   }
 
   protected void checkInsufficientCumulativeQty() throws AxelorException {
 
-    for (int level = 0; level <= this.getMaxLevel(); level++) {
-      this.currentLevel = level;
-      this.productMapToBeAssigned = new HashMap<>();
-      for (Product product : this.getProductList(level)) {
-        this.checkInsufficientCumulativeQty(product);
+    int nbWorkers = this.getNbWorkers();
+    ExecutorService executor = nbWorkers > 1 ? Executors.newFixedThreadPool(nbWorkers) : null;
+
+    try {
+      for (int level = 0; level <= this.getMaxLevel(); level++) {
+        long startTime = System.currentTimeMillis();
+        this.currentLevel = level;
+        this.productMapToBeAssigned = Collections.synchronizedMap(new HashMap<>());
+        List<Product> productList = this.getProductList(level);
+        if (executor != null && productList.size() > 1) {
+          this.checkInsufficientCumulativeQty(productList, executor);
+        } else {
+          for (Product product : productList) {
+            this.checkInsufficientCumulativeQty(product);
+          }
+        }
+        if (productMapToBeAssigned != null && !this.productMapToBeAssigned.isEmpty()) {
+          this.fillMrpLinesForProductMap(productMapToBeAssigned);
+        }
+        this.logPhase("calculation of level " + level, startTime);
+      }
+    } finally {
+      if (executor != null) {
+        executor.shutdownNow();
+      }
+    }
+  }
+
+  protected int getNbWorkers() {
+    return mrp.getNbWorkers() != null ? Math.max(1, mrp.getNbWorkers()) : 1;
+  }
+
+  /**
+   * Check the products of a level with several workers, each one using its own service instance,
+   * entity manager and transactions. The products whose proposals may create lines of a same
+   * product are checked by the same worker in the sequential order, so the result is identical to
+   * a sequential check.
+   *
+   * @param productList the products of the level
+   * @param executor the executor running the workers, shared by all the levels
+   * @throws AxelorException
+   */
+  protected void checkInsufficientCumulativeQty(List<Product> productList, ExecutorService executor)
+      throws AxelorException {
+
+    List<List<Long>> partitionList = this.getProductPartitionList(productList);
+    Long mrpId = mrp.getId();
+    List<Long> stockLocationIdList =
+        stockLocationList.stream().map(StockLocation::getId).collect(Collectors.toList());
+
+    List<Future<Void>> futureList = new ArrayList<>();
+    try {
+      for (List<Long> productIdList : partitionList) {
+        futureList.add(
+            executor.submit(
+                () -> {
+                  this.checkInsufficientCumulativeQtyInWorker(
+                      mrpId, stockLocationIdList, productIdList);
+                  return null;
+                }));
       }
-      if (productMapToBeAssigned != null && !this.productMapToBeAssigned.isEmpty()) {
-        this.fillMrpLinesForProductMap(productMapToBeAssigned);
+      for (Future<Void> future : futureList) {
+        future.get();
+      }
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof AxelorException) {
+        throw (AxelorException) e.getCause();
+      }
+      throw new AxelorException(e.getCause(), TraceBackRepository.CATEGORY_INCONSISTENCY);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new AxelorException(e, TraceBackRepository.CATEGORY_INCONSISTENCY);
+    } finally {
+      futureList.forEach(future -> future.cancel(true));
+    }
+  }
+
+  protected void checkInsufficientCumulativeQtyInWorker(
+      Long mrpId, List<Long> stockLocationIdList, List<Long> productIdList)
+      throws AxelorException {
+    final RequestScoper scope = ServletScopes.scopeRequest(Collections.emptyMap());
+    try (RequestScoper.CloseableScope ignored = scope.open()) {
+      MrpServiceImpl worker = this.createWorker(mrpId, stockLocationIdList);
+      for (Long productId : productIdList) {
+        worker.checkInsufficientCumulativeQty(productRepository.find(productId));
       }
     }
   }
 
+  /**
+   * Create the service instance of a worker. Its mrp and stock locations are fetched again in the
+   * entity manager of the worker, only the product levels are shared with the other workers.
+   *
+   * @param mrpId id of the mrp being calculated
+   * @param stockLocationIdList ids of the stock locations of the calculation
+   * @return a new service instance
+   */
+  protected MrpServiceImpl createWorker(Long mrpId, List<Long> stockLocationIdList) {
+    MrpServiceImpl worker = Beans.get(MrpServiceImpl.class);
+    worker.mrp = mrpRepository.find(mrpId);
+    worker.stockLocationList =
+        stockLocationIdList.stream()
+            .map(stockLocationRepository::find)
+            .collect(Collectors.toList());
+    worker.today = today;
+    worker.currentLevel = currentLevel;
+    worker.netChangeProductIdSet = netChangeProductIdSet;
+    worker.productMap = productMap;
+    worker.productMapToBeAssigned = productMapToBeAssigned;
+    return worker;
+  }
+
+  /**
+   * Split the products of a level in partitions that can be checked independently: two products
+   * whose proposals may create or update lines of a same product are in the same partition. The
+   * partitions and their products keep the order of the given list.
+   *
+   * @param productList the products of a level
+   * @return the ids of the products of each partition
+   */
+  protected List<List<Long>> getProductPartitionList(List<Product> productList) {
+    Map<Long, Set<Long>> proposalProductIdMap =
+        this.getProposalProductIdMap(
+            productList.stream().map(Product::getId).collect(Collectors.toList()));
+
+    int[] parents = new int[productList.size()];
+    Map<Long, Integer> indexMap = new HashMap<>();
+    for (int index = 0; index < productList.size(); index++) {
+      parents[index] = index;
+      Long productId = productList.get(index).getId();
+      for (Long proposalProductId :
+          proposalProductIdMap.getOrDefault(productId, Collections.singleton(productId))) {
+        Integer otherIndex = indexMap.putIfAbsent(proposalProductId, index);
+        if (otherIndex != null) {
+          parents[this.findRoot(parents, index)] = this.findRoot(parents, otherIndex);
+        }
+      }
+    }
+
+    Map<Integer, List<Long>> partitionMap = new LinkedHashMap<>();
+    for (int index = 0; index < productList.size(); index++) {
+      partitionMap
+          .computeIfAbsent(this.findRoot(parents, index), root -> new ArrayList<>())
+          .add(productList.get(index).getId());
+    }
+    return new ArrayList<>(partitionMap.values());
+  }
+
+  protected int findRoot(int[] parents, int index) {
+    while (parents[index] != index) {
+      parents[index] = parents[parents[index]];
+      index = parents[index];
+    }
+    return index;
+  }
+
+  /**
+   * Get, for each product, the products whose lines may be created or updated by its proposals.
+   *
+   * @param productIdList ids of the products of a level
+   * @return the product ids by product id
+   */
+  protected Map<Long, Set<Long>> getProposalProductIdMap(List<Long> productIdList) {
+    Map<Long, Set<Long>> proposalProductIdMap = new HashMap<>();
+    for (Long productId : productIdList) {
+      proposalProductIdMap.computeIfAbsent(productId, id -> new HashSet<>()).add(productId);
+    }
+    return proposalProductIdMap;
+  }
+
   /**
    * Get the list of product for a level
    *
@@ -365,38 +756,40 @@ public class MrpServiceImpl implements MrpService {
           I18n.get(SupplychainExceptionMessage.MRP_TOO_MANY_ITERATIONS));
     }
 
-    boolean doASecondPass = false;
-
-    this.computeCumulativeQty(productRepository.find(product.getId()));
+    boolean doASecondPass = this.checkProductInsufficientCumulativeQty(product, counter == 0);
 
     JPA.clear();
 
-    List<MrpLine> mrpLineList =
-        mrpLineRepository
-            .all()
-            .filter("self.mrp.id = ?1 AND self.product.id = ?2", mrp.getId(), product.getId())
-            .order("maturityDate")
-            .order("mrpLineType.typeSelect")
-            .order("mrpLineType.sequence")
-            .order("id")
-            .fetch();
-    for (MrpLine mrpLine : mrpLineList) {
+    if (doASecondPass) {
 
-      doASecondPass =
-          this.checkInsufficientCumulativeQty(
-              mrpLineRepository.find(mrpLine.getId()),
-              productRepository.find(product.getId()),
-              counter == 0);
-      JPA.clear();
-      if (doASecondPass) {
-        break;
-      }
+      this.checkInsufficientCumulativeQty(product, counter + 1);
     }
+  }
 
-    if (doASecondPass) {
+  /**
+   * Compute the cumulative quantities of the lines of the product, then create a proposal for the
+   * first line whose cumulative quantity is insufficient. The lines are loaded once and checked in
+   * a single transaction.
+   *
+   * @param product
+   * @param firstPass
+   * @return true if a proposal was created, so the lines of the product must be checked again
+   * @throws AxelorException
+   */
+  @Transactional(rollbackOn = {Exception.class})
+  protected boolean checkProductInsufficientCumulativeQty(Product product, boolean firstPass)
+      throws AxelorException {
 
-      this.checkInsufficientCumulativeQty(product, counter + 1);
+    product = productRepository.find(product.getId());
+    List<MrpLine> mrpLineList = this.getMrpLineList(product);
+    this.computeCumulativeQty(mrpLineList);
+
+    for (MrpLine mrpLine : mrpLineList) {
+      if (this.checkInsufficientCumulativeQty(mrpLine, product, firstPass)) {
+        return true;
+      }
     }
+    return false;
   }
 
   @Transactional(rollbackOn = {Exception.class})
@@ -732,16 +1125,27 @@ public class MrpServiceImpl implements MrpService {
 
   @Transactional
   protected void computeCumulativeQty(Product product) {
+    this.computeCumulativeQty(this.getMrpLineList(product));
+  }
 
-    List<MrpLine> mrpLineList =
-        mrpLineRepository
-            .all()
-            .filter("self.mrp.id = ?1 AND self.product.id = ?2", mrp.getId(), product.getId())
-            .order("maturityDate")
-            .order("mrpLineType.typeSelect")
-            .order("mrpLineType.sequence")
-            .order("id")
-            .fetch();
+  /**
+   * Get the lines of the product in the order used to compute the cumulative quantities.
+   *
+   * @param product
+   * @return the sorted lines of the product
+   */
+  protected List<MrpLine> getMrpLineList(Product product) {
+    return mrpLineRepository
+        .all()
+        .filter("self.mrp.id = ?1 AND self.product.id = ?2", mrp.getId(), product.getId())
+        .order("maturityDate")
+        .order("mrpLineType.typeSelect")
+        .order("mrpLineType.sequence")
+        .order("id")
+        .fetch();
+  }
+
+  protected void computeCumulativeQty(List<MrpLine> mrpLineList) {
 
     BigDecimal previousCumulativeQty = BigDecimal.ZERO;
     for (MrpLine mrpLine : mrpLineList) {
@@ -786,28 +1190,54 @@ public class MrpServiceImpl implements MrpService {
     }
 
     // TODO : Manage the case where order is partially delivered
-    List<PurchaseOrderLine> purchaseOrderLineList =
-        purchaseOrderLineRepository
-            .all()
-            .filter(
-                "self.product.id in (?1) AND self.purchaseOrder.stockLocation in (?2) AND self.receiptState != ?3 "
-                    + "AND self.purchaseOrder.statusSelect IN (?4)",
-                productMap.keySet(),
-                this.stockLocationList,
-                PurchaseOrderRepository.STATE_RECEIVED,
-                statusList)
-            .fetch();
-
-    for (PurchaseOrderLine purchaseOrderLine : purchaseOrderLineList) {
+    List<Long> purchaseOrderLineIdList =
+        this.getIdList(
+            purchaseOrderLineRepository
+                .all()
+                .filter(
+                    "self.product.id in (?1) AND self.purchaseOrder.stockLocation in (?2) AND self.receiptState != ?3 "
+                        + "AND self.purchaseOrder.statusSelect IN (?4)",
+                    productMap.keySet(),
+                    this.stockLocationList,
+                    PurchaseOrderRepository.STATE_RECEIVED,
+                    statusList));
 
-      this.createPurchaseMrpLines(
-          mrpRepository.find(mrp.getId()),
-          purchaseOrderLineRepository.find(purchaseOrderLine.getId()),
-          mrpLineTypeRepository.find(purchaseOrderMrpLineType.getId()));
+    for (List<Long> idList : Lists.partition(purchaseOrderLineIdList, BATCH_SIZE)) {
+      this.createPurchaseMrpLines(idList, purchaseOrderMrpLineType.getId());
       JPA.clear();
     }
   }
 
+  @Transactional(rollbackOn = {Exception.class})
+  protected void createPurchaseMrpLines(
+      List<Long> purchaseOrderLineIdList, Long purchaseOrderMrpLineTypeId)
+      throws AxelorException {
+
+    Mrp mrp = mrpRepository.find(this.mrp.getId());
+    MrpLineType purchaseOrderMrpLineType = mrpLineTypeRepository.find(purchaseOrderMrpLineTypeId);
+
+    for (PurchaseOrderLine purchaseOrderLine :
+        purchaseOrderLineRepository
+            .all()
+            .filter("self.id in (?1)", purchaseOrderLineIdList)
+            .order("id")
+            .fetch()) {
+      this.createPurchaseMrpLines(mrp, purchaseOrderLine, purchaseOrderMrpLineType);
+    }
+  }
+
+  /**
+   * Get the ids of the records of the query, so that they can be processed by batches.
+   *
+   * @param query
+   * @return the ids sorted in ascending order
+   */
+  protected List<Long> getIdList(Query<? extends Model> query) {
+    return query.order("id").select("id").fetch(0, 0).stream()
+        .map(map -> (Long) map.get("id"))
+        .collect(Collectors.toList());
+  }
+
   @Transactional(rollbackOn = {Exception.class})
   protected void createPurchaseMrpLines(
       Mrp mrp, PurchaseOrderLine purchaseOrderLine, MrpLineType purchaseOrderMrpLineType)
@@ -876,7 +1306,6 @@ public class MrpServiceImpl implements MrpService {
 
       // For each MrpLineType found, fetch saleOrderLines and generate mrpLines
       for (MrpLineType saleOrderMrpLineType : saleOrderMrpLineTypeList) {
-        saleOrderLineList = new ArrayList<>();
 
         List<Integer> statusList =
             StringHelper.getIntegerList(saleOrderMrpLineType.getStatusSelect());
@@ -894,29 +1323,20 @@ public class MrpServiceImpl implements MrpService {
           filter += "AND self.saleOrder.oneoffSale IS TRUE";
         }
 
-        saleOrderLineList.addAll(
-            saleOrderLineRepository
-                .all()
-                .filter(
-                    filter,
-                    productMap.keySet(),
-                    this.stockLocationList,
-                    SaleOrderLineRepository.DELIVERY_STATE_DELIVERED,
-                    statusList)
-                .fetch());
-
-        for (SaleOrderLine saleOrderLine : saleOrderLineList) {
-
-          if (saleOrderLine.getSaleOrder() != null
-              && mrpSaleOrderCheckLateSaleService.checkLateSalesParameter(
-                  saleOrderLine, saleOrderMrpLineType)) {
-            this.createSaleOrderMrpLines(
-                mrpRepository.find(mrp.getId()),
-                saleOrderLineRepository.find(saleOrderLine.getId()),
-                mrpLineTypeRepository.find(saleOrderMrpLineType.getId()),
-                statusList);
-            JPA.clear();
-          }
+        List<Long> saleOrderLineIdList =
+            this.getIdList(
+                saleOrderLineRepository
+                    .all()
+                    .filter(
+                        filter,
+                        productMap.keySet(),
+                        this.stockLocationList,
+                        SaleOrderLineRepository.DELIVERY_STATE_DELIVERED,
+                        statusList));
+
+        for (List<Long> idList : Lists.partition(saleOrderLineIdList, BATCH_SIZE)) {
+          this.createSaleOrderMrpLines(idList, saleOrderMrpLineType.getId(), statusList);
+          JPA.clear();
         }
       }
       // If the MRP's list of saleOrderLines is not empty, treat all the selected lines instead
@@ -964,6 +1384,28 @@ public class MrpServiceImpl implements MrpService {
     }
   }
 
+  @Transactional(rollbackOn = {Exception.class})
+  protected void createSaleOrderMrpLines(
+      List<Long> saleOrderLineIdList, Long saleOrderMrpLineTypeId, List<Integer> statusList)
+      throws AxelorException {
+
+    Mrp mrp = mrpRepository.find(this.mrp.getId());
+    MrpLineType saleOrderMrpLineType = mrpLineTypeRepository.find(saleOrderMrpLineTypeId);
+
+    for (SaleOrderLine saleOrderLine :
+        saleOrderLineRepository
+            .all()
+            .filter("self.id in (?1)", saleOrderLineIdList)
+            .order("id")
+            .fetch()) {
+      if (saleOrderLine.getSaleOrder() != null
+          && mrpSaleOrderCheckLateSaleService.checkLateSalesParameter(
+              saleOrderLine, saleOrderMrpLineType)) {
+        this.createSaleOrderMrpLines(mrp, saleOrderLine, saleOrderMrpLineType, statusList);
+      }
+    }
+  }
+
   @Transactional(rollbackOn = {Exception.class})
   protected void createSaleOrderMrpLines(
       Mrp mrp,
@@ -1036,37 +1478,51 @@ public class MrpServiceImpl implements MrpService {
       return;
     }
 
-    List<MrpForecast> mrpForecastList = new ArrayList<>();
+    List<Long> mrpForecastIdList;
 
     mrp = mrpRepository.find(mrp.getId());
 
     if (mrp.getMrpForecastSet().isEmpty()) {
 
-      mrpForecastList.addAll(
-          mrpForecastRepository
-              .all()
-              .filter(
-                  "self.product.id in (?1) AND self.stockLocation in (?2) AND self.forecastDate >= ?3 AND self.statusSelect = ?4",
-                  productMap.keySet(),
-                  this.stockLocationList,
-                  today,
-                  MrpForecastRepository.STATUS_CONFIRMED)
-              .fetch());
+      mrpForecastIdList =
+          this.getIdList(
+              mrpForecastRepository
+                  .all()
+                  .filter(
+                      "self.product.id in (?1) AND self.stockLocation in (?2) AND self.forecastDate >= ?3 AND self.statusSelect = ?4",
+                      productMap.keySet(),
+                      this.stockLocationList,
+                      today,
+                      MrpForecastRepository.STATUS_CONFIRMED));
 
     } else {
-      mrpForecastList.addAll(mrp.getMrpForecastSet());
+      mrpForecastIdList =
+          mrp.getMrpForecastSet().stream().map(MrpForecast::getId).collect(Collectors.toList());
     }
 
-    for (MrpForecast mrpForecast : mrpForecastList) {
-
-      this.createSaleForecastMrpLines(
-          mrpRepository.find(mrp.getId()),
-          mrpForecastRepository.find(mrpForecast.getId()),
-          mrpLineTypeRepository.find(saleForecastMrpLineType.getId()));
+    for (List<Long> idList : Lists.partition(mrpForecastIdList, BATCH_SIZE)) {
+      this.createSaleForecastMrpLines(idList, saleForecastMrpLineType.getId());
       JPA.clear();
     }
   }
 
+  @Transactional(rollbackOn = {Exception.class})
+  protected void createSaleForecastMrpLines(
+      List<Long> mrpForecastIdList, Long saleForecastMrpLineTypeId) throws AxelorException {
+
+    Mrp mrp = mrpRepository.find(this.mrp.getId());
+    MrpLineType saleForecastMrpLineType = mrpLineTypeRepository.find(saleForecastMrpLineTypeId);
+
+    for (MrpForecast mrpForecast :
+        mrpForecastRepository
+            .all()
+            .filter("self.id in (?1)", mrpForecastIdList)
+            .order("id")
+            .fetch()) {
+      this.createSaleForecastMrpLines(mrp, mrpForecast, saleForecastMrpLineType);
+    }
+  }
+
   protected void createStockHistoryMrpLines() throws AxelorException {
     this.createStockHistoryMrpLines(this.productMap);
   }
@@ -1082,18 +1538,27 @@ public class MrpServiceImpl implements MrpService {
 
     this.mrp = mrpRepository.find(mrp.getId());
 
-    for (Long productId : productMap.keySet()) {
-      Product product = productRepository.find(productId);
-      Mrp mrp = mrpRepository.find(this.mrp.getId());
-      this.createStockHistoryWeigthedLine(
-          product,
-          mrp,
-          mrpLineTypeRepository.find(stockHistoryMrpLineType.getId()),
-          stockLocationRepository.find(mrp.getStockLocation().getId()));
+    for (List<Long> productIdList :
+        Lists.partition(new ArrayList<>(productMap.keySet()), BATCH_SIZE)) {
+      this.createStockHistoryMrpLines(productIdList, stockHistoryMrpLineType.getId());
       JPA.clear();
     }
   }
 
+  @Transactional(rollbackOn = {Exception.class})
+  protected void createStockHistoryMrpLines(
+      List<Long> productIdList, Long stockHistoryMrpLineTypeId) throws AxelorException {
+
+    Mrp mrp = mrpRepository.find(this.mrp.getId());
+    MrpLineType stockHistoryMrpLineType = mrpLineTypeRepository.find(stockHistoryMrpLineTypeId);
+    StockLocation stockLocation = stockLocationRepository.find(mrp.getStockLocation().getId());
+
+    for (Long productId : productIdList) {
+      this.createStockHistoryWeigthedLine(
+          productRepository.find(productId), mrp, stockHistoryMrpLineType, stockLocation);
+    }
+  }
+
   @Transactional(rollbackOn = {Exception.class})
   protected void createStockHistoryWeigthedLine(
       Product product, Mrp mrp, MrpLineType mrpLineType, StockLocation stockLocation)
@@ -1318,31 +1783,84 @@ public class MrpServiceImpl implements MrpService {
       return;
     }
 
-    for (Long productId : productMap.keySet()) {
-      Mrp mrp = mrpRepository.find(this.mrp.getId());
+    for (List<Long> productIdList :
+        Lists.partition(new ArrayList<>(productMap.keySet()), BATCH_SIZE)) {
+      this.createAvailableStockMrpLines(
+          productIdList,
+          this.getCurrentQtyMap(productIdList),
+          availableStockMrpLineType.getId());
+      JPA.clear();
+    }
+  }
+
+  @Transactional(rollbackOn = {Exception.class})
+  protected void createAvailableStockMrpLines(
+      List<Long> productIdList,
+      Map<Long, Map<Long, BigDecimal>> currentQtyMap,
+      Long availableStockMrpLineTypeId)
+      throws AxelorException {
+
+    Mrp mrp = mrpRepository.find(this.mrp.getId());
+    MrpLineType availableStockMrpLineType =
+        mrpLineTypeRepository.find(availableStockMrpLineTypeId);
+
+    for (Long productId : productIdList) {
+      Product product = productRepository.find(productId);
+      Map<Long, BigDecimal> productCurrentQtyMap =
+          currentQtyMap.getOrDefault(productId, Collections.emptyMap());
       if (mrp.getComputeWithSubStockLocation()) {
         for (StockLocation stockLocation : this.stockLocationList) {
           this.createAvailableStockMrpLine(
               mrp,
-              productRepository.find(productId),
+              product,
+              productCurrentQtyMap.getOrDefault(stockLocation.getId(), BigDecimal.ZERO),
               stockLocationRepository.find(stockLocation.getId()),
-              mrpLineTypeRepository.find(availableStockMrpLineType.getId()));
+              availableStockMrpLineType);
         }
       } else {
-        Product product = productRepository.find(productId);
-        StockLocation stockLocation = mrp.getStockLocation();
-        BigDecimal qty = computeTotalQuantityFromSubStockLocations(product);
+        BigDecimal qty =
+            productCurrentQtyMap.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
         this.createAvailableStockMrpLine(
             mrp,
             product,
             qty,
-            stockLocationRepository.find(stockLocation.getId()),
-            mrpLineTypeRepository.find(availableStockMrpLineType.getId()));
+            stockLocationRepository.find(mrp.getStockLocation().getId()),
+            availableStockMrpLineType);
       }
-      JPA.clear();
     }
   }
 
+  /**
+   * Load in one query the current quantity of the products in each stock location of the MRP.
+   *
+   * @param productIdList
+   * @return the current quantities by stock location id, by product id
+   */
+  protected Map<Long, Map<Long, BigDecimal>> getCurrentQtyMap(List<Long> productIdList) {
+    List<Object[]> resultList =
+        JPA.em()
+            .createQuery(
+                "SELECT self.product.id, self.stockLocation.id, self.currentQty "
+                    + "FROM StockLocationLine self "
+                    + "WHERE self.stockLocation in (:stockLocationList) "
+                    + "AND self.product.id in (:productIdList)",
+                Object[].class)
+            .setParameter("stockLocationList", this.stockLocationList)
+            .setParameter("productIdList", productIdList)
+            .getResultList();
+
+    Map<Long, Map<Long, BigDecimal>> currentQtyMap = new HashMap<>();
+    for (Object[] result : resultList) {
+      currentQtyMap
+          .computeIfAbsent((Long) result[0], productId -> new HashMap<>())
+          .merge(
+              (Long) result[1],
+              Optional.ofNullable((BigDecimal) result[2]).orElse(BigDecimal.ZERO),
+              BigDecimal::add);
+    }
+    return currentQtyMap;
+  }
+
   protected BigDecimal computeTotalQuantityFromSubStockLocations(Product product) {
     return Optional.ofNullable(
             JPA.em()
@@ -1484,7 +2002,7 @@ public class MrpServiceImpl implements MrpService {
 
   protected void assignProductAndLevel(Set<Product> productList) throws AxelorException {
 
-    productMap = Maps.newHashMap();
+    productMap = Collections.synchronizedMap(new HashMap<>());
 
     for (Product product : productList) {
 
@@ -1516,9 +2034,8 @@ public class MrpServiceImpl implements MrpService {
             I18n.get(SupplychainExceptionMessage.MRP_NO_PRODUCT_UNIT),
             product.getFullName());
       }
-      if (!this.productMap.containsKey(product.getId())) {
-        int nextLevel = currentLevel + 1;
-        this.productMap.put(product.getId(), nextLevel);
+      int nextLevel = currentLevel + 1;
+      if (this.productMap.putIfAbsent(product.getId(), nextLevel) == null) {
         this.productMapToBeAssigned.put(product.getId(), nextLevel);
       }
       return mrpLineService.createMrpLine(
@@ -20,33 +20,67 @@ package com.axelor.apps.supplychain.service;
 
 import com.axelor.apps.base.AxelorException;
 import com.axelor.apps.base.db.Company;
+import com.axelor.apps.base.db.Partner;
 import com.axelor.apps.base.db.Product;
+import com.axelor.apps.base.db.Unit;
 import com.axelor.apps.base.db.repo.CompanyRepository;
 import com.axelor.apps.base.db.repo.ProductRepository;
 import com.axelor.apps.stock.db.StockLocation;
 import com.axelor.apps.stock.db.repo.StockLocationRepository;
 import com.axelor.apps.supplychain.db.Mrp;
 import com.axelor.apps.supplychain.db.MrpLine;
+import com.axelor.apps.supplychain.db.MrpLineType;
 import com.axelor.apps.supplychain.db.repo.MrpLineRepository;
 import com.axelor.apps.supplychain.db.repo.MrpRepository;
+import com.axelor.db.JPA;
 import com.axelor.inject.Beans;
 import com.axelor.rpc.Context;
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import javax.persistence.EntityTransaction;
 
 public class ProjectedStockServiceImpl implements ProjectedStockService {
 
   @Inject StockLocationRepository stockLocationRepository;
 
-  @Transactional(rollbackOn = {Exception.class})
   @Override
   public List<MrpLine> createProjectedStock(Long productId, Long companyId, Long stockLocationId)
       throws AxelorException {
+    EntityTransaction transaction = JPA.em().getTransaction();
+
+    if (transaction.isActive()) {
+      List<MrpLine> mrpLineList = computeProjectedStock(productId, companyId, stockLocationId);
+      List<MrpLine> projectedMrpLineList = getProjectedMrpLineList(mrpLineList);
+      removeMrpAndMrpLine(mrpLineList);
+      return projectedMrpLineList;
+    }
+
+    // The MRP computing the projection saves its lines, so it is run in a transaction which is
+    // always rolled back: neither the MRP nor its lines are ever committed.
+    List<MrpLine> projectedMrpLineList;
+    transaction.begin();
+    try {
+      projectedMrpLineList =
+          getProjectedMrpLineList(computeProjectedStock(productId, companyId, stockLocationId));
+    } finally {
+      transaction.rollback();
+      JPA.clear();
+    }
+
+    for (MrpLine mrpLine : projectedMrpLineList) {
+      attachReferences(mrpLine);
+    }
+    return projectedMrpLineList;
+  }
+
+  protected List<MrpLine> computeProjectedStock(
+      Long productId, Long companyId, Long stockLocationId) throws AxelorException {
     Product product = Beans.get(ProductRepository.class).find(productId);
     Company company = Beans.get(CompanyRepository.class).find(companyId);
     StockLocation stockLocation = stockLocationRepository.find(stockLocationId);
@@ -61,28 +95,48 @@ public class ProjectedStockServiceImpl implements ProjectedStockService {
     mrp = Beans.get(MrpRepository.class).save(mrp);
     mrp = Beans.get(MrpService.class).createProjectedStock(mrp, product, company, stockLocation);
 
-    List<MrpLine> mrpLineList =
-        Beans.get(MrpLineRepository.class)
-            .all()
-            .filter("self.mrp = ?1 AND self.product = ?2 AND self.qty != 0", mrp, product)
-            .order("maturityDate")
-            .order("mrpLineType.typeSelect")
-            .order("mrpLineType.sequence")
-            .order("id")
-            .fetch();
-
-    if (mrpLineList.isEmpty()) {
-      List<MrpLine> mrpLineListToDelete =
-          Beans.get(MrpLineRepository.class).all().filter("self.mrp = ?1", mrp).fetch();
-      removeMrpAndMrpLine(mrpLineListToDelete);
-      return Collections.emptyList();
-    }
+    return Beans.get(MrpLineRepository.class)
+        .all()
+        .filter("self.mrp = ?1 AND self.product = ?2 AND self.qty != 0", mrp, product)
+        .order("maturityDate")
+        .order("mrpLineType.typeSelect")
+        .order("mrpLineType.sequence")
+        .order("id")
+        .fetch();
+  }
+
+  /** Copy the lines of the projection into lines which are not linked to the MRP. */
+  protected List<MrpLine> getProjectedMrpLineList(List<MrpLine> mrpLineList) {
+    MrpLineRepository mrpLineRepository = Beans.get(MrpLineRepository.class);
+    List<MrpLine> projectedMrpLineList = new ArrayList<>();
 
     for (MrpLine mrpLine : mrpLineList) {
-      mrpLine.setCompany(mrpLine.getStockLocation().getCompany());
-      mrpLine.setUnit(mrpLine.getProduct().getUnit());
+      MrpLine projectedMrpLine = mrpLineRepository.copy(mrpLine, false);
+      projectedMrpLine.setMrp(null);
+      projectedMrpLine.setCompany(mrpLine.getStockLocation().getCompany());
+      projectedMrpLine.setUnit(mrpLine.getProduct().getUnit());
+      projectedMrpLineList.add(projectedMrpLine);
+    }
+    return projectedMrpLineList;
+  }
+
+  /** Replace the references of a projected line, detached by the rollback, by managed records. */
+  protected void attachReferences(MrpLine mrpLine) {
+    mrpLine.setProduct(JPA.find(Product.class, mrpLine.getProduct().getId()));
+    mrpLine.setStockLocation(JPA.find(StockLocation.class, mrpLine.getStockLocation().getId()));
+    mrpLine.setMrpLineType(JPA.find(MrpLineType.class, mrpLine.getMrpLineType().getId()));
+    if (mrpLine.getCompany() != null) {
+      mrpLine.setCompany(JPA.find(Company.class, mrpLine.getCompany().getId()));
+    }
+    if (mrpLine.getUnit() != null) {
+      mrpLine.setUnit(JPA.find(Unit.class, mrpLine.getUnit().getId()));
+    }
+    if (mrpLine.getPartner() != null) {
+      mrpLine.setPartner(JPA.find(Partner.class, mrpLine.getPartner().getId()));
+    }
+    if (mrpLine.getSupplierPartner() != null) {
+      mrpLine.setSupplierPartner(JPA.find(Partner.class, mrpLine.getSupplierPartner().getId()));
     }
-    return mrpLineList;
   }
 
   protected StockLocation findStockLocation(Company company, StockLocation stockLocation) {
@@ -147,7 +201,9 @@ public class ProjectedStockServiceImpl implements ProjectedStockService {
   @Transactional(rollbackOn = {Exception.class})
   @Override
   public void removeMrpAndMrpLine(List<MrpLine> mrpLineList) {
-    if (mrpLineList != null && !mrpLineList.isEmpty()) {
+    if (mrpLineList != null
+        && !mrpLineList.isEmpty()
+        && mrpLineList.get(0).getMrp() != null) {
       Long mrpId = mrpLineList.get(0).getMrp().getId();
       Beans.get(MrpLineRepository.class).all().filter("self.mrp.id = ?1", mrpId).remove();
       Beans.get(MrpRepository.class).all().filter("self.id = ?1", mrpId).remove();
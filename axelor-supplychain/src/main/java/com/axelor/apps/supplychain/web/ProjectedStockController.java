@@ -26,7 +26,6 @@ import com.axelor.apps.sale.db.SaleOrderLine;
 import com.axelor.apps.stock.db.StockLocationLine;
 import com.axelor.apps.stock.service.StockLocationLineService;
 import com.axelor.apps.supplychain.db.MrpLine;
-import com.axelor.apps.supplychain.service.MrpLineService;
 import com.axelor.apps.supplychain.service.ProjectedStockService;
 import com.axelor.apps.supplychain.service.PurchaseOrderStockService;
 import com.axelor.apps.supplychain.service.SaleOrderLineServiceSupplyChain;
@@ -178,26 +177,18 @@ public class ProjectedStockController {
       if (mapId == null || mapId.get("productId") == 0L) {
         return;
       }
-      final List<MrpLine> mrpLineList = new ArrayList<>();
-      try {
-        mrpLineList.addAll(
-            projectedStockService.createProjectedStock(
-                mapId.get("productId"), mapId.get("companyId"), mapId.get("stockLocationId")));
-        response.setView(
-            ActionView.define(I18n.get("Projected stock"))
-                .model(MrpLine.class.getName())
-                .add("form", "projected-stock-form")
-                .param("popup", "true")
-                .param("popup-save", "false")
-                .param("popup.maximized", "true")
-                .context(
-                    "_mrpLineList", Beans.get(MrpLineService.class).getMrpLineListCopy(mrpLineList))
-                .map());
-      } catch (Exception e) {
-        TraceBackService.trace(response, e);
-      } finally {
-        projectedStockService.removeMrpAndMrpLine(mrpLineList);
-      }
+      List<MrpLine> mrpLineList =
+          projectedStockService.createProjectedStock(
+              mapId.get("productId"), mapId.get("companyId"), mapId.get("stockLocationId"));
+      response.setView(
+          ActionView.define(I18n.get("Projected stock"))
+              .model(MrpLine.class.getName())
+              .add("form", "projected-stock-form")
+              .param("popup", "true")
+              .param("popup-save", "false")
+              .param("popup.maximized", "true")
+              .context("_mrpLineList", mrpLineList)
+              .map());
     } catch (Exception e) {
       TraceBackService.trace(response, e);
     }
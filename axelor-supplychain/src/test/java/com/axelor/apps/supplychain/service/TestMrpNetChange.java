@@ -0,0 +1,102 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2024 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.supplychain.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+import com.axelor.apps.base.db.Company;
+import com.axelor.apps.base.service.app.AppBaseService;
+import com.axelor.apps.stock.db.StockLocation;
+import com.axelor.apps.supplychain.db.Mrp;
+import com.axelor.apps.supplychain.db.repo.MrpRepository;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TestMrpNetChange {
+
+  private static final LocalDateTime START_DATE_TIME = LocalDateTime.of(2024, 3, 4, 10, 0);
+  private static final LocalDateTime END_DATE_TIME = START_DATE_TIME.plusMinutes(5);
+
+  private MrpServiceImpl mrpService;
+  private Mrp mrp;
+
+  @BeforeEach
+  void prepare() {
+    mrpService = mock(MrpServiceImpl.class);
+    mrpService.appBaseService = mock(AppBaseService.class);
+    when(mrpService.appBaseService.getTodayDate(any(Company.class)))
+        .thenReturn(START_DATE_TIME.toLocalDate());
+    when(mrpService.isMrpLineTypeChangedSince(START_DATE_TIME)).thenReturn(false);
+    doCallRealMethod().when(mrpService).isNetChangePossible(any(Mrp.class));
+
+    StockLocation stockLocation = new StockLocation();
+    stockLocation.setCompany(new Company());
+    mrp = spy(new Mrp());
+    mrp.setStockLocation(stockLocation);
+    mrp.setNetChange(true);
+    mrp.setStatusSelect(MrpRepository.STATUS_CALCULATION_ENDED);
+    mrp.setStartDateTime(START_DATE_TIME);
+    mrp.setEndDateTime(END_DATE_TIME);
+    doReturn(END_DATE_TIME).when(mrp).getUpdatedOn();
+  }
+
+  @Test
+  void testNetChangePossible() {
+    Assertions.assertTrue(mrpService.isNetChangePossible(mrp));
+  }
+
+  @Test
+  void testFullRunWhenNotAsked() {
+    mrp.setNetChange(false);
+    Assertions.assertFalse(mrpService.isNetChangePossible(mrp));
+  }
+
+  @Test
+  void testFullRunWhenPreviousCalculationNotEnded() {
+    mrp.setStatusSelect(MrpRepository.STATUS_DRAFT);
+    Assertions.assertFalse(mrpService.isNetChangePossible(mrp));
+  }
+
+  @Test
+  void testFullRunOnAnotherDay() {
+    when(mrpService.appBaseService.getTodayDate(any(Company.class)))
+        .thenReturn(LocalDate.of(2024, 3, 5));
+    Assertions.assertFalse(mrpService.isNetChangePossible(mrp));
+  }
+
+  @Test
+  void testFullRunWhenMrpUpdatedAfterCalculation() {
+    doReturn(END_DATE_TIME.plusSeconds(1)).when(mrp).getUpdatedOn();
+    Assertions.assertFalse(mrpService.isNetChangePossible(mrp));
+  }
+
+  @Test
+  void testFullRunWhenMrpLineTypeChanged() {
+    when(mrpService.isMrpLineTypeChangedSince(START_DATE_TIME)).thenReturn(true);
+    Assertions.assertFalse(mrpService.isNetChangePossible(mrp));
+  }
+}